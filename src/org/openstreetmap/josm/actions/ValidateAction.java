@@ -6,7 +6,6 @@ import static org.openstreetmap.josm.tools.I18n.tr;
 import java.awt.event.ActionEvent;
 import java.awt.event.KeyEvent;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
@@ -16,6 +15,7 @@ import org.openstreetmap.josm.data.preferences.sources.ValidatorPrefHelper;
 import org.openstreetmap.josm.data.validation.OsmValidator;
 import org.openstreetmap.josm.data.validation.Test;
 import org.openstreetmap.josm.data.validation.TestError;
+import org.openstreetmap.josm.data.validation.ValidationEngine;
 import org.openstreetmap.josm.data.validation.util.AggregatePrimitivesVisitor;
 import org.openstreetmap.josm.gui.MainApplication;
 import org.openstreetmap.josm.gui.MapFrame;
@@ -153,21 +153,13 @@ public class ValidateAction extends JosmAction {
         OsmTransferException {
             if (tests == null || tests.isEmpty())
                 return;
-            errors = new ArrayList<>(200);
             getProgressMonitor().setTicksCount(tests.size() * validatedPrimitives.size());
-            int testCounter = 0;
             for (Test test : tests) {
-                if (canceled)
-                    return;
-                testCounter++;
-                getProgressMonitor().setCustomText(tr("Test {0}/{1}: Starting {2}", testCounter, tests.size(), test.getName()));
                 test.setPartialSelection(formerValidatedPrimitives != null);
-                test.startTest(getProgressMonitor().createSubTaskMonitor(validatedPrimitives.size(), false));
-                test.visit(validatedPrimitives);
-                test.endTest();
-                errors.addAll(test.getErrors());
-                test.clear();
             }
+            errors = ValidationEngine.runTests(tests, validatedPrimitives, getProgressMonitor());
+            if (canceled)
+                return;
             tests = null;
             if (ValidatorPrefHelper.PREF_USE_IGNORE.get()) {
                 getProgressMonitor().setCustomText("");
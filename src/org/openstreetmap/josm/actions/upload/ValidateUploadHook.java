@@ -5,7 +5,6 @@ import static org.openstreetmap.josm.tools.I18n.tr;
 
 import java.awt.Dimension;
 import java.awt.GridBagLayout;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
@@ -19,6 +18,7 @@ import org.openstreetmap.josm.data.validation.OsmValidator;
 import org.openstreetmap.josm.data.validation.Severity;
 import org.openstreetmap.josm.data.validation.Test;
 import org.openstreetmap.josm.data.validation.TestError;
+import org.openstreetmap.josm.data.validation.ValidationEngine;
 import org.openstreetmap.josm.data.validation.util.AggregatePrimitivesVisitor;
 import org.openstreetmap.josm.gui.ExtendedDialog;
 import org.openstreetmap.josm.gui.MainApplication;
@@ -58,23 +58,13 @@ public class ValidateUploadHook implements UploadHook {
         v.visit(apiDataSet.getPrimitivesToAdd());
         Collection<OsmPrimitive> selection = v.visit(apiDataSet.getPrimitivesToUpdate());
 
-        List<TestError> errors = new ArrayList<>(30);
         for (Test test : tests) {
             test.setBeforeUpload(true);
             test.setPartialSelection(true);
-            test.startTest(null);
-            test.visit(selection);
-            test.endTest();
-            if (ValidatorPrefHelper.PREF_OTHER.get() && ValidatorPrefHelper.PREF_OTHER_UPLOAD.get()) {
-                errors.addAll(test.getErrors());
-            } else {
-                for (TestError e : test.getErrors()) {
-                    if (e.getSeverity() != Severity.OTHER) {
-                        errors.add(e);
-                    }
-                }
-            }
-            test.clear();
+        }
+        List<TestError> errors = ValidationEngine.runTests(tests, selection, null);
+        if (!ValidatorPrefHelper.PREF_OTHER.get() || !ValidatorPrefHelper.PREF_OTHER_UPLOAD.get()) {
+            errors.removeIf(e -> e.getSeverity() == Severity.OTHER);
         }
 
         if (ValidatorPrefHelper.PREF_USE_IGNORE.get()) {
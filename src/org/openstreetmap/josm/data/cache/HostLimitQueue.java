@@ -9,8 +9,11 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.openstreetmap.josm.tools.Logging;
+import org.openstreetmap.josm.tools.Pair;
 
 /**
  * Queue for ThreadPoolExecutor that implements per-host limit. It will acquire a semaphore for each task
@@ -21,8 +24,13 @@ import org.openstreetmap.josm.tools.Logging;
  * [1] More connection per host may happen, when ThreadPoolExecutor is growing its pool, and thus
  *     tasks do not go through the Queue <br>
  * [2] If we have a queue, and for all hosts in queue we will fail to acquire semaphore, the thread
- *     take the first available job and wait for semaphore. It might be the case, that semaphore was released
+ *     takes the job that would be run first and waits for its semaphore. It might be the case, that semaphore was released
  *     for some task further in queue, but this implementation doesn't try to detect such situation
+ * <p>
+ * Among the jobs whose host has a free connection, the queue takes first the job of the requester (e.g. the layer) that
+ * has the fewest connections to the host, then the job with the lowest {@linkplain JCSCachedTileLoaderJob#setScheduling priority}.
+ * Jobs marked as {@linkplain JCSCachedTileLoaderJob#isPrefetch() prefetch} jobs are taken only when no other job can be run.
+ * Jobs that are not needed anymore are cancelled when they are encountered.
  *
  * @author Wiktor Niesiobędzki
  */
@@ -30,6 +38,11 @@ public class HostLimitQueue extends LinkedBlockingDeque<Runnable> {
     private static final long serialVersionUID = 1L;
 
     private final Map<String, Semaphore> hostSemaphores = new ConcurrentHashMap<>();
+    /** number of running jobs per host and owner */
+    private final Map<Pair<String, Object>, AtomicInteger> running = new ConcurrentHashMap<>();
+    private final LongAdder takenCount = new LongAdder();
+    private final LongAdder cancelledCount = new LongAdder();
+    private final LongAdder waitTime = new LongAdder();
     private final int hostLimit;
 
     /**
@@ -51,44 +64,140 @@ public class HostLimitQueue extends LinkedBlockingDeque<Runnable> {
         this.hostLimit = hostLimit;
     }
 
-    private JCSCachedTileLoaderJob<?, ?> findJob() {
+    /**
+     * Selects the next job to run, without removing it from the queue. Jobs that are not needed anymore are cancelled.
+     * @param freeHostOnly if {@code true}, only the jobs whose host has a free connection are considered
+     * @return the next job to run, or {@code null}
+     */
+    private JCSCachedTileLoaderJob<?, ?> selectJob(boolean freeHostOnly) {
+        JCSCachedTileLoaderJob<?, ?> best = null;
+        int bestRunning = 0;
+        int bestPriority = 0;
         for (Iterator<Runnable> it = iterator(); it.hasNext();) {
             Runnable r = it.next();
-            if (r instanceof JCSCachedTileLoaderJob) {
-                JCSCachedTileLoaderJob<?, ?> job = (JCSCachedTileLoaderJob<?, ?>) r;
-                if (tryAcquireSemaphore(job)) {
-                    if (remove(job)) {
-                        return job;
-                    } else {
-                        // we have acquired the semaphore, but we didn't manage to remove job, as someone else did
-                        // release the semaphore and look for another candidate
-                        releaseSemaphore(job);
-                    }
-                } else {
-                    URL url = null;
-                    try {
-                        url = job.getUrl();
-                    } catch (IOException e) {
-                        Logging.debug(e);
-                    }
-                    Logging.debug("TMS - Skipping job {0} because host limit reached", url);
+            if (!(r instanceof JCSCachedTileLoaderJob)) {
+                continue;
+            }
+            JCSCachedTileLoaderJob<?, ?> job = (JCSCachedTileLoaderJob<?, ?>) r;
+            if (!job.isNeeded()) {
+                if (super.remove(job)) {
+                    cancelledCount.increment();
+                    job.handleJobCancellation();
                 }
+                continue;
+            }
+            if (freeHostOnly && getSemaphore(job).availablePermits() == 0) {
+                Logging.debug("TMS - Skipping job {0} because host limit reached", getUrl(job));
+                continue;
+            }
+            if (best != null && job.isPrefetch() && !best.isPrefetch()) {
+                continue;
+            }
+            int running = getRunning(job);
+            int priority = job.getPriority();
+            if (best == null || (best.isPrefetch() && !job.isPrefetch()) || running < bestRunning
+                    || (running == bestRunning && priority < bestPriority)) {
+                best = job;
+                bestRunning = running;
+                bestPriority = priority;
             }
         }
+        return best;
+    }
+
+    private JCSCachedTileLoaderJob<?, ?> findJob() {
+        JCSCachedTileLoaderJob<?, ?> best = selectJob(true);
+        if (best != null && getSemaphore(best).tryAcquire()) {
+            if (super.remove(best)) {
+                jobTaken(best);
+                return best;
+            }
+            // we have acquired the semaphore, but we didn't manage to remove job, as someone else did
+            getSemaphore(best).release();
+        }
         return null;
     }
 
     @Override
-    public Runnable poll(long timeout, TimeUnit unit) throws InterruptedException {
-        Runnable job = findJob();
-        if (job != null) {
-            return job;
+    public boolean offer(Runnable e) {
+        if (e instanceof JCSCachedTileLoaderJob) {
+            ((JCSCachedTileLoaderJob<?, ?>) e).queuedTime = System.nanoTime();
+        }
+        return super.offer(e);
+    }
+
+    /**
+     * Removes a job from the queue, for instance when it is cancelled by {@link java.util.concurrent.ThreadPoolExecutor#remove}.
+     */
+    @Override
+    public boolean remove(Object o) {
+        boolean removed = super.remove(o);
+        if (removed && o instanceof JCSCachedTileLoaderJob) {
+            cancelledCount.increment();
         }
-        job = pollFirst(timeout, unit);
-        if (job != null) {
+        return removed;
+    }
+
+    @Override
+    public Runnable poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return nextJob(true, unit.toNanos(timeout));
+    }
+
+    @Override
+    public Runnable take() throws InterruptedException {
+        Runnable job;
+        do {
+            job = nextJob(false, 0);
+        } while (job == null);
+        return job;
+    }
+
+    /**
+     * Takes the next job, waiting for a job to be queued and for its host to have a free connection if necessary.
+     * @param timed if the wait is limited by {@code nanos}
+     * @param nanos how long to wait, in nanoseconds
+     * @return the next job, or {@code null} if none could be taken within the given time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private Runnable nextJob(boolean timed, long nanos) throws InterruptedException {
+        final long deadline = timed ? System.nanoTime() + nanos : 0;
+        while (true) {
+            Runnable job = findJob();
+            if (job != null) {
+                return job;
+            }
+            job = timed ? pollFirst(deadline - System.nanoTime(), TimeUnit.NANOSECONDS) : takeFirst();
+            if (job == null) {
+                return null;
+            } else if (!(job instanceof JCSCachedTileLoaderJob)) {
+                return job;
+            }
+            // put the job back, so that the next job is chosen among all the queued ones as in findJob
+            if (offerFirst(job)) {
+                job = findJob();
+                if (job != null) {
+                    return job;
+                }
+                // all hosts are busy: wait for the host of the next job
+                job = selectJob(false);
+                if (job == null || !super.remove(job)) {
+                    // taken or cancelled meanwhile
+                    continue;
+                }
+            } else if (!((JCSCachedTileLoaderJob<?, ?>) job).isNeeded()) {
+                cancelledCount.increment();
+                ((JCSCachedTileLoaderJob<?, ?>) job).handleJobCancellation();
+                continue;
+            }
             try {
-                boolean gotLock = tryAcquireSemaphore(job, timeout, unit);
-                return gotLock ? job : null;
+                if (timed ? tryAcquireSemaphore(job, deadline - System.nanoTime(), TimeUnit.NANOSECONDS) : acquireSemaphore(job)) {
+                    return job;
+                }
+                // the host is still busy, put the job back at its place
+                if (!offerFirst(job)) {
+                    Logging.warn("Unable to offer back " + job);
+                }
+                return null;
             } catch (InterruptedException e) {
                 // acquire my got interrupted, first offer back what was taken
                 if (!offer(job)) {
@@ -97,26 +206,80 @@ public class HostLimitQueue extends LinkedBlockingDeque<Runnable> {
                 throw e;
             }
         }
-        return job;
     }
 
-    @Override
-    public Runnable take() throws InterruptedException {
-        Runnable job = findJob();
-        if (job != null) {
-            return job;
-        }
-        job = takeFirst();
+    /**
+     * Returns the number of jobs taken from the queue so far.
+     * @return the number of jobs taken from the queue
+     * @since xxx
+     */
+    public long getTakenCount() {
+        return takenCount.sum();
+    }
+
+    /**
+     * Returns the number of jobs removed from the queue without being run, because they were cancelled or not needed anymore.
+     * @return the number of cancelled jobs
+     * @since xxx
+     */
+    public long getCancelledCount() {
+        return cancelledCount.sum();
+    }
+
+    /**
+     * Returns the average time the jobs spent in the queue before being run.
+     * @return the average wait time, in milliseconds
+     * @since xxx
+     */
+    public double getAverageWaitTime() {
+        long taken = takenCount.sum();
+        return taken == 0 ? 0 : waitTime.sum() / 1e6 / taken;
+    }
+
+    /**
+     * Returns the queue statistics.
+     * @return the queue statistics as string
+     * @since xxx
+     */
+    public String getStats() {
+        return String.format("depth: %d, average wait: %.0f ms, taken: %d, cancelled: %d",
+                size(), getAverageWaitTime(), getTakenCount(), getCancelledCount());
+    }
+
+    private static URL getUrl(JCSCachedTileLoaderJob<?, ?> job) {
         try {
-            acquireSemaphore(job);
-        } catch (InterruptedException e) {
-            // acquire my got interrupted, first offer back what was taken
-            if (!offer(job)) {
-                Logging.warn("Unable to offer back " + job);
-            }
-            throw e;
+            return job.getUrl();
+        } catch (IOException e) {
+            Logging.debug(e);
+            return null;
         }
-        return job;
+    }
+
+    private int getRunning(JCSCachedTileLoaderJob<?, ?> job) {
+        AtomicInteger count = running.get(getRunningKey(job));
+        return count != null ? count.get() : 0;
+    }
+
+    private Pair<String, Object> getRunningKey(JCSCachedTileLoaderJob<?, ?> job) {
+        URL url = getUrl(job);
+        return new Pair<>(url != null ? url.getHost() : null, job.getOwner());
+    }
+
+    /**
+     * Records that a job has been taken and acquired its semaphore, and releases the semaphore when the job finishes.
+     * @param job the job
+     */
+    private void jobTaken(final JCSCachedTileLoaderJob<?, ?> job) {
+        takenCount.increment();
+        if (job.queuedTime != 0) {
+            waitTime.add(System.nanoTime() - job.queuedTime);
+        }
+        final Pair<String, Object> key = getRunningKey(job);
+        running.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet();
+        job.setFinishedTask(() -> {
+            running.computeIfPresent(key, (k, count) -> count.decrementAndGet() > 0 ? count : null);
+            releaseSemaphore(job);
+        });
     }
 
     private Semaphore getSemaphore(JCSCachedTileLoaderJob<?, ?> job) {
@@ -134,24 +297,13 @@ public class HostLimitQueue extends LinkedBlockingDeque<Runnable> {
         return limit;
     }
 
-    private void acquireSemaphore(Runnable job) throws InterruptedException {
+    private boolean acquireSemaphore(Runnable job) throws InterruptedException {
         if (job instanceof JCSCachedTileLoaderJob) {
             final JCSCachedTileLoaderJob<?, ?> jcsJob = (JCSCachedTileLoaderJob<?, ?>) job;
             getSemaphore(jcsJob).acquire();
-            jcsJob.setFinishedTask(() -> releaseSemaphore(jcsJob));
-        }
-    }
-
-    private boolean tryAcquireSemaphore(final JCSCachedTileLoaderJob<?, ?> job) {
-        boolean ret = true;
-        Semaphore limit = getSemaphore(job);
-        if (limit != null) {
-            ret = limit.tryAcquire();
-            if (ret) {
-                job.setFinishedTask(() -> releaseSemaphore(job));
-            }
+            jobTaken(jcsJob);
         }
-        return ret;
+        return true;
     }
 
     private boolean tryAcquireSemaphore(Runnable job, long timeout, TimeUnit unit) throws InterruptedException {
@@ -162,7 +314,7 @@ public class HostLimitQueue extends LinkedBlockingDeque<Runnable> {
             if (limit != null) {
                 ret = limit.tryAcquire(timeout, unit);
                 if (ret) {
-                    jcsJob.setFinishedTask(() -> releaseSemaphore(jcsJob));
+                    jobTaken(jcsJob);
                 }
             }
         }
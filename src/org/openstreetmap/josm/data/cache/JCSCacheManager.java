@@ -45,9 +45,18 @@ public final class JCSCacheManager {
     private static final long maxObjectTTL = -1;
     private static final String PREFERENCE_PREFIX = "jcs.cache";
     public static final BooleanProperty USE_BLOCK_CACHE = new BooleanProperty(PREFERENCE_PREFIX + ".use_block_cache", true);
+    /**
+     * Use the {@link MappedDiskCache} instead of the JCS disk caches, regardless of {@link #USE_BLOCK_CACHE}.
+     * @since xxx
+     */
+    public static final BooleanProperty USE_MAPPED_CACHE = new BooleanProperty(PREFERENCE_PREFIX + ".use_mapped_cache", false);
+
+    private static final String BLOCK_CACHE_SUFFIX = "_BLOCK_v2";
+    private static final String INDEX_CACHE_SUFFIX = "_INDEX_v2";
+    private static final String MAPPED_CACHE_SUFFIX = "_MAPPED_v1";
 
-    private static final AuxiliaryCacheFactory DISK_CACHE_FACTORY =
-            USE_BLOCK_CACHE.get() ? new BlockDiskCacheFactory() : new IndexedDiskCacheFactory();
+    private static final AuxiliaryCacheFactory DISK_CACHE_FACTORY = USE_MAPPED_CACHE.get() ? new MappedDiskCacheFactory()
+            : USE_BLOCK_CACHE.get() ? new BlockDiskCacheFactory() : new IndexedDiskCacheFactory();
     private static FileLock cacheDirLock;
 
     /**
@@ -218,10 +227,15 @@ public final class JCSCacheManager {
 
     private static IDiskCacheAttributes getDiskCacheAttributes(int maxDiskObjects, String cachePath, String cacheName) {
         IDiskCacheAttributes ret;
-        removeStaleFiles(cachePath + File.separator + cacheName, USE_BLOCK_CACHE.get() ? "_INDEX_v2" : "_BLOCK_v2");
-        String newCacheName = cacheName + (USE_BLOCK_CACHE.get() ? "_BLOCK_v2" : "_INDEX_v2");
+        String suffix = USE_MAPPED_CACHE.get() ? MAPPED_CACHE_SUFFIX : USE_BLOCK_CACHE.get() ? BLOCK_CACHE_SUFFIX : INDEX_CACHE_SUFFIX;
+        removeStaleFiles(cachePath, cacheName, suffix);
+        String newCacheName = cacheName + suffix;
 
-        if (USE_BLOCK_CACHE.get()) {
+        if (USE_MAPPED_CACHE.get()) {
+            MappedDiskCacheAttributes mappedAttr = new MappedDiskCacheAttributes();
+            mappedAttr.setMaxSize(maxDiskObjects);
+            ret = mappedAttr;
+        } else if (USE_BLOCK_CACHE.get()) {
             BlockDiskCacheAttributes blockAttr = new BlockDiskCacheAttributes();
             /*
              * BlockDiskCache never optimizes the file, so when file size is reduced, it will never be truncated to desired size.
@@ -254,8 +268,16 @@ public final class JCSCacheManager {
         return ret;
     }
 
-    private static void removeStaleFiles(String basePathPart, String suffix) {
-        deleteCacheFiles(basePathPart + suffix);
+    private static void removeStaleFiles(String cachePath, String cacheName, String suffix) {
+        String basePathPart = cachePath + File.separator + cacheName;
+        for (String staleSuffix : new String[] {BLOCK_CACHE_SUFFIX, INDEX_CACHE_SUFFIX}) {
+            if (!staleSuffix.equals(suffix)) {
+                deleteCacheFiles(basePathPart + staleSuffix);
+            }
+        }
+        if (!MAPPED_CACHE_SUFFIX.equals(suffix)) {
+            MappedDiskCache.deleteFiles(new File(cachePath), cacheName + MAPPED_CACHE_SUFFIX);
+        }
     }
 
     private static void deleteCacheFiles(String basePathPart) {
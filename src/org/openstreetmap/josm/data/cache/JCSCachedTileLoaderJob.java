@@ -14,6 +14,8 @@ import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntSupplier;
 import java.util.regex.Matcher;
 
 import org.apache.commons.jcs.access.behavior.ICacheAccess;
@@ -93,6 +95,13 @@ public abstract class JCSCachedTileLoaderJob<K, V extends CacheEntry> implements
     private Runnable finishTask;
     private boolean force;
     private long minimumExpiryTime;
+    private volatile boolean prefetch;
+    private volatile String deduplicationKey;
+    private Object owner;
+    private IntSupplier priority;
+    private BooleanSupplier needed;
+    /** when the job was put in a {@link HostLimitQueue}, see {@link System#nanoTime()} */
+    long queuedTime;
 
     /**
      * @param cache cache instance that we will work on
@@ -154,6 +163,7 @@ public abstract class JCSCachedTileLoaderJob<K, V extends CacheEntry> implements
         synchronized (this) {
             first = !inProgress.containsKey(deduplicationKey);
         }
+        this.deduplicationKey = deduplicationKey;
         inProgress.computeIfAbsent(deduplicationKey, k -> ConcurrentHashMap.newKeySet()).add(listener);
 
         if (first || force) {
@@ -535,6 +545,68 @@ public abstract class JCSCachedTileLoaderJob<K, V extends CacheEntry> implements
 
     }
 
+    /**
+     * Sets whether this job only fetches data that is expected to be needed soon. Such jobs are taken from a {@link HostLimitQueue}
+     * only when no other job is available. Clearing the flag of a queued job promotes it to a regular job.
+     * @param prefetch {@code true} if this job is a prefetch job
+     * @since xxx
+     */
+    public void setPrefetch(boolean prefetch) {
+        this.prefetch = prefetch;
+    }
+
+    /**
+     * Determines whether this job only fetches data that is expected to be needed soon.
+     * @return {@code true} if this job is a prefetch job
+     * @since xxx
+     */
+    public boolean isPrefetch() {
+        return prefetch;
+    }
+
+    /**
+     * Sets how this job is scheduled while it waits in a {@link HostLimitQueue}.
+     * @param owner the object that requested the job, such as a layer. The connections to a host are shared fairly between the owners
+     * @param priority evaluates the priority of the job, jobs with lower values are run first
+     * @param needed evaluates whether the job is still needed. Queued jobs that are not needed by any requester anymore are cancelled
+     * @since xxx
+     */
+    public void setScheduling(Object owner, IntSupplier priority, BooleanSupplier needed) {
+        this.owner = owner;
+        this.priority = priority;
+        this.needed = needed;
+    }
+
+    Object getOwner() {
+        return owner;
+    }
+
+    int getPriority() {
+        return priority != null ? priority.getAsInt() : 0;
+    }
+
+    /**
+     * Determines if this job, or any job waiting for the same resource, is still needed.
+     * @return {@code true} if the job is still needed
+     */
+    boolean isNeeded() {
+        if (needed == null || needed.getAsBoolean()) {
+            return true;
+        }
+        Set<ICachedLoaderListener> listeners = deduplicationKey != null ? inProgress.get(deduplicationKey) : null;
+        if (listeners != null) {
+            for (ICachedLoaderListener l : listeners) {
+                if (l != this && l instanceof JCSCachedTileLoaderJob) {
+                    BooleanSupplier otherNeeded = ((JCSCachedTileLoaderJob<?, ?>) l).needed;
+                    if (otherNeeded == null || otherNeeded.getAsBoolean()) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
     /**
      * Marks this job as canceled
      */
@@ -0,0 +1,707 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.commons.jcs.auxiliary.AuxiliaryCacheAttributes;
+import org.apache.commons.jcs.auxiliary.disk.AbstractDiskCache;
+import org.apache.commons.jcs.engine.CacheConstants;
+import org.apache.commons.jcs.engine.behavior.ICacheElement;
+import org.apache.commons.jcs.engine.behavior.IElementSerializer;
+import org.apache.commons.jcs.engine.stats.StatElement;
+import org.apache.commons.jcs.engine.stats.behavior.IStatElement;
+import org.apache.commons.jcs.engine.stats.behavior.IStats;
+import org.openstreetmap.josm.tools.Logging;
+import org.openstreetmap.josm.tools.Utils;
+
+/**
+ * JCS disk cache storing the elements in append-only segment files, read through memory mappings.
+ * <p>
+ * Each element is appended to the current segment file as a record made of its serialized key and element. An index
+ * in memory gives the location of the record of each key, in least recently used order. It is saved when the cache
+ * is disposed, and rebuilt from the segment files if the cache has not been disposed properly.
+ * <p>
+ * Unlike {@code BlockDiskCache}, the size of the files is bounded: when it exceeds the maximum size, the least recently
+ * used elements are removed, then the segments with the most unused space are compacted, i.e. their remaining records
+ * are copied to the current segment and their files are deleted.
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ * @since xxx
+ */
+public class MappedDiskCache<K, V> extends AbstractDiskCache<K, V> {
+
+    /** The magic number at the beginning of the index files */
+    private static final int INDEX_MAGIC = 0x4a4d4443;
+    /** The version of the format of the files, to be increased on each change of the format */
+    private static final int INDEX_VERSION = 1;
+    private static final String INDEX_EXTENSION = ".idx";
+    private static final String SEGMENT_EXTENSION = ".seg";
+    /** The size of the header of a record: the lengths of the key and of the element */
+    private static final int RECORD_HEADER_SIZE = 8;
+    /** The part of the maximum size used by the elements after the least recently used ones have been removed */
+    private static final double EVICTION_RATIO = 0.9;
+    private static final byte STRING_KEY = 0;
+    private static final byte SERIALIZED_KEY = 1;
+
+    private final MappedDiskCacheAttributes attributes;
+    private final File directory;
+    private final String fileName;
+    private final long maxSize;
+    private final int segmentSize;
+
+    /** Lock held for reading the segments, and exclusively for modifying them */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    /** The location of the record of each key in least recently used order, guarded by itself as reads reorder it */
+    private final LinkedHashMap<K, Slot> index = new LinkedHashMap<>(16, 0.75f, true);
+    /** The segments by identifier, the last one being the current segment */
+    private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+    /** The size of the records of the index */
+    private long liveBytes;
+    /** The size of the segment files */
+    private long totalBytes;
+
+    /**
+     * The location of a record.
+     */
+    private static final class Slot {
+        private final int segment;
+        private final int offset;
+        private final int length;
+
+        Slot(int segment, int offset, int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    /**
+     * A segment file. Records are appended to the current segment, the other ones are read only and mapped in memory.
+     */
+    private final class Segment {
+        private final int id;
+        private final File file;
+        private final FileChannel channel;
+        private volatile MappedByteBuffer buffer;
+        private boolean sealed;
+        private long length;
+        private long live;
+
+        Segment(int id) throws IOException {
+            this.id = id;
+            this.file = getSegmentFile(id);
+            this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.length = channel.size();
+        }
+
+        ByteBuffer read(int offset, int size) throws IOException {
+            if (offset < 0 || size < RECORD_HEADER_SIZE || offset + (long) size > length) {
+                throw new EOFException("Invalid record " + offset + '+' + size + " in " + file);
+            }
+            ByteBuffer result;
+            if (sealed) {
+                MappedByteBuffer mapped = buffer;
+                if (mapped == null) {
+                    synchronized (this) {
+                        if (buffer == null) {
+                            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+                        }
+                        mapped = buffer;
+                    }
+                }
+                result = mapped.duplicate();
+                result.limit(offset + size);
+                result.position(offset);
+            } else {
+                result = ByteBuffer.allocate(size);
+                if (!readFully(channel, result, offset)) {
+                    throw new EOFException(file.toString());
+                }
+                result.flip();
+            }
+            return result;
+        }
+
+        void write(ByteBuffer record) throws IOException {
+            long position = length;
+            while (record.hasRemaining()) {
+                position += channel.write(record, position);
+            }
+            totalBytes += position - length;
+            length = position;
+        }
+
+        void truncate(long newLength) throws IOException {
+            channel.truncate(newLength);
+            totalBytes -= length - newLength;
+            length = newLength;
+        }
+
+        void close() {
+            buffer = null;
+            try {
+                channel.close();
+            } catch (IOException e) {
+                Logging.warn(e);
+            }
+        }
+
+        void delete() {
+            close();
+            totalBytes -= length;
+            // a file still mapped cannot be deleted on Windows, it is ignored on next startup
+            if (!Utils.deleteFile(file)) {
+                file.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Constructs a new {@code MappedDiskCache} and opens its files.
+     * @param attributes the cache configuration
+     * @param elementSerializer the serializer of the elements
+     */
+    public MappedDiskCache(MappedDiskCacheAttributes attributes, IElementSerializer elementSerializer) {
+        super(attributes);
+        setElementSerializer(elementSerializer);
+        this.attributes = attributes;
+        this.directory = attributes.getDiskPath();
+        this.fileName = attributes.getCacheName();
+        this.maxSize = attributes.getMaxSize() > 0 ? attributes.getMaxSize() * 1024L : Long.MAX_VALUE;
+        this.segmentSize = attributes.getSegmentSize();
+        lock.writeLock().lock();
+        try {
+            open();
+            setAlive(true);
+        } catch (IOException | InvalidPathException | SecurityException e) {
+            Logging.log(Logging.LEVEL_WARN, "Unable to open disk cache " + fileName + " in " + directory, e);
+            segments.values().forEach(Segment::close);
+            segments.clear();
+            index.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Deletes the files of a cache.
+     * @param directory the directory of the cache
+     * @param cacheName the name of the cache
+     */
+    public static void deleteFiles(File directory, String cacheName) {
+        File[] files = directory.listFiles((dir, name) -> name.equals(cacheName + INDEX_EXTENSION)
+                || (name.startsWith(cacheName + '.') && name.endsWith(SEGMENT_EXTENSION)));
+        if (files != null) {
+            for (File file : files) {
+                Utils.deleteFile(file);
+            }
+        }
+    }
+
+    private File getIndexFile() {
+        return new File(directory, fileName + INDEX_EXTENSION);
+    }
+
+    private File getSegmentFile(int id) {
+        return new File(directory, fileName + '.' + id + SEGMENT_EXTENSION);
+    }
+
+    private void open() throws IOException {
+        if (directory == null) {
+            throw new IOException("No disk path");
+        }
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(fileName + '.') && name.endsWith(SEGMENT_EXTENSION));
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                try {
+                    int id = Integer.parseInt(name.substring(fileName.length() + 1, name.length() - SEGMENT_EXTENSION.length()));
+                    segments.put(id, new Segment(id));
+                } catch (NumberFormatException e) {
+                    Logging.trace(e);
+                }
+            }
+        }
+        for (Segment segment : segments.values()) {
+            totalBytes += segment.length;
+        }
+        if (!loadIndex()) {
+            rebuildIndex();
+        }
+        // the index is saved again on disposal, a missing index denotes a crash
+        Utils.deleteFileIfExists(getIndexFile());
+        if (segments.isEmpty()) {
+            segments.put(0, new Segment(0));
+        }
+        for (Segment segment : segments.headMap(segments.lastKey()).values()) {
+            segment.sealed = true;
+        }
+        ensureCapacity();
+    }
+
+    private boolean loadIndex() {
+        File file = getIndexFile();
+        if (!file.isFile()) {
+            return false;
+        }
+        try (InputStream is = Files.newInputStream(file.toPath());
+             DataInputStream in = new DataInputStream(new BufferedInputStream(is))) {
+            if (in.readInt() != INDEX_MAGIC || in.readInt() != INDEX_VERSION) {
+                Logging.debug("Outdated disk cache index {0}", file);
+                return false;
+            }
+            Map<Integer, Long> lengths = new HashMap<>();
+            for (int i = in.readInt(); i > 0; i--) {
+                int id = in.readInt();
+                long length = in.readLong();
+                Segment segment = segments.get(id);
+                if (segment == null || segment.length < length) {
+                    Logging.debug("Missing segment {0} of disk cache index {1}", id, file);
+                    return false;
+                }
+                lengths.put(id, length);
+            }
+            for (int i = in.readInt(); i > 0; i--) {
+                byte[] key = new byte[in.readInt()];
+                in.readFully(key);
+                Slot slot = new Slot(in.readInt(), in.readInt(), in.readInt());
+                Long length = lengths.get(slot.segment);
+                if (length == null || slot.offset < 0 || slot.length < RECORD_HEADER_SIZE || slot.offset + (long) slot.length > length) {
+                    throw new IOException("Invalid record of disk cache index " + file);
+                }
+                index.put(deserializeKey(key), slot);
+            }
+            // segments which have not been deleted at compaction, and records appended after the index was saved
+            for (Iterator<Segment> it = segments.values().iterator(); it.hasNext();) {
+                Segment segment = it.next();
+                Long length = lengths.get(segment.id);
+                if (length == null) {
+                    segment.delete();
+                    it.remove();
+                } else if (segment.length > length) {
+                    segment.truncate(length);
+                }
+            }
+            for (Slot slot : index.values()) {
+                segments.get(slot.segment).live += slot.length;
+                liveBytes += slot.length;
+            }
+            return true;
+        } catch (IOException | ClassNotFoundException | RuntimeException e) {
+            Logging.log(Logging.LEVEL_WARN, "Unable to read disk cache index " + file, e);
+            index.clear();
+            return false;
+        }
+    }
+
+    private void rebuildIndex() throws IOException {
+        int count = 0;
+        for (Segment segment : segments.values()) {
+            long position = 0;
+            ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+            while (position < segment.length) {
+                header.clear();
+                boolean valid = readFully(segment.channel, header, position) && header.getInt(0) >= 0 && header.getInt(4) >= 0;
+                long recordLength = valid ? (long) RECORD_HEADER_SIZE + header.getInt(0) + header.getInt(4) : 0;
+                if (!valid || position + recordLength > segment.length || position + recordLength > Integer.MAX_VALUE) {
+                    // record partially written before a crash
+                    segment.truncate(position);
+                    break;
+                }
+                ByteBuffer key = ByteBuffer.allocate(header.getInt(0));
+                readFully(segment.channel, key, position + RECORD_HEADER_SIZE);
+                try {
+                    put(deserializeKey(key.array()), new Slot(segment.id, (int) position, (int) recordLength), segment);
+                    count++;
+                } catch (ClassNotFoundException | IOException e) {
+                    Logging.trace(e);
+                }
+                position += recordLength;
+            }
+        }
+        if (!segments.isEmpty()) {
+            Logging.info("Rebuilt index of disk cache {0}: {1} records", fileName, count);
+        }
+    }
+
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void saveIndex() {
+        File file = getIndexFile();
+        File tmp = new File(file.getPath() + ".tmp");
+        try (OutputStream os = Files.newOutputStream(tmp.toPath());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(INDEX_VERSION);
+            out.writeInt(segments.size());
+            for (Segment segment : segments.values()) {
+                out.writeInt(segment.id);
+                out.writeLong(segment.length);
+            }
+            synchronized (index) {
+                out.writeInt(index.size());
+                for (Map.Entry<K, Slot> e : index.entrySet()) {
+                    byte[] key = serializeKey(e.getKey());
+                    out.writeInt(key.length);
+                    out.write(key);
+                    out.writeInt(e.getValue().segment);
+                    out.writeInt(e.getValue().offset);
+                    out.writeInt(e.getValue().length);
+                }
+            }
+        } catch (IOException | InvalidPathException e) {
+            Logging.log(Logging.LEVEL_WARN, "Unable to write disk cache index " + file, e);
+            Utils.deleteFile(tmp);
+            return;
+        }
+        try {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Logging.log(Logging.LEVEL_WARN, "Unable to write disk cache index " + file, e);
+            Utils.deleteFile(tmp);
+        }
+    }
+
+    private byte[] serializeKey(K key) throws IOException {
+        byte[] bytes = key instanceof String
+                ? ((String) key).getBytes(StandardCharsets.UTF_8)
+                : getElementSerializer().serialize(key);
+        byte[] result = new byte[bytes.length + 1];
+        result[0] = key instanceof String ? STRING_KEY : SERIALIZED_KEY;
+        System.arraycopy(bytes, 0, result, 1, bytes.length);
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private K deserializeKey(byte[] bytes) throws IOException, ClassNotFoundException {
+        if (bytes.length > 0 && bytes[0] == STRING_KEY) {
+            return (K) new String(bytes, 1, bytes.length - 1, StandardCharsets.UTF_8);
+        } else if (bytes.length > 0 && bytes[0] == SERIALIZED_KEY) {
+            return getElementSerializer().deSerialize(Arrays.copyOfRange(bytes, 1, bytes.length), null);
+        }
+        throw new IOException("Invalid key");
+    }
+
+    /**
+     * Adds or replaces the record of a key. Must be called with the write lock.
+     * @param key the key
+     * @param slot the location of its record
+     * @param segment the segment of the record
+     */
+    private void put(K key, Slot slot, Segment segment) {
+        Slot previous;
+        synchronized (index) {
+            previous = index.put(key, slot);
+        }
+        if (previous != null) {
+            release(previous);
+        }
+        segment.live += slot.length;
+        liveBytes += slot.length;
+    }
+
+    /**
+     * Accounts for a record which is not used anymore. Must be called with the write lock.
+     * @param slot the location of the record
+     */
+    private void release(Slot slot) {
+        segments.get(slot.segment).live -= slot.length;
+        liveBytes -= slot.length;
+    }
+
+    /**
+     * Appends a record to the current segment, which is replaced by a new segment when it is full.
+     * Must be called with the write lock.
+     * @param record the record
+     * @return the location of the record
+     * @throws IOException if an I/O error occurs
+     */
+    private Slot append(ByteBuffer record) throws IOException {
+        Segment current = segments.lastEntry().getValue();
+        if (current.length > 0 && current.length + record.remaining() > segmentSize) {
+            current.sealed = true;
+            current = new Segment(current.id + 1);
+            segments.put(current.id, current);
+        }
+        int offset = (int) current.length;
+        int length = record.remaining();
+        current.write(record);
+        return new Slot(current.id, offset, length);
+    }
+
+    /**
+     * Removes the least recently used elements and compacts the segments, if the files exceed the maximum size.
+     * Must be called with the write lock.
+     * @throws IOException if an I/O error occurs
+     */
+    private void ensureCapacity() throws IOException {
+        if (totalBytes <= maxSize) {
+            return;
+        }
+        long target = (long) (maxSize * EVICTION_RATIO);
+        int evicted = 0;
+        synchronized (index) {
+            for (Iterator<Slot> it = index.values().iterator(); liveBytes > target && it.hasNext();) {
+                release(it.next());
+                it.remove();
+                evicted++;
+            }
+        }
+        int compacted = 0;
+        while (totalBytes > maxSize) {
+            Segment victim = null;
+            double victimRatio = 1;
+            for (Segment segment : segments.headMap(segments.lastKey()).values()) {
+                double ratio = segment.length == 0 ? 0 : (double) segment.live / segment.length;
+                if (ratio < victimRatio) {
+                    victim = segment;
+                    victimRatio = ratio;
+                }
+            }
+            if (victim == null) {
+                break;
+            }
+            compact(victim);
+            compacted++;
+        }
+        Logging.debug("Disk cache {0}: removed {1} elements, compacted {2} segments", fileName, evicted, compacted);
+    }
+
+    /**
+     * Copies the records of a segment to the current segment, then deletes it. Must be called with the write lock.
+     * @param segment the segment to compact
+     * @throws IOException if an I/O error occurs
+     */
+    private void compact(Segment segment) throws IOException {
+        List<Map.Entry<K, Slot>> entries = new ArrayList<>();
+        synchronized (index) {
+            for (Map.Entry<K, Slot> e : index.entrySet()) {
+                if (e.getValue().segment == segment.id) {
+                    entries.add(e);
+                }
+            }
+        }
+        for (Map.Entry<K, Slot> e : entries) {
+            Slot slot = append(segment.read(e.getValue().offset, e.getValue().length));
+            synchronized (index) {
+                // does not change the order of the entries
+                e.setValue(slot);
+            }
+            segments.get(slot.segment).live += slot.length;
+            segment.live -= slot.length;
+        }
+        segments.remove(segment.id);
+        segment.delete();
+    }
+
+    @Override
+    protected ICacheElement<K, V> processGet(K key) {
+        lock.readLock().lock();
+        try {
+            Slot slot;
+            synchronized (index) {
+                slot = index.get(key);
+            }
+            if (slot == null) {
+                return null;
+            }
+            ByteBuffer record = segments.get(slot.segment).read(slot.offset, slot.length);
+            int keyLength = record.getInt();
+            byte[] element = new byte[record.getInt()];
+            record.position(record.position() + keyLength);
+            record.get(element);
+            return getElementSerializer().deSerialize(element, null);
+        } catch (IOException | ClassNotFoundException | BufferUnderflowException | IllegalArgumentException e) {
+            Logging.log(Logging.LEVEL_WARN, "Unable to read " + key + " from disk cache " + fileName, e);
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    protected Map<K, ICacheElement<K, V>> processGetMatching(String pattern) {
+        Map<K, ICacheElement<K, V>> result = new HashMap<>();
+        for (K key : getKeyMatcher().getMatchingKeysFromArray(pattern, getKeySet())) {
+            ICacheElement<K, V> element = processGet(key);
+            if (element != null) {
+                result.put(key, element);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    protected void processUpdate(ICacheElement<K, V> element) throws IOException {
+        byte[] key = serializeKey(element.getKey());
+        byte[] data = getElementSerializer().serialize(element);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + key.length + data.length);
+        record.putInt(key.length).putInt(data.length).put(key).put(data).flip();
+        lock.writeLock().lock();
+        try {
+            Slot slot = append(record);
+            put(element.getKey(), slot, segments.get(slot.segment));
+            ensureCapacity();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    protected boolean processRemove(K key) {
+        lock.writeLock().lock();
+        try {
+            List<Slot> removed = new ArrayList<>();
+            synchronized (index) {
+                if (key instanceof String && ((String) key).endsWith(CacheConstants.NAME_COMPONENT_DELIMITER)) {
+                    // remove all keys starting with the given prefix, like the other JCS disk caches
+                    for (Iterator<Map.Entry<K, Slot>> it = index.entrySet().iterator(); it.hasNext();) {
+                        Map.Entry<K, Slot> e = it.next();
+                        if (e.getKey() instanceof String && ((String) e.getKey()).startsWith((String) key)) {
+                            removed.add(e.getValue());
+                            it.remove();
+                        }
+                    }
+                } else {
+                    Slot slot = index.remove(key);
+                    if (slot != null) {
+                        removed.add(slot);
+                    }
+                }
+            }
+            removed.forEach(this::release);
+            return !removed.isEmpty();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    protected void processRemoveAll() throws IOException {
+        lock.writeLock().lock();
+        try {
+            synchronized (index) {
+                index.clear();
+            }
+            int next = segments.lastKey() + 1;
+            segments.values().forEach(Segment::delete);
+            segments.clear();
+            segments.put(next, new Segment(next));
+            liveBytes = 0;
+            totalBytes = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    protected void processDispose() {
+        lock.writeLock().lock();
+        try {
+            if (!segments.isEmpty()) {
+                saveIndex();
+            }
+            segments.values().forEach(Segment::close);
+            segments.clear();
+            synchronized (index) {
+                index.clear();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Set<K> getKeySet() {
+        synchronized (index) {
+            return new HashSet<>(index.keySet());
+        }
+    }
+
+    @Override
+    public int getSize() {
+        synchronized (index) {
+            return index.size();
+        }
+    }
+
+    /**
+     * Returns the size of the segment files.
+     * @return the size of the segment files, in bytes
+     */
+    public long getDataLength() {
+        lock.readLock().lock();
+        try {
+            return totalBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public IStats getStatistics() {
+        IStats stats = super.getStatistics();
+        stats.setTypeName("Mapped Disk Cache");
+        List<IStatElement<?>> elements = new ArrayList<>(stats.getStatElements());
+        lock.readLock().lock();
+        try {
+            elements.add(new StatElement<>("Data File Length", Long.valueOf(totalBytes)));
+            elements.add(new StatElement<>("Live Data Length", Long.valueOf(liveBytes)));
+            elements.add(new StatElement<>("Segment Count", Integer.valueOf(segments.size())));
+        } finally {
+            lock.readLock().unlock();
+        }
+        stats.setStatElements(elements);
+        return stats;
+    }
+
+    @Override
+    public AuxiliaryCacheAttributes getAuxiliaryCacheAttributes() {
+        return attributes;
+    }
+
+    @Override
+    protected String getDiskLocation() {
+        return directory == null ? null : directory.getPath();
+    }
+
+    @Override
+    public String getEventLoggingExtraInfo() {
+        return "Mapped Disk Cache";
+    }
+}
@@ -0,0 +1,64 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.cache;
+
+import org.apache.commons.jcs.auxiliary.disk.AbstractDiskCacheAttributes;
+
+/**
+ * Configuration of a {@link MappedDiskCache}.
+ * @since xxx
+ */
+public class MappedDiskCacheAttributes extends AbstractDiskCacheAttributes {
+    private static final long serialVersionUID = 1L; //version
+
+    /** The default size of the segment files, in bytes */
+    public static final int DEFAULT_SEGMENT_SIZE = 32 * 1024 * 1024;
+    /** The minimum size of the segment files, in bytes */
+    private static final int MIN_SEGMENT_SIZE = 64 * 1024;
+
+    private int maxSize = -1;
+    private int segmentSize = -1;
+
+    /**
+     * Returns the maximum size of the cache files.
+     * @return the maximum size of the cache files in kB, or a negative value if it is not bounded
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Sets the maximum size of the cache files.
+     * @param maxSize the maximum size of the cache files in kB, or a negative value if it is not bounded
+     */
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the size above which the current segment file is closed and a new one started.
+     * Unless it has been set explicitly, it is a sixteenth of the maximum size, so that compacting a segment frees a
+     * small part of the cache, within 64 kB and {@link #DEFAULT_SEGMENT_SIZE}.
+     * @return the size of the segment files, in bytes
+     */
+    public int getSegmentSize() {
+        if (segmentSize > 0) {
+            return segmentSize;
+        } else if (maxSize > 0) {
+            return (int) Math.max(MIN_SEGMENT_SIZE, Math.min(DEFAULT_SEGMENT_SIZE, maxSize * 1024L / 16));
+        }
+        return DEFAULT_SEGMENT_SIZE;
+    }
+
+    /**
+     * Sets the size above which the current segment file is closed and a new one started.
+     * @param segmentSize the size of the segment files, in bytes, or a negative value for the default size
+     */
+    public void setSegmentSize(int segmentSize) {
+        this.segmentSize = segmentSize;
+    }
+
+    @Override
+    public String toString() {
+        return "MappedDiskCacheAttributes [maxSize=" + maxSize + ", segmentSize=" + getSegmentSize() + ", " + super.toString() + ']';
+    }
+}
@@ -0,0 +1,23 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.cache;
+
+import org.apache.commons.jcs.auxiliary.AbstractAuxiliaryCacheFactory;
+import org.apache.commons.jcs.auxiliary.AuxiliaryCacheAttributes;
+import org.apache.commons.jcs.engine.behavior.ICompositeCacheManager;
+import org.apache.commons.jcs.engine.behavior.IElementSerializer;
+import org.apache.commons.jcs.engine.logging.behavior.ICacheEventLogger;
+
+/**
+ * Factory of {@link MappedDiskCache}s.
+ * @since xxx
+ */
+public class MappedDiskCacheFactory extends AbstractAuxiliaryCacheFactory {
+
+    @Override
+    public <K, V> MappedDiskCache<K, V> createCache(AuxiliaryCacheAttributes attributes, ICompositeCacheManager cacheManager,
+            ICacheEventLogger cacheEventLogger, IElementSerializer elementSerializer) {
+        MappedDiskCache<K, V> cache = new MappedDiskCache<>((MappedDiskCacheAttributes) attributes, elementSerializer);
+        cache.setCacheEventLogger(cacheEventLogger);
+        return cache;
+    }
+}
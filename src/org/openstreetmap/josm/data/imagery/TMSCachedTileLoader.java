@@ -1,8 +1,10 @@
 // License: GPL. For details, see LICENSE file.
 package org.openstreetmap.josm.data.imagery;
 
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
 import org.apache.commons.jcs.access.behavior.ICacheAccess;
 import org.openstreetmap.gui.jmapviewer.Tile;
@@ -117,6 +119,16 @@ public class TMSCachedTileLoader implements TileLoader, CachedTileLoader {
         return cache.getStats();
     }
 
+    /**
+     * Returns the statistics of the download queue.
+     * @return download queue statistics as string, or {@code null} if the download executor does not use a {@link HostLimitQueue}
+     * @since xxx
+     */
+    public String getQueueStats() {
+        BlockingQueue<Runnable> queue = downloadExecutor.getQueue();
+        return queue instanceof HostLimitQueue ? ((HostLimitQueue) queue).getStats() : null;
+    }
+
     /**
      * cancels all outstanding tasks in the queue. This rollbacks the state of the tiles in the queue
      * to loading = false / loaded = false
@@ -130,6 +142,23 @@ public class TMSCachedTileLoader implements TileLoader, CachedTileLoader {
         }
     }
 
+    /**
+     * Cancels the outstanding tasks in the queue that match the given filter.
+     * @param filter selects the jobs to cancel
+     * @return the number of cancelled jobs
+     * @since xxx
+     */
+    public int cancelOutstandingTasks(Predicate<? super TMSCachedTileLoaderJob> filter) {
+        int cancelled = 0;
+        for (Runnable r: downloadExecutor.getQueue()) {
+            if (r instanceof TMSCachedTileLoaderJob && filter.test((TMSCachedTileLoaderJob) r) && downloadExecutor.remove(r)) {
+                ((TMSCachedTileLoaderJob) r).handleJobCancellation();
+                cancelled++;
+            }
+        }
+        return cancelled;
+    }
+
     @Override
     public boolean hasOutstandingTasks() {
         return downloadExecutor.getTaskCount() > downloadExecutor.getCompletedTaskCount();
@@ -142,6 +142,15 @@ public class TMSCachedTileLoaderJob extends JCSCachedTileLoaderJob<String, Buffe
         return isNoTileAtZoom() || super.cacheAsEmpty();
     }
 
+    /**
+     * Returns the tile loaded by this job.
+     * @return the tile loaded by this job
+     * @since xxx
+     */
+    public Tile getTile() {
+        return tile;
+    }
+
     @Override
     public void submit(boolean force) {
         tile.initLoading();
@@ -445,6 +445,9 @@ public abstract class AbstractPrimitive implements IPrimitive {
      * In short this means that you should not rely on this variable being the same value when read again and your should always
      * copy it on writes.
      * <p>
+     * Small key/value arrays are interned, so the same array may be shared by many primitives. This is another reason
+     * to never change the array in place.
+     * <p>
      * Further reading:
      * <ul>
      * <li>{@link java.util.concurrent.CopyOnWriteArrayList}</li>
@@ -502,7 +505,7 @@ public abstract class AbstractPrimitive implements IPrimitive {
             newKeys[index++] = Objects.requireNonNull(entry.getKey());
             newKeys[index++] = Objects.requireNonNull(entry.getValue());
         }
-        this.keys = newKeys;
+        this.keys = TagArrayPool.intern(newKeys);
         keysChangedImpl(originalKeys);
     }
 
@@ -519,7 +522,7 @@ public abstract class AbstractPrimitive implements IPrimitive {
             if (arr.length == 0) {
                 this.keys = null;
             } else {
-                this.keys = arr;
+                this.keys = TagArrayPool.intern(arr);
             }
         }
         keysChangedImpl(originalKeys);
@@ -545,7 +548,7 @@ public abstract class AbstractPrimitive implements IPrimitive {
         else if (value == null) {
             remove(key);
         } else if (keys == null) {
-            keys = new String[] {key, value};
+            keys = TagArrayPool.intern(new String[] {key, value});
             keysChangedImpl(originalKeys);
         } else {
             int keyIndex = indexOfKey(keys, key);
@@ -562,7 +565,7 @@ public abstract class AbstractPrimitive implements IPrimitive {
             String[] newKeys = Arrays.copyOf(keys, tagArrayLength);
             newKeys[keyIndex] = key;
             newKeys[keyIndex + 1] = value;
-            keys = newKeys;
+            keys = TagArrayPool.intern(newKeys);
             keysChangedImpl(originalKeys);
         }
     }
@@ -612,7 +615,7 @@ public abstract class AbstractPrimitive implements IPrimitive {
                 newKeys[j++] = keys[i+1];
             }
         }
-        keys = newKeys;
+        keys = TagArrayPool.intern(newKeys);
         keysChangedImpl(originalKeys);
     }
 
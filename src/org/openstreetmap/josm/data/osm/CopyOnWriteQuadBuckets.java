@@ -0,0 +1,416 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm;
+
+import java.util.AbstractCollection;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.coor.QuadTiling;
+
+/**
+ * A spatial index with the same bucket layout as {@link QuadBuckets}, which can be searched by any number of threads
+ * while a single thread modifies it.
+ * <p>
+ * The tree is persistent: a bucket is never modified once it has been made visible to readers by {@link #publish()}.
+ * Instead, the writer copies the path from the root down to the affected bucket, so that previously published
+ * versions stay intact. Buckets created since the last publication belong to the current edit generation and are
+ * modified in place, so a bulk load between two publications costs about the same as with {@link QuadBuckets}.
+ * <p>
+ * All modifying methods, {@link #search(BBox)} and {@link #iterator()} work on the current version and are not
+ * synchronized, like {@link QuadBuckets}. {@link #getSnapshot()} and the returned {@link Snapshot} can be used from
+ * any thread without locking.
+ * <p>
+ * Note: bbox of primitives added to this collection has to stay the same. In case of coordinate change, primitive must
+ * be removed and re-added. A reader searching an older snapshot may see a primitive that has been moved in the
+ * meantime at its new position, or miss it.
+ * @param <T> type of primitives
+ * @since xxx
+ */
+public class CopyOnWriteQuadBuckets<T extends IPrimitive> extends AbstractCollection<T> {
+    private static final int MAX_OBJECTS_PER_NODE = 48;
+
+    static final class QBLevel<T extends IPrimitive> extends BBox {
+        private final long generation;
+        private final byte level;
+        private final long quad;
+        private final boolean isLeaf;
+        private final List<T> content;
+        // child order by index is sw, nw, se, ne
+        private final QBLevel<T>[] children;
+
+        /**
+         * Constructor for root node
+         * @param generation the edit generation
+         */
+        QBLevel(long generation) {
+            super(-180, 90, 180, -90);
+            this.generation = generation;
+            this.level = 0;
+            this.quad = 0;
+            this.isLeaf = true;
+            this.content = new ArrayList<>();
+            this.children = null;
+        }
+
+        QBLevel(QBLevel<T> parent, byte index, long generation) {
+            this.generation = generation;
+            this.level = (byte) (parent.level + 1);
+            int shift = (QuadTiling.NR_LEVELS - level) * 2;
+            this.quad = parent.quad | ((long) index << shift);
+            this.isLeaf = true;
+            this.content = new ArrayList<>();
+            this.children = null;
+            LatLon bottomLeft = QuadTiling.tile2LatLon(this.quad);
+            xmin = bottomLeft.lon();
+            ymin = bottomLeft.lat();
+            xmax = xmin + parent.width() / 2;
+            ymax = ymin + parent.height() / 2;
+        }
+
+        @SuppressWarnings("unchecked")
+        QBLevel(QBLevel<T> copy, long generation, boolean isLeaf) {
+            super(copy);
+            this.generation = generation;
+            this.level = copy.level;
+            this.quad = copy.quad;
+            this.isLeaf = isLeaf;
+            if (isLeaf) {
+                this.content = new ArrayList<>(copy.content);
+                this.children = null;
+            } else {
+                this.content = new ArrayList<>(copy.isLeaf ? Collections.<T>emptyList() : copy.content);
+                this.children = copy.children != null ? copy.children.clone() : new QBLevel[QuadTiling.TILES_PER_LEVEL];
+            }
+        }
+
+        boolean hasChildren() {
+            if (children != null) {
+                for (QBLevel<T> child : children) {
+                    if (child != null) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        boolean canRemove() {
+            return content.isEmpty() && !hasChildren();
+        }
+
+        /**
+         * Returns the child index used to store the given bbox, or {@code -1} if it has to be stored in this bucket.
+         * @param bbox the bbox
+         * @return the child index or {@code -1}
+         */
+        byte childIndex(BBox bbox) {
+            return isLeaf ? -1 : bbox.getIndex(level);
+        }
+
+        void searchContents(BBox searchBbox, List<T> result) {
+            for (T o : content) {
+                if (o.getBBox().intersects(searchBbox)) {
+                    result.add(o);
+                }
+            }
+        }
+
+        void search(BBox searchBbox, List<T> result) {
+            if (!this.intersects(searchBbox))
+                return;
+            searchContents(searchBbox, result);
+            if (children != null) {
+                for (QBLevel<T> child : children) {
+                    if (child != null) {
+                        child.search(searchBbox, result);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return super.toString() + '[' + level + "]: ";
+        }
+    }
+
+    /**
+     * An immutable, published version of the index. It can be searched from any thread without locking.
+     * @param <T> type of primitives
+     */
+    public static final class Snapshot<T extends IPrimitive> {
+        private final QBLevel<T> root;
+        private final int size;
+
+        Snapshot(QBLevel<T> root, int size) {
+            this.root = root;
+            this.size = size;
+        }
+
+        /**
+         * Search the snapshot for objects in the bbox (or crossing the bbox if they are ways)
+         * @param searchBbox the bbox
+         * @return List of primitives within the bbox (or crossing the bbox if they are ways). Can be empty, but not null.
+         */
+        public List<T> search(BBox searchBbox) {
+            List<T> ret = new ArrayList<>();
+            if (searchBbox.isValid()) {
+                root.search(searchBbox, ret);
+            }
+            return ret;
+        }
+
+        /**
+         * Returns the number of primitives in this snapshot, including those with an invalid bbox.
+         * @return the number of primitives
+         */
+        public int size() {
+            return size;
+        }
+    }
+
+    private final Set<T> invalidBBoxPrimitives = new LinkedHashSet<>();
+    private QBLevel<T> root;
+    private long generation;
+    private int size;
+    private volatile Snapshot<T> snapshot;
+
+    /**
+     * Constructs a new {@code CopyOnWriteQuadBuckets}.
+     */
+    public CopyOnWriteQuadBuckets() {
+        clear();
+        publish();
+    }
+
+    /**
+     * Makes the current version visible to {@link #getSnapshot()}. Following modifications will copy the buckets they
+     * touch instead of changing them.
+     */
+    public void publish() {
+        snapshot = new Snapshot<>(root, size);
+        generation++;
+    }
+
+    /**
+     * Returns the most recently published version of this index.
+     * @return the last snapshot given to {@link #publish()}
+     */
+    public Snapshot<T> getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Returns a bucket of the current generation for the given one, copying it if it has been published.
+     * @param level the bucket
+     * @param isLeaf the leaf status of the returned bucket
+     * @return a bucket that may be modified in place
+     */
+    private QBLevel<T> editable(QBLevel<T> level, boolean isLeaf) {
+        if (level.generation == generation && level.isLeaf == isLeaf)
+            return level;
+        return new QBLevel<>(level, generation, isLeaf);
+    }
+
+    private QBLevel<T> add(QBLevel<T> level, T o, BBox bbox) {
+        byte idx = level.childIndex(bbox);
+        if (idx == -1) {
+            QBLevel<T> result = editable(level, level.isLeaf);
+            result.content.add(o);
+            if (result.isLeaf && result.level < QuadTiling.NR_LEVELS && result.content.size() > MAX_OBJECTS_PER_NODE) {
+                result = split(result);
+            }
+            return result;
+        }
+        QBLevel<T> child = level.children[idx];
+        if (child == null) {
+            child = new QBLevel<>(level, idx, generation);
+        }
+        QBLevel<T> newChild = add(child, o, bbox);
+        QBLevel<T> result = editable(level, false);
+        result.children[idx] = newChild;
+        return result;
+    }
+
+    private QBLevel<T> split(QBLevel<T> leaf) {
+        QBLevel<T> branch = editable(leaf, false);
+        for (T o : leaf.content) {
+            BBox bbox = o.getBBox();
+            byte idx = bbox.getIndex(branch.level);
+            if (idx == -1) {
+                branch.content.add(o);
+            } else {
+                QBLevel<T> child = branch.children[idx];
+                if (child == null) {
+                    child = new QBLevel<>(branch, idx, generation);
+                }
+                branch.children[idx] = add(child, o, bbox);
+            }
+        }
+        return branch;
+    }
+
+    /**
+     * Removes an object below the given bucket. The object must be contained in the tree.
+     * @param level the bucket
+     * @param o the object to remove
+     * @param bbox the bbox of the object
+     * @return the new bucket, or {@code null} if it became empty
+     */
+    private QBLevel<T> remove(QBLevel<T> level, Object o, BBox bbox) {
+        byte idx = level.childIndex(bbox);
+        QBLevel<T> result = editable(level, level.isLeaf);
+        if (idx == -1) {
+            result.content.remove(o);
+        } else {
+            result.children[idx] = remove(level.children[idx], o, bbox);
+        }
+        return result.level > 0 && result.canRemove() ? null : result;
+    }
+
+    private QBLevel<T> findBucket(BBox bbox) {
+        QBLevel<T> level = root;
+        byte idx = level.childIndex(bbox);
+        while (idx != -1) {
+            level = level.children[idx];
+            if (level == null)
+                return null;
+            idx = level.childIndex(bbox);
+        }
+        return level;
+    }
+
+    @Override
+    public final void clear() {
+        root = new QBLevel<>(generation);
+        invalidBBoxPrimitives.clear();
+        size = 0;
+    }
+
+    @Override
+    public boolean add(T n) {
+        BBox bbox = n.getBBox();
+        if (bbox.isValid()) {
+            root = add(root, n, bbox);
+        } else {
+            invalidBBoxPrimitives.add(n);
+        }
+        size++;
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof IPrimitive))
+            return false;
+        BBox bbox = ((IPrimitive) o).getBBox();
+        boolean removed = false;
+        if (bbox.isValid()) {
+            QBLevel<T> bucket = findBucket(bbox);
+            if (bucket != null && bucket.content.contains(o)) {
+                root = remove(root, o, bbox);
+                removed = true;
+            }
+        }
+        if (!removed) {
+            removed = invalidBBoxPrimitives.remove(o);
+        }
+        if (removed) {
+            size--;
+        }
+        return removed;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof IPrimitive))
+            return false;
+        BBox bbox = ((IPrimitive) o).getBBox();
+        if (!bbox.isValid()) {
+            return invalidBBoxPrimitives.contains(o);
+        }
+        QBLevel<T> bucket = findBucket(bbox);
+        return bucket != null && bucket.content.contains(o);
+    }
+
+    /**
+     * Search the current version of the tree for objects in the bbox (or crossing the bbox if they are ways)
+     * @param searchBbox the bbox
+     * @return List of primitives within the bbox (or crossing the bbox if they are ways). Can be empty, but not null.
+     */
+    public List<T> search(BBox searchBbox) {
+        List<T> ret = new ArrayList<>();
+        if (searchBbox.isValid()) {
+            root.search(searchBbox, ret);
+        }
+        return ret;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns an iterator over the current version. The iterator is not affected by later modifications,
+     * and {@link Iterator#remove()} is supported.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        // freeze the current version, so that following modifications do not change the buckets we walk through
+        generation++;
+        return new SnapshotIterator(root, new ArrayList<>(invalidBBoxPrimitives));
+    }
+
+    private final class SnapshotIterator implements Iterator<T> {
+        private final Deque<QBLevel<T>> pending = new ArrayDeque<>();
+        private final Iterator<T> invalidBBoxIterator;
+        private Iterator<T> current = Collections.emptyIterator();
+        private T last;
+
+        SnapshotIterator(QBLevel<T> root, List<T> invalid) {
+            pending.push(root);
+            invalidBBoxIterator = invalid.iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext() && !pending.isEmpty()) {
+                QBLevel<T> level = pending.pop();
+                if (level.children != null) {
+                    for (QBLevel<T> child : level.children) {
+                        if (child != null) {
+                            pending.push(child);
+                        }
+                    }
+                }
+                current = level.content.iterator();
+            }
+            return current.hasNext() || invalidBBoxIterator.hasNext();
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            last = current.hasNext() ? current.next() : invalidBBoxIterator.next();
+            return last;
+        }
+
+        @Override
+        public void remove() {
+            if (last == null)
+                throw new IllegalStateException();
+            CopyOnWriteQuadBuckets.this.remove(last);
+            last = null;
+        }
+    }
+}
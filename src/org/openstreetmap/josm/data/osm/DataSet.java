@@ -5,6 +5,7 @@ import static org.openstreetmap.josm.tools.I18n.tr;
 
 import java.awt.geom.Area;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -19,7 +20,6 @@ import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -102,6 +102,9 @@ import org.openstreetmap.josm.tools.SubclassFilteredCollection;
  * Note that it is not necessary to call beginUpdate/endUpdate for every dataset modification - dataset will get locked
  * automatically.
  *
+ * Spatial searches ({@link #searchNodes}, {@link #searchWays} and {@link #searchRelations}) do not need the read lock:
+ * they work on the state published by the last {@link #endUpdate()}, so that they never wait for a running modification.
+ *
  * Note that locks cannot be upgraded - if one threads use read lock and and then write lock, dead lock will occur - see #5814 for
  * sample ticket
  *
@@ -122,8 +125,11 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
     private final QuadBucketPrimitiveStore<Node, Way, Relation> store = new QuadBucketPrimitiveStore<>();
 
     private final Storage<OsmPrimitive> allPrimitives = new Storage<>(new Storage.PrimitiveIdHash(), true);
-    private final Map<PrimitiveId, OsmPrimitive> primitivesMap = allPrimitives
-            .foreignKey(new Storage.PrimitiveIdHash());
+    /** Id lookup tables, by unique id. Like {@link #allPrimitives}, each one is only accessed while holding its monitor */
+    private final LongPrimitiveMap<Node> nodesById = LongPrimitiveMap.byUniqueId();
+    private final LongPrimitiveMap<Way> waysById = LongPrimitiveMap.byUniqueId();
+    private final LongPrimitiveMap<Relation> relationsById = LongPrimitiveMap.byUniqueId();
+    private final EastNorthCache eastNorthCache = new EastNorthCache();
     private final CopyOnWriteArrayList<DataSetListener> listeners = new CopyOnWriteArrayList<>();
 
     // provide means to highlight map elements that are not osm primitives
@@ -142,7 +148,7 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
     /** Flag used to know if the dataset should not be editable */
     private final AtomicBoolean isReadOnly = new AtomicBoolean(false);
 
-    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
 
     /**
      * The mutex lock that is used to synchronize selection changes.
@@ -201,6 +207,7 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
     public DataSet(DataSet copyFrom) {
         this();
         copyFrom.getReadLock().lock();
+        beginUpdate();
         try {
             Map<OsmPrimitive, OsmPrimitive> primMap = new HashMap<>();
             for (Node n : copyFrom.getNodes()) {
@@ -244,6 +251,7 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
             downloadPolicy = copyFrom.downloadPolicy;
             isReadOnly.set(copyFrom.isReadOnly.get());
         } finally {
+            endUpdate();
             copyFrom.getReadLock().unlock();
         }
     }
@@ -396,12 +404,10 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
 
     @Override
     public List<Node> searchNodes(BBox bbox) {
-        lock.readLock().lock();
-        try {
+        if (lock.isWriteLockedByCurrentThread()) {
             return store.searchNodes(bbox);
-        } finally {
-            lock.readLock().unlock();
         }
+        return store.getSnapshot().searchNodes(bbox);
     }
 
     @Override
@@ -411,22 +417,18 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
 
     @Override
     public List<Way> searchWays(BBox bbox) {
-        lock.readLock().lock();
-        try {
+        if (lock.isWriteLockedByCurrentThread()) {
             return store.searchWays(bbox);
-        } finally {
-            lock.readLock().unlock();
         }
+        return store.getSnapshot().searchWays(bbox);
     }
 
     @Override
     public List<Relation> searchRelations(BBox bbox) {
-        lock.readLock().lock();
-        try {
+        if (lock.isWriteLockedByCurrentThread()) {
             return store.searchRelations(bbox);
-        } finally {
-            lock.readLock().unlock();
         }
+        return store.getSnapshot().searchRelations(bbox);
     }
 
     @Override
@@ -491,6 +493,7 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
                                 primitive.toString()));
 
             allPrimitives.add(primitive);
+            putById(primitive);
             primitive.setDataset(this);
             primitive.updatePosition(); // Set cached bbox for way and relation (required for reindexWay and reindexRelation to work properly)
             store.addPrimitive(primitive);
@@ -531,9 +534,38 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
         }
         store.removePrimitive(primitive);
         allPrimitives.remove(primitive);
+        removeById(primitive);
         primitive.setDataset(null);
     }
 
+    private LongPrimitiveMap<? extends OsmPrimitive> getMapById(OsmPrimitiveType type) {
+        switch (type) {
+        case NODE:
+            return nodesById;
+        case WAY:
+            return waysById;
+        case RELATION:
+            return relationsById;
+        default:
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void putById(OsmPrimitive primitive) {
+        LongPrimitiveMap<OsmPrimitive> map = (LongPrimitiveMap<OsmPrimitive>) getMapById(primitive.getType());
+        synchronized (map) {
+            map.put(primitive.getUniqueId(), primitive);
+        }
+    }
+
+    private void removeById(OsmPrimitive primitive) {
+        LongPrimitiveMap<? extends OsmPrimitive> map = getMapById(primitive.getType());
+        synchronized (map) {
+            map.remove(primitive.getUniqueId());
+        }
+    }
+
     void removePrimitive(OsmPrimitive primitive) {
         checkModifiable();
         beginUpdate();
@@ -753,7 +785,23 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
 
     @Override
     public OsmPrimitive getPrimitiveById(PrimitiveId primitiveId) {
-        return primitiveId != null ? primitivesMap.get(primitiveId) : null;
+        return primitiveId != null ? getPrimitiveById(primitiveId.getUniqueId(), primitiveId.getType()) : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The lookup does not allocate a key. It is thread safe, but a thread reading the dataset while another one
+     * modifies it should hold the {@link #getReadLock() read lock} to get a consistent view of the dataset.
+     */
+    @Override
+    public OsmPrimitive getPrimitiveById(long id, OsmPrimitiveType type) {
+        LongPrimitiveMap<? extends OsmPrimitive> map = getMapById(type);
+        if (map == null)
+            return null;
+        synchronized (map) {
+            return map.get(id);
+        }
     }
 
     /**
@@ -935,6 +983,7 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
             updateCount--;
             List<AbstractDatasetChangedEvent> eventsToFire = Collections.emptyList();
             if (updateCount == 0) {
+                store.publish();
                 eventsToFire = new ArrayList<>(cachedEvents);
                 cachedEvents.clear();
             }
@@ -1036,14 +1085,20 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
             return; // sanity check
         beginUpdate();
         try {
-            for (Node n : getNodes()) {
-                n.invalidateEastNorthCache();
-            }
+            eastNorthCache.invalidateAll();
         } finally {
             endUpdate();
         }
     }
 
+    /**
+     * Returns the cache of projected node coordinates.
+     * @return the cache of projected node coordinates
+     */
+    EastNorthCache getEastNorthCache() {
+        return eastNorthCache;
+    }
+
     /**
      * Cleanups all deleted primitives (really delete them from the dataset).
      */
@@ -1083,6 +1138,12 @@ public final class DataSet implements OsmData<OsmPrimitive, Node, Way, Relation>
             }
             store.clear();
             allPrimitives.clear();
+            for (LongPrimitiveMap<?> map : Arrays.asList(nodesById, waysById, relationsById)) {
+                synchronized (map) {
+                    map.clear();
+                }
+            }
+            eastNorthCache.clear();
         } finally {
             endUpdate();
         }
@@ -0,0 +1,199 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.openstreetmap.josm.data.coor.EastNorth;
+import org.openstreetmap.josm.data.projection.Projection;
+import org.openstreetmap.josm.data.projection.ProjectionRegistry;
+
+/**
+ * The projected coordinates of the nodes of a {@link DataSet}, stored in columns.
+ * <p>
+ * Each node of the dataset is assigned a dense slot in this cache when it is added, and releases it when it is removed.
+ * Instead of the projected coordinates and a cache key reference per {@link Node} object, the projected coordinates
+ * are kept in pages of {@value #PAGE_SIZE} slots which share a single cache key. A page is only allocated once one of
+ * its nodes is projected, so nodes which are never drawn take no space for projected coordinates at all, and all pages
+ * are dropped when the projection changes.
+ * <p>
+ * Only one projection is cached at a time: the current projection of the {@link ProjectionRegistry} when the cache is
+ * created or {@link #invalidateAll() invalidated}. Coordinates for any other projection are not cached, so that
+ * alternating projections cannot make the cache thrash.
+ * <p>
+ * Slots are allocated, released and invalidated under the write lock of the dataset. Cached coordinates are read and
+ * stored by {@link Node#getEastNorth}, concurrently, under the read lock or without any lock: pages are published
+ * fully initialized through an {@link AtomicReferenceArray}, and the cache key and the page table are swapped together.
+ * Each slot holds an immutable entry, so that east and north are always read together, and the entry records the node
+ * it was computed for, so that a reader racing the removal of a node never gets the coordinates of the node which
+ * reuses its slot.
+ * @since xxx
+ */
+final class EastNorthCache {
+
+    private static final int PAGE_BITS = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    /**
+     * The projected coordinates of a node.
+     */
+    private static final class Entry {
+        private final Node node;
+        private final EastNorth eastNorth;
+
+        Entry(Node node, EastNorth eastNorth) {
+            this.node = node;
+            this.eastNorth = eastNorth;
+        }
+    }
+
+    /**
+     * The cache key of the projection and the pages of its coordinates. Replaced, never modified, except for the pages.
+     */
+    private static final class State {
+        /** the cache key, or {@code null} until a projection is known */
+        private final Object cacheKey;
+        /** the entry of each slot, or {@code null} */
+        private final AtomicReferenceArray<Entry[]> pages;
+
+        State(Object cacheKey, int pageCount) {
+            this(cacheKey, new AtomicReferenceArray<>(pageCount));
+        }
+
+        State(Object cacheKey, AtomicReferenceArray<Entry[]> pages) {
+            this.cacheKey = cacheKey;
+            this.pages = pages;
+        }
+    }
+
+    private final AtomicReference<State> state = new AtomicReference<>(new State(currentCacheKey(), 1));
+    private int[] freeSlots = new int[0];
+    private int freeCount;
+    private int nextSlot;
+
+    private static Object currentCacheKey() {
+        Projection current = ProjectionRegistry.getProjection();
+        return current != null ? current.getCacheKey() : null;
+    }
+
+    /**
+     * Allocates a new slot. Cached coordinates of the slot are invalid.
+     * @return the slot
+     */
+    int allocate() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        State s = state.get();
+        int pageCount = s.pages.length();
+        if ((nextSlot >>> PAGE_BITS) == pageCount) {
+            AtomicReferenceArray<Entry[]> pages = new AtomicReferenceArray<>(pageCount * 2);
+            for (int i = 0; i < pageCount; i++) {
+                pages.set(i, s.pages.get(i));
+            }
+            // a page published concurrently in the old table is lost, which only discards cached values
+            state.set(new State(s.cacheKey, pages));
+        }
+        return nextSlot++;
+    }
+
+    /**
+     * Releases a slot, so that it can be reused by another node.
+     * @param slot the slot
+     */
+    void release(int slot) {
+        invalidate(slot);
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, Math.max(16, freeCount * 2));
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    /**
+     * Returns the cached coordinates of a node.
+     * @param slot the slot of the node
+     * @param node the node
+     * @param key the cache key of the projection
+     * @return the cached coordinates, or {@code null} if they are not cached for the given node and projection
+     */
+    EastNorth get(int slot, Node node, Object key) {
+        State s = state.get();
+        if (!Objects.equals(key, s.cacheKey))
+            return null;
+        Entry[] page = s.pages.get(slot >>> PAGE_BITS);
+        if (page == null)
+            return null;
+        // the entry is immutable, its final fields are visible even though the array is read without synchronization
+        Entry entry = page[slot & PAGE_MASK];
+        return entry != null && entry.node == node ? entry.eastNorth : null;
+    }
+
+    /**
+     * Caches the coordinates of a node, if the given projection is the cached one.
+     * @param slot the slot of the node
+     * @param node the node
+     * @param eastNorth the projected coordinates
+     * @param key the cache key of the projection
+     */
+    void put(int slot, Node node, EastNorth eastNorth, Object key) {
+        if (key == null)
+            return;
+        State s = state.get();
+        if (s.cacheKey == null) {
+            // no projection was known when the cache was created or invalidated: bind it to the current one, once
+            if (!key.equals(currentCacheKey()))
+                return;
+            state.compareAndSet(s, new State(key, s.pages));
+            s = state.get();
+        }
+        if (!key.equals(s.cacheKey))
+            return;
+        int index = slot >>> PAGE_BITS;
+        Entry[] page = s.pages.get(index);
+        if (page == null) {
+            Entry[] newPage = new Entry[PAGE_SIZE];
+            page = s.pages.compareAndSet(index, null, newPage) ? newPage : s.pages.get(index);
+        }
+        page[slot & PAGE_MASK] = new Entry(node, eastNorth);
+    }
+
+    /**
+     * Invalidates the cached coordinates of a slot.
+     * @param slot the slot
+     */
+    void invalidate(int slot) {
+        Entry[] page = state.get().pages.get(slot >>> PAGE_BITS);
+        if (page != null) {
+            page[slot & PAGE_MASK] = null;
+        }
+    }
+
+    /**
+     * Invalidates the cached coordinates of all slots, and caches the current projection from now on.
+     * To be called under the write lock of the dataset, e.g., after the projection has changed.
+     */
+    void invalidateAll() {
+        state.set(new State(currentCacheKey(), state.get().pages.length()));
+    }
+
+    /**
+     * Releases all slots.
+     */
+    void clear() {
+        state.set(new State(currentCacheKey(), 1));
+        freeSlots = new int[0];
+        freeCount = 0;
+        nextSlot = 0;
+    }
+
+    /**
+     * Returns the number of slots in use.
+     * @return the number of slots in use
+     */
+    int size() {
+        return nextSlot - freeCount;
+    }
+}
@@ -0,0 +1,328 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * A map from primitive {@code long} keys to primitives, using open addressing with linear probing.
+ * <p>
+ * It is meant for the id lookups done while loading and merging data: keys are neither boxed nor wrapped
+ * in a {@link PrimitiveId}, and no monitor is entered. Since the key does not carry a type, one map per
+ * {@link OsmPrimitiveType} is used.
+ * <p>
+ * A map created by {@link #byUniqueId()} does not store the keys, but uses the unique ids of the values instead.
+ * <p>
+ * This class is not thread safe. Lookups concurrent to a modification never fail with an exception, but
+ * may miss an entry or return an entry stored for another key; callers that cannot guarantee exclusive
+ * access have to check the returned value.
+ *
+ * @param <T> the type of values
+ * @since xxx
+ */
+public class LongPrimitiveMap<T extends IPrimitive> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final AtomicLong SEEDS = new AtomicLong();
+
+    /**
+     * Keys and values are swapped together on resize, so that a reader never combines arrays of different length.
+     */
+    private static final class Table {
+        /** the keys, or {@code null} if the unique ids of the values are the keys */
+        private final long[] keys;
+        private final IPrimitive[] values;
+
+        Table(int capacity, boolean storeKeys) {
+            keys = storeKeys ? new long[capacity] : null;
+            values = new IPrimitive[capacity];
+        }
+
+        long keyAt(int i) {
+            return keys != null ? keys[i] : values[i].getUniqueId();
+        }
+
+        void set(int i, long key, IPrimitive value) {
+            if (keys != null) {
+                keys[i] = key;
+            }
+            values[i] = value;
+        }
+    }
+
+    private final boolean storeKeys;
+    private final long seed = SEEDS.addAndGet(0x9E3779B97F4A7C15L);
+    private Table table;
+    private int size;
+    private int modCount;
+
+    /**
+     * Constructs a new, empty {@code LongPrimitiveMap}.
+     */
+    public LongPrimitiveMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a new, empty {@code LongPrimitiveMap} able to hold the given number of entries without resizing.
+     * @param expectedSize expected number of entries
+     */
+    public LongPrimitiveMap(int expectedSize) {
+        this(expectedSize, true);
+    }
+
+    private LongPrimitiveMap(int expectedSize, boolean storeKeys) {
+        this.storeKeys = storeKeys;
+        table = new Table(capacityFor(expectedSize), storeKeys);
+    }
+
+    /**
+     * Constructs a new, empty {@code LongPrimitiveMap} whose keys are the {@link IPrimitive#getUniqueId() unique ids}
+     * of its values. Such a map needs less memory, since the keys are not stored.
+     * @param <T> the type of values
+     * @return a new map whose keys are the unique ids of its values
+     */
+    public static <T extends IPrimitive> LongPrimitiveMap<T> byUniqueId() {
+        return new LongPrimitiveMap<>(DEFAULT_CAPACITY, false);
+    }
+
+    private static int capacityFor(int expectedSize) {
+        // keep the load factor below 0.75
+        int capacity = DEFAULT_CAPACITY;
+        while (capacity * 3 / 4 <= expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private int hash(long key) {
+        // MurmurHash3 finalizer. The seed differs between maps, otherwise copying a map in iteration order
+        // into a smaller one would fill up the start of its table and make probing degenerate.
+        long h = key ^ seed;
+        h = (h ^ (h >>> 33)) * 0xff51afd7ed558ccdL;
+        h = (h ^ (h >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return (int) (h ^ (h >>> 33));
+    }
+
+    /**
+     * Returns the value stored for the given key.
+     * @param key the key
+     * @return the value stored for {@code key}, or {@code null}
+     */
+    @SuppressWarnings("unchecked")
+    public T get(long key) {
+        Table t = table;
+        long[] keys = t.keys;
+        IPrimitive[] values = t.values;
+        int mask = values.length - 1;
+        for (int i = hash(key) & mask;; i = (i + 1) & mask) {
+            IPrimitive value = values[i];
+            if (value == null) {
+                return null;
+            } else if ((keys != null ? keys[i] : value.getUniqueId()) == key) {
+                return (T) value;
+            }
+        }
+    }
+
+    /**
+     * Determines if a value is stored for the given key.
+     * @param key the key
+     * @return {@code true} if a value is stored for {@code key}
+     */
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Stores a value for the given key, replacing any previous value.
+     * @param key the key
+     * @param value the value, must not be {@code null}
+     * @return the previous value stored for {@code key}, or {@code null}
+     * @throws IllegalArgumentException if this map is {@link #byUniqueId() keyed by unique id} and {@code key}
+     * is not the unique id of {@code value}
+     */
+    @SuppressWarnings("unchecked")
+    public T put(long key, T value) {
+        Objects.requireNonNull(value, "value");
+        if (!storeKeys && key != value.getUniqueId())
+            throw new IllegalArgumentException("Key " + key + " is not the unique id of " + value);
+        Table t = table;
+        IPrimitive[] values = t.values;
+        int mask = values.length - 1;
+        int i = hash(key) & mask;
+        for (; values[i] != null; i = (i + 1) & mask) {
+            if (t.keyAt(i) == key) {
+                T old = (T) values[i];
+                values[i] = value;
+                return old;
+            }
+        }
+        t.set(i, key, value);
+        size++;
+        modCount++;
+        if (size >= values.length * 3 / 4) {
+            resize(values.length << 1);
+        }
+        return null;
+    }
+
+    /**
+     * Removes the value stored for the given key.
+     * @param key the key
+     * @return the removed value, or {@code null} if no value was stored for {@code key}
+     */
+    @SuppressWarnings("unchecked")
+    public T remove(long key) {
+        Table t = table;
+        IPrimitive[] values = t.values;
+        int mask = values.length - 1;
+        for (int i = hash(key) & mask; values[i] != null; i = (i + 1) & mask) {
+            if (t.keyAt(i) == key) {
+                T old = (T) values[i];
+                removeAt(i);
+                return old;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Removes the entry at the given slot and shifts back the following entries of the same cluster,
+     * so that no tombstones are needed.
+     * @param slot the slot to clear
+     */
+    private void removeAt(int slot) {
+        Table t = table;
+        IPrimitive[] values = t.values;
+        int mask = values.length - 1;
+        int gap = slot;
+        for (int i = (gap + 1) & mask; values[i] != null; i = (i + 1) & mask) {
+            long key = t.keyAt(i);
+            int home = hash(key) & mask;
+            // move the entry if its home slot is not within (gap, i], taking wrap-around into account
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                t.set(gap, key, values[i]);
+                gap = i;
+            }
+        }
+        t.set(gap, 0, null);
+        size--;
+        modCount++;
+    }
+
+    private void resize(int capacity) {
+        Table old = table;
+        Table t = new Table(capacity, storeKeys);
+        int mask = capacity - 1;
+        for (int j = 0; j < old.values.length; j++) {
+            IPrimitive value = old.values[j];
+            if (value != null) {
+                long key = old.keyAt(j);
+                int i = hash(key) & mask;
+                while (t.values[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                t.set(i, key, value);
+            }
+        }
+        table = t;
+    }
+
+    /**
+     * Returns the number of entries.
+     * @return the number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Determines if this map is empty.
+     * @return {@code true} if this map contains no entries
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void clear() {
+        table = new Table(DEFAULT_CAPACITY, storeKeys);
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * Returns a view of the values. The iteration order is unspecified.
+     * @return a view of the values
+     */
+    public Collection<T> values() {
+        return new AbstractCollection<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                return new ValueIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Performs the given action for each entry. The iteration order is unspecified.
+     * @param action the action, called with the value and the key of each entry
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(ObjLongConsumer<? super T> action) {
+        Table t = table;
+        int expectedModCount = modCount;
+        for (int i = 0; i < t.values.length; i++) {
+            if (t.values[i] != null) {
+                action.accept((T) t.values[i], t.keyAt(i));
+                if (modCount != expectedModCount)
+                    throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    private class ValueIterator implements Iterator<T> {
+        private final Table t = table;
+        private final int expectedModCount = modCount;
+        private int next = advance(0);
+
+        private int advance(int from) {
+            int i = from;
+            while (i < t.values.length && t.values[i] == null) {
+                i++;
+            }
+            return i;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < t.values.length;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T next() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (!hasNext())
+                throw new NoSuchElementException();
+            T value = (T) t.values[next];
+            next = advance(next + 1);
+            return value;
+        }
+    }
+}
@@ -33,14 +33,28 @@ public final class Node extends OsmPrimitive implements INode {
     private double lon = Double.NaN;
 
     /*
-     * the cached projected coordinates
+     * The slot of the cached projected coordinates in the EastNorthCache of the dataset, or -1 if not in a dataset
      */
-    private double east = Double.NaN;
-    private double north = Double.NaN;
+    private int eastNorthSlot = -1;
     /**
-     * The cache key to use for {@link #east} and {@link #north}.
+     * The cached projected coordinates while this node is not in a dataset.
      */
-    private Object eastNorthCacheKey;
+    private CachedEastNorth detachedEastNorth;
+
+    /**
+     * Projected coordinates together with the cache key of the projection.
+     */
+    private static final class CachedEastNorth {
+        private final double east;
+        private final double north;
+        private final Object cacheKey;
+
+        CachedEastNorth(double east, double north, Object cacheKey) {
+            this.east = east;
+            this.north = north;
+            this.cacheKey = cacheKey;
+        }
+    }
 
     @Override
     public void setCoor(LatLon coor) {
@@ -92,15 +106,36 @@ public final class Node extends OsmPrimitive implements INode {
     public EastNorth getEastNorth(Projecting projection) {
         if (!isLatLonKnown()) return null;
 
-        if (Double.isNaN(east) || Double.isNaN(north) || !Objects.equals(projection.getCacheKey(), eastNorthCacheKey)) {
-            // projected coordinates haven't been calculated yet,
-            // so fill the cache of the projected node coordinates
+        Object cacheKey = projection.getCacheKey();
+        DataSet ds = getDataSet();
+        int slot = eastNorthSlot;
+        if (ds != null && slot >= 0) {
+            EastNorthCache cache = ds.getEastNorthCache();
+            EastNorth en = cache.get(slot, this, cacheKey);
+            if (en == null) {
+                // projected coordinates haven't been calculated yet,
+                // so fill the cache of the projected node coordinates
+                en = projection.latlon2eastNorth(this);
+                cache.put(slot, this, en, cacheKey);
+            }
+            return en;
+        }
+        CachedEastNorth cached = detachedEastNorth;
+        if (cached == null || !Objects.equals(cacheKey, cached.cacheKey)) {
             EastNorth en = projection.latlon2eastNorth(this);
-            this.east = en.east();
-            this.north = en.north();
-            this.eastNorthCacheKey = projection.getCacheKey();
+            cached = new CachedEastNorth(en.east(), en.north(), cacheKey);
+            detachedEastNorth = cached;
+        }
+        return new EastNorth(cached.east, cached.north);
+    }
+
+    private void setCachedEastNorth(EastNorth eastNorth, Object cacheKey) {
+        DataSet ds = getDataSet();
+        if (ds != null && eastNorthSlot >= 0) {
+            ds.getEastNorthCache().put(eastNorthSlot, this, eastNorth, cacheKey);
+        } else {
+            detachedEastNorth = new CachedEastNorth(eastNorth.east(), eastNorth.north(), cacheKey);
         }
-        return new EastNorth(east, north);
     }
 
     /**
@@ -117,9 +152,8 @@ public final class Node extends OsmPrimitive implements INode {
             LatLon ll = ProjectionRegistry.getProjection().eastNorth2latlon(eastNorth);
             this.lat = ll.lat();
             this.lon = ll.lon();
-            this.east = eastNorth.east();
-            this.north = eastNorth.north();
-            this.eastNorthCacheKey = ProjectionRegistry.getProjection().getCacheKey();
+            invalidateEastNorthCache();
+            setCachedEastNorth(eastNorth, ProjectionRegistry.getProjection().getCacheKey());
         } else {
             this.lat = Double.NaN;
             this.lon = Double.NaN;
@@ -202,7 +236,24 @@ public final class Node extends OsmPrimitive implements INode {
 
     @Override
     void setDataset(DataSet dataSet) {
+        DataSet oldDataSet = getDataSet();
         super.setDataset(dataSet);
+        if (oldDataSet != null && dataSet == null && eastNorthSlot >= 0) {
+            // keep the projected coordinates while detached
+            EastNorthCache cache = oldDataSet.getEastNorthCache();
+            Object cacheKey = ProjectionRegistry.getProjection() != null ? ProjectionRegistry.getProjection().getCacheKey() : null;
+            EastNorth en = cache.get(eastNorthSlot, this, cacheKey);
+            detachedEastNorth = en != null ? new CachedEastNorth(en.east(), en.north(), cacheKey) : null;
+            cache.release(eastNorthSlot);
+            eastNorthSlot = -1;
+        } else if (dataSet != null && eastNorthSlot < 0) {
+            eastNorthSlot = dataSet.getEastNorthCache().allocate();
+            CachedEastNorth cached = detachedEastNorth;
+            if (cached != null) {
+                dataSet.getEastNorthCache().put(eastNorthSlot, this, new EastNorth(cached.east, cached.north), cached.cacheKey);
+                detachedEastNorth = null;
+            }
+        }
         if (!isIncomplete() && isVisible() && !isLatLonKnown())
             throw new DataIntegrityProblemException("Complete node with null coordinates: " + toString());
     }
@@ -336,9 +387,11 @@ public final class Node extends OsmPrimitive implements INode {
      * next time.
      */
     public void invalidateEastNorthCache() {
-        this.east = Double.NaN;
-        this.north = Double.NaN;
-        this.eastNorthCacheKey = null;
+        DataSet ds = getDataSet();
+        if (ds != null && eastNorthSlot >= 0) {
+            ds.getEastNorthCache().invalidate(eastNorthSlot);
+        }
+        detachedEastNorth = null;
     }
 
     @Override
@@ -3,6 +3,7 @@ package org.openstreetmap.josm.data.osm;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
@@ -12,7 +13,9 @@ import org.openstreetmap.josm.tools.JosmRuntimeException;
 /**
  * Stores primitives in quad buckets. This can be used to hold a collection of primitives, e.g. in a {@link DataSet}
  *
- * This class does not do any synchronization.
+ * This class does not do any synchronization. Modifications and the {@code search*} methods have to be synchronized
+ * by the caller. A read-only view of the last {@link #publish() published} state is available through
+ * {@link #getSnapshot()}, which can be searched from any thread while the store is being modified.
  * @author Michael Zangl
  * @param <N> type representing OSM nodes
  * @param <W> type representing OSM ways
@@ -24,20 +27,77 @@ public class QuadBucketPrimitiveStore<N extends INode, W extends IWay<N>, R exte
      * All nodes goes here, even when included in other data (ways etc). This enables the instant
      * conversion of the whole DataSet by iterating over this data structure.
      */
-    private final QuadBuckets<N> nodes = new QuadBuckets<>();
+    private final CopyOnWriteQuadBuckets<N> nodes = new CopyOnWriteQuadBuckets<>();
 
     /**
      * All ways (Streets etc.) in the DataSet.
      *
      * The way nodes are stored only in the way list.
      */
-    private final QuadBuckets<W> ways = new QuadBuckets<>();
+    private final CopyOnWriteQuadBuckets<W> ways = new CopyOnWriteQuadBuckets<>();
 
     /**
      * All relations/relationships
      */
     private final Collection<R> relations = new ArrayList<>();
 
+    private boolean relationsModified;
+    private volatile Snapshot<N, W, R> snapshot = new Snapshot<>(nodes.getSnapshot(), ways.getSnapshot(), Collections.emptyList());
+
+    /**
+     * An immutable view of the primitives of a {@link QuadBucketPrimitiveStore} at the time of {@link #publish()}.
+     * It can be searched from any thread without locking.
+     * @param <N> type representing OSM nodes
+     * @param <W> type representing OSM ways
+     * @param <R> type representing OSM relations
+     * @since xxx
+     */
+    public static final class Snapshot<N extends INode, W extends IWay<N>, R extends IRelation<?>> {
+        private final CopyOnWriteQuadBuckets.Snapshot<N> nodes;
+        private final CopyOnWriteQuadBuckets.Snapshot<W> ways;
+        private final Collection<R> relations;
+
+        Snapshot(CopyOnWriteQuadBuckets.Snapshot<N> nodes, CopyOnWriteQuadBuckets.Snapshot<W> ways, Collection<R> relations) {
+            this.nodes = nodes;
+            this.ways = ways;
+            this.relations = relations;
+        }
+
+        /**
+         * Searches for nodes in the given bounding box.
+         * @param bbox the bounding box
+         * @return List of nodes in the given bbox. Can be empty but not null
+         */
+        public List<N> searchNodes(BBox bbox) {
+            return nodes.search(bbox);
+        }
+
+        /**
+         * Searches for ways in the given bounding box.
+         * @param bbox the bounding box
+         * @return List of ways in the given bbox. Can be empty but not null
+         */
+        public List<W> searchWays(BBox bbox) {
+            return ways.search(bbox);
+        }
+
+        /**
+         * Searches for relations in the given bounding box.
+         * @param bbox the bounding box
+         * @return List of relations in the given bbox. Can be empty but not null
+         */
+        public List<R> searchRelations(BBox bbox) {
+            return filterRelations(relations, bbox);
+        }
+    }
+
+    private static <R extends IRelation<?>> List<R> filterRelations(Collection<R> relations, BBox bbox) {
+        // QuadBuckets might be useful here (don't forget to do reindexing after some of rm is changed)
+        return relations.stream()
+                .filter(r -> r.getBBox().intersects(bbox))
+                .collect(Collectors.toList());
+    }
+
     /**
      * Searches for nodes in the given bounding box.
      * @param bbox the bounding box
@@ -80,10 +140,7 @@ public class QuadBucketPrimitiveStore<N extends INode, W extends IWay<N>, R exte
      * @return List of relations in the given bbox. Can be empty but not null
      */
     public List<R> searchRelations(BBox bbox) {
-        // QuadBuckets might be useful here (don't forget to do reindexing after some of rm is changed)
-        return relations.stream()
-                .filter(r -> r.getBBox().intersects(bbox))
-                .collect(Collectors.toList());
+        return filterRelations(relations, bbox);
     }
 
     /**
@@ -109,6 +166,7 @@ public class QuadBucketPrimitiveStore<N extends INode, W extends IWay<N>, R exte
             success = ways.add((W) primitive);
         } else if (primitive instanceof IRelation) {
             success = relations.add((R) primitive);
+            relationsModified = true;
         }
         if (!success) {
             throw new JosmRuntimeException("failed to add primitive: "+primitive);
@@ -123,6 +181,7 @@ public class QuadBucketPrimitiveStore<N extends INode, W extends IWay<N>, R exte
             success = ways.remove(primitive);
         } else if (primitive instanceof IRelation) {
             success = relations.remove(primitive);
+            relationsModified = true;
         }
         if (!success) {
             throw new JosmRuntimeException("failed to remove primitive: "+primitive);
@@ -196,5 +255,31 @@ public class QuadBucketPrimitiveStore<N extends INode, W extends IWay<N>, R exte
         nodes.clear();
         ways.clear();
         relations.clear();
+        relationsModified = true;
+    }
+
+    /**
+     * Makes the current state of this store visible to {@link #getSnapshot()}.
+     * Must be called by the thread modifying the store, after a consistent set of changes.
+     * @since xxx
+     */
+    public void publish() {
+        nodes.publish();
+        ways.publish();
+        Collection<R> publishedRelations = snapshot.relations;
+        if (relationsModified) {
+            publishedRelations = Collections.unmodifiableList(new ArrayList<>(relations));
+            relationsModified = false;
+        }
+        snapshot = new Snapshot<>(nodes.getSnapshot(), ways.getSnapshot(), publishedRelations);
+    }
+
+    /**
+     * Returns the last published state of this store. The snapshot can be searched without any synchronization.
+     * @return the last published state of this store
+     * @since xxx
+     */
+    public Snapshot<N, W, R> getSnapshot() {
+        return snapshot;
     }
 }
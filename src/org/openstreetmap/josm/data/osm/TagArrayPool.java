@@ -0,0 +1,112 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Intern pool for the key/value arrays of primitives, like {@link String#intern()}.
+ * <p>
+ * Many primitives have exactly the same tags (e.g. {@code building=yes}), so primitives with equal tag arrays share
+ * one instance. This is safe since tag arrays are never changed once assigned to a primitive, see
+ * {@link AbstractPrimitive#keys}. Only arrays of up to {@value #MAX_INTERNED_TAGS} tags are interned: larger tag sets are
+ * hardly ever shared in real data, so their pool entries would cost more memory than they save.
+ * <p>
+ * The pool is a {@link Storage}, like the pool of {@link org.openstreetmap.josm.gui.mappaint.StyleCache}, but it
+ * references its entries weakly, so tags no longer used by any primitive do not stay in memory.
+ * @since xxx
+ */
+final class TagArrayPool {
+
+    /** Maximum number of tags of an interned tag array */
+    static final int MAX_INTERNED_TAGS = 2;
+
+    private static final ReferenceQueue<String[]> QUEUE = new ReferenceQueue<>();
+
+    private static final class TagArrayRef extends WeakReference<String[]> {
+        private final int hash;
+
+        TagArrayRef(String[] tags) {
+            super(tags, QUEUE);
+            this.hash = Arrays.hashCode(tags);
+        }
+    }
+
+    /** References to equal arrays are equal. A cleared reference is only equal to itself, so that it can be removed */
+    private static final Hash<TagArrayRef, TagArrayRef> REF_HASH = new Hash<TagArrayRef, TagArrayRef>() {
+        @Override
+        public int getHashCode(TagArrayRef ref) {
+            return ref.hash;
+        }
+
+        @Override
+        public boolean equals(TagArrayRef ref1, TagArrayRef ref2) {
+            if (ref1 == ref2)
+                return true;
+            String[] tags = ref1.get();
+            return tags != null && Arrays.equals(tags, ref2.get());
+        }
+    };
+
+    private static final Hash<String[], TagArrayRef> ARRAY_HASH = new Hash<String[], TagArrayRef>() {
+        @Override
+        public int getHashCode(String[] tags) {
+            return Arrays.hashCode(tags);
+        }
+
+        @Override
+        public boolean equals(String[] tags, TagArrayRef ref) {
+            return Arrays.equals(tags, ref.get());
+        }
+    };
+
+    private static final Storage<TagArrayRef> POOL = new Storage<>(REF_HASH);
+    private static final Map<String[], TagArrayRef> POOL_BY_ARRAY = POOL.foreignKey(ARRAY_HASH);
+
+    private TagArrayPool() {
+        // Hide default constructor for utils classes
+    }
+
+    /**
+     * Returns the pooled tag array equal to the given one. If there is none, the given array is added to the pool.
+     * The given array must not be changed afterwards.
+     * @param tags key/value array, can be null
+     * @return the pooled tag array, or {@code tags} if it is not pooled
+     */
+    static String[] intern(String[] tags) {
+        if (tags == null || tags.length == 0 || tags.length > 2 * MAX_INTERNED_TAGS) {
+            return tags;
+        }
+        synchronized (POOL) {
+            expungeStaleEntries();
+            TagArrayRef ref = POOL_BY_ARRAY.get(tags);
+            String[] pooled = ref != null ? ref.get() : null;
+            if (pooled != null) {
+                return pooled;
+            }
+            POOL.add(new TagArrayRef(tags));
+            return tags;
+        }
+    }
+
+    private static void expungeStaleEntries() {
+        for (Reference<? extends String[]> ref; (ref = QUEUE.poll()) != null;) {
+            POOL.removeElem((TagArrayRef) ref);
+        }
+    }
+
+    /**
+     * Get the number of tag arrays in the pool, including arrays which are no longer referenced but not yet removed.
+     * Only for tests!
+     * @return number of tag arrays in the pool
+     */
+    static int size() {
+        synchronized (POOL) {
+            expungeStaleEntries();
+            return POOL.size();
+        }
+    }
+}
@@ -6,6 +6,8 @@ import java.util.List;
 import java.util.function.Supplier;
 
 import org.openstreetmap.josm.data.osm.visitor.paint.StyledMapRenderer.StyleRecord;
+import org.openstreetmap.josm.gui.mappaint.ElemStyles;
+import org.openstreetmap.josm.gui.mappaint.MapPaintStyles;
 import org.openstreetmap.josm.gui.mappaint.mapcss.Selector;
 import org.openstreetmap.josm.spi.preferences.Config;
 import org.openstreetmap.josm.tools.Logging;
@@ -45,6 +47,15 @@ public class RenderBenchmarkCollector {
         return true;
     }
 
+    /**
+     * Notified when the renderer method has painted the strips of the view concurrently, and starts compositing them.
+     * Not called when the styles are painted sequentially.
+     * @since xxx
+     */
+    public void renderComposite() {
+        // nop
+    }
+
     /**
      * Notified when the render method is done.
      */
@@ -60,11 +71,13 @@ public class RenderBenchmarkCollector {
         protected long timeStart;
         protected long timeGenerateDone;
         protected long timeSortingDone;
+        protected long timeCompositeStart;
         protected long timeFinished;
 
         @Override
         public void renderStart(double circum) {
             timeStart = System.currentTimeMillis();
+            timeCompositeStart = 0;
             super.renderStart(circum);
         }
 
@@ -96,6 +109,12 @@ public class RenderBenchmarkCollector {
             return timeSortingDone - timeGenerateDone;
         }
 
+        @Override
+        public void renderComposite() {
+            timeCompositeStart = System.currentTimeMillis();
+            super.renderComposite();
+        }
+
         @Override
         public void renderDone() {
             timeFinished = System.currentTimeMillis();
@@ -109,6 +128,24 @@ public class RenderBenchmarkCollector {
         public long getDrawTime() {
             return timeFinished - timeGenerateDone;
         }
+
+        /**
+         * Get the time needed for painting the styles, in strips of the view if they are painted concurrently
+         * @return The time in ms
+         * @since xxx
+         */
+        public long getPaintTime() {
+            return (timeCompositeStart != 0 ? timeCompositeStart : timeFinished) - timeSortingDone;
+        }
+
+        /**
+         * Get the time needed for compositing the strips painted concurrently and finishing the rendering
+         * @return The time in ms, 0 if the styles have been painted sequentially
+         * @since xxx
+         */
+        public long getCompositeTime() {
+            return timeCompositeStart != 0 ? timeFinished - timeCompositeStart : 0;
+        }
     }
 
     /**
@@ -118,11 +155,18 @@ public class RenderBenchmarkCollector {
     public static class LoggingBenchmark extends RenderBenchmarkCollector.CapturingBenchmark {
         private final PrintStream outStream = System.err;
         private double circum;
+        private long sharedStyleHits;
+        private long sharedStyleMisses;
 
         @Override
         public void renderStart(double circum) {
             this.circum = circum;
             super.renderStart(circum);
+            ElemStyles styles = MapPaintStyles.getStyles();
+            if (styles != null) {
+                sharedStyleHits = styles.getSharedStyleHits();
+                sharedStyleMisses = styles.getSharedStyleMisses();
+            }
             outStream.print("BENCHMARK: rendering ");
         }
 
@@ -130,6 +174,11 @@ public class RenderBenchmarkCollector {
         public boolean renderDraw(List<StyleRecord> allStyleElems) {
             boolean res = super.renderDraw(allStyleElems);
             outStream.print("phase 1 (calculate styles): " + Utils.getDurationString(timeSortingDone - timeStart));
+            ElemStyles styles = MapPaintStyles.getStyles();
+            if (styles != null) {
+                outStream.print(" (shared styles: " + (styles.getSharedStyleHits() - sharedStyleHits) + " hits, "
+                        + (styles.getSharedStyleMisses() - sharedStyleMisses) + " misses)");
+            }
             return res;
         }
 
@@ -137,6 +186,8 @@ public class RenderBenchmarkCollector {
         public void renderDone() {
             super.renderDone();
             outStream.println("; phase 2 (draw): " + Utils.getDurationString(timeFinished - timeGenerateDone) +
+                    (timeCompositeStart != 0 ? " (paint strips: " + Utils.getDurationString(getPaintTime()) +
+                            ", composite: " + Utils.getDurationString(getCompositeTime()) + ')' : "") +
                     "; total: " + Utils.getDurationString(timeFinished - timeStart) +
                     " (scale: " + circum + " zoom level: " + Selector.GeneralSelector.scale2level(circum) + ')');
         }
@@ -20,6 +20,7 @@ import java.awt.font.GlyphVector;
 import java.awt.font.LineMetrics;
 import java.awt.font.TextLayout;
 import java.awt.geom.AffineTransform;
+import java.awt.geom.NoninvertibleTransformException;
 import java.awt.geom.Path2D;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
@@ -28,13 +29,14 @@ import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
@@ -56,6 +58,7 @@ import org.openstreetmap.josm.data.osm.OsmPrimitive;
 import org.openstreetmap.josm.data.osm.OsmUtils;
 import org.openstreetmap.josm.data.osm.Relation;
 import org.openstreetmap.josm.data.osm.WaySegment;
+import org.openstreetmap.josm.data.osm.visitor.paint.WayGeometryCache.WayGeometry;
 import org.openstreetmap.josm.data.osm.visitor.paint.relations.Multipolygon;
 import org.openstreetmap.josm.data.osm.visitor.paint.relations.Multipolygon.PolyData;
 import org.openstreetmap.josm.data.osm.visitor.paint.relations.MultipolygonCache;
@@ -239,7 +242,7 @@ public class StyledMapRenderer extends AbstractMapRenderer {
         }
     }
 
-    private static final Map<Font, Boolean> IS_GLYPH_VECTOR_DOUBLE_TRANSLATION_BUG = new HashMap<>();
+    private static final Map<Font, Boolean> IS_GLYPH_VECTOR_DOUBLE_TRANSLATION_BUG = new ConcurrentHashMap<>();
 
     /**
      * Check, if this System has the GlyphVector double translation bug.
@@ -340,6 +343,22 @@ public class StyledMapRenderer extends AbstractMapRenderer {
      */
     public static final AbstractProperty<String> PREFERENCE_TEXT_ANTIALIASING
             = new StringProperty("mappaint.text-antialiasing", "default").cached();
+    /**
+     * Indicates that the renderer should paint horizontal strips of the view concurrently, in separate images
+     * @since xxx
+     */
+    public static final AbstractProperty<Boolean> PREFERENCE_TILED_PAINTING
+            = new BooleanProperty("mappaint.tiled-painting", false).cached();
+
+    /**
+     * The minimum height of a strip painted concurrently, in device pixels
+     */
+    private static final int MIN_STRIP_HEIGHT = 64;
+    /**
+     * The margin added around the primitives to find the strips they are painted in, in view pixels.
+     * It accounts for the width of the lines, the icons and the labels.
+     */
+    private static final double STRIP_MARGIN = 100;
 
     /**
      * The line with to use for highlighting
@@ -381,6 +400,38 @@ public class StyledMapRenderer extends AbstractMapRenderer {
         this.styles = MapPaintStyles.getStyles();
     }
 
+    /**
+     * Constructs a new {@code StyledMapRenderer} painting on another graphics context with the same settings.
+     * @param parent the renderer whose settings are copied
+     * @param g the graphics context
+     */
+    private StyledMapRenderer(StyledMapRenderer parent, Graphics2D g) {
+        super(g, parent.nc, parent.isInactiveMode);
+        backgroundColor = parent.backgroundColor;
+        inactiveColor = parent.inactiveColor;
+        selectedColor = parent.selectedColor;
+        relationSelectedColor = parent.relationSelectedColor;
+        nodeColor = parent.nodeColor;
+        highlightColor = parent.highlightColor;
+        virtualNodeSize = parent.virtualNodeSize;
+        virtualNodeSpace = parent.virtualNodeSpace;
+        segmentNumberSpace = parent.segmentNumberSpace;
+        doSlowOperations = parent.doSlowOperations;
+        circum = parent.circum;
+        scale = parent.scale;
+        paintSettings = parent.paintSettings;
+        styles = parent.styles;
+        highlightColorTransparent = parent.highlightColorTransparent;
+        highlightWaySegments = parent.highlightWaySegments;
+        useWiderHighlight = parent.useWiderHighlight;
+        useStrokes = parent.useStrokes;
+        showNames = parent.showNames;
+        showIcons = parent.showIcons;
+        isOutlineOnly = parent.isOutlineOnly;
+        leftHandTraffic = parent.leftHandTraffic;
+        antialiasing = parent.antialiasing;
+    }
+
     /**
      * Set the {@link ElemStyles} instance to use for this renderer.
      * @param styles the {@code ElemStyles} instance to use
@@ -541,7 +592,8 @@ public class StyledMapRenderer extends AbstractMapRenderer {
         MapViewPath convertedShape = null;
         if (shape != null) {
             convertedShape = new MapViewPath(mapState);
-            convertedShape.appendFromEastNorth(shape);
+            // the multipolygon cache keeps the shape in east/north, it only needs the affine transform of the view
+            convertedShape.append(shape.getPathIterator(mapState.getAffineTransform()), false);
             convertedShape.setWindingRule(Path2D.WIND_EVEN_ODD);
 
             Rectangle2D extViewBBox = mapState.getViewClipRectangle().getInView();
@@ -573,7 +625,9 @@ public class StyledMapRenderer extends AbstractMapRenderer {
     public void drawArea(IWay<?> w, Color color, MapImage fillImage, Float extent, Float extentThreshold, boolean disabled) {
         MapViewPath pfClip = null;
         if (extent != null) {
-            if (!usePartialFill(Geometry.getAreaAndPerimeter(w.getNodes()), extent, extentThreshold)) {
+            WayGeometry geometry = WayGeometryCache.getInstance().get(w, mapState.getProjecting());
+            AreaAndPerimeter ap = geometry != null ? geometry.getAreaAndPerimeter() : Geometry.getAreaAndPerimeter(w.getNodes());
+            if (!usePartialFill(ap, extent, extentThreshold)) {
                 extent = null;
             } else if (!w.isClosed()) {
                 pfClip = shapeEastNorthToMapView(getPFClip(w, extent * scale));
@@ -1247,7 +1301,7 @@ public class StyledMapRenderer extends AbstractMapRenderer {
             if (!multipolygon.getOuterWays().isEmpty()) {
                 for (PolyData pd : multipolygon.getCombinedPolygons()) {
                     MapViewPath path = new MapViewPath(mapState);
-                    path.appendFromEastNorth(pd.get());
+                    path.append(pd.get().getPathIterator(mapState.getAffineTransform()), false);
                     path.setWindingRule(MapViewPath.WIND_EVEN_ODD);
                     consumer.accept(path);
                 }
@@ -1306,7 +1360,10 @@ public class StyledMapRenderer extends AbstractMapRenderer {
         }
 
         MapViewPoint lastPoint = null;
-        Iterator<MapViewPoint> it = new OffsetIterator(mapState, wayNodes, offset);
+        WayGeometry geometry = WayGeometryCache.getInstance().get(way, mapState.getProjecting());
+        Iterator<MapViewPoint> it = geometry != null && geometry.getPointCount() >= 2
+                ? new OffsetIterator(geometry.getViewPoints(mapState), offset)
+                : new OffsetIterator(mapState, wayNodes, offset);
         boolean initialMoveToNeeded = true;
         ArrowPaintHelper drawArrowHelper = null;
         if (showOrientation) {
@@ -1455,7 +1512,10 @@ public class StyledMapRenderer extends AbstractMapRenderer {
 
     private MapViewPath getPath(IWay<?> w) {
         MapViewPath path = new MapViewPath(mapState);
-        if (w.isClosed()) {
+        WayGeometry geometry = WayGeometryCache.getInstance().get(w, mapState.getProjecting());
+        if (geometry != null) {
+            geometry.appendTo(path);
+        } else if (w.isClosed()) {
             path.appendClosed(w.getNodes(), false);
         } else {
             path.append(w.getNodes(), false);
@@ -1690,8 +1750,10 @@ public class StyledMapRenderer extends AbstractMapRenderer {
                 return;
             }
 
-            for (StyleRecord record : sorted) {
-                paintRecord(record);
+            if (!paintStrips(sorted, benchmark)) {
+                for (StyleRecord record : sorted) {
+                    paintRecord(record);
+                }
             }
 
             drawVirtualNodes(data, bbox);
@@ -1707,6 +1769,148 @@ public class StyledMapRenderer extends AbstractMapRenderer {
         }
     }
 
+    /**
+     * Paints the sorted style records in horizontal strips of the view, concurrently, if enabled in the preferences.
+     * <p>
+     * Each strip is painted in its own image, with the records that may be visible in it, in the same order.
+     * As the strips do not overlap, drawing the images gives the same result as painting all records in order.
+     * @param sorted the sorted style records
+     * @param benchmark the benchmark collector
+     * @return {@code true} if the records have been painted, {@code false} if they must be painted sequentially
+     */
+    private boolean paintStrips(StyleRecord[] sorted, RenderBenchmarkCollector benchmark) {
+        AffineTransform transform = g.getTransform();
+        // the images are composited with the source over rule, which needs an opaque composite, and they are painted
+        // in device pixels, so that the strips do not share any pixel
+        if (THREAD_POOL == null || !PREFERENCE_TILED_PAINTING.get() || sorted.length == 0
+                || !AlphaComposite.SrcOver.equals(g.getComposite())
+                || (transform.getType() & ~(AffineTransform.TYPE_TRANSLATION | AffineTransform.TYPE_MASK_SCALE)) != 0) {
+            return false;
+        }
+        AffineTransform inverse;
+        try {
+            inverse = transform.createInverse();
+        } catch (NoninvertibleTransformException e) {
+            Logging.trace(e);
+            return false;
+        }
+        Rectangle viewBounds = g.getClipBounds();
+        if (viewBounds == null) {
+            viewBounds = new Rectangle(nc.getWidth(), nc.getHeight());
+        }
+        Rectangle deviceBounds = transform.createTransformedShape(viewBounds).getBounds();
+        int count = Math.min(2 * THREAD_POOL.getParallelism(), deviceBounds.height / MIN_STRIP_HEIGHT);
+        if (count < 2) {
+            return false;
+        }
+
+        Shape deviceClip = g.getClip() == null ? null : transform.createTransformedShape(g.getClip());
+        List<Strip> strips = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int y1 = deviceBounds.y + (int) ((long) deviceBounds.height * i / count);
+            int y2 = deviceBounds.y + (int) ((long) deviceBounds.height * (i + 1) / count);
+            Rectangle bounds = new Rectangle(deviceBounds.x, y1, deviceBounds.width, y2 - y1);
+            strips.add(new Strip(bounds, inverse.createTransformedShape(bounds).getBounds2D()));
+        }
+        for (StyleRecord record : sorted) {
+            double minY = Double.POSITIVE_INFINITY;
+            double maxY = Double.NEGATIVE_INFINITY;
+            if (record.osm instanceof INode) {
+                INode n = (INode) record.osm;
+                if (n.isLatLonKnown()) {
+                    minY = maxY = mapState.getPointFor(n).getInViewY();
+                }
+            } else if (record.osm instanceof IWay) {
+                for (INode n : ((IWay<?>) record.osm).getNodes()) {
+                    if (n.isLatLonKnown()) {
+                        double y = mapState.getPointFor(n).getInViewY();
+                        minY = Math.min(minY, y);
+                        maxY = Math.max(maxY, y);
+                    }
+                }
+            }
+            // relations are painted in all strips, as their members may be anywhere
+            boolean everywhere = minY > maxY;
+            for (Strip strip : strips) {
+                if (everywhere || (minY - STRIP_MARGIN <= strip.viewBounds.getMaxY()
+                        && maxY + STRIP_MARGIN >= strip.viewBounds.getMinY())) {
+                    strip.records.add(record);
+                }
+            }
+        }
+
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(count);
+        for (Strip strip : strips) {
+            strip.createGraphics(transform, deviceClip);
+            tasks.add(THREAD_POOL.submit(strip::paint));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+
+        benchmark.renderComposite();
+        g.setTransform(new AffineTransform());
+        try {
+            for (Strip strip : strips) {
+                g.drawImage(strip.image, strip.bounds.x, strip.bounds.y, null);
+            }
+        } finally {
+            g.setTransform(transform);
+        }
+        return true;
+    }
+
+    /**
+     * A horizontal strip of the view, painted in its own image.
+     */
+    private final class Strip {
+        /** The bounds of the strip, in device pixels */
+        private final Rectangle bounds;
+        /** The bounds of the strip, in view coordinates */
+        private final Rectangle2D viewBounds;
+        /** The records to paint, in order */
+        private final List<StyleRecord> records = new ArrayList<>();
+        private BufferedImage image;
+        private Graphics2D stripGraphics;
+
+        Strip(Rectangle bounds, Rectangle2D viewBounds) {
+            this.bounds = bounds;
+            this.viewBounds = viewBounds;
+        }
+
+        /**
+         * Creates the image of the strip and its graphics context, with the settings of the graphics context of the view.
+         * @param transform the transform of the graphics context of the view
+         * @param deviceClip the clip of the graphics context of the view, in device pixels, or {@code null}
+         */
+        void createGraphics(AffineTransform transform, Shape deviceClip) {
+            image = new BufferedImage(bounds.width, bounds.height, BufferedImage.TYPE_INT_ARGB_PRE);
+            stripGraphics = image.createGraphics();
+            stripGraphics.setRenderingHints(g.getRenderingHints());
+            stripGraphics.setFont(g.getFont());
+            stripGraphics.setColor(g.getColor());
+            stripGraphics.setBackground(g.getBackground());
+            stripGraphics.setStroke(g.getStroke());
+            stripGraphics.translate(-bounds.x, -bounds.y);
+            stripGraphics.clip(bounds);
+            if (deviceClip != null) {
+                stripGraphics.clip(deviceClip);
+            }
+            stripGraphics.transform(transform);
+        }
+
+        void paint() {
+            try {
+                StyledMapRenderer renderer = new StyledMapRenderer(StyledMapRenderer.this, stripGraphics);
+                for (StyleRecord record : records) {
+                    renderer.paintRecord(record);
+                }
+            } finally {
+                stripGraphics.dispose();
+            }
+        }
+    }
+
     private void paintRecord(StyleRecord record) {
         try {
             record.paintPrimitive(paintSettings, this);
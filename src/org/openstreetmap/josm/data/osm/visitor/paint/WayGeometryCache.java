@@ -0,0 +1,306 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm.visitor.paint;
+
+import java.awt.geom.AffineTransform;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.openstreetmap.josm.data.coor.EastNorth;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.IWay;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.data.osm.event.AbstractDatasetChangedEvent;
+import org.openstreetmap.josm.data.osm.event.DataChangedEvent;
+import org.openstreetmap.josm.data.osm.event.DataSetListener;
+import org.openstreetmap.josm.data.osm.event.NodeMovedEvent;
+import org.openstreetmap.josm.data.osm.event.PrimitivesAddedEvent;
+import org.openstreetmap.josm.data.osm.event.PrimitivesRemovedEvent;
+import org.openstreetmap.josm.data.osm.event.RelationMembersChangedEvent;
+import org.openstreetmap.josm.data.osm.event.TagsChangedEvent;
+import org.openstreetmap.josm.data.osm.event.WayNodesChangedEvent;
+import org.openstreetmap.josm.data.projection.Projecting;
+import org.openstreetmap.josm.data.projection.Projection;
+import org.openstreetmap.josm.data.projection.ProjectionChangeListener;
+import org.openstreetmap.josm.data.projection.ProjectionRegistry;
+import org.openstreetmap.josm.gui.MapViewState;
+import org.openstreetmap.josm.gui.MapViewState.MapViewPoint;
+import org.openstreetmap.josm.gui.draw.MapViewPath;
+import org.openstreetmap.josm.tools.Geometry.AreaAndPerimeter;
+
+/**
+ * A memory cache for the projected geometry of the ways drawn by {@link StyledMapRenderer}.
+ * <p>
+ * The east/north coordinates of the nodes of a way are kept in an array, together with the view coordinates for
+ * the last view transform. A way drawn with several styles is thus converted to view coordinates only once, and
+ * a repaint after panning or zooming only applies the new view transform to the array, while a repaint after a
+ * selection change reuses the view coordinates. Ways are removed from the cache when their nodes move or change,
+ * and the cache is cleared when the projection changes.
+ * <p>
+ * Only the ways of the data sets added with {@link #addDataSet} are cached, as the cache relies on their events.
+ * @since xxx
+ */
+public final class WayGeometryCache implements DataSetListener, ProjectionChangeListener {
+
+    private static final WayGeometryCache INSTANCE = new WayGeometryCache();
+
+    private final Map<DataSet, Map<Way, WayGeometry>> cache = new ConcurrentHashMap<>();
+
+    private WayGeometryCache() {
+        ProjectionRegistry.addProjectionChangeListener(this);
+    }
+
+    /**
+     * Replies the unique instance.
+     * @return the unique instance
+     */
+    public static WayGeometryCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts caching the geometry of the ways of the given data set.
+     * @param ds the data set
+     */
+    public void addDataSet(DataSet ds) {
+        cache.computeIfAbsent(ds, k -> new ConcurrentHashMap<>());
+        ds.addDataSetListener(this);
+    }
+
+    /**
+     * Stops caching the geometry of the ways of the given data set, and clears its cached geometry.
+     * @param ds the data set
+     */
+    public void removeDataSet(DataSet ds) {
+        ds.removeDataSetListener(this);
+        cache.remove(ds);
+    }
+
+    /**
+     * Clears the cached geometry of all ways.
+     */
+    public void clear() {
+        cache.values().forEach(Map::clear);
+    }
+
+    /**
+     * Gets the geometry of a way from the cache, or computes it.
+     * @param w the way
+     * @param projecting the projection of the view
+     * @return the geometry of the way, or {@code null} if the way is not in a data set whose ways are cached
+     */
+    WayGeometry get(IWay<?> w, Projecting projecting) {
+        if (!(w instanceof Way) || ((Way) w).getDataSet() == null) {
+            return null;
+        }
+        Map<Way, WayGeometry> map = cache.get(((Way) w).getDataSet());
+        if (map == null) {
+            return null;
+        }
+        Object projectionKey = projecting.getCacheKey();
+        WayGeometry geometry = map.get(w);
+        if (geometry == null || !Objects.equals(geometry.projectionKey, projectionKey)) {
+            geometry = new WayGeometry((Way) w, projecting, projectionKey);
+            map.put((Way) w, geometry);
+        }
+        return geometry;
+    }
+
+    private void remove(DataSet ds, Way w) {
+        Map<Way, WayGeometry> map = cache.get(ds);
+        if (map != null) {
+            map.remove(w);
+        }
+    }
+
+    @Override
+    public void primitivesAdded(PrimitivesAddedEvent event) {
+        // Do nothing
+    }
+
+    @Override
+    public void primitivesRemoved(PrimitivesRemovedEvent event) {
+        for (OsmPrimitive p : event.getPrimitives()) {
+            if (p instanceof Way) {
+                remove(event.getDataset(), (Way) p);
+            }
+        }
+    }
+
+    @Override
+    public void tagsChanged(TagsChangedEvent event) {
+        // Do nothing
+    }
+
+    @Override
+    public void nodeMoved(NodeMovedEvent event) {
+        Node n = event.getNode();
+        for (OsmPrimitive referrer : n.getReferrers()) {
+            if (referrer instanceof Way) {
+                remove(event.getDataset(), (Way) referrer);
+            }
+        }
+    }
+
+    @Override
+    public void wayNodesChanged(WayNodesChangedEvent event) {
+        remove(event.getDataset(), event.getChangedWay());
+    }
+
+    @Override
+    public void relationMembersChanged(RelationMembersChangedEvent event) {
+        // Do nothing
+    }
+
+    @Override
+    public void otherDatasetChange(AbstractDatasetChangedEvent event) {
+        // Do nothing
+    }
+
+    @Override
+    public void dataChanged(DataChangedEvent event) {
+        List<AbstractDatasetChangedEvent> events = event.getEvents();
+        if (events != null) {
+            for (AbstractDatasetChangedEvent e : events) {
+                e.fire(this);
+            }
+        } else {
+            Map<Way, WayGeometry> map = cache.get(event.getDataset());
+            if (map != null) {
+                map.clear();
+            }
+        }
+    }
+
+    @Override
+    public void projectionChanged(Projection oldValue, Projection newValue) {
+        clear();
+    }
+
+    /**
+     * The projected geometry of a way.
+     */
+    static final class WayGeometry {
+        private final Object projectionKey;
+        /** east and north of the nodes with known coordinates, interleaved */
+        private final double[] eastNorth;
+        private final boolean closed;
+        private volatile AreaAndPerimeter areaAndPerimeter;
+        private volatile ViewCoordinates view;
+
+        WayGeometry(Way w, Projecting projecting, Object projectionKey) {
+            this.projectionKey = projectionKey;
+            List<Node> nodes = w.getNodes();
+            double[] coordinates = new double[2 * nodes.size()];
+            int length = 0;
+            for (Node n : nodes) {
+                if (n.isLatLonKnown()) {
+                    EastNorth en = n.getEastNorth(projecting);
+                    coordinates[length++] = en.east();
+                    coordinates[length++] = en.north();
+                }
+            }
+            this.eastNorth = length == coordinates.length ? coordinates : Arrays.copyOf(coordinates, length);
+            this.closed = w.isClosed();
+        }
+
+        /**
+         * Returns the number of nodes with known coordinates.
+         * @return the number of points
+         */
+        int getPointCount() {
+            return eastNorth.length / 2;
+        }
+
+        /**
+         * Returns the view coordinates of the nodes for the given view. They are computed again only when the view
+         * transform changes.
+         * @param state the view
+         * @return the view coordinates of the nodes with known coordinates, interleaved; the array must not be modified
+         */
+        double[] getViewCoordinates(MapViewState state) {
+            AffineTransform transform = state.getAffineTransform();
+            ViewCoordinates v = view;
+            if (v == null || !v.transform.equals(transform)) {
+                double[] coordinates = new double[eastNorth.length];
+                transform.transform(eastNorth, 0, coordinates, 0, getPointCount());
+                v = new ViewCoordinates(transform, coordinates);
+                view = v;
+            }
+            return v.coordinates;
+        }
+
+        /**
+         * Appends the way to a path, like {@link MapViewPath#append} or {@link MapViewPath#appendClosed} for a closed way.
+         * @param path the path
+         */
+        void appendTo(MapViewPath path) {
+            double[] coordinates = getViewCoordinates(path.getMapViewState());
+            for (int i = 0; i < coordinates.length; i += 2) {
+                if (i == 0) {
+                    path.moveTo(coordinates[0], coordinates[1]);
+                } else {
+                    path.lineTo(coordinates[i], coordinates[i + 1]);
+                }
+            }
+            if (closed && coordinates.length > 0) {
+                path.lineTo(coordinates[0], coordinates[1]);
+            }
+        }
+
+        /**
+         * Returns the points of the nodes with known coordinates in the given view.
+         * @param state the view
+         * @return the points
+         */
+        List<MapViewPoint> getViewPoints(MapViewState state) {
+            double[] coordinates = getViewCoordinates(state);
+            List<MapViewPoint> points = new ArrayList<>(getPointCount());
+            for (int i = 0; i < coordinates.length; i += 2) {
+                points.add(state.getForView(coordinates[i], coordinates[i + 1]));
+            }
+            return points;
+        }
+
+        /**
+         * Returns the area and perimeter of the way, as {@link org.openstreetmap.josm.tools.Geometry#getAreaAndPerimeter}.
+         * @return the area and perimeter
+         */
+        AreaAndPerimeter getAreaAndPerimeter() {
+            AreaAndPerimeter ap = areaAndPerimeter;
+            if (ap == null) {
+                double area = 0;
+                double perimeter = 0;
+                int count = getPointCount();
+                int numSegments = closed ? count - 1 : count;
+                for (int i = 1; i <= numSegments; i++) {
+                    int j = i == numSegments ? 0 : i;
+                    double e1 = eastNorth[2 * i - 2];
+                    double n1 = eastNorth[2 * i - 1];
+                    double e2 = eastNorth[2 * j];
+                    double n2 = eastNorth[2 * j + 1];
+                    area += e1 * n2 - e2 * n1;
+                    perimeter += Math.sqrt((e2 - e1) * (e2 - e1) + (n2 - n1) * (n2 - n1));
+                }
+                ap = new AreaAndPerimeter(Math.abs(area) / 2, perimeter);
+                areaAndPerimeter = ap;
+            }
+            return ap;
+        }
+    }
+
+    private static final class ViewCoordinates {
+        private final AffineTransform transform;
+        private final double[] coordinates;
+
+        ViewCoordinates(AffineTransform transform, double[] coordinates) {
+            this.transform = transform;
+            this.coordinates = coordinates;
+        }
+    }
+}
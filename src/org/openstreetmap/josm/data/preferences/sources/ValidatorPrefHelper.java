@@ -44,6 +44,9 @@ public class ValidatorPrefHelper extends SourcePrefHelper {
     /** The preferences for ignored severity other */
     public static final BooleanProperty PREF_OTHER = new BooleanProperty(PREFIX + ".other", false);
 
+    /** The preferences key for validating again the primitives affected by each edit */
+    public static final BooleanProperty PREF_VALIDATE_ON_EDIT = new BooleanProperty(PREFIX + ".validateOnEdit", false);
+
     /** The preferences key for the ignorelist */
     public static final String PREF_IGNORELIST = PREFIX + ".ignorelist";
 
@@ -0,0 +1,278 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.validation;
+
+import static org.openstreetmap.josm.tools.I18n.tr;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Collectors;
+
+import org.openstreetmap.josm.data.osm.BBox;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.data.osm.event.AbstractDatasetChangedEvent;
+import org.openstreetmap.josm.data.osm.event.DataChangedEvent;
+import org.openstreetmap.josm.data.osm.event.DataSetListener;
+import org.openstreetmap.josm.data.osm.event.NodeMovedEvent;
+import org.openstreetmap.josm.data.osm.event.PrimitivesAddedEvent;
+import org.openstreetmap.josm.data.osm.event.PrimitivesRemovedEvent;
+import org.openstreetmap.josm.data.osm.event.RelationMembersChangedEvent;
+import org.openstreetmap.josm.data.osm.event.TagsChangedEvent;
+import org.openstreetmap.josm.data.osm.event.WayNodesChangedEvent;
+import org.openstreetmap.josm.data.preferences.sources.ValidatorPrefHelper;
+import org.openstreetmap.josm.gui.progress.ProgressMonitor;
+import org.openstreetmap.josm.tools.Logging;
+
+/**
+ * Validates again the primitives affected by the changes of a data set, instead of the whole data set.
+ * <p>
+ * The validator listens to the changes of the data set and collects the changed primitives. Then
+ * {@link #validate} runs the tests on the changed primitives and their neighbourhood: their parents and the
+ * nodes and ways found close to them in the spatial index of the data set. The ways whose nodes have moved are
+ * considered changed. The errors of the changed primitives and of the neighbourhood are replaced by the errors found,
+ * the other errors are kept.
+ * <p>
+ * Since the validation may run in a worker thread, it holds the read lock of the data set while validating, and uses
+ * its own instances of the tests, see {@link #getEnabledTests()}.
+ * @since xxx
+ */
+public class IncrementalValidator implements DataSetListener {
+
+    /** Margin around the changed primitives where the nodes and ways are validated again, in degrees (about 100 m) */
+    private static final double NEIGHBOURHOOD_MARGIN = 1e-3;
+
+    private DataSet dataSet;
+    private final Set<OsmPrimitive> changed = new LinkedHashSet<>();
+    private boolean tooManyChanges;
+    /** The instances of the tests used by this validator, by class name */
+    private final Map<String, Test> ownTests = new HashMap<>();
+    /** The value of {@link OsmValidator#getTestsInitializationCount()} when the own tests have been created */
+    private int ownTestsInitializationCount;
+
+    private synchronized void addChanged(DataSet ds, Collection<? extends OsmPrimitive> primitives) {
+        if (ds != dataSet) {
+            dataSet = ds;
+            changed.clear();
+            tooManyChanges = false;
+        }
+        changed.addAll(primitives);
+    }
+
+    /**
+     * Determines if changes of the given data set have been collected since the last validation.
+     * @param ds the data set
+     * @return {@code true} if {@link #validate} would validate changed primitives
+     */
+    public synchronized boolean hasChanges(DataSet ds) {
+        return ds == dataSet && (tooManyChanges || !changed.isEmpty());
+    }
+
+    /**
+     * Returns instances of the enabled tests that are only used by this validator. The instances returned by
+     * {@link OsmValidator#getEnabledTests} are shared with the other validations, for instance before upload, which
+     * may run concurrently. The own instances are created and initialized when they are first needed, and again
+     * after the shared tests have been initialized again, for instance because their rules have changed.
+     * @return the own instances of the enabled tests
+     */
+    public synchronized List<Test> getEnabledTests() {
+        int initializationCount = OsmValidator.getTestsInitializationCount();
+        if (initializationCount != ownTestsInitializationCount) {
+            ownTests.clear();
+            ownTestsInitializationCount = initializationCount;
+        }
+        List<Test> tests = new ArrayList<>();
+        for (Test shared : OsmValidator.getEnabledTests(false)) {
+            Test test = ownTests.get(shared.getClass().getName());
+            if (test == null) {
+                try {
+                    test = shared.getClass().getConstructor().newInstance();
+                } catch (ReflectiveOperationException e) {
+                    Logging.error(e);
+                    continue;
+                }
+                try {
+                    test.initialize();
+                } catch (Exception e) { // NOPMD
+                    // like the shared test, which is run even if it could not be initialized
+                    Logging.error(tr("Error initializing test {0}:\n {1}", test.getClass().getSimpleName(), e));
+                }
+                ownTests.put(shared.getClass().getName(), test);
+            }
+            tests.add(test);
+        }
+        return tests;
+    }
+
+    /**
+     * Validates the primitives affected by the changes collected since the last validation, and forgets the changes.
+     * The read lock of the data set is held while validating.
+     * @param ds the data set whose errors are updated
+     * @param tests the tests to run, they are set to partial selection mode
+     * @param errors the current errors of the data set
+     * @param progressMonitor the progress monitor, can be null
+     * @return the updated errors, or {@code null} if the data set must be validated completely
+     * because too many changes have been made at once
+     */
+    public List<TestError> validate(DataSet ds, Collection<? extends Test> tests, Collection<TestError> errors,
+            ProgressMonitor progressMonitor) {
+        Set<OsmPrimitive> primitives;
+        synchronized (this) {
+            if (ds != dataSet) {
+                return new ArrayList<>(errors);
+            }
+            boolean complete = tooManyChanges;
+            primitives = new HashSet<>(changed);
+            changed.clear();
+            tooManyChanges = false;
+            if (complete) {
+                return null;
+            }
+        }
+        Set<OsmPrimitive> neighbourhood;
+        List<TestError> found;
+        Lock lock = ds.getReadLock();
+        lock.lock();
+        try {
+            // the segments of the parent ways of the moved nodes have changed, as well as their crossings
+            for (OsmPrimitive p : new ArrayList<>(primitives)) {
+                if (p instanceof Node) {
+                    primitives.addAll(p.getReferrers().stream().filter(Way.class::isInstance).collect(Collectors.toList()));
+                }
+            }
+            neighbourhood = getNeighbourhood(ds, primitives);
+            for (Test test : tests) {
+                test.setPartialSelection(true);
+            }
+            found = ValidationEngine.runTests(tests, neighbourhood, progressMonitor);
+        } finally {
+            lock.unlock();
+        }
+
+        List<TestError> result = new ArrayList<>(errors.size() + found.size());
+        Set<List<Object>> kept = new HashSet<>();
+        for (TestError error : errors) {
+            Collection<? extends OsmPrimitive> errorPrimitives = error.getPrimitives();
+            if (errorPrimitives.stream().noneMatch(primitives::contains) && !neighbourhood.containsAll(errorPrimitives)) {
+                result.add(error);
+                kept.add(getKey(error));
+            }
+        }
+        boolean useIgnore = ValidatorPrefHelper.PREF_USE_IGNORE.get();
+        for (TestError error : found) {
+            // tests in partial selection mode may find again errors involving primitives out of the neighbourhood
+            if (!kept.contains(getKey(error))) {
+                if (useIgnore) {
+                    error.updateIgnored();
+                }
+                result.add(error);
+            }
+        }
+        return result;
+    }
+
+    private static List<Object> getKey(TestError error) {
+        return Arrays.asList(error.getTester().getClass(), error.getCode(), error.getMessage(), error.getDescription(),
+                new HashSet<>(error.getPrimitives()));
+    }
+
+    /**
+     * Returns the primitives to validate again after a change of the given primitives: the usable changed primitives,
+     * their parents, the nodes and ways close to the changed nodes and ways, and the nodes of all these ways.
+     * @param ds the data set
+     * @param primitives the changed primitives, which may be deleted
+     * @return the primitives to validate again
+     */
+    static Set<OsmPrimitive> getNeighbourhood(DataSet ds, Collection<OsmPrimitive> primitives) {
+        Set<OsmPrimitive> neighbourhood = new HashSet<>();
+        Deque<OsmPrimitive> parents = new ArrayDeque<>();
+        for (OsmPrimitive p : primitives) {
+            if (p instanceof Node || p instanceof Way) {
+                BBox bbox = p.getBBox();
+                if (bbox.isValid()) {
+                    bbox.addPrimitive(p, NEIGHBOURHOOD_MARGIN);
+                    neighbourhood.addAll(ds.searchNodes(bbox));
+                    neighbourhood.addAll(ds.searchWays(bbox));
+                }
+            }
+            if (p.getDataSet() == ds && p.isUsable()) {
+                neighbourhood.add(p);
+                parents.add(p);
+            }
+        }
+        while (!parents.isEmpty()) {
+            for (OsmPrimitive parent : parents.remove().getReferrers()) {
+                if (parent.isUsable() && neighbourhood.add(parent)) {
+                    parents.add(parent);
+                }
+            }
+        }
+        List<Way> ways = neighbourhood.stream().filter(Way.class::isInstance).map(Way.class::cast).collect(Collectors.toList());
+        for (Way w : ways) {
+            neighbourhood.addAll(w.getNodes());
+        }
+        neighbourhood.removeIf(p -> !p.isUsable());
+        return neighbourhood;
+    }
+
+    @Override
+    public void primitivesAdded(PrimitivesAddedEvent event) {
+        addChanged(event.getDataset(), event.getPrimitives());
+    }
+
+    @Override
+    public void primitivesRemoved(PrimitivesRemovedEvent event) {
+        addChanged(event.getDataset(), event.getPrimitives());
+    }
+
+    @Override
+    public void tagsChanged(TagsChangedEvent event) {
+        addChanged(event.getDataset(), event.getPrimitives());
+    }
+
+    @Override
+    public void nodeMoved(NodeMovedEvent event) {
+        addChanged(event.getDataset(), event.getPrimitives());
+    }
+
+    @Override
+    public void wayNodesChanged(WayNodesChangedEvent event) {
+        addChanged(event.getDataset(), event.getPrimitives());
+    }
+
+    @Override
+    public void relationMembersChanged(RelationMembersChangedEvent event) {
+        addChanged(event.getDataset(), event.getPrimitives());
+    }
+
+    @Override
+    public void otherDatasetChange(AbstractDatasetChangedEvent event) {
+        // Do nothing
+    }
+
+    @Override
+    public void dataChanged(DataChangedEvent event) {
+        List<AbstractDatasetChangedEvent> events = event.getEvents();
+        if (events != null) {
+            for (AbstractDatasetChangedEvent e : events) {
+                e.fire(this);
+            }
+        } else {
+            synchronized (this) {
+                addChanged(event.getDataset(), new ArrayList<>());
+                tooManyChanges = true;
+            }
+        }
+    }
+}
@@ -25,6 +25,7 @@ import java.util.Map.Entry;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -619,11 +620,24 @@ public final class OsmValidator {
         }
     }
 
+    /** Number of calls to {@link #initializeTests(Collection)} */
+    private static final AtomicInteger testsInitializationCount = new AtomicInteger();
+
+    /**
+     * Returns the number of times tests have been initialized, so that copies of the tests can be initialized again.
+     * @return the number of calls to {@link #initializeTests(Collection)}
+     * @since xxx
+     */
+    public static int getTestsInitializationCount() {
+        return testsInitializationCount.get();
+    }
+
     /**
      * Initializes all tests
      * @param allTests The tests to initialize
      */
     public static void initializeTests(Collection<? extends Test> allTests) {
+        testsInitializationCount.incrementAndGet();
         for (Test test : allTests) {
             try {
                 if (test.enabled) {
@@ -228,6 +228,32 @@ public class Test implements OsmPrimitiveVisitor {
         }
     }
 
+    /**
+     * Determines if the primitives can be split into parts validated concurrently by this test, see {@link ValidationEngine}.
+     * Such a test also runs concurrently with the other tests, so {@link #startTest}, {@link #endTest} and the visit
+     * methods must not share mutable state with other tests.
+     * <p>
+     * This requires that each primitive is checked independently of the others by {@link #visit(Node)},
+     * {@link #visit(Way)} and {@link #visit(Relation)}, which are then called concurrently, and that these methods only
+     * read and add errors of the primitive. For parts, {@link #visit(Collection)} is not called: the usable primitives
+     * are visited directly.
+     * @return {@code true} if the primitives can be split, {@code false} by default
+     * @since xxx
+     */
+    public boolean isSplittable() {
+        return false;
+    }
+
+    /**
+     * Adds the errors found in a part of the primitives to the errors of this test, see {@link #isSplittable()}.
+     * This method is called for each part once all of them are validated, in the order of the primitives.
+     * @param partErrors the errors found in a part of the primitives
+     * @since xxx
+     */
+    protected void addPartErrors(List<TestError> partErrors) {
+        errors.addAll(partErrors);
+    }
+
     /**
      * Determines if the primitive is usable for tests.
      * @param p The primitive
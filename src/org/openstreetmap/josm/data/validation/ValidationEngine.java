@@ -0,0 +1,243 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.validation;
+
+import static org.openstreetmap.josm.tools.I18n.tr;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
+import org.openstreetmap.josm.gui.progress.ProgressMonitor;
+import org.openstreetmap.josm.tools.Logging;
+import org.openstreetmap.josm.tools.Utils;
+
+/**
+ * Runs validation tests on a collection of primitives, using several threads.
+ * <p>
+ * Only the tests that opt in with {@link Test#isSplittable()} use other threads: they run concurrently on a fork/join
+ * pool, and validate parts of the primitives concurrently. The other tests, including the tests of plugins, run one
+ * after the other in the calling thread, like before. The errors are merged in the order of the tests and of the
+ * primitives, so that they are the same as when all tests run one after the other.
+ * <p>
+ * The number of threads is set by the preference {@code validator.numberOfThreads}, with 1 the tests run sequentially.
+ * @since xxx
+ */
+public final class ValidationEngine {
+
+    /** Number of primitives of the parts validated concurrently by splittable tests */
+    private static final int PART_SIZE = 1000;
+
+    private static final ForkJoinPool THREAD_POOL = newForkJoinPool();
+
+    private ValidationEngine() {
+        // Hide default constructor for utils classes
+    }
+
+    private static ForkJoinPool newForkJoinPool() {
+        try {
+            return Utils.newForkJoinPool("validator.numberOfThreads", "validator-%d", Thread.NORM_PRIORITY);
+        } catch (SecurityException e) {
+            Logging.log(Logging.LEVEL_ERROR, "Unable to create new ForkJoinPool", e);
+            return null;
+        }
+    }
+
+    /**
+     * Runs the given tests on the given primitives. Each test is started, visits the primitives, is ended and cleared.
+     * The tests must be configured before, see {@link Test#setPartialSelection} and {@link Test#setBeforeUpload}.
+     * @param tests the tests to run
+     * @param primitives the primitives to validate
+     * @param progressMonitor the progress monitor, can be null. Each test gets a sub task of {@code primitives.size()} ticks
+     * @return the errors found by the tests, in the order of the tests
+     */
+    public static List<TestError> runTests(Collection<? extends Test> tests, Collection<OsmPrimitive> primitives,
+            ProgressMonitor progressMonitor) {
+        return runTests(tests, primitives, progressMonitor, THREAD_POOL);
+    }
+
+    /**
+     * Runs the given tests on the given primitives, with the given thread pool.
+     * @param tests the tests to run
+     * @param primitives the primitives to validate
+     * @param progressMonitor the progress monitor, can be null
+     * @param pool the thread pool. If null or with a parallelism of 1, the tests run sequentially in the current thread
+     * @return the errors found by the tests, in the order of the tests
+     */
+    static List<TestError> runTests(Collection<? extends Test> tests, Collection<OsmPrimitive> primitives,
+            ProgressMonitor progressMonitor, ForkJoinPool pool) {
+        boolean parallel = pool != null && pool.getParallelism() > 1;
+        ProgressMonitor monitor = Optional.ofNullable(progressMonitor).orElse(NullProgressMonitor.INSTANCE);
+        List<OsmPrimitive> selection = new ArrayList<>(primitives);
+        List<TestTask> tasks = new ArrayList<>(tests.size());
+        for (Test test : tests) {
+            tasks.add(new TestTask(test, tasks.size() + 1, tests.size(), selection, monitor, parallel));
+        }
+        if (parallel) {
+            // tests that did not opt in are not known to be thread safe: run them in this thread, one after the other
+            List<ForkJoinTask<?>> submitted = new ArrayList<>();
+            for (TestTask task : tasks) {
+                if (task.test.isSplittable()) {
+                    submitted.add(pool.submit(task));
+                }
+            }
+            for (TestTask task : tasks) {
+                if (!task.test.isSplittable()) {
+                    task.run();
+                }
+            }
+            for (ForkJoinTask<?> task : submitted) {
+                task.join();
+            }
+        } else {
+            tasks.forEach(TestTask::run);
+        }
+        List<TestError> errors = new ArrayList<>();
+        for (TestTask task : tasks) {
+            errors.addAll(task.errors);
+        }
+        return errors;
+    }
+
+    /**
+     * Runs one test.
+     */
+    private static final class TestTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Test test;
+        private final int number;
+        private final int count;
+        private final transient List<OsmPrimitive> primitives;
+        private final transient ProgressMonitor monitor;
+        private final boolean parallel;
+        private transient List<TestError> errors = Collections.emptyList();
+
+        TestTask(Test test, int number, int count, List<OsmPrimitive> primitives, ProgressMonitor monitor, boolean parallel) {
+            this.test = test;
+            this.number = number;
+            this.count = count;
+            this.primitives = primitives;
+            this.monitor = monitor;
+            this.parallel = parallel;
+        }
+
+        @Override
+        protected void compute() {
+            run();
+        }
+
+        void run() {
+            if (monitor.isCanceled()) {
+                return;
+            }
+            monitor.setCustomText(tr("Test {0}/{1}: Starting {2}", number, count, test.getName()));
+            test.startTest(monitor.createSubTaskMonitor(primitives.size(), false));
+            if (parallel && test.isSplittable() && primitives.size() > PART_SIZE) {
+                visitParts();
+            } else {
+                test.visit(primitives);
+            }
+            test.endTest();
+            errors = new ArrayList<>(test.getErrors());
+            test.clear();
+        }
+
+        private void visitParts() {
+            test.progressMonitor.setTicksCount(primitives.size());
+            PartErrors partErrors = new PartErrors();
+            List<PartTask> parts = new ArrayList<>();
+            for (int i = 0; i < primitives.size(); i += PART_SIZE) {
+                parts.add(new PartTask(test, primitives.subList(i, Math.min(primitives.size(), i + PART_SIZE)), partErrors));
+            }
+            List<TestError> testErrors = test.errors;
+            test.errors = partErrors;
+            try {
+                invokeAll(parts);
+            } finally {
+                test.errors = testErrors;
+            }
+            for (PartTask part : parts) {
+                test.addPartErrors(part.errors);
+            }
+        }
+    }
+
+    /**
+     * Validates a part of the primitives with a splittable test.
+     */
+    private static final class PartTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Test test;
+        private final transient List<OsmPrimitive> primitives;
+        private final transient PartErrors partErrors;
+        private final transient List<TestError> errors = new ArrayList<>();
+
+        PartTask(Test test, List<OsmPrimitive> primitives, PartErrors partErrors) {
+            this.test = test;
+            this.primitives = primitives;
+            this.partErrors = partErrors;
+        }
+
+        @Override
+        protected void compute() {
+            partErrors.current.set(errors);
+            try {
+                for (OsmPrimitive p : primitives) {
+                    if (test.isCanceled()) {
+                        break;
+                    }
+                    if (test.isPrimitiveUsable(p)) {
+                        p.accept(test);
+                    }
+                }
+            } finally {
+                partErrors.current.remove();
+            }
+            ProgressMonitor monitor = test.progressMonitor;
+            synchronized (monitor) {
+                monitor.worked(primitives.size());
+            }
+        }
+    }
+
+    /**
+     * The errors of a splittable test while its parts are validated: each thread reads and adds the errors of its part.
+     */
+    private static final class PartErrors extends AbstractList<TestError> {
+        private final ThreadLocal<List<TestError>> current = new ThreadLocal<>();
+
+        @Override
+        public TestError get(int index) {
+            return current.get().get(index);
+        }
+
+        @Override
+        public int size() {
+            return current.get().size();
+        }
+
+        @Override
+        public void add(int index, TestError element) {
+            current.get().add(index, element);
+        }
+
+        @Override
+        public TestError set(int index, TestError element) {
+            return current.get().set(index, element);
+        }
+
+        @Override
+        public TestError remove(int index) {
+            return current.get().remove(index);
+        }
+    }
+}
@@ -21,6 +21,7 @@ import org.openstreetmap.josm.data.validation.OsmValidator;
 import org.openstreetmap.josm.data.validation.Severity;
 import org.openstreetmap.josm.data.validation.Test;
 import org.openstreetmap.josm.data.validation.TestError;
+import org.openstreetmap.josm.data.validation.util.SegmentGrid;
 import org.openstreetmap.josm.data.validation.util.ValUtil;
 import org.openstreetmap.josm.gui.progress.ProgressMonitor;
 import org.openstreetmap.josm.tools.Logging;
@@ -70,7 +71,7 @@ public abstract class CrossingWays extends Test {
     }
 
     /** All way segments, grouped by cells */
-    private final Map<Point2D, List<WaySegment>> cellSegments = new HashMap<>(1000);
+    private final SegmentGrid cellSegments = new SegmentGrid();
     /** The already detected ways in error */
     private final Map<List<Way>, List<WaySegment>> seenWays = new HashMap<>(50);
 
@@ -356,38 +357,33 @@ public abstract class CrossingWays extends Test {
                 Logging.warn("Crossing ways test skipped " + es1);
                 continue;
             }
-            for (List<WaySegment> segments : getSegments(cellSegments, en1, en2)) {
-                for (WaySegment es2 : segments) {
-                    List<Way> prims;
-                    List<WaySegment> highlight;
-
-                    if (!es1.intersects(es2) || ignoreWaySegmentCombination(es1.way, es2.way)) {
-                        continue;
-                    }
-
-                    prims = new ArrayList<>();
-                    prims.add(es1.way);
-                    if (es1.way != es2.way)
-                        prims.add(es2.way);
-                    if ((highlight = seenWays.get(prims)) == null) {
-                        highlight = new ArrayList<>();
-                        highlight.add(es1);
-                        highlight.add(es2);
-
-                        final MessageHelper message = createMessage(es1.way, es2.way);
-                        errors.add(TestError.builder(this, Severity.WARNING, message.code)
-                                .message(message.message)
-                                .primitives(prims)
-                                .highlightWaySegments(highlight)
-                                .build());
-                        seenWays.put(prims, highlight);
-                    } else {
-                        highlight.add(es1);
-                        highlight.add(es2);
-                    }
+            cellSegments.visitAndAdd(es1, en1, en2, es2 -> {
+                if (!es1.intersects(es2) || ignoreWaySegmentCombination(es1.way, es2.way)) {
+                    return;
                 }
-                segments.add(es1);
-            }
+
+                List<Way> prims = new ArrayList<>();
+                prims.add(es1.way);
+                if (es1.way != es2.way)
+                    prims.add(es2.way);
+                List<WaySegment> highlight = seenWays.get(prims);
+                if (highlight == null) {
+                    highlight = new ArrayList<>();
+                    highlight.add(es1);
+                    highlight.add(es2);
+
+                    final MessageHelper message = createMessage(es1.way, es2.way);
+                    errors.add(TestError.builder(this, Severity.WARNING, message.code)
+                            .message(message.message)
+                            .primitives(prims)
+                            .highlightWaySegments(highlight)
+                            .build());
+                    seenWays.put(prims, highlight);
+                } else {
+                    highlight.add(es1);
+                    highlight.add(es2);
+                }
+            });
         }
     }
 
@@ -25,6 +25,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -92,7 +93,7 @@ import org.openstreetmap.josm.tools.Utils;
  */
 public class MapCSSTagChecker extends Test.TagTest {
     MapCSSTagCheckerIndex indexData;
-    final Set<OsmPrimitive> tested = new HashSet<>();
+    final Set<OsmPrimitive> tested = ConcurrentHashMap.newKeySet();
 
     /**
     * A grouped MapCSSRule with multiple selectors for a single declaration.
@@ -692,11 +693,14 @@ public class MapCSSTagChecker extends Test.TagTest {
      * @return all errors for the given primitive, with or without those of "info" severity
      */
     public synchronized Collection<TestError> getErrorsForPrimitive(OsmPrimitive p, boolean includeOtherSeverity) {
-        final List<TestError> res = new ArrayList<>();
         if (indexData == null) {
             indexData = new MapCSSTagCheckerIndex(checks, includeOtherSeverity, MapCSSTagCheckerIndex.ALL_TESTS);
         }
+        return getErrorsForPrimitive(p, indexData);
+    }
 
+    private static Collection<TestError> getErrorsForPrimitive(OsmPrimitive p, MapCSSTagCheckerIndex indexData) {
+        final List<TestError> res = new ArrayList<>();
         MapCSSRuleIndex matchingRuleIndex = indexData.get(p);
 
         Environment env = new Environment(p, new MultiCascade(), Environment.DEFAULT_LAYER, null);
@@ -782,7 +786,10 @@ public class MapCSSTagChecker extends Test.TagTest {
      */
     @Override
     public void check(OsmPrimitive p) {
-        for (TestError e : getErrorsForPrimitive(p, ValidatorPrefHelper.PREF_OTHER.get())) {
+        // the index built by startTest is only read, so that primitives can be checked concurrently, see isSplittable()
+        MapCSSTagCheckerIndex index = indexData;
+        for (TestError e : index != null ? getErrorsForPrimitive(p, index)
+                : getErrorsForPrimitive(p, ValidatorPrefHelper.PREF_OTHER.get())) {
             addIfNotSimilar(e, errors);
         }
         if (partialSelection) {
@@ -961,6 +968,19 @@ public class MapCSSTagChecker extends Test.TagTest {
         }
     }
 
+    @Override
+    public boolean isSplittable() {
+        return true;
+    }
+
+    @Override
+    protected void addPartErrors(List<TestError> partErrors) {
+        // similar errors of different parts are removed as they would be by check() in a single part
+        for (TestError e : partErrors) {
+            addIfNotSimilar(e, errors);
+        }
+    }
+
     @Override
     public synchronized void startTest(ProgressMonitor progressMonitor) {
         super.startTest(progressMonitor);
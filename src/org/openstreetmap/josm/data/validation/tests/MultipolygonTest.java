@@ -5,7 +5,6 @@ import static org.openstreetmap.josm.tools.I18n.marktr;
 import static org.openstreetmap.josm.tools.I18n.tr;
 
 import java.awt.geom.Area;
-import java.awt.geom.Point2D;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -31,6 +30,7 @@ import org.openstreetmap.josm.data.osm.visitor.paint.relations.Multipolygon.Poly
 import org.openstreetmap.josm.data.validation.Severity;
 import org.openstreetmap.josm.data.validation.Test;
 import org.openstreetmap.josm.data.validation.TestError;
+import org.openstreetmap.josm.data.validation.util.SegmentGrid;
 import org.openstreetmap.josm.gui.mappaint.ElemStyles;
 import org.openstreetmap.josm.gui.mappaint.MapPaintStyles;
 import org.openstreetmap.josm.gui.mappaint.styleelement.AreaElement;
@@ -619,7 +619,7 @@ public class MultipolygonTest extends Test {
      */
     private static Map<List<Way>, List<WaySegment>> findIntersectingWays(Relation r, boolean findSharedWaySegments) {
         /** All way segments, grouped by cells */
-        final Map<Point2D, List<WaySegment>> cellSegments = new HashMap<>(1000);
+        final SegmentGrid cellSegments = new SegmentGrid();
         /** The detected crossing ways */
         final Map<List<Way>, List<WaySegment>> crossingWays = new HashMap<>(50);
 
@@ -638,7 +638,7 @@ public class MultipolygonTest extends Test {
      * @param crossingWays map to collect crossing ways and related segments
      * @param findSharedWaySegments true: find shared way segments instead of crossings
      */
-    private static void findIntersectingWay(Way w, Map<Point2D, List<WaySegment>> cellSegments,
+    private static void findIntersectingWay(Way w, SegmentGrid cellSegments,
             Map<List<Way>, List<WaySegment>> crossingWays, boolean findSharedWaySegments) {
         int nodesSize = w.getNodesCount();
         for (int i = 0; i < nodesSize - 1; i++) {
@@ -649,28 +649,24 @@ public class MultipolygonTest extends Test {
                 Logging.warn("Crossing ways test (MP) skipped " + es1);
                 continue;
             }
-            for (List<WaySegment> segments : CrossingWays.getSegments(cellSegments, en1, en2)) {
-                for (WaySegment es2 : segments) {
-
-                    List<WaySegment> highlight;
-                    if (es2.way == w // reported by CrossingWays.SelfIntersection
-                            || (findSharedWaySegments && !es1.isSimilar(es2))
-                            || (!findSharedWaySegments && !es1.intersects(es2)))
-                        continue;
-
-                    List<Way> prims = Arrays.asList(es1.way, es2.way);
-                    if ((highlight = crossingWays.get(prims)) == null) {
-                        highlight = new ArrayList<>();
-                        highlight.add(es1);
-                        highlight.add(es2);
-                        crossingWays.put(prims, highlight);
-                    } else {
-                        highlight.add(es1);
-                        highlight.add(es2);
-                    }
+            cellSegments.visitAndAdd(es1, en1, en2, es2 -> {
+                if (es2.way == w // reported by CrossingWays.SelfIntersection
+                        || (findSharedWaySegments && !es1.isSimilar(es2))
+                        || (!findSharedWaySegments && !es1.intersects(es2)))
+                    return;
+
+                List<Way> prims = Arrays.asList(es1.way, es2.way);
+                List<WaySegment> highlight = crossingWays.get(prims);
+                if (highlight == null) {
+                    highlight = new ArrayList<>();
+                    highlight.add(es1);
+                    highlight.add(es2);
+                    crossingWays.put(prims, highlight);
+                } else {
+                    highlight.add(es1);
+                    highlight.add(es2);
                 }
-                segments.add(es1);
-            }
+            });
         }
     }
 
@@ -935,6 +935,11 @@ public class TagChecker extends TagTest implements TaggingPresetListener {
         }
     }
 
+    @Override
+    public boolean isSplittable() {
+        return true;
+    }
+
     @Override
     public void addGui(JPanel testPanel) {
         GBC a = GBC.eol();
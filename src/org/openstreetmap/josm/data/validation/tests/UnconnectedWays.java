@@ -12,7 +12,6 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -29,12 +28,14 @@ import org.openstreetmap.josm.data.osm.OsmPrimitive;
 import org.openstreetmap.josm.data.osm.OsmUtils;
 import org.openstreetmap.josm.data.osm.QuadBuckets;
 import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.data.osm.WaySegment;
 import org.openstreetmap.josm.data.preferences.sources.ValidatorPrefHelper;
 import org.openstreetmap.josm.data.projection.Ellipsoid;
 import org.openstreetmap.josm.data.projection.ProjectionRegistry;
 import org.openstreetmap.josm.data.validation.Severity;
 import org.openstreetmap.josm.data.validation.Test;
 import org.openstreetmap.josm.data.validation.TestError;
+import org.openstreetmap.josm.data.validation.util.SegmentGrid;
 import org.openstreetmap.josm.gui.progress.ProgressMonitor;
 import org.openstreetmap.josm.spi.preferences.Config;
 import org.openstreetmap.josm.tools.Geometry;
@@ -192,6 +193,8 @@ public abstract class UnconnectedWays extends Test {
     private Set<Node> middlenodes; // nodes in middle of way
     private Set<Node> othernodes; // nodes appearing at least twice
     private QuadBuckets<Node> searchNodes;
+    /** The segments of the barriers, to find the barriers between end nodes and ways */
+    private SegmentGrid barrierSegments;
     private Set<Way> waysToTest;
     private Set<Node> nodesToTest;
     private Area dsArea;
@@ -397,11 +400,34 @@ public abstract class UnconnectedWays extends Test {
         middlenodes = null;
         othernodes = null;
         searchNodes = null;
+        barrierSegments = null;
         dsArea = null;
         ds = null;
         super.endTest();
     }
 
+    /**
+     * Returns the grid of the segments of the barriers of the data set, built on first use.
+     * @return the grid of the segments of the barriers
+     */
+    private SegmentGrid getBarrierSegments() {
+        if (barrierSegments == null) {
+            barrierSegments = new SegmentGrid();
+            for (Way w : ds.getWays()) {
+                if (w.isUsable() && w.hasTag("barrier")) {
+                    for (int i = 0; i < w.getNodesCount() - 1; i++) {
+                        EastNorth en1 = w.getNode(i).getEastNorth();
+                        EastNorth en2 = w.getNode(i + 1).getEastNorth();
+                        if (en1 != null && en2 != null) {
+                            barrierSegments.add(new WaySegment(w, i), en1, en2);
+                        }
+                    }
+                }
+            }
+        }
+        return barrierSegments;
+    }
+
     private void fillSearchNodes(Collection<Node> nodes) {
         searchNodes.clear();
         for (Node n : nodes) {
@@ -537,23 +563,11 @@ public abstract class UnconnectedWays extends Test {
         private boolean barrierBetween(Node endnode) {
             EastNorth en = endnode.getEastNorth();
             EastNorth closest = Geometry.closestPointToSegment(n1.getEastNorth(), n2.getEastNorth(), en);
-            BBox bbox = new BBox(endnode.getCoor(), ProjectionRegistry.getProjection().eastNorth2latlon(closest));
-            for (Way nearbyWay : ds.searchWays(bbox)) {
-                if (nearbyWay != w && nearbyWay.isUsable() && nearbyWay.hasTag("barrier")
-                        && !endnode.getParentWays().contains(nearbyWay)) {
-                    //make sure that the barrier is really between endnode and the highway segment, not just close to or around them
-                    Iterator<Node> iter = nearbyWay.getNodes().iterator();
-                    EastNorth prev = iter.next().getEastNorth();
-                    while (iter.hasNext()) {
-                        EastNorth curr = iter.next().getEastNorth();
-                        if (Geometry.getSegmentSegmentIntersection(closest, en, prev, curr) != null) {
-                            return true;
-                        }
-                        prev = curr;
-                    }
-                }
-            }
-            return false;
+            List<Way> parentWays = endnode.getParentWays();
+            //make sure that the barrier is really between endnode and the highway segment, not just close to or around them
+            return getBarrierSegments().anyMatch(closest, en, s -> s.way != w && !parentWays.contains(s.way)
+                    && Geometry.getSegmentSegmentIntersection(closest, en,
+                            s.getFirstNode().getEastNorth(), s.getSecondNode().getEastNorth()) != null);
         }
     }
 
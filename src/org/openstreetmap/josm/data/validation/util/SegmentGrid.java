@@ -0,0 +1,248 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.validation.util;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import org.openstreetmap.josm.data.coor.EastNorth;
+import org.openstreetmap.josm.data.osm.WaySegment;
+import org.openstreetmap.josm.data.validation.OsmValidator;
+
+/**
+ * Grid of way segments, to find the segments which may cross a given segment.
+ * <p>
+ * Each segment is registered in all cells it crosses, see {@link ValUtil#getSegmentCells(EastNorth, EastNorth, double)}.
+ * The cells are stored in primitive arrays: an open addressing hash table maps the cell coordinates, packed in a
+ * {@code long}, to a linked list of entries, which reference the segments by their index. Unlike a map of lists,
+ * this allocates no object per cell or per entry, and the grid can be reused after {@link #clear()}.
+ * <p>
+ * This class is not thread-safe.
+ * @since xxx
+ */
+public class SegmentGrid {
+
+    private static final int NO_ENTRY = -1;
+
+    private final double gridDetail;
+    private final ValUtil.CellVisitor cellCollector = this::collectCell;
+
+    private WaySegment[] segments = new WaySegment[64];
+    private int segmentCount;
+
+    /** Cell coordinates, packed */
+    private long[] cellKeys = new long[64];
+    /** First entry of each cell, or {@link #NO_ENTRY} for a free slot */
+    private int[] cellFirst = newIntArray(64, NO_ENTRY);
+    /** Last entry of each cell, so that the segments of a cell are visited in the order they were added */
+    private int[] cellLast = new int[64];
+    private int cellCount;
+
+    private int[] entrySegment = new int[256];
+    private int[] entryNext = new int[256];
+    private int entryCount;
+
+    /** Cells crossed by the current segment, packed */
+    private long[] cells = new long[16];
+    private int cellsCount;
+
+    /**
+     * Constructs a new {@code SegmentGrid} with the grid detail of the validator, see {@link OsmValidator#getGridDetail()}.
+     */
+    public SegmentGrid() {
+        this(OsmValidator.getGridDetail());
+    }
+
+    /**
+     * Constructs a new {@code SegmentGrid}.
+     * @param gridDetail The detail of the grid. Bigger values give smaller cells, but a bigger number of them.
+     */
+    public SegmentGrid(double gridDetail) {
+        this.gridDetail = gridDetail;
+    }
+
+    private static int[] newIntArray(int length, int value) {
+        int[] array = new int[length];
+        Arrays.fill(array, value);
+        return array;
+    }
+
+    /**
+     * Removes all segments. The allocated arrays are kept for the next segments, unless they are much too large.
+     */
+    public void clear() {
+        Arrays.fill(segments, 0, segmentCount, null);
+        segmentCount = 0;
+        if (cellKeys.length > 1024 && cellCount * 8 < cellKeys.length) {
+            // do not keep clearing a large table for a few cells, e.g. after a long way in the self crossing test
+            int capacity = Math.max(64, Integer.highestOneBit(cellCount) * 4);
+            cellKeys = new long[capacity];
+            cellFirst = newIntArray(capacity, NO_ENTRY);
+            cellLast = new int[capacity];
+        } else {
+            Arrays.fill(cellFirst, NO_ENTRY);
+        }
+        cellCount = 0;
+        entryCount = 0;
+    }
+
+    /**
+     * Determines if the grid contains no segment.
+     * @return {@code true} if no segment has been added since the creation or the last {@link #clear()}
+     */
+    public boolean isEmpty() {
+        return segmentCount == 0;
+    }
+
+    /**
+     * Visits the segments registered in the cells crossed by the line between the given coordinates.
+     * A segment is visited once per cell shared with the line.
+     * @param en1 The first EastNorth
+     * @param en2 The second EastNorth
+     * @param visitor the visitor of the segments
+     */
+    public void visit(EastNorth en1, EastNorth en2, Consumer<WaySegment> visitor) {
+        computeCells(en1, en2);
+        for (int i = 0; i < cellsCount; i++) {
+            visitCell(cells[i], visitor);
+        }
+    }
+
+    /**
+     * Determines if a segment registered in the cells crossed by the line between the given coordinates matches
+     * the given predicate.
+     * @param en1 The first EastNorth
+     * @param en2 The second EastNorth
+     * @param predicate the predicate
+     * @return {@code true} if a segment matches the predicate, which is not evaluated for the next segments
+     */
+    public boolean anyMatch(EastNorth en1, EastNorth en2, Predicate<WaySegment> predicate) {
+        computeCells(en1, en2);
+        for (int i = 0; i < cellsCount; i++) {
+            int slot = findSlot(cells[i]);
+            for (int entry = cellFirst[slot]; entry != NO_ENTRY; entry = entryNext[entry]) {
+                if (predicate.test(segments[entrySegment[entry]])) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds a segment to the cells it crosses.
+     * @param segment the segment
+     * @param en1 The EastNorth of the first node of the segment
+     * @param en2 The EastNorth of the second node of the segment
+     */
+    public void add(WaySegment segment, EastNorth en1, EastNorth en2) {
+        computeCells(en1, en2);
+        addToCells(segment);
+    }
+
+    /**
+     * Visits the segments which may cross the given segment, like {@link #visit}, then adds it to the grid,
+     * like {@link #add}, computing the cells only once.
+     * @param segment the segment
+     * @param en1 The EastNorth of the first node of the segment
+     * @param en2 The EastNorth of the second node of the segment
+     * @param visitor the visitor of the segments already in the grid
+     */
+    public void visitAndAdd(WaySegment segment, EastNorth en1, EastNorth en2, Consumer<WaySegment> visitor) {
+        computeCells(en1, en2);
+        for (int i = 0; i < cellsCount; i++) {
+            visitCell(cells[i], visitor);
+        }
+        addToCells(segment);
+    }
+
+    private void computeCells(EastNorth en1, EastNorth en2) {
+        cellsCount = 0;
+        ValUtil.visitSegmentCells(en1, en2, gridDetail, cellCollector);
+    }
+
+    private void collectCell(long x, long y) {
+        if (cellsCount == cells.length) {
+            cells = Arrays.copyOf(cells, cellsCount * 2);
+        }
+        cells[cellsCount++] = (x << 32) | (y & 0xffffffffL);
+    }
+
+    private void visitCell(long key, Consumer<WaySegment> visitor) {
+        int slot = findSlot(key);
+        for (int entry = cellFirst[slot]; entry != NO_ENTRY; entry = entryNext[entry]) {
+            visitor.accept(segments[entrySegment[entry]]);
+        }
+    }
+
+    private void addToCells(WaySegment segment) {
+        if (segmentCount == segments.length) {
+            segments = Arrays.copyOf(segments, segmentCount * 2);
+        }
+        int index = segmentCount++;
+        segments[index] = segment;
+        for (int i = 0; i < cellsCount; i++) {
+            addEntry(cells[i], index);
+        }
+    }
+
+    private void addEntry(long key, int segmentIndex) {
+        if (entryCount == entrySegment.length) {
+            entrySegment = Arrays.copyOf(entrySegment, entryCount * 2);
+            entryNext = Arrays.copyOf(entryNext, entryCount * 2);
+        }
+        int entry = entryCount++;
+        entrySegment[entry] = segmentIndex;
+        entryNext[entry] = NO_ENTRY;
+
+        int slot = findSlot(key);
+        if (cellFirst[slot] == NO_ENTRY) {
+            cellKeys[slot] = key;
+            cellFirst[slot] = entry;
+            cellLast[slot] = entry;
+            if (++cellCount * 2 > cellKeys.length) {
+                rehash();
+            }
+        } else {
+            entryNext[cellLast[slot]] = entry;
+            cellLast[slot] = entry;
+        }
+    }
+
+    /**
+     * Returns the slot of the given cell, or the free slot where it should be added.
+     * @param key the packed cell coordinates
+     * @return the slot
+     */
+    private int findSlot(long key) {
+        int mask = cellKeys.length - 1;
+        int slot = hash(key) & mask;
+        while (cellFirst[slot] != NO_ENTRY && cellKeys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private void rehash() {
+        long[] oldKeys = cellKeys;
+        int[] oldFirst = cellFirst;
+        int[] oldLast = cellLast;
+        int capacity = oldKeys.length * 2;
+        cellKeys = new long[capacity];
+        cellFirst = newIntArray(capacity, NO_ENTRY);
+        cellLast = new int[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldFirst[i] != NO_ENTRY) {
+                int slot = findSlot(oldKeys[i]);
+                cellKeys[slot] = oldKeys[i];
+                cellFirst[slot] = oldFirst[i];
+                cellLast[slot] = oldLast[i];
+            }
+        }
+    }
+}
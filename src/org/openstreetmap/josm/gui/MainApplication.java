@@ -649,6 +649,7 @@ public class MainApplication {
                 "\t--version                                 "+tr("Displays the JOSM version and exits")+"\n\n"+
                 "\t--debug                                   "+tr("Print debugging messages to console")+"\n\n"+
                 "\t--skip-plugins                            "+tr("Skip loading plugins")+"\n\n"+
+                "\t--startup-report                          "+tr("Print the timing report of the initialization tasks")+"\n\n"+
                 "\t--offline=<osm_api|josm_website|all>      "+tr("Disable access to the given resource(s), separated by comma")+"\n\n"+
                 tr("options provided as Java system properties")+":\n"+
                 align("\t-Djosm.dir.name=JOSM") + tr("Change the JOSM directory name") + "\n\n" +
@@ -901,6 +902,9 @@ public class MainApplication {
 
         monitor.indeterminateSubTask(tr("Creating main GUI"));
         Lifecycle.initialize(new MainInitialization(new MainApplication(mainFrame)));
+        if (args.hasOption(Option.STARTUP_REPORT) && Lifecycle.getInitializationReport() != null) {
+            Logging.info(Lifecycle.getInitializationReport().toString());
+        }
 
         if (!skipLoadingPlugins) {
             loadLatePlugins(splash, monitor, pluginsToLoad);
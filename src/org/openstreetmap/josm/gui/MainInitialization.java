@@ -81,14 +81,13 @@ public class MainInitialization implements InitializationSequence {
                 // help shortcut
                 MainApplication.registerActionShortcut(MainApplication.menu.help,
                         Shortcut.registerShortcut("system:help", tr("Help"), KeyEvent.VK_F1, Shortcut.DIRECT));
-            }),
-            // This needs to be done before RightAndLefthandTraffic::initialize is called
-            new InitializationTask(tr("Initializing internal boundaries data"), Territories::initialize)
+            })
         );
     }
 
     @Override
     public Collection<InitializationTask> parallelInitializationTasks() {
+        InitializationTask territories = new InitializationTask(tr("Initializing internal boundaries data"), Territories::initialize);
         return Arrays.asList(
             new InitializationTask(tr("Initializing OSM API"), () -> {
                     OsmApi.addOsmApiInitializationListener(api -> {
@@ -113,7 +112,8 @@ public class MainInitialization implements InitializationSequence {
                         Logging.warn(Logging.getErrorMessage(Utils.getRootCause(e)));
                     }
                 }),
-            new InitializationTask(tr("Initializing internal traffic data"), RightAndLefthandTraffic::initialize),
+            territories,
+            new InitializationTask(tr("Initializing internal traffic data"), RightAndLefthandTraffic::initialize, territories),
             new InitializationTask(tr("Initializing validator"), OsmValidator::initialize),
             new InitializationTask(tr("Initializing presets"), TaggingPresets::initialize),
             new InitializationTask(tr("Initializing map styles"), MapPaintPreference::initialize),
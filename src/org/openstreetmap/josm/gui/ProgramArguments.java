@@ -64,7 +64,10 @@ public class ProgramArguments {
         /** --offline=&lt;osm_api|josm_website|all&gt; Disable access to the given resource(s), delimited by comma */
         OFFLINE(true),
         /** --skip-plugins */
-        SKIP_PLUGINS(false);
+        SKIP_PLUGINS(false),
+        /** --startup-report                           Print the timing report of the initialization tasks
+         * @since xxx */
+        STARTUP_REPORT(false);
 
         private final String name;
         private final boolean requiresArg;
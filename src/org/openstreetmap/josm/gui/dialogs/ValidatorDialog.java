@@ -49,6 +49,7 @@ import org.openstreetmap.josm.data.osm.event.SelectionEventManager;
 import org.openstreetmap.josm.data.osm.visitor.BoundingXYVisitor;
 import org.openstreetmap.josm.data.osm.visitor.PrimitiveVisitor;
 import org.openstreetmap.josm.data.preferences.sources.ValidatorPrefHelper;
+import org.openstreetmap.josm.data.validation.IncrementalValidator;
 import org.openstreetmap.josm.data.validation.OsmValidator;
 import org.openstreetmap.josm.data.validation.Severity;
 import org.openstreetmap.josm.data.validation.TestError;
@@ -106,6 +107,9 @@ public class ValidatorDialog extends ToggleDialog
     private final JPopupMenu popupMenu = new JPopupMenu();
     private final transient PopupMenuHandler popupMenuHandler = new PopupMenuHandler(popupMenu);
     private final transient DataSetListenerAdapter dataChangedAdapter = new DataSetListenerAdapter(this);
+    /** Validates the primitives changed by the edits, see {@link ValidatorPrefHelper#PREF_VALIDATE_ON_EDIT} */
+    private final transient IncrementalValidator incrementalValidator = new IncrementalValidator();
+    private final AtomicBoolean incrementalValidationScheduled = new AtomicBoolean();
 
     /** Last selected element */
     private DefaultMutableTreeNode lastSelectedNode;
@@ -712,6 +716,37 @@ public class ValidatorDialog extends ToggleDialog
     public void processDatasetEvent(AbstractDatasetChangedEvent event) {
         validateAction.updateEnabledState();
         lookupAction.updateEnabledState();
+        if (ValidatorPrefHelper.PREF_VALIDATE_ON_EDIT.get()) {
+            event.fire(incrementalValidator);
+            scheduleIncrementalValidation();
+        }
+    }
+
+    /**
+     * Validates again the primitives affected by the last changes of the edit layer, in the worker thread.
+     * Changes made while the validation is scheduled are validated at the same time.
+     */
+    private void scheduleIncrementalValidation() {
+        OsmDataLayer editLayer = MainApplication.getLayerManager().getEditLayer();
+        if (editLayer == null || !incrementalValidator.hasChanges(editLayer.getDataSet())
+                || !incrementalValidationScheduled.compareAndSet(false, true))
+            return;
+        MainApplication.worker.submit(() -> {
+            incrementalValidationScheduled.set(false);
+            OsmValidator.initializeTests();
+            List<TestError> errors = GuiHelper.runInEDTAndWaitAndReturn(() -> new ArrayList<>(editLayer.validationErrors));
+            // null if too many changes have been made at once, the user has to validate the layer again
+            List<TestError> newErrors = incrementalValidator.validate(editLayer.getDataSet(),
+                    incrementalValidator.getEnabledTests(), errors, null);
+            if (newErrors != null) {
+                GuiHelper.runInEDT(() -> {
+                    if (tree.getErrors() == editLayer.validationErrors) {
+                        tree.setErrors(newErrors);
+                        invalidateValidatorLayers();
+                    }
+                });
+            }
+        });
     }
 
     private static class AutofixCommand extends SequenceCommand {
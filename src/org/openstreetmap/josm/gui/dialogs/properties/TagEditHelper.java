@@ -36,6 +36,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.IntStream;
 
 import javax.swing.AbstractAction;
@@ -948,6 +949,7 @@ public class TagEditHelper {
                 }
                 // Find and display icon
                 ImageIcon icon = MapPaintStyles.getNodeIcon(t, false); // Filters deprecated icon
+                TaggingPreset iconPreset = null;
                 if (icon == null) {
                     // If no icon found in map style look at presets
                     Map<String, String> map = new HashMap<>();
@@ -957,6 +959,12 @@ public class TagEditHelper {
                         if (icon != null) {
                             break;
                         }
+                        CompletableFuture<Void> iconLoadingTask = tp.getIconLoadingTask();
+                        if (iconLoadingTask != null && !iconLoadingTask.isDone()) {
+                            // Display the icon once it is loaded
+                            iconPreset = tp;
+                            break;
+                        }
                     }
                     // If still nothing display an empty icon
                     if (icon == null) {
@@ -965,7 +973,12 @@ public class TagEditHelper {
                 }
                 GridBagConstraints gbc = new GridBagConstraints();
                 gbc.ipadx = 5;
-                recentTagsPanel.add(new JLabel(action.isEnabled() ? icon : GuiHelper.getDisabledIcon(icon)), gbc);
+                JLabel iconLabel = new JLabel(action.isEnabled() ? icon : GuiHelper.getDisabledIcon(icon));
+                if (iconPreset != null) {
+                    iconPreset.getIconAsync(Action.SMALL_ICON,
+                            loaded -> iconLabel.setIcon(action.isEnabled() ? loaded : GuiHelper.getDisabledIcon(loaded)));
+                }
+                recentTagsPanel.add(iconLabel, gbc);
                 // Create tag label
                 final String color = action.isEnabled() ? "" : "; color:gray";
                 final JLabel tagLabel = new JLabel("<html>"
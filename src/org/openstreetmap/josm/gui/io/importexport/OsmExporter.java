@@ -17,6 +17,7 @@ import java.text.MessageFormat;
 import javax.swing.JOptionPane;
 
 import org.openstreetmap.josm.actions.ExtensionFileFilter;
+import org.openstreetmap.josm.data.preferences.IntegerProperty;
 import org.openstreetmap.josm.gui.MainApplication;
 import org.openstreetmap.josm.gui.layer.Layer;
 import org.openstreetmap.josm.gui.layer.OsmDataLayer;
@@ -33,6 +34,12 @@ import org.openstreetmap.josm.tools.Utils;
  */
 public class OsmExporter extends FileExporter {
 
+    /**
+     * Number of threads compressing saved .osm.gz and .osm.bz2 files. With less than 2 threads, files are compressed sequentially.
+     * @since xxx
+     */
+    public static final IntegerProperty PROP_COMPRESSION_THREADS = new IntegerProperty("osm.writer.compression.threads", 1);
+
     /**
      * Constructs a new {@code OsmExporter}.
      */
@@ -80,7 +87,7 @@ public class OsmExporter extends FileExporter {
     }
 
     protected static OutputStream getOutputStream(File file) throws IOException {
-        return Compression.getCompressedFileOutputStream(file);
+        return Compression.getCompressedFileOutputStream(file, PROP_COMPRESSION_THREADS.get());
     }
 
     private void save(File file, OsmDataLayer layer, boolean isAutosave) throws IOException {
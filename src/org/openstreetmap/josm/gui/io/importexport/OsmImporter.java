@@ -12,6 +12,7 @@ import java.util.Arrays;
 import javax.swing.JOptionPane;
 
 import org.openstreetmap.josm.actions.ExtensionFileFilter;
+import org.openstreetmap.josm.data.preferences.IntegerProperty;
 import org.openstreetmap.josm.data.osm.DataSet;
 import org.openstreetmap.josm.gui.MainApplication;
 import org.openstreetmap.josm.gui.layer.OsmDataLayer;
@@ -34,6 +35,12 @@ public class OsmImporter extends FileImporter {
             "osm,xml", "osm", tr("OSM Server Files") + " (*.osm, *.osm.gz, *.osm.bz2, *.osm.xz, *.osm.zip, *.xml)",
             ExtensionFileFilter.AddArchiveExtension.NONE, Arrays.asList("gz", "bz", "bz2", "xz", "zip"));
 
+    /**
+     * Number of threads parsing OSM data files. With less than 2 threads, files are parsed sequentially.
+     * @since xxx
+     */
+    public static final IntegerProperty PROP_READER_THREADS = new IntegerProperty("osm.reader.threads", 1);
+
     /**
      * Utility class containing imported OSM layer, and a task to run after it is added to MapView.
      */
@@ -127,7 +134,7 @@ public class OsmImporter extends FileImporter {
     }
 
     protected DataSet parseDataSet(InputStream in, ProgressMonitor progressMonitor) throws IllegalDataException {
-        return OsmReader.parseDataSet(in, progressMonitor);
+        return OsmReader.parseDataSet(in, progressMonitor, false, PROP_READER_THREADS.get());
     }
 
     protected OsmDataLayer createLayer(final DataSet dataSet, final File associatedFile, final String layerName) {
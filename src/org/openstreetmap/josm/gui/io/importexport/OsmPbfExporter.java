@@ -0,0 +1,51 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.gui.io.importexport;
+
+import static org.openstreetmap.josm.tools.I18n.tr;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.openstreetmap.josm.gui.layer.Layer;
+import org.openstreetmap.josm.gui.layer.OsmDataLayer;
+import org.openstreetmap.josm.io.OsmPbfWriter;
+
+/**
+ * Exporter to write map data to an .osm.pbf file.
+ * <p>
+ * Unlike {@link OsmExporter}, the layer is not marked as saved, since the PBF format does not keep
+ * the modifications to upload.
+ * @since xxx
+ */
+public class OsmPbfExporter extends FileExporter {
+
+    /**
+     * Constructs a new {@code OsmPbfExporter}.
+     */
+    public OsmPbfExporter() {
+        super(OsmPbfImporter.FILE_FILTER);
+    }
+
+    @Override
+    public boolean acceptFile(File pathname, Layer layer) {
+        return layer instanceof OsmDataLayer && super.acceptFile(pathname, layer);
+    }
+
+    @Override
+    public void exportData(File file, Layer layer) throws IOException {
+        if (layer instanceof OsmDataLayer) {
+            OsmDataLayer osmLayer = (OsmDataLayer) layer;
+            try (OsmPbfWriter w = new OsmPbfWriter(Files.newOutputStream(file.toPath()))) {
+                osmLayer.data.getReadLock().lock();
+                try {
+                    w.write(osmLayer.data);
+                } finally {
+                    osmLayer.data.getReadLock().unlock();
+                }
+            }
+        } else {
+            throw new IllegalArgumentException(tr("Layer ''{0}'' not supported", layer.getClass().toString()));
+        }
+    }
+}
@@ -12,6 +12,7 @@ import java.awt.Graphics2D;
 import java.awt.GridBagLayout;
 import java.awt.Image;
 import java.awt.Point;
+import java.awt.RenderingHints;
 import java.awt.Shape;
 import java.awt.Toolkit;
 import java.awt.event.ActionEvent;
@@ -60,7 +61,6 @@ import javax.swing.JSeparator;
 import javax.swing.Timer;
 
 import org.openstreetmap.gui.jmapviewer.AttributionSupport;
-import org.openstreetmap.gui.jmapviewer.MemoryTileCache;
 import org.openstreetmap.gui.jmapviewer.OsmTileLoader;
 import org.openstreetmap.gui.jmapviewer.Tile;
 import org.openstreetmap.gui.jmapviewer.TileRange;
@@ -70,16 +70,19 @@ import org.openstreetmap.gui.jmapviewer.interfaces.ICoordinate;
 import org.openstreetmap.gui.jmapviewer.interfaces.IProjected;
 import org.openstreetmap.gui.jmapviewer.interfaces.TemplatedTileSource;
 import org.openstreetmap.gui.jmapviewer.interfaces.TileCache;
+import org.openstreetmap.gui.jmapviewer.interfaces.TileJob;
 import org.openstreetmap.gui.jmapviewer.interfaces.TileLoader;
 import org.openstreetmap.gui.jmapviewer.interfaces.TileLoaderListener;
 import org.openstreetmap.gui.jmapviewer.interfaces.TileSource;
 import org.openstreetmap.gui.jmapviewer.tilesources.AbstractTMSTileSource;
+import org.openstreetmap.gui.jmapviewer.tilesources.TMSTileSource;
 import org.openstreetmap.josm.actions.ExpertToggleAction;
 import org.openstreetmap.josm.actions.ImageryAdjustAction;
 import org.openstreetmap.josm.actions.RenameLayerAction;
 import org.openstreetmap.josm.actions.SaveActionBase;
 import org.openstreetmap.josm.data.Bounds;
 import org.openstreetmap.josm.data.ProjectionBounds;
+import org.openstreetmap.josm.data.cache.JCSCachedTileLoaderJob;
 import org.openstreetmap.josm.data.coor.EastNorth;
 import org.openstreetmap.josm.data.coor.LatLon;
 import org.openstreetmap.josm.data.imagery.CoordinateConversion;
@@ -103,6 +106,7 @@ import org.openstreetmap.josm.gui.dialogs.LayerListPopup;
 import org.openstreetmap.josm.gui.io.importexport.WMSLayerImporter;
 import org.openstreetmap.josm.gui.layer.imagery.AutoLoadTilesAction;
 import org.openstreetmap.josm.gui.layer.imagery.AutoZoomAction;
+import org.openstreetmap.josm.gui.layer.imagery.DecodedTileCache;
 import org.openstreetmap.josm.gui.layer.imagery.DecreaseZoomAction;
 import org.openstreetmap.josm.gui.layer.imagery.FlushTileCacheAction;
 import org.openstreetmap.josm.gui.layer.imagery.ImageryFilterSettings.FilterChangeListener;
@@ -114,6 +118,7 @@ import org.openstreetmap.josm.gui.layer.imagery.ShowErrorsAction;
 import org.openstreetmap.josm.gui.layer.imagery.TileAnchor;
 import org.openstreetmap.josm.gui.layer.imagery.TileCoordinateConverter;
 import org.openstreetmap.josm.gui.layer.imagery.TilePosition;
+import org.openstreetmap.josm.gui.layer.imagery.TilePrefetcher;
 import org.openstreetmap.josm.gui.layer.imagery.TileSourceDisplaySettings;
 import org.openstreetmap.josm.gui.layer.imagery.TileSourceDisplaySettings.DisplaySettingsChangeEvent;
 import org.openstreetmap.josm.gui.layer.imagery.TileSourceDisplaySettings.DisplaySettingsChangeListener;
@@ -164,6 +169,8 @@ implements ImageObserver, TileLoaderListener, ZoomChangeListener, FilterChangeLi
     //public static final BooleanProperty PROP_DRAW_DEBUG = new BooleanProperty(PREFERENCE_PREFIX + ".draw_debug", false);
     /** Zoomlevel at which tiles is currently downloaded. Initial zoom lvl is set to bestZoom */
     private int currentZoomLevel;
+    /** Download priority penalty of a tile for each zoom level away from {@link #currentZoomLevel} */
+    private static final int ZOOM_PRIORITY = 2;
 
     private final AttributionSupport attribution = new AttributionSupport();
 
@@ -174,15 +181,19 @@ implements ImageObserver, TileLoaderListener, ZoomChangeListener, FilterChangeLi
     public static final IntegerProperty ZOOM_OFFSET = new IntegerProperty(PREFERENCE_PREFIX + ".zoom_offset", 0);
 
     /*
-     *  use MemoryTileCache instead of tileLoader JCS cache, as tileLoader caches only content (byte[] of image)
-     *  and MemoryTileCache caches whole Tile. This gives huge performance improvement when a lot of tiles are visible
+     *  use a memory cache instead of tileLoader JCS cache, as tileLoader caches only content (byte[] of image)
+     *  and the memory cache caches whole Tile. This gives huge performance improvement when a lot of tiles are visible
      *  in MapView (for example - when limiting min zoom in imagery)
      *
-     *  Use per-layer tileCache instance, as the more layers there are, the more tiles needs to be cached
+     *  Use per-layer view of the shared DecodedTileCache, whose budget grows with the memory reserved by each layer
      */
     protected TileCache tileCache; // initialized together with tileSource
     protected T tileSource;
     protected TileLoader tileLoader;
+    private final TilePrefetcher prefetcher = new TilePrefetcher();
+    /** The tiles of the view at all zoom levels, used to schedule the download jobs */
+    private volatile DeepTileSet viewTileSets;
+    private volatile boolean destroyed;
 
     /** A timer that is used to delay invalidation events if required. */
     private final Timer invalidateLaterTimer = new Timer(100, e -> this.invalidate());
@@ -294,7 +305,10 @@ implements ImageObserver, TileLoaderListener, ZoomChangeListener, FilterChangeLi
         if (tileLoader == null)
             tileLoader = new OsmTileLoader(this, headers);
 
-        tileCache = new MemoryTileCache(estimateTileCacheSize());
+        if (tileCache != null) {
+            tileCache.clear();
+        }
+        tileCache = DecodedTileCache.getInstance().createView(estimateTileCacheSize());
     }
 
     @Override
@@ -303,6 +317,10 @@ implements ImageObserver, TileLoaderListener, ZoomChangeListener, FilterChangeLi
             success = false;
             tile.setImage(null);
         }
+        prefetcher.tileLoadingFinished(tile);
+        if (tileCache instanceof DecodedTileCache.View) {
+            ((DecodedTileCache.View) tileCache).tileLoaded(tile);
+        }
         invalidateLater();
         Logging.debug("tileLoadingFinished() tile: {0} success: {1}", tile, success);
     }
@@ -749,9 +767,7 @@ implements ImageObserver, TileLoaderListener, ZoomChangeListener, FilterChangeLi
 
     private void zoomChanged(boolean invalidate) {
         Logging.debug("zoomChanged(): {0}", currentZoomLevel);
-        if (tileLoader instanceof TMSCachedTileLoader) {
-            ((TMSCachedTileLoader) tileLoader).cancelOutstandingTasks();
-        }
+        // the queued jobs of tiles that are not visible anymore are cancelled by the download queue, see scheduleJob()
         if (invalidate) {
             invalidate();
         }
@@ -896,10 +912,105 @@ implements ImageObserver, TileLoaderListener, ZoomChangeListener, FilterChangeLi
             return false;
         if (tile.isLoading())
             return false;
-        tileLoader.createTileLoaderJob(tile).submit(force);
+        TileJob job = tileLoader.createTileLoaderJob(tile);
+        scheduleJob(job, tile, false);
+        job.submit(force);
         return true;
     }
 
+    /**
+     * Sets the priority of a download job, and the condition under which it is cancelled while queued.
+     * @param job the download job
+     * @param tile the tile loaded by the job
+     * @param prefetch {@code true} if the tile is not visible yet but is expected to be soon
+     */
+    private void scheduleJob(TileJob job, Tile tile, boolean prefetch) {
+        if (job instanceof JCSCachedTileLoaderJob) {
+            JCSCachedTileLoaderJob<?, ?> jcsJob = (JCSCachedTileLoaderJob<?, ?>) job;
+            jcsJob.setPrefetch(prefetch);
+            // prefetch jobs are cancelled by prefetchTiles() when the view changes its heading
+            jcsJob.setScheduling(this, () -> getTilePriority(tile), prefetch ? () -> !destroyed && isVisible() : () -> isTileNeeded(tile));
+        }
+    }
+
+    private TileSet getViewTileSet(int zoom) {
+        DeepTileSet dts = viewTileSets;
+        return dts == null || zoom < dts.minZoom || zoom > dts.maxZoom ? null : dts.getTileSet(zoom);
+    }
+
+    /**
+     * Returns the download priority of a tile: the distance in tiles to the center of the view, plus a penalty for
+     * each zoom level away from the current one.
+     * @param tile the tile
+     * @return the priority of the tile, lower values are loaded first
+     */
+    private int getTilePriority(Tile tile) {
+        TileSet ts = getViewTileSet(tile.getZoom());
+        return (ts != null ? ts.getDistance(tile) : 0) + ZOOM_PRIORITY * Math.abs(tile.getZoom() - currentZoomLevel);
+    }
+
+    private boolean isTileNeeded(Tile tile) {
+        if (destroyed || !isVisible()) {
+            return false;
+        }
+        TileSet ts = getViewTileSet(tile.getZoom());
+        return ts == null || ts.contains(tile);
+    }
+
+    /**
+     * Loads at low priority the tiles that are likely to be displayed next, according to the movement of the view.
+     * @param pb the bounds of the view
+     * @param ts the tiles loaded for the view
+     * @param zoom the zoom level of {@code ts}
+     */
+    private void prefetchTiles(ProjectionBounds pb, TileSet ts, int zoom) {
+        TilePrefetcher.Motion motion = prefetcher.viewChanged(pb, System.currentTimeMillis());
+        if (!(tileLoader instanceof TMSCachedTileLoader) || ts.tooLarge()) {
+            return;
+        }
+        for (Tile t : ts.allExistingTiles()) {
+            prefetcher.tileVisible(t);
+        }
+        if (motion.isStill() || !TilePrefetcher.PROP_PREFETCH.get() || !getDisplaySettings().isAutoLoad()) {
+            return;
+        }
+        List<Tile> tiles = new ArrayList<>();
+        if (motion.getDx() != 0 || motion.getDy() != 0) {
+            int dx = motion.getDistance(ts.getTilesAcross()) * motion.getDx();
+            int dy = motion.getDistance(ts.getTilesAcross()) * motion.getDy();
+            TileSet ahead = ts.extend(Math.min(dx, 0), Math.min(dy, 0), Math.max(dx, 0), Math.max(dy, 0));
+            if (!ahead.tooLarge()) {
+                ahead.allTilesCreate().stream().filter(t -> !ts.contains(t)).forEach(tiles::add);
+            }
+        }
+        int nextZoom = zoom + motion.getZoom();
+        if (motion.getZoom() != 0 && nextZoom >= getMinZoomLvl() && nextZoom <= getMaxZoomLvl()) {
+            // when zooming in, the center of the view at the next zoom level, when zooming out the surroundings of the view
+            double factor = motion.getZoom() > 0 ? 0.5 : 2;
+            TileSet next = getTileSet(new ProjectionBounds(pb.getCenter(),
+                    (pb.maxEast - pb.minEast) * factor, (pb.maxNorth - pb.minNorth) * factor), nextZoom);
+            if (!next.tooLarge()) {
+                tiles.addAll(next.allTilesCreate());
+            }
+        }
+        if (prefetcher.hasTurned()) {
+            Set<String> wanted = tiles.stream().map(Tile::getKey).collect(Collectors.toSet());
+            prefetcher.tilesCancelled(((TMSCachedTileLoader) tileLoader).cancelOutstandingTasks(
+                    job -> job.isPrefetch() && prefetcher.isPending(job.getTile()) && !wanted.contains(job.getTile().getKey())));
+        }
+        tiles.sort(ts.getTileDistanceComparator());
+        for (Tile t : tiles) {
+            if (!t.isLoaded() && !t.isLoading()) {
+                TileJob job = tileLoader.createTileLoaderJob(t);
+                if (job instanceof JCSCachedTileLoaderJob) {
+                    scheduleJob(job, t, true);
+                    prefetcher.tilePrefetched(t, (JCSCachedTileLoaderJob<?, ?>) job);
+                    job.submit(false);
+                }
+            }
+        }
+    }
+
     private TileSet getVisibleTileSet() {
         if (!MainApplication.isDisplayingMapView())
             return new TileSet();
@@ -1027,8 +1138,12 @@ implements ImageObserver, TileLoaderListener, ZoomChangeListener, FilterChangeLi
                 }
             }
             if (miss) {
-                missed.add(new TilePosition(tile));
-                return;
+                img = getDerivedTileImage(tile);
+                if (img == null) {
+                    missed.add(new TilePosition(tile));
+                    return;
+                }
+                anchorImage = getAnchor(tile, img);
             }
 
             img = applyImageProcessors(img);
@@ -1106,6 +1221,93 @@ implements ImageObserver, TileLoaderListener, ZoomChangeListener, FilterChangeLi
         return missedTiles;
     }
 
+    /**
+     * Returns an image of a tile that is not loaded, computed from the cached tiles of the next zoom level, or from
+     * the cached tile of the previous zoom level, without network access.
+     * @param tile the tile
+     * @return the derived image of the tile, or {@code null}
+     */
+    private BufferedImage getDerivedTileImage(Tile tile) {
+        // only quadtree tile grids can be derived from each other, and reprojected tiles have their own anchors
+        if (!(tileCache instanceof DecodedTileCache.View) || !(tileSource instanceof TMSTileSource)
+                || coordinateConverter.requiresReprojection()) {
+            return null;
+        }
+        DecodedTileCache.View view = (DecodedTileCache.View) tileCache;
+        BufferedImage img = view.getDerivedImage(tile);
+        if (img == null) {
+            img = downsampleTileImage(tile);
+            if (img == null) {
+                img = upsampleTileImage(tile);
+            }
+            if (img != null) {
+                view.setDerivedImage(tile, img);
+            }
+        }
+        return img;
+    }
+
+    private BufferedImage getCachedTileImage(int x, int y, int zoom) {
+        Tile t = getTile(x, y, zoom);
+        if (t == null || !t.isLoaded() || t.hasError()) {
+            return null;
+        }
+        synchronized (t) {
+            return getLoadedTileImage(t);
+        }
+    }
+
+    private BufferedImage downsampleTileImage(Tile tile) {
+        int zoom = tile.getZoom() + 1;
+        if (zoom > getMaxZoomLvl()) {
+            return null;
+        }
+        BufferedImage[] children = new BufferedImage[4];
+        for (int i = 0; i < 4; i++) {
+            children[i] = getCachedTileImage(2 * tile.getXtile() + i % 2, 2 * tile.getYtile() + i / 2, zoom);
+            if (children[i] == null) {
+                return null;
+            }
+        }
+        int size = tileSource.getTileSize();
+        BufferedImage img = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = img.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            for (int i = 0; i < 4; i++) {
+                g.drawImage(children[i], i % 2 * size / 2, i / 2 * size / 2, size / 2, size / 2, null);
+            }
+        } finally {
+            g.dispose();
+        }
+        return img;
+    }
+
+    private BufferedImage upsampleTileImage(Tile tile) {
+        int zoom = tile.getZoom() - 1;
+        if (zoom < getMinZoomLvl()) {
+            return null;
+        }
+        BufferedImage parent = getCachedTileImage(tile.getXtile() / 2, tile.getYtile() / 2, zoom);
+        if (parent == null) {
+            return null;
+        }
+        int w = parent.getWidth() / 2;
+        int h = parent.getHeight() / 2;
+        int sx = tile.getXtile() % 2 * w;
+        int sy = tile.getYtile() % 2 * h;
+        int size = tileSource.getTileSize();
+        BufferedImage img = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = img.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(parent, 0, 0, size, size, sx, sy, sx + w, sy + h, null);
+        } finally {
+            g.dispose();
+        }
+        return img;
+    }
+
     private static TileAnchor getAnchor(Tile tile, BufferedImage image) {
         if (tile instanceof ReprojectionTile) {
             return ((ReprojectionTile) tile).getAnchor();
@@ -1271,6 +1473,26 @@ implements ImageObserver, TileLoaderListener, ZoomChangeListener, FilterChangeLi
             }
         }
 
+        /**
+         * Returns a tile set that extends this one by the given number of tiles on each side.
+         * @param left number of columns to add on the left, as a negative number
+         * @param top number of rows to add on the top, as a negative number
+         * @param right number of columns to add on the right
+         * @param bottom number of rows to add on the bottom
+         * @return the extended tile set
+         */
+        private TileSet extend(int left, int top, int right, int bottom) {
+            return new TileSet(new TileXY(minX + left, minY + top), new TileXY(maxX + right, maxY + bottom), zoom);
+        }
+
+        private boolean contains(Tile t) {
+            return t.getZoom() == zoom && t.getXtile() >= minX && t.getXtile() <= maxX && t.getYtile() >= minY && t.getYtile() <= maxY;
+        }
+
+        private int getTilesAcross() {
+            return Math.max(maxX - minX, maxY - minY) + 1;
+        }
+
         private List<Tile> allLoadedTiles() {
             return allExistingTiles().stream().filter(Tile::isLoaded).collect(Collectors.toList());
         }
@@ -1279,9 +1501,18 @@ implements ImageObserver, TileLoaderListener, ZoomChangeListener, FilterChangeLi
          * @return comparator, that sorts the tiles from the center to the edge of the current screen
          */
         private Comparator<Tile> getTileDistanceComparator() {
+            return Comparator.comparingInt(this::getDistance);
+        }
+
+        /**
+         * Returns the distance of a tile to the center of this tile set.
+         * @param t the tile, at the zoom level of this tile set
+         * @return the Manhattan distance in tiles
+         */
+        private int getDistance(Tile t) {
             final int centerX = (int) Math.ceil((minX + maxX) / 2d);
             final int centerY = (int) Math.ceil((minY + maxY) / 2d);
-            return Comparator.comparingInt(t -> Math.abs(t.getXtile() - centerX) + Math.abs(t.getYtile() - centerY));
+            return Math.abs(t.getXtile() - centerX) + Math.abs(t.getYtile() - centerY);
         }
 
         private void loadAllTiles(boolean force) {
@@ -1299,7 +1530,9 @@ implements ImageObserver, TileLoaderListener, ZoomChangeListener, FilterChangeLi
                 return;
             for (Tile t : this.allTilesCreate()) {
                 if (t.hasError()) {
-                    tileLoader.createTileLoaderJob(t).submit(force);
+                    TileJob job = tileLoader.createTileLoaderJob(t);
+                    scheduleJob(job, t, false);
+                    job.submit(force);
                 }
             }
         }
@@ -1484,6 +1717,7 @@ implements ImageObserver, TileLoaderListener, ZoomChangeListener, FilterChangeLi
         }
 
         DeepTileSet dts = new DeepTileSet(pb, getMinZoomLvl(), zoom);
+        viewTileSets = new DeepTileSet(pb, dts.minZoom, Math.max(zoom, getMaxZoomLvl()));
 
         int displayZoomLevel = zoom;
 
@@ -1534,6 +1768,7 @@ implements ImageObserver, TileLoaderListener, ZoomChangeListener, FilterChangeLi
             // on zoom in)
             ts.loadAllTiles(false);
         }
+        prefetchTiles(pb, ts, zoom);
 
         if (displayZoomLevel != zoom) {
             ts = dts.getTileSet(displayZoomLevel);
@@ -1631,6 +1866,9 @@ implements ImageObserver, TileLoaderListener, ZoomChangeListener, FilterChangeLi
                     offset += 15;
                     myDrawString(g, tr("Cache stats: {0}", part), 50, offset);
                 }
+                myDrawString(g, tr("Prefetch stats: {0}", prefetcher.getStats()), 50, offset + 15);
+                myDrawString(g, tr("Download queue: {0}", ((TMSCachedTileLoader) tileLoader).getQueueStats()), 50, offset + 30);
+                myDrawString(g, tr("Memory cache: {0}", DecodedTileCache.getInstance().getStats()), 50, offset + 45);
             }
         }
     }
@@ -1909,9 +2147,14 @@ implements ImageObserver, TileLoaderListener, ZoomChangeListener, FilterChangeLi
 
     @Override
     public synchronized void destroy() {
+        destroyed = true;
         super.destroy();
         MapView.removeZoomChangeListener(this);
         adjustAction.destroy();
+        if (tileCache != null) {
+            // the tiles are kept in the cache shared by all layers
+            tileCache.clear();
+        }
     }
 
     private class TileSourcePainter extends CompatibilityModeLayerPainter {
@@ -1941,6 +2184,7 @@ implements ImageObserver, TileLoaderListener, ZoomChangeListener, FilterChangeLi
                 if (manager.isAvailable(getEstimatedCacheSize())) {
                     try {
                         memory = manager.allocateMemory("tile source layer", getEstimatedCacheSize(), Object::new);
+                        DecodedTileCache.getInstance().reserve(memory.getSize());
                     } catch (NotEnoughMemoryException e) {
                         Logging.warn("Could not allocate tile source memory", e);
                     }
@@ -1958,8 +2202,12 @@ implements ImageObserver, TileLoaderListener, ZoomChangeListener, FilterChangeLi
             MapView.removeZoomChangeListener(AbstractTileSourceLayer.this);
             super.detachFromMapView(event);
             if (memory != null) {
+                DecodedTileCache.getInstance().release(memory.getSize());
                 memory.free();
             }
+            if (tileCache != null) {
+                tileCache.clear();
+            }
         }
     }
 
@@ -1970,6 +2218,7 @@ implements ImageObserver, TileLoaderListener, ZoomChangeListener, FilterChangeLi
         if (tileCache != null) {
             tileCache.clear();
         }
+        ReprojectionTile.clearGridCache();
     }
 
     @Override
@@ -89,6 +89,7 @@ import org.openstreetmap.josm.data.osm.visitor.BoundingXYVisitor;
 import org.openstreetmap.josm.data.osm.visitor.OsmPrimitiveVisitor;
 import org.openstreetmap.josm.data.osm.visitor.paint.AbstractMapRenderer;
 import org.openstreetmap.josm.data.osm.visitor.paint.MapRendererFactory;
+import org.openstreetmap.josm.data.osm.visitor.paint.WayGeometryCache;
 import org.openstreetmap.josm.data.osm.visitor.paint.relations.MultipolygonCache;
 import org.openstreetmap.josm.data.preferences.BooleanProperty;
 import org.openstreetmap.josm.data.preferences.IntegerProperty;
@@ -445,6 +446,7 @@ public class OsmDataLayer extends AbstractOsmDataLayer implements Listener, Data
         this.setAssociatedFile(associatedFile);
         data.addDataSetListener(dataSetListenerAdapter);
         data.addDataSetListener(MultipolygonCache.getInstance());
+        WayGeometryCache.getInstance().addDataSet(data);
         data.addHighlightUpdateListener(this);
         data.addSelectionListener(this);
         if (name != null && name.startsWith(createLayerName("")) && Character.isDigit(
@@ -1136,6 +1138,7 @@ public class OsmDataLayer extends AbstractOsmDataLayer implements Listener, Data
         data.removeHighlightUpdateListener(this);
         data.removeDataSetListener(dataSetListenerAdapter);
         data.removeDataSetListener(MultipolygonCache.getInstance());
+        WayGeometryCache.getInstance().removeDataSet(data);
         removeClipboardDataFor(this);
         recentRelations.clear();
     }
@@ -0,0 +1,299 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.gui.layer.imagery;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.SampleModel;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.openstreetmap.gui.jmapviewer.Tile;
+import org.openstreetmap.gui.jmapviewer.interfaces.TileCache;
+import org.openstreetmap.gui.jmapviewer.interfaces.TileSource;
+import org.openstreetmap.josm.data.preferences.IntegerProperty;
+
+/**
+ * Memory cache of the decoded tiles of all imagery layers, bounded by the number of bytes used by the tile images.
+ * <p>
+ * Each layer accesses the cache through its own {@link View}. The budget of the cache is the sum of the memory reserved
+ * by the layers through the {@link org.openstreetmap.josm.tools.MemoryManager}, so that the layers share their memory:
+ * the tiles are evicted in least recently used order, and as the visible tiles are accessed on each paint, the tiles
+ * that are not visible anymore, in any layer, are evicted first.
+ * <p>
+ * Next to the tile itself, the cache can keep an image derived from the tiles of the neighbouring zoom levels, which is
+ * displayed until the tile is loaded.
+ * @since xxx
+ */
+public final class DecodedTileCache {
+
+    /** Minimum size of the cache, in MB, used when the layers could not reserve more memory */
+    public static final IntegerProperty PROP_MIN_SIZE = new IntegerProperty("imagery.cache.memory.min", 32);
+
+    /** Memory accounted for each tile besides its image, in bytes */
+    private static final long ENTRY_OVERHEAD = 512;
+
+    private static final DecodedTileCache INSTANCE = new DecodedTileCache();
+
+    private static final class Key {
+        private final View view;
+        private final TileSource source;
+        private final int x;
+        private final int y;
+        private final int zoom;
+
+        Key(View view, TileSource source, int x, int y, int zoom) {
+            this.view = view;
+            this.source = source;
+            this.x = x;
+            this.y = y;
+            this.zoom = zoom;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (obj == null || getClass() != obj.getClass()) return false;
+            Key other = (Key) obj;
+            return x == other.x && y == other.y && zoom == other.zoom && view == other.view && source == other.source;
+        }
+
+        @Override
+        public int hashCode() {
+            return ((System.identityHashCode(view) * 31 + x) * 31 + y) * 31 + zoom;
+        }
+    }
+
+    private static final class Entry {
+        private final Tile tile;
+        private BufferedImage derivedImage;
+        private long size;
+
+        Entry(Tile tile) {
+            this.tile = tile;
+        }
+    }
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long reserved;
+    private long size;
+    private long evictedCount;
+
+    private DecodedTileCache() {
+        // hide constructor
+    }
+
+    /**
+     * Returns the unique instance.
+     * @return the unique instance
+     */
+    public static DecodedTileCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Creates a view of this cache for a layer.
+     * @param cacheSize the maximum number of tiles the layer is expected to display, see {@link TileCache#getCacheSize()}
+     * @return a new view
+     */
+    public View createView(int cacheSize) {
+        return new View(cacheSize);
+    }
+
+    /**
+     * Adds memory to the budget of this cache.
+     * @param bytes the number of bytes reserved by a layer
+     */
+    public synchronized void reserve(long bytes) {
+        reserved += bytes;
+    }
+
+    /**
+     * Removes memory from the budget of this cache, and evicts the tiles that do not fit anymore.
+     * @param bytes the number of bytes released by a layer
+     */
+    public synchronized void release(long bytes) {
+        reserved = Math.max(0, reserved - bytes);
+        evict(null);
+    }
+
+    /**
+     * Returns the maximum number of bytes used by the tile images.
+     * @return the maximum size of the cache, in bytes
+     */
+    public synchronized long getMaxSize() {
+        return Math.max(reserved, PROP_MIN_SIZE.get() * 1024L * 1024L);
+    }
+
+    /**
+     * Returns the number of bytes currently used by the tile images.
+     * @return the size of the cache, in bytes
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the number of tiles in the cache, for all layers.
+     * @return the number of tiles
+     */
+    public synchronized int getTileCount() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the cache statistics.
+     * @return the cache statistics as string
+     */
+    public synchronized String getStats() {
+        return String.format("tiles: %d, size: %d / %d MB, evicted: %d",
+                entries.size(), size / 1024 / 1024, getMaxSize() / 1024 / 1024, evictedCount);
+    }
+
+    /**
+     * Returns the number of bytes used by the pixels of an image.
+     * @param image the image, can be {@code null}
+     * @return the number of bytes used by the image
+     */
+    static long getImageSize(BufferedImage image) {
+        if (image == null) {
+            return 0;
+        }
+        // do not use the data buffer, it would prevent the image from being accelerated
+        SampleModel sm = image.getSampleModel();
+        long bits = DataBuffer.getDataTypeSize(sm.getDataType()) * (long) (sm instanceof ComponentSampleModel ? sm.getNumBands() : 1);
+        return (long) image.getWidth() * image.getHeight() * bits / 8;
+    }
+
+    private void update(Entry entry) {
+        long newSize = ENTRY_OVERHEAD + getImageSize(entry.tile.getImage()) + getImageSize(entry.derivedImage);
+        size += newSize - entry.size;
+        entry.size = newSize;
+    }
+
+    private void evict(Entry keep) {
+        long maxSize = getMaxSize();
+        for (Iterator<Entry> it = entries.values().iterator(); size > maxSize && it.hasNext();) {
+            Entry entry = it.next();
+            if (entry != keep) {
+                it.remove();
+                size -= entry.size;
+                evictedCount++;
+            }
+        }
+    }
+
+    private Entry get(View view, Tile tile) {
+        return entries.get(new Key(view, tile.getTileSource(), tile.getXtile(), tile.getYtile(), tile.getZoom()));
+    }
+
+    /**
+     * The tiles of one layer in the {@link DecodedTileCache}.
+     */
+    public final class View implements TileCache {
+        private final int cacheSize;
+
+        private View(int cacheSize) {
+            this.cacheSize = cacheSize;
+        }
+
+        @Override
+        public Tile getTile(TileSource source, int x, int y, int z) {
+            synchronized (DecodedTileCache.this) {
+                Entry entry = entries.get(new Key(this, source, x, y, z));
+                if (entry == null) {
+                    return null;
+                }
+                // the image of the tile is loaded asynchronously, or reprojected when needed
+                long oldSize = entry.size;
+                update(entry);
+                if (entry.size > oldSize) {
+                    evict(entry);
+                }
+                return entry.tile;
+            }
+        }
+
+        @Override
+        public void addTile(Tile tile) {
+            synchronized (DecodedTileCache.this) {
+                Entry entry = new Entry(tile);
+                Entry old = entries.put(new Key(this, tile.getTileSource(), tile.getXtile(), tile.getYtile(), tile.getZoom()), entry);
+                if (old != null) {
+                    size -= old.size;
+                }
+                update(entry);
+                evict(entry);
+            }
+        }
+
+        /**
+         * Updates the size of a tile whose image has changed, and drops its derived image.
+         * @param tile the tile
+         */
+        public void tileLoaded(Tile tile) {
+            synchronized (DecodedTileCache.this) {
+                Entry entry = get(this, tile);
+                if (entry != null) {
+                    entry.derivedImage = null;
+                    update(entry);
+                    evict(entry);
+                }
+            }
+        }
+
+        /**
+         * Returns the image derived from other zoom levels for a tile that is not loaded.
+         * @param tile the tile
+         * @return the derived image, or {@code null}
+         */
+        public BufferedImage getDerivedImage(Tile tile) {
+            synchronized (DecodedTileCache.this) {
+                Entry entry = get(this, tile);
+                return entry != null ? entry.derivedImage : null;
+            }
+        }
+
+        /**
+         * Sets the image derived from other zoom levels for a tile that is not loaded.
+         * @param tile the tile, which must be in the cache
+         * @param image the derived image
+         */
+        public void setDerivedImage(Tile tile, BufferedImage image) {
+            synchronized (DecodedTileCache.this) {
+                Entry entry = get(this, tile);
+                if (entry != null) {
+                    entry.derivedImage = image;
+                    update(entry);
+                    evict(entry);
+                }
+            }
+        }
+
+        @Override
+        public int getTileCount() {
+            synchronized (DecodedTileCache.this) {
+                return (int) entries.keySet().stream().filter(k -> k.view == this).count();
+            }
+        }
+
+        @Override
+        public void clear() {
+            synchronized (DecodedTileCache.this) {
+                for (Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator(); it.hasNext();) {
+                    Map.Entry<Key, Entry> e = it.next();
+                    if (e.getKey().view == this) {
+                        it.remove();
+                        size -= e.getValue().size;
+                    }
+                }
+            }
+        }
+
+        @Override
+        public int getCacheSize() {
+            return cacheSize;
+        }
+    }
+}
@@ -4,6 +4,10 @@ package org.openstreetmap.josm.gui.layer.imagery;
 import java.awt.Dimension;
 import java.awt.geom.Point2D;
 import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
 
 import org.openstreetmap.gui.jmapviewer.Tile;
 import org.openstreetmap.gui.jmapviewer.interfaces.TileSource;
@@ -25,6 +29,18 @@ import org.openstreetmap.josm.tools.bugreport.BugReport;
  */
 public class ReprojectionTile extends Tile {
 
+    /** Maximum number of bytes used by the transform grids kept to reproject the tiles again */
+    private static final long GRID_CACHE_MAX_SIZE = 16L * 1024 * 1024;
+
+    /**
+     * The transform grids of the recently reprojected tiles. A grid only depends on the projections and on the
+     * position and scale of the tile, so it is reused when a tile is reloaded, or displayed again at the same
+     * scale, and by the layers sharing the same tile grid. Guarded by itself.
+     */
+    private static final Map<GridKey, ImageWarp.TransformGrid> GRID_CACHE = new LinkedHashMap<>(16, 0.75f, true);
+    /** Number of bytes used by the grids of {@link #GRID_CACHE} */
+    private static long gridCacheSize;
+
     protected TileAnchor anchor;
     private double nativeScale;
     protected boolean maxZoomReached;
@@ -159,15 +175,21 @@ public class ReprojectionTile extends Tile {
                 (en11Current.east() - pbTargetAligned.minEast) / scale,
                 (pbTargetAligned.maxNorth - en11Current.north()) / scale);
 
-        ImageWarp.PointTransform transform;
         int stride = Config.getPref().getInt("imagery.warp.projection-interpolation.stride", 7);
-        if (stride > 0) {
-            transform = new ImageWarp.GridTransform(pointTransform, stride);
-        } else {
-            transform = pointTransform;
-        }
         Dimension targetDim = getDimension(pbTargetAligned, scale);
         try {
+            ImageWarp.PointTransform transform;
+            if (stride > 0) {
+                GridKey key = new GridKey(projServer, projCurrent, zoom, en00Server, en11Server, source.getTileSize(), scale, stride);
+                ImageWarp.TransformGrid grid = getGrid(key);
+                if (grid == null) {
+                    grid = ImageWarp.TransformGrid.create(pointTransform, targetDim, stride);
+                    putGrid(key, grid);
+                }
+                transform = grid;
+            } else {
+                transform = pointTransform;
+            }
             BufferedImage imageOut = ImageWarp.warp(imageIn, targetDim, transform, interpolation);
             synchronized (this) {
                 this.image = imageOut;
@@ -181,6 +203,84 @@ public class ReprojectionTile extends Tile {
         }
     }
 
+    private static ImageWarp.TransformGrid getGrid(GridKey key) {
+        synchronized (GRID_CACHE) {
+            return GRID_CACHE.get(key);
+        }
+    }
+
+    private static void putGrid(GridKey key, ImageWarp.TransformGrid grid) {
+        synchronized (GRID_CACHE) {
+            if (key.projCurrent != ProjectionRegistry.getProjection()) {
+                // the projection has changed while the grid was computed
+                return;
+            }
+            ImageWarp.TransformGrid old = GRID_CACHE.put(key, grid);
+            gridCacheSize += grid.getMemorySize() - (old != null ? old.getMemorySize() : 0);
+            // evict the least recently used grids
+            for (Iterator<ImageWarp.TransformGrid> it = GRID_CACHE.values().iterator(); gridCacheSize > GRID_CACHE_MAX_SIZE
+                    && it.hasNext();) {
+                gridCacheSize -= it.next().getMemorySize();
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Clears the transform grids kept to reproject the tiles again. To be called when the projection changes,
+     * since the grids of the previous projection cannot be used anymore.
+     * @since xxx
+     */
+    public static void clearGridCache() {
+        synchronized (GRID_CACHE) {
+            GRID_CACHE.clear();
+            gridCacheSize = 0;
+        }
+    }
+
+    /**
+     * Key of a transform grid: source projection, target projection, zoom, and the tile bounds, tile size and scale
+     * that determine the pixel geometry within the zoom level.
+     */
+    private static final class GridKey {
+        private final Projection projServer;
+        private final Projection projCurrent;
+        private final int zoom;
+        private final EastNorth en00Server;
+        private final EastNorth en11Server;
+        private final int tileSize;
+        private final double scale;
+        private final int stride;
+
+        GridKey(Projection projServer, Projection projCurrent, int zoom, EastNorth en00Server, EastNorth en11Server,
+                int tileSize, double scale, int stride) {
+            this.projServer = projServer;
+            this.projCurrent = projCurrent;
+            this.zoom = zoom;
+            this.en00Server = en00Server;
+            this.en11Server = en11Server;
+            this.tileSize = tileSize;
+            this.scale = scale;
+            this.stride = stride;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (obj == null || getClass() != obj.getClass()) return false;
+            GridKey other = (GridKey) obj;
+            return zoom == other.zoom && tileSize == other.tileSize && stride == other.stride && Double.compare(scale, other.scale) == 0
+                    && projServer == other.projServer && projCurrent == other.projCurrent
+                    && en00Server.equals(other.en00Server) && en11Server.equals(other.en11Server);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(projServer), System.identityHashCode(projCurrent), zoom,
+                    en00Server, en11Server, tileSize, scale, stride);
+        }
+    }
+
     // add margin and align to pixel grid
     private static ProjectionBounds pbMarginAndAlign(ProjectionBounds box, double scale, double margin) {
         double minEast = Math.floor(box.minEast / scale - margin) * scale;
@@ -0,0 +1,307 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.gui.layer.imagery;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.openstreetmap.gui.jmapviewer.Tile;
+import org.openstreetmap.josm.data.ProjectionBounds;
+import org.openstreetmap.josm.data.cache.JCSCachedTileLoaderJob;
+import org.openstreetmap.josm.data.coor.EastNorth;
+import org.openstreetmap.josm.data.preferences.BooleanProperty;
+import org.openstreetmap.josm.data.preferences.IntegerProperty;
+
+/**
+ * Predicts the tiles that will be displayed soon from the recent pan and zoom velocity of the map view,
+ * and keeps track of the prefetched tiles to measure the prefetch hit rate.
+ * <p>
+ * The velocity is expressed in viewport sizes per second for panning, and in zoom levels per second for zooming.
+ * It is smoothed over the successive view changes, so that a single jerky movement does not change the heading.
+ * @since xxx
+ */
+public class TilePrefetcher {
+
+    /**
+     * Whether the tiles around the viewport are prefetched. Disabled by default, since the tile usage policies
+     * of some servers (like the OpenStreetMap Foundation ones) do not allow to download tiles that are not displayed.
+     */
+    public static final BooleanProperty PROP_PREFETCH = new BooleanProperty("imagery.generic.prefetch", false);
+    /** Maximum number of tiles loaded ahead of the viewport */
+    public static final IntegerProperty PROP_PREFETCH_DISTANCE = new IntegerProperty("imagery.generic.prefetch.distance", 2);
+
+    /** Speed below which the view is considered as still, in viewport sizes or zoom levels per second */
+    private static final double MIN_SPEED = 0.05;
+    /** Weight of the latest view change in the smoothed velocity */
+    private static final double SMOOTHING = 0.5;
+    /** Time after which the view is considered as having stopped, in milliseconds */
+    private static final long MAX_INTERVAL = 1000;
+    /** How far in the future the viewport position is predicted, in seconds */
+    private static final double LOOKAHEAD = 1;
+    /** Maximum number of prefetched tiles that are tracked */
+    private static final int MAX_TRACKED = 1024;
+
+    /**
+     * The predicted movement of the viewport.
+     */
+    public static final class Motion {
+        /** The still viewport */
+        public static final Motion NONE = new Motion(0, 0, 0, 0);
+
+        private final int dx;
+        private final int dy;
+        private final int zoom;
+        private final double speed;
+
+        Motion(int dx, int dy, int zoom, double speed) {
+            this.dx = dx;
+            this.dy = dy;
+            this.zoom = zoom;
+            this.speed = speed;
+        }
+
+        /**
+         * Returns the horizontal direction of the movement, in tile coordinates.
+         * @return -1 when moving west, 1 when moving east, 0 otherwise
+         */
+        public int getDx() {
+            return dx;
+        }
+
+        /**
+         * Returns the vertical direction of the movement, in tile coordinates.
+         * @return -1 when moving north, 1 when moving south, 0 otherwise
+         */
+        public int getDy() {
+            return dy;
+        }
+
+        /**
+         * Returns the zoom direction.
+         * @return 1 when zooming in, -1 when zooming out, 0 otherwise
+         */
+        public int getZoom() {
+            return zoom;
+        }
+
+        /**
+         * Determines if the viewport is neither panned nor zoomed.
+         * @return {@code true} if the viewport is still
+         */
+        public boolean isStill() {
+            return dx == 0 && dy == 0 && zoom == 0;
+        }
+
+        /**
+         * Returns the number of tiles to load ahead of the viewport.
+         * @param tilesAcross number of tiles across the viewport
+         * @return the number of tiles the viewport is expected to move by, between 1 and {@link #PROP_PREFETCH_DISTANCE}
+         */
+        public int getDistance(int tilesAcross) {
+            int distance = (int) Math.ceil(speed * tilesAcross * LOOKAHEAD);
+            return Math.max(1, Math.min(PROP_PREFETCH_DISTANCE.get(), distance));
+        }
+
+        boolean hasSameHeading(Motion other) {
+            return dx == other.dx && dy == other.dy && zoom == other.zoom;
+        }
+
+        @Override
+        public String toString() {
+            return "Motion [dx=" + dx + ", dy=" + dy + ", zoom=" + zoom + ", speed=" + speed + ']';
+        }
+    }
+
+    private EastNorth lastCenter;
+    private double lastWidth;
+    private long lastTime;
+    private double vx;
+    private double vy;
+    private double vz;
+    private Motion motion = Motion.NONE;
+    private Motion heading;
+    private boolean turned;
+
+    private final Map<String, JCSCachedTileLoaderJob<?, ?>> pending = createLruMap();
+    private final Map<String, Boolean> prefetched = createLruMap();
+    private long requestedCount;
+    private long hitCount;
+    private long lateCount;
+    private long cancelledCount;
+
+    private static <V> Map<String, V> createLruMap() {
+        return new LinkedHashMap<String, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > MAX_TRACKED;
+            }
+        };
+    }
+
+    /**
+     * Updates the velocity of the viewport.
+     * @param bounds the new bounds of the viewport
+     * @param time the time of the change, in milliseconds
+     * @return the predicted movement of the viewport
+     */
+    public synchronized Motion viewChanged(ProjectionBounds bounds, long time) {
+        EastNorth center = bounds.getCenter();
+        double width = bounds.maxEast - bounds.minEast;
+        double height = bounds.maxNorth - bounds.minNorth;
+        if (!(width > 0 && height > 0)) {
+            return motion;
+        }
+        if (lastCenter != null && time > lastTime) {
+            if (time - lastTime > MAX_INTERVAL) {
+                vx = vy = vz = 0;
+            } else {
+                double dt = (time - lastTime) / 1000d;
+                vx = smooth(vx, (center.east() - lastCenter.east()) / width / dt);
+                // tile rows grow southwards
+                vy = smooth(vy, (lastCenter.north() - center.north()) / height / dt);
+                vz = smooth(vz, Math.log(lastWidth / width) / Math.log(2) / dt);
+            }
+        } else if (lastCenter != null) {
+            return motion;
+        }
+        lastCenter = center;
+        lastWidth = width;
+        lastTime = time;
+
+        motion = new Motion(direction(vx), direction(vy), direction(vz), Math.max(Math.abs(vx), Math.abs(vy)));
+        turned = false;
+        if (!motion.isStill()) {
+            turned = heading != null && !heading.hasSameHeading(motion);
+            heading = motion;
+        }
+        return motion;
+    }
+
+    private static double smooth(double previous, double current) {
+        return previous + SMOOTHING * (current - previous);
+    }
+
+    private static int direction(double speed) {
+        return Math.abs(speed) < MIN_SPEED ? 0 : (int) Math.signum(speed);
+    }
+
+    /**
+     * Returns the predicted movement of the viewport, as of the last view change.
+     * @return the predicted movement of the viewport
+     */
+    public synchronized Motion getMotion() {
+        return motion;
+    }
+
+    /**
+     * Determines if the last view change changed the direction of the movement, so that the pending prefetch jobs are stale.
+     * @return {@code true} if the heading has changed
+     */
+    public synchronized boolean hasTurned() {
+        return turned;
+    }
+
+    /**
+     * Records a prefetch job.
+     * @param tile the prefetched tile
+     * @param job the job loading the tile
+     */
+    public synchronized void tilePrefetched(Tile tile, JCSCachedTileLoaderJob<?, ?> job) {
+        pending.put(tile.getKey(), job);
+        prefetched.put(tile.getKey(), Boolean.TRUE);
+        requestedCount++;
+    }
+
+    /**
+     * Determines if the given tile is being prefetched.
+     * @param tile the tile
+     * @return {@code true} if a prefetch job of the tile has not finished yet
+     */
+    public synchronized boolean isPending(Tile tile) {
+        return pending.containsKey(tile.getKey());
+    }
+
+    /**
+     * Records that a tile is displayed. If the tile is still being prefetched, its job is promoted to a regular job.
+     * @param tile the displayed tile
+     */
+    public synchronized void tileVisible(Tile tile) {
+        if (prefetched.isEmpty() || prefetched.remove(tile.getKey()) == null) {
+            return;
+        }
+        JCSCachedTileLoaderJob<?, ?> job = pending.remove(tile.getKey());
+        if (job != null) {
+            job.setPrefetch(false);
+            lateCount++;
+        } else if (tile.isLoaded()) {
+            hitCount++;
+        }
+    }
+
+    /**
+     * Records that a tile has finished loading.
+     * @param tile the tile
+     */
+    public synchronized void tileLoadingFinished(Tile tile) {
+        if (pending.remove(tile.getKey()) != null && !tile.isLoaded()) {
+            // cancelled, do not count it as a miss
+            prefetched.remove(tile.getKey());
+        }
+    }
+
+    /**
+     * Records that prefetch jobs have been cancelled.
+     * @param count the number of cancelled jobs
+     */
+    public synchronized void tilesCancelled(int count) {
+        cancelledCount += count;
+    }
+
+    /**
+     * Returns the number of prefetch jobs submitted so far.
+     * @return the number of prefetch jobs
+     */
+    public synchronized long getRequestedCount() {
+        return requestedCount;
+    }
+
+    /**
+     * Returns the number of prefetched tiles that were already loaded when they got displayed.
+     * @return the number of prefetch hits
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of prefetched tiles that were still loading when they got displayed.
+     * @return the number of late prefetches
+     */
+    public synchronized long getLateCount() {
+        return lateCount;
+    }
+
+    /**
+     * Returns the number of prefetch jobs cancelled because the viewport changed its heading.
+     * @return the number of cancelled prefetch jobs
+     */
+    public synchronized long getCancelledCount() {
+        return cancelledCount;
+    }
+
+    /**
+     * Returns the share of the prefetch jobs whose tile was loaded before being displayed.
+     * @return the prefetch hit rate, between 0 and 1
+     */
+    public synchronized double getHitRate() {
+        return requestedCount == 0 ? 0 : (double) hitCount / requestedCount;
+    }
+
+    /**
+     * Returns the prefetch statistics.
+     * @return the prefetch statistics as string
+     */
+    public synchronized String getStats() {
+        return String.format("requested: %d, hits: %d (%.1f%%), late: %d, cancelled: %d",
+                requestedCount, hitCount, getHitRate() * 100, lateCount, cancelledCount);
+    }
+}
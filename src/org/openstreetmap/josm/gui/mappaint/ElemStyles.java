@@ -11,15 +11,20 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.openstreetmap.josm.data.osm.INode;
 import org.openstreetmap.josm.data.osm.IPrimitive;
 import org.openstreetmap.josm.data.osm.IRelation;
 import org.openstreetmap.josm.data.osm.IWay;
+import org.openstreetmap.josm.data.osm.OsmPrimitiveType;
 import org.openstreetmap.josm.data.osm.Relation;
 import org.openstreetmap.josm.data.osm.visitor.paint.PaintColors;
 import org.openstreetmap.josm.data.osm.visitor.paint.relations.Multipolygon;
 import org.openstreetmap.josm.data.osm.visitor.paint.relations.MultipolygonCache;
+import org.openstreetmap.josm.data.preferences.BooleanProperty;
 import org.openstreetmap.josm.gui.MainApplication;
 import org.openstreetmap.josm.gui.NavigatableComponent;
 import org.openstreetmap.josm.gui.layer.OsmDataLayer;
@@ -39,6 +44,7 @@ import org.openstreetmap.josm.gui.util.GuiHelper;
 import org.openstreetmap.josm.spi.preferences.Config;
 import org.openstreetmap.josm.spi.preferences.PreferenceChangeEvent;
 import org.openstreetmap.josm.spi.preferences.PreferenceChangedListener;
+import org.openstreetmap.josm.tools.Logging;
 import org.openstreetmap.josm.tools.Pair;
 import org.openstreetmap.josm.tools.Utils;
 
@@ -77,11 +83,26 @@ public class ElemStyles implements PreferenceChangedListener {
 
     private volatile Color backgroundColorCache;
 
+    /**
+     * Determines if the styles are shared between primitives with the same tags.
+     * @since xxx
+     */
+    public static final BooleanProperty SHARED_STYLES = new BooleanProperty("mappaint.shared-styles", true);
+    /** The maximum number of tag sets whose styles are shared */
+    private static final int MAX_SHARED_STYLES = 100_000;
+    private volatile boolean shareStyles;
+    private final Map<SharedStyleKey, StyleCache> sharedStyles = new ConcurrentHashMap<>();
+    /** Incremented whenever the shared styles become invalid, so that styles computed before are not shared */
+    private final AtomicInteger sharedStylesGeneration = new AtomicInteger();
+    private final LongAdder sharedStyleHits = new LongAdder();
+    private final LongAdder sharedStyleMisses = new LongAdder();
+
     /**
      * Constructs a new {@code ElemStyles}.
      */
     public ElemStyles() {
         Config.getPref().addPreferenceChangeListener(this);
+        shareStyles = SHARED_STYLES.get();
     }
 
     /**
@@ -91,6 +112,7 @@ public class ElemStyles implements PreferenceChangedListener {
         // run in EDT to make sure this isn't called during rendering run
         GuiHelper.runInEDT(() -> {
             cacheIdx++;
+            resetSharedStyles();
             preferenceCache.clear();
             backgroundColorCache = null;
             MainApplication.getLayerManager().getLayersOfType(OsmDataLayer.class).forEach(
@@ -368,6 +390,19 @@ public class ElemStyles implements PreferenceChangedListener {
      * @since 13810 (signature)
      */
     public Pair<StyleElementList, Range> generateStyles(IPrimitive osm, double scale, boolean pretendWayIsClosed) {
+        SharedStyleKey key = shareStyles ? new SharedStyleKey(osm, pretendWayIsClosed) : null;
+        int generation = sharedStylesGeneration.get();
+        if (key != null) {
+            StyleCache shared = sharedStyles.get(key);
+            if (shared != null) {
+                Pair<StyleElementList, Range> p = shared.getWithRange(scale, osm.isSelected());
+                if (p.a != null) {
+                    sharedStyleHits.increment();
+                    return p;
+                }
+            }
+            sharedStyleMisses.increment();
+        }
 
         List<StyleElement> sl = new ArrayList<>();
         MultiCascade mc = new MultiCascade();
@@ -375,6 +410,10 @@ public class ElemStyles implements PreferenceChangedListener {
 
         for (StyleSource s : styleSources) {
             if (s.active) {
+                if (!(s instanceof MapCSSStyleSource)) {
+                    // only MapCSS rules are known to depend on the tags alone
+                    mc.contextDependent = true;
+                }
                 s.apply(mc, osm, scale, pretendWayIsClosed);
             }
         }
@@ -424,7 +463,69 @@ public class ElemStyles implements PreferenceChangedListener {
                 }
             }
         }
-        return new Pair<>(new StyleElementList(sl), mc.range);
+        Pair<StyleElementList, Range> p = new Pair<>(new StyleElementList(sl), mc.range);
+        if (key != null && !mc.contextDependent) {
+            putSharedStyle(key, p, scale, osm.isSelected(), generation);
+        }
+        return p;
+    }
+
+    private void putSharedStyle(SharedStyleKey key, Pair<StyleElementList, Range> p, double scale, boolean selected,
+            int generation) {
+        if (sharedStyles.size() >= MAX_SHARED_STYLES) {
+            sharedStyles.clear();
+        }
+        // the pair is modified by the callers, only its content is shared
+        StyleElementList list = p.a;
+        Range range = p.b;
+        sharedStyles.compute(key, (k, cache) -> {
+            // checked while holding the lock of the entry: a concurrent reset either sees and removes the new entry,
+            // or has already changed the generation
+            if (sharedStylesGeneration.get() != generation) {
+                return cache;
+            }
+            StyleCache c = cache != null ? cache : StyleCache.EMPTY_STYLECACHE;
+            if (c.getWithRange(scale, selected).a != null) {
+                // another thread has already stored the styles for this range
+                return c;
+            }
+            try {
+                return c.put(list, range, selected);
+            } catch (RangeViolatedError e) {
+                Logging.trace(e);
+                return c;
+            }
+        });
+    }
+
+    /**
+     * Returns how many times the styles of a primitive have been shared with another primitive with the same tags.
+     * @return the number of hits of the shared styles
+     * @since xxx
+     */
+    public long getSharedStyleHits() {
+        return sharedStyleHits.sum();
+    }
+
+    /**
+     * Returns how many times the styles of a primitive could not be shared, because they had not been computed
+     * for the same tags and scale range yet or because they depend on more than the tags.
+     * @return the number of misses of the shared styles
+     * @since xxx
+     */
+    public long getSharedStyleMisses() {
+        return sharedStyleMisses.sum();
+    }
+
+    /**
+     * Resets the statistics of the shared styles.
+     * @see #getSharedStyleHits()
+     * @see #getSharedStyleMisses()
+     * @since xxx
+     */
+    public void resetSharedStyleStatistics() {
+        sharedStyleHits.reset();
+        sharedStyleMisses.reset();
     }
 
     private static <T> void addIfNotNull(List<T> list, T obj) {
@@ -491,6 +592,7 @@ public class ElemStyles implements PreferenceChangedListener {
      */
     void clear() {
         styleSources.clear();
+        resetSharedStyles();
     }
 
     /**
@@ -499,6 +601,7 @@ public class ElemStyles implements PreferenceChangedListener {
      */
     void add(StyleSource style) {
         styleSources.add(Objects.requireNonNull(style));
+        resetSharedStyles();
     }
 
     /**
@@ -507,7 +610,17 @@ public class ElemStyles implements PreferenceChangedListener {
      * @return {@code true} if this list contained the specified element
      */
     boolean remove(StyleSource style) {
-        return styleSources.remove(Objects.requireNonNull(style));
+        boolean removed = styleSources.remove(Objects.requireNonNull(style));
+        resetSharedStyles();
+        return removed;
+    }
+
+    /**
+     * Drops the shared styles, including the ones still being computed from the previous style sources or settings.
+     */
+    private void resetSharedStyles() {
+        sharedStylesGeneration.incrementAndGet();
+        sharedStyles.clear();
     }
 
     /**
@@ -615,8 +728,48 @@ public class ElemStyles implements PreferenceChangedListener {
 
     @Override
     public void preferenceChanged(PreferenceChangeEvent e) {
+        if (SHARED_STYLES.getKey().equals(e.getKey())) {
+            shareStyles = SHARED_STYLES.get();
+            resetSharedStyles();
+        }
         if (preferenceCache.containsKey(e.getKey())) {
             clearCached();
         }
     }
+
+    /**
+     * The properties of a primitive which determine its styles if they do not depend on its context.
+     * @see MultiCascade#contextDependent
+     */
+    private static final class SharedStyleKey {
+        private final OsmPrimitiveType type;
+        private final Map<String, String> tags;
+        private final boolean closed;
+        private final boolean hasReferrers;
+        private final boolean pretendWayIsClosed;
+        private final int hash;
+
+        SharedStyleKey(IPrimitive osm, boolean pretendWayIsClosed) {
+            this.type = osm.getType();
+            this.tags = osm.getKeys();
+            this.closed = osm instanceof IWay && ((IWay<?>) osm).isClosed();
+            this.hasReferrers = !osm.getReferrers(true).isEmpty();
+            this.pretendWayIsClosed = pretendWayIsClosed;
+            this.hash = Objects.hash(type, tags, closed, hasReferrers, pretendWayIsClosed);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (obj == null || getClass() != obj.getClass()) return false;
+            SharedStyleKey that = (SharedStyleKey) obj;
+            return type == that.type && closed == that.closed && hasReferrers == that.hasReferrers
+                    && pretendWayIsClosed == that.pretendWayIsClosed && tags.equals(that.tags);
+        }
+    }
 }
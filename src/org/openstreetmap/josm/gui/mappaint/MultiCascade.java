@@ -20,6 +20,13 @@ public class MultiCascade implements StyleKeys {
      * The scale range this cascade is valid for
      */
     public Range range;
+    /**
+     * Indicates that the cascade depends on more than the tags, the type, the closedness, the selection state and
+     * the existence of referrers of the primitive, e.g. on its parents or its geometry, so that it cannot be shared
+     * with other primitives
+     * @since xxx
+     */
+    public boolean contextDependent;
 
     /**
      * Constructs a new {@code MultiCascade}.
@@ -7,6 +7,7 @@ import java.util.EnumSet;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiPredicate;
 import java.util.function.IntFunction;
 import java.util.function.Predicate;
@@ -40,10 +41,33 @@ import org.openstreetmap.josm.tools.Utils;
  */
 public final class ConditionFactory {
 
+    /** The maximum number of regular expressions of {@link Op#REGEX} kept compiled */
+    private static final int MAX_CACHED_PATTERNS = 1024;
+    private static final Map<String, Pattern> PATTERNS = new ConcurrentHashMap<>();
+
     private ConditionFactory() {
         // Hide default constructor for utils classes
     }
 
+    /**
+     * Compiles a regular expression, or gets it from the cache of compiled expressions.
+     * @param regex the regular expression
+     * @return the compiled regular expression
+     * @throws PatternSyntaxException if the expression's syntax is invalid
+     */
+    private static Pattern compilePattern(String regex) {
+        Pattern pattern = PATTERNS.get(regex);
+        if (pattern == null) {
+            pattern = Pattern.compile(regex);
+            if (PATTERNS.size() >= MAX_CACHED_PATTERNS) {
+                // the values of other keys may be used as regular expressions, do not keep all of them
+                PATTERNS.clear();
+            }
+            PATTERNS.put(regex, pattern);
+        }
+        return pattern;
+    }
+
     /**
      * Create a new condition that checks the key and the value of the object.
      * @param k The key.
@@ -166,7 +190,7 @@ public final class ConditionFactory {
         /** The value is less than the given reference value (as float). */
         LESS(comparisonResult -> comparisonResult < 0),
         /** The reference is treated as regular expression and the value needs to match it. */
-        REGEX((test, prototype) -> Pattern.compile(prototype).matcher(test).find()),
+        REGEX((test, prototype) -> compilePattern(prototype).matcher(test).find()),
         /** The reference is treated as regular expression and the value needs to not match it. */
         NREGEX(REGEX),
         /** The reference is treated as a list separated by ';'. Spaces around the ; are ignored.
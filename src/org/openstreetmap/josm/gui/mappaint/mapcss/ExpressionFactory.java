@@ -1,20 +1,27 @@
 // License: GPL. For details, see LICENSE file.
 package org.openstreetmap.josm.gui.mappaint.mapcss;
 
+import java.awt.Color;
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Array;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
+import org.openstreetmap.josm.data.preferences.BooleanProperty;
 import org.openstreetmap.josm.gui.mappaint.Cascade;
 import org.openstreetmap.josm.gui.mappaint.Environment;
 import org.openstreetmap.josm.tools.JosmRuntimeException;
@@ -36,9 +43,20 @@ public final class ExpressionFactory {
     @Retention(RetentionPolicy.RUNTIME)
     @interface NullableArguments {}
 
+    /**
+     * Determines if functions are specialised when parsed, see {@link #createFunctionExpression}.
+     * @since xxx
+     */
+    public static final BooleanProperty COMPILE_EXPRESSIONS = new BooleanProperty("mappaint.mapcss.compile-expressions", true);
+
     private static final List<Method> arrayFunctions = new ArrayList<>();
     private static final List<Method> parameterFunctions = new ArrayList<>();
     private static final List<Method> parameterFunctionsEnv = new ArrayList<>();
+    /** Functions without environment which must be evaluated each time, because of side effects or varying results */
+    private static final Collection<String> IMPURE_FUNCTIONS = Arrays.asList("random", "tr", "print", "println");
+    /** Functions with environment which only read the tags and the cascade of the primitive, or the settings */
+    private static final Collection<String> CONTEXT_FREE_FUNCTIONS = Arrays.asList(
+            "prop", "is_prop_set", "tag", "tag_regex", "has_tag_key", "number_of_tags", "setting", "JOSM_pref");
 
     static {
         for (Method m : Functions.class.getDeclaredMethods()) {
@@ -106,11 +124,11 @@ public final class ExpressionFactory {
 
         for (Method m : arrayFunctions) {
             if (m.getName().equals(name))
-                return new ArrayFunction(m, args);
+                return compile(new ArrayFunction(m, args), m, args);
         }
         for (Method m : parameterFunctions) {
             if (m.getName().equals(name) && args.size() == m.getParameterTypes().length)
-                return new ParameterFunction(m, args, false);
+                return compile(new ParameterFunction(m, args, false), m, args);
         }
         for (Method m : parameterFunctionsEnv) {
             if (m.getName().equals(name) && args.size() == m.getParameterTypes().length-1)
@@ -119,6 +137,41 @@ public final class ExpressionFactory {
         return NullExpression.INSTANCE;
     }
 
+    /**
+     * Specialises a function which does not need the environment, unless disabled by {@link #COMPILE_EXPRESSIONS}.
+     * <p>
+     * A function without side effects whose arguments are all literals is evaluated once, if its result is immutable.
+     * The regular expression of {@code regexp_test} and {@code regexp_match} is compiled once, if it is a literal.
+     * @param function the function
+     * @param m the method of the function
+     * @param args the arguments of the function
+     * @return the specialised expression, or {@code function}
+     */
+    private static Expression compile(Expression function, Method m, List<Expression> args) {
+        if (!COMPILE_EXPRESSIONS.get()) {
+            return function;
+        }
+        if (args.stream().allMatch(LiteralExpression.class::isInstance) && !IMPURE_FUNCTIONS.contains(m.getName())) {
+            Object result = function.evaluate(null);
+            if (result instanceof String || result instanceof Number || result instanceof Boolean || result instanceof Color) {
+                return new LiteralExpression(result);
+            }
+        } else if (m.getDeclaringClass() == Functions.class && ("regexp_test".equals(m.getName()) || "regexp_match".equals(m.getName()))
+                && args.get(0) instanceof LiteralExpression && (args.size() == 2 || args.get(2) instanceof LiteralExpression)) {
+            String regex = Cascade.convertTo(args.get(0).evaluate(null), String.class);
+            String flags = args.size() == 2 ? "" : Cascade.convertTo(args.get(2).evaluate(null), String.class);
+            if (regex != null && flags != null) {
+                try {
+                    return new RegexpFunction(Pattern.compile(regex, RegexpFunction.parseFlags(flags)), args.get(1),
+                            "regexp_match".equals(m.getName()));
+                } catch (PatternSyntaxException e) {
+                    Logging.trace(e);
+                }
+            }
+        }
+        return function;
+    }
+
     /**
      * Expression that always evaluates to null.
      */
@@ -288,6 +341,38 @@ public final class ExpressionFactory {
         }
     }
 
+    /**
+     * Creates a method handle calling the given static method with its arguments in an array, as
+     * {@link Method#invoke}, but without the reflective access checks and boxing of each call.
+     * @param m the method
+     * @return the method handle, of type {@code (Object[])Object}, or {@code null} if the method is not accessible
+     */
+    private static MethodHandle createHandle(Method m) {
+        try {
+            int parameterCount = m.getParameterCount();
+            return MethodHandles.publicLookup().unreflect(m).asFixedArity()
+                    .asType(MethodType.genericMethodType(parameterCount))
+                    .asSpreader(Object[].class, parameterCount);
+        } catch (IllegalAccessException ex) {
+            Logging.trace(ex);
+            return null;
+        }
+    }
+
+    private static Object invoke(MethodHandle handle, Method m, Object[] convertedArgs) {
+        if (handle == null) {
+            throw new JosmRuntimeException("Cannot access method " + m);
+        }
+        try {
+            return (Object) handle.invokeExact(convertedArgs);
+        } catch (Error ex) {
+            throw ex;
+        } catch (Throwable ex) { // NOPMD
+            Logging.error(ex);
+            return null;
+        }
+    }
+
     /**
      * Function that takes a certain number of argument with specific type.
      *
@@ -297,10 +382,12 @@ public final class ExpressionFactory {
     public static class ParameterFunction implements Expression {
 
         private final Method m;
+        private final MethodHandle handle;
         private final boolean nullable;
         private final List<Expression> args;
         private final Class<?>[] expectedParameterTypes;
         private final boolean needsEnvironment;
+        private final boolean contextDependent;
 
         /**
          * Constructs a new {@code ParameterFunction}.
@@ -310,10 +397,12 @@ public final class ExpressionFactory {
          */
         public ParameterFunction(Method m, List<Expression> args, boolean needsEnvironment) {
             this.m = m;
+            this.handle = createHandle(m);
             this.nullable = m.getAnnotation(NullableArguments.class) != null;
             this.args = args;
             this.expectedParameterTypes = m.getParameterTypes();
             this.needsEnvironment = needsEnvironment;
+            this.contextDependent = needsEnvironment && !CONTEXT_FREE_FUNCTIONS.contains(m.getName());
         }
 
         /**
@@ -340,6 +429,9 @@ public final class ExpressionFactory {
 
             int start = 0;
             int offset = 0;
+            if (contextDependent && env != null && env.mc != null) {
+                env.mc.contextDependent = true;
+            }
             if (needsEnvironment) {
                 start = 1;
                 offset = 1;
@@ -366,16 +458,7 @@ public final class ExpressionFactory {
                 }
             }
 
-            Object result = null;
-            try {
-                result = m.invoke(null, convertedArgs);
-            } catch (IllegalAccessException | IllegalArgumentException ex) {
-                throw new JosmRuntimeException(ex);
-            } catch (InvocationTargetException ex) {
-                Logging.error(ex);
-                return null;
-            }
-            return result;
+            return invoke(handle, m, convertedArgs);
         }
 
         @Override
@@ -406,6 +489,7 @@ public final class ExpressionFactory {
     public static class ArrayFunction implements Expression {
 
         private final Method m;
+        private final MethodHandle handle;
         private final boolean nullable;
         private final List<Expression> args;
         private final Class<?>[] expectedParameterTypes;
@@ -418,6 +502,7 @@ public final class ExpressionFactory {
          */
         public ArrayFunction(Method m, List<Expression> args) {
             this.m = m;
+            this.handle = createHandle(m);
             this.nullable = m.getAnnotation(NullableArguments.class) != null;
             this.args = args;
             this.expectedParameterTypes = m.getParameterTypes();
@@ -436,17 +521,7 @@ public final class ExpressionFactory {
                 Array.set(arrayArg, i, o);
             }
             convertedArgs[0] = arrayArg;
-
-            Object result = null;
-            try {
-                result = m.invoke(null, convertedArgs);
-            } catch (IllegalAccessException | IllegalArgumentException ex) {
-                throw new JosmRuntimeException(ex);
-            } catch (InvocationTargetException ex) {
-                Logging.error(ex);
-                return null;
-            }
-            return result;
+            return invoke(handle, m, convertedArgs);
         }
 
         @Override
@@ -461,4 +536,62 @@ public final class ExpressionFactory {
             return b.toString();
         }
     }
+
+    /**
+     * Function {@code regexp_test} or {@code regexp_match} with a regular expression given as literal,
+     * which is compiled only once.
+     * @since xxx
+     */
+    public static class RegexpFunction implements Expression {
+
+        private final Pattern pattern;
+        private final Expression target;
+        private final boolean match;
+
+        /**
+         * Constructs a new {@code RegexpFunction}.
+         * @param pattern the compiled regular expression
+         * @param target the character sequence to be matched
+         * @param match {@code true} to return the capture groups like {@link Functions#regexp_match(String, String)},
+         * {@code false} to return whether the sequence matches like {@link Functions#regexp_test(String, String)}
+         */
+        public RegexpFunction(Pattern pattern, Expression target, boolean match) {
+            this.pattern = pattern;
+            this.target = target;
+            this.match = match;
+        }
+
+        /**
+         * Parse flags for regex usage.
+         * @param flags a string that may contain "i" (case insensitive), "m" (multiline) and "s" ("dot all")
+         * @return An int that can be used by a {@link Pattern} object
+         */
+        static int parseFlags(String flags) {
+            int f = 0;
+            if (flags.contains("i")) {
+                f |= Pattern.CASE_INSENSITIVE;
+            }
+            if (flags.contains("s")) {
+                f |= Pattern.DOTALL;
+            }
+            if (flags.contains("m")) {
+                f |= Pattern.MULTILINE;
+            }
+            return f;
+        }
+
+        @Override
+        public Object evaluate(Environment env) {
+            String s = Cascade.convertTo(target.evaluate(env), String.class);
+            if (s == null) {
+                return null;
+            }
+            return match ? Utils.getMatches(pattern.matcher(s)) : pattern.matcher(s).matches();
+        }
+
+        @Override
+        public String toString() {
+            return (match ? "regexp_match(" : "regexp_test(") + pattern + ',' + target + ')';
+        }
+    }
 }
@@ -427,17 +427,7 @@ public final class Functions {
      * @see Pattern#MULTILINE
      */
     private static int parse_regex_flags(String flags) {
-        int f = 0;
-        if (flags.contains("i")) {
-            f |= Pattern.CASE_INSENSITIVE;
-        }
-        if (flags.contains("s")) {
-            f |= Pattern.DOTALL;
-        }
-        if (flags.contains("m")) {
-            f |= Pattern.MULTILINE;
-        }
-        return f;
+        return ExpressionFactory.RegexpFunction.parseFlags(flags);
     }
 
     /**
@@ -1,11 +1,29 @@
 // License: GPL. For details, see LICENSE file.
 package org.openstreetmap.josm.gui.mappaint.mapcss;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Predicate;
 
+import org.openstreetmap.josm.data.osm.INode;
+import org.openstreetmap.josm.data.osm.IPrimitive;
+import org.openstreetmap.josm.data.osm.IRelation;
 import org.openstreetmap.josm.gui.mappaint.Environment;
+import org.openstreetmap.josm.gui.mappaint.MultiCascade;
 import org.openstreetmap.josm.gui.mappaint.StyleSource;
+import org.openstreetmap.josm.gui.mappaint.mapcss.ConditionFactory.ClassCondition;
+import org.openstreetmap.josm.gui.mappaint.mapcss.ConditionFactory.ExpressionCondition;
+import org.openstreetmap.josm.gui.mappaint.mapcss.ConditionFactory.KeyCondition;
+import org.openstreetmap.josm.gui.mappaint.mapcss.ConditionFactory.KeyValueCondition;
+import org.openstreetmap.josm.gui.mappaint.mapcss.ConditionFactory.OpenEndPseudoClassCondition;
+import org.openstreetmap.josm.gui.mappaint.mapcss.ConditionFactory.PseudoClassCondition;
+import org.openstreetmap.josm.gui.mappaint.mapcss.ConditionFactory.SimpleKeyValueCondition;
+import org.openstreetmap.josm.gui.mappaint.mapcss.Selector.AbstractSelector;
+import org.openstreetmap.josm.gui.mappaint.mapcss.Selector.ChildOrParentSelector;
+import org.openstreetmap.josm.gui.mappaint.mapcss.Selector.ChildOrParentSelectorType;
+import org.openstreetmap.josm.gui.mappaint.mapcss.Selector.OptimizedGeneralSelector;
 import org.openstreetmap.josm.tools.Utils;
 
 /**
@@ -17,6 +35,9 @@ import org.openstreetmap.josm.tools.Utils;
  */
 public class MapCSSRule implements Comparable<MapCSSRule> {
 
+    /** Pseudo classes which only depend on the tags, the type, the closedness or the selection state */
+    private static final Collection<String> CONTEXT_FREE_PSEUDO_CLASSES = Arrays.asList("closed", "tagged", "selected");
+
     /**
      * The selector. If it matches, this rule should be applied
      */
@@ -26,6 +47,8 @@ public class MapCSSRule implements Comparable<MapCSSRule> {
      */
     public final Declaration declaration;
 
+    private final Predicate<IPrimitive> contextFree;
+
     /**
      * A declaration is a set of {@link Instruction}s
      */
@@ -90,6 +113,59 @@ public class MapCSSRule implements Comparable<MapCSSRule> {
     public MapCSSRule(Selector selector, Declaration declaration) {
         this.selector = selector;
         this.declaration = declaration;
+        this.contextFree = contextFree(selector);
+    }
+
+    /**
+     * Determines whether the selector of this rule matches the given primitive or not only depending on its tags,
+     * its type, whether it is closed, whether it is selected and whether it has referrers. If it does, the rule
+     * matches all primitives sharing these properties in the same way, and its declaration adds the same properties
+     * to their cascades, unless an expression sets {@link MultiCascade#contextDependent}.
+     * @param osm the primitive
+     * @return {@code true} if the selector does not depend on other properties of the primitive
+     * @since xxx
+     */
+    public boolean isContextFree(IPrimitive osm) {
+        return contextFree.test(osm);
+    }
+
+    private static Predicate<IPrimitive> contextFree(Selector selector) {
+        if (selector instanceof OptimizedGeneralSelector) {
+            Predicate<IPrimitive> result = p -> true;
+            for (Condition c : ((AbstractSelector) selector).getConditions()) {
+                result = result.and(contextFree(c));
+            }
+            return result;
+        } else if (selector instanceof ChildOrParentSelector) {
+            ChildOrParentSelector s = (ChildOrParentSelector) selector;
+            if (s.type == ChildOrParentSelectorType.CHILD || s.type == ChildOrParentSelectorType.SIBLING) {
+                // the parents of a primitive without referrers are not looked at
+                return contextFree(s.right).and(MapCSSRule::hasNoReferrers);
+            }
+        }
+        return p -> false;
+    }
+
+    private static Predicate<IPrimitive> contextFree(Condition c) {
+        if (c instanceof SimpleKeyValueCondition || c instanceof KeyValueCondition || c instanceof KeyCondition
+                || c instanceof ClassCondition || c instanceof ExpressionCondition || c instanceof OpenEndPseudoClassCondition) {
+            // the functions of expressions which need more than the tags set MultiCascade.contextDependent
+            return p -> true;
+        } else if (c instanceof PseudoClassCondition) {
+            String name = ((PseudoClassCondition) c).method.getName();
+            if (CONTEXT_FREE_PSEUDO_CLASSES.contains(name)) {
+                return p -> true;
+            } else if ("closed2".equals(name) || "completely_downloaded".equals(name)) {
+                return p -> !(p instanceof IRelation);
+            } else if ("connection".equals(name) || "unconnected".equals(name)) {
+                return p -> !(p instanceof INode) || hasNoReferrers(p);
+            }
+        }
+        return p -> false;
+    }
+
+    private static boolean hasNoReferrers(IPrimitive p) {
+        return p.getReferrers(true).isEmpty();
     }
 
     /**
@@ -700,6 +700,9 @@ public class MapCSSStyleSource extends StyleSource {
         Iterator<MapCSSRule> candidates = matchingRuleIndex.getRuleCandidates(osm);
         while (candidates.hasNext()) {
             MapCSSRule r = candidates.next();
+            if (!mc.contextDependent && !r.isContextFree(osm)) {
+                mc.contextDependent = true;
+            }
             env.clearSelectorMatchingInformation();
             env.layer = r.selector.getSubpart().getId(env);
             String sub = env.layer;
@@ -23,10 +23,13 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 
 import javax.swing.AbstractAction;
@@ -813,6 +816,9 @@ public class ToolbarPreferences implements PreferenceSettingFactory {
         @Override
         public void addGui(PreferenceTabbedPane gui) {
             actionsTree.setCellRenderer(new DefaultTreeCellRenderer() {
+                /** presets whose icon is being loaded, to repaint the tree only once per preset */
+                private final Set<TaggingPreset> pendingIcons = new HashSet<>();
+
                 @Override
                 public Component getTreeCellRendererComponent(JTree tree, Object value, boolean sel, boolean expanded,
                         boolean leaf, int row, boolean hasFocus) {
@@ -825,7 +831,19 @@ public class ToolbarPreferences implements PreferenceSettingFactory {
                     } else if (node.getUserObject() instanceof Action) {
                         Action action = (Action) node.getUserObject();
                         comp.setText((String) action.getValue(Action.NAME));
-                        comp.setIcon((Icon) action.getValue(Action.SMALL_ICON));
+                        if (action instanceof TaggingPreset) {
+                            TaggingPreset preset = (TaggingPreset) action;
+                            comp.setIcon(preset.getIcon());
+                            CompletableFuture<Void> iconLoading = preset.getIconLoadingTask();
+                            if (iconLoading != null && !iconLoading.isDone() && pendingIcons.add(preset)) {
+                                iconLoading.thenRun(() -> GuiHelper.runInEDT(() -> {
+                                    pendingIcons.remove(preset);
+                                    tree.repaint();
+                                }));
+                            }
+                        } else {
+                            comp.setIcon((Icon) action.getValue(Action.SMALL_ICON));
+                        }
                     }
                     return comp;
                 }
@@ -1163,6 +1181,10 @@ public class ToolbarPreferences implements PreferenceSettingFactory {
             if (action.isSeparator()) {
                 control.addSeparator();
             } else {
+                if (action.getAction() instanceof TaggingPreset) {
+                    // preset icons are only loaded when they are displayed
+                    ((TaggingPreset) action.getAction()).getIconLoadingTask();
+                }
                 final JButton b = addButtonAndShortcut(action);
                 buttonActions.put(b, action);
 
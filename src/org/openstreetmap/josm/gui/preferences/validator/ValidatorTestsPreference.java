@@ -49,6 +49,7 @@ public class ValidatorTestsPreference implements SubPreferenceSetting {
     private JCheckBox prefUseLayer;
     private JCheckBox prefOtherUpload;
     private JCheckBox prefOther;
+    private JCheckBox prefValidateOnEdit;
 
     /** The list of all tests */
     private Collection<Test> allTests;
@@ -75,6 +76,10 @@ public class ValidatorTestsPreference implements SubPreferenceSetting {
         prefOtherUpload.setToolTipText(tr("Show the informational tests in the upload check windows."));
         testPanel.add(prefOtherUpload, GBC.eol());
 
+        prefValidateOnEdit = new JCheckBox(tr("Validate after each edit."), ValidatorPrefHelper.PREF_VALIDATE_ON_EDIT.get());
+        prefValidateOnEdit.setToolTipText(tr("Validate again the objects affected by each edit, while the validation results are shown."));
+        testPanel.add(prefValidateOnEdit, GBC.eol());
+
         ActionListener otherUploadEnabled = e -> prefOtherUpload.setEnabled(prefOther.isSelected());
         prefOther.addActionListener(otherUploadEnabled);
         otherUploadEnabled.actionPerformed(null);
@@ -121,6 +126,7 @@ public class ValidatorTestsPreference implements SubPreferenceSetting {
         ValidatorPrefHelper.PREF_OTHER.put(prefOther.isSelected());
         ValidatorPrefHelper.PREF_OTHER_UPLOAD.put(prefOtherUpload.isSelected());
         ValidatorPrefHelper.PREF_LAYER.put(prefUseLayer.isSelected());
+        ValidatorPrefHelper.PREF_VALIDATE_ON_EDIT.put(prefValidateOnEdit.isSelected());
         return false;
     }
 
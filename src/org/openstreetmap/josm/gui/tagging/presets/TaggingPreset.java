@@ -21,6 +21,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -67,6 +68,8 @@ import org.openstreetmap.josm.gui.util.GuiHelper;
 import org.openstreetmap.josm.spi.preferences.Config;
 import org.openstreetmap.josm.tools.GBC;
 import org.openstreetmap.josm.tools.ImageProvider;
+import org.openstreetmap.josm.tools.ImageProvider.ImageSizes;
+import org.openstreetmap.josm.tools.ImageResource;
 import org.openstreetmap.josm.tools.Logging;
 import org.openstreetmap.josm.tools.Utils;
 import org.openstreetmap.josm.tools.template_engine.ParseError;
@@ -131,6 +134,12 @@ public class TaggingPreset extends AbstractAction implements ActiveLayerChangeLi
 
     /** The completable future task of asynchronous icon loading */
     private CompletableFuture<Void> iconFuture;
+    /** The archive containing the icon, if any */
+    private File iconArchive;
+    /** Determines if the icon must still be loaded */
+    private boolean iconPending;
+    /** The loaded icon, available before it is attached to this action in the EDT */
+    private volatile ImageResource iconResource;
 
     /**
      * Create an empty tagging preset. This will not have any items and
@@ -195,49 +204,99 @@ public class TaggingPreset extends AbstractAction implements ActiveLayerChangeLi
 
     /**
      * Returns the preset icon (16 or 24px).
+     * Starts the loading of the icon if it has been deferred, see {@link #getIconLoadingTask()}.
      * @param key Key determining icon size: {@code Action.SMALL_ICON} for 16x, {@code Action.LARGE_ICON_KEY} for 24px
-     * @return The preset icon, or {@code null} if none defined
+     * @return The preset icon, or {@code null} if none defined or not loaded yet
+     * @see #getIconAsync(String, Consumer)
      * @since 10849
      */
     public final ImageIcon getIcon(String key) {
+        loadIcon();
         Object icon = getValue(key);
         if (icon instanceof ImageIcon) {
             return (ImageIcon) icon;
         }
+        ImageResource resource = iconResource;
+        if (resource != null) {
+            return resource.getImageIconBounded((Action.LARGE_ICON_KEY.equals(key) ? ImageSizes.LARGEICON : ImageSizes.SMALLICON)
+                    .getImageDimension());
+        }
         return null;
     }
 
+    /**
+     * Passes the preset icon (16 or 24px) to the given action, at once if it is available, or in the EDT once it is loaded.
+     * Components which read the icon only once should use this method, so that they get it when its loading has been deferred.
+     * @param key Key determining icon size: {@code Action.SMALL_ICON} for 16x, {@code Action.LARGE_ICON_KEY} for 24px
+     * @param action the action consuming the icon, not called if there is no icon
+     * @since xxx
+     */
+    public final void getIconAsync(String key, Consumer<? super ImageIcon> action) {
+        ImageIcon icon = getIcon(key);
+        CompletableFuture<Void> task = getIconLoadingTask();
+        if (icon != null) {
+            action.accept(icon);
+        } else if (task != null && !task.isDone()) {
+            task.thenRun(() -> GuiHelper.runInEDT(() -> {
+                ImageIcon loaded = getIcon(key);
+                if (loaded != null) {
+                    action.accept(loaded);
+                }
+            }));
+        }
+    }
+
     /**
      * Called from the XML parser to set the icon.
-     * The loading task is performed in the background in order to speedup startup.
+     * The loading task is performed in the background in order to speedup startup. Unless preference
+     * {@code taggingpreset.lazy-icons} is disabled, it is only started when the icon is about to be displayed,
+     * see {@link #getIconLoadingTask()}. Components created from this action get the icon once it is loaded.
      * @param iconName icon name
      */
     public void setIcon(final String iconName) {
         this.iconName = iconName;
-        if (iconName == null || !TaggingPresetReader.isLoadIcons()) {
-            return;
+        synchronized (this) {
+            iconFuture = null;
+            iconResource = null;
+            iconPending = iconName != null && TaggingPresetReader.isLoadIcons();
+            iconArchive = iconPending ? TaggingPresetReader.getZipIcons() : null;
         }
-        File arch = TaggingPresetReader.getZipIcons();
-        final Collection<String> s = Config.getPref().getList("taggingpreset.icon.sources", null);
-        this.iconFuture = new ImageProvider(iconName)
-            .setDirs(s)
-            .setId("presets")
-            .setArchive(arch)
-            .setOptional(true)
-            .getResourceAsync(result -> {
-                if (result != null) {
-                    GuiHelper.runInEDT(() -> {
-                        try {
-                            result.attachImageIcon(this);
-                        } catch (IllegalArgumentException e) {
-                            Logging.warn(toString() + ": " + PRESET_ICON_ERROR_MSG_PREFIX + iconName);
-                            Logging.warn(e);
-                        }
-                    });
-                } else {
-                    Logging.warn(toString() + ": " + PRESET_ICON_ERROR_MSG_PREFIX + iconName);
-                }
-            });
+        if (!Config.getPref().getBoolean("taggingpreset.lazy-icons", true)) {
+            loadIcon();
+        }
+    }
+
+    /**
+     * Starts the loading of the icon, if it has been deferred.
+     * @return the completable future task of icon loading, or null
+     */
+    private synchronized CompletableFuture<Void> loadIcon() {
+        if (iconPending) {
+            iconPending = false;
+            final String name = iconName;
+            final Collection<String> s = Config.getPref().getList("taggingpreset.icon.sources", null);
+            iconFuture = new ImageProvider(name)
+                .setDirs(s)
+                .setId("presets")
+                .setArchive(iconArchive)
+                .setOptional(true)
+                .getResourceAsync(result -> {
+                    if (result != null) {
+                        iconResource = result;
+                        GuiHelper.runInEDT(() -> {
+                            try {
+                                result.attachImageIcon(this);
+                            } catch (IllegalArgumentException e) {
+                                Logging.warn(toString() + ": " + PRESET_ICON_ERROR_MSG_PREFIX + name);
+                                Logging.warn(e);
+                            }
+                        });
+                    } else {
+                        Logging.warn(toString() + ": " + PRESET_ICON_ERROR_MSG_PREFIX + name);
+                    }
+                });
+        }
+        return iconFuture;
     }
 
     /**
@@ -319,7 +378,9 @@ public class TaggingPreset extends AbstractAction implements ActiveLayerChangeLi
         }
         final int count = pp.getComponentCount();
         if (preset_name_label) {
-            p.add(new JLabel(getIcon(Action.LARGE_ICON_KEY)), GBC.std(0, 0).span(1, count > 0 ? 2 : 1).insets(0, 0, 5, 0));
+            JLabel iconLabel = new JLabel();
+            getIconAsync(Action.LARGE_ICON_KEY, iconLabel::setIcon);
+            p.add(iconLabel, GBC.std(0, 0).span(1, count > 0 ? 2 : 1).insets(0, 0, 5, 0));
         }
         if (count > 0) {
             p.add(pp, GBC.std(1, 0).span(GBC.REMAINDER));
@@ -437,18 +498,18 @@ public class TaggingPreset extends AbstractAction implements ActiveLayerChangeLi
          * Constructs a new {@code PresetDialog}.
          * @param content the content that will be displayed in this dialog
          * @param title the text that will be shown in the window titlebar
-         * @param icon the image to be displayed as the icon for this window
+         * @param iconPreset the preset whose icon is displayed as the icon for this window, or null
          * @param disableApply whether to disable "Apply" button
          * @param showNewRelation whether to display "New relation" button
          */
-        PresetDialog(Component content, String title, ImageIcon icon, boolean disableApply, boolean showNewRelation) {
+        PresetDialog(Component content, String title, TaggingPreset iconPreset, boolean disableApply, boolean showNewRelation) {
             super(MainApplication.getMainFrame(), title,
                     showNewRelation ?
                             (new String[] {tr("Apply Preset"), tr("New relation"), tr("Cancel")}) :
                             (new String[] {tr("Apply Preset"), tr("Cancel")}),
                     true);
-            if (icon != null)
-                setIconImage(icon.getImage());
+            if (iconPreset != null)
+                iconPreset.getIconAsync(Action.SMALL_ICON, icon -> setIconImage(icon.getImage()));
             contentInsets = new Insets(10, 5, 0, 5);
             if (showNewRelation) {
                 setButtonIcons("ok", "dialogs/addrelation", "cancel");
@@ -509,7 +570,7 @@ public class TaggingPreset extends AbstractAction implements ActiveLayerChangeLi
                 OsmData<?, ?, ?, ?> ds = sel.iterator().next().getDataSet();
                 disableApply = ds != null && ds.isLocked();
             }
-            answer = new PresetDialog(p, title, preset_name_label ? null : (ImageIcon) getValue(Action.SMALL_ICON),
+            answer = new PresetDialog(p, title, preset_name_label ? null : this,
                     disableApply, showNewRelation).getValue();
         }
         if (!showNewRelation && answer == 2)
@@ -664,10 +725,11 @@ public class TaggingPreset extends AbstractAction implements ActiveLayerChangeLi
 
     /**
      * Returns the completable future task that performs icon loading, if any.
+     * The loading is started if it has been deferred until the icon is about to be displayed.
      * @return the completable future task that performs icon loading, or null
      * @since 14449
      */
     public CompletableFuture<Void> getIconLoadingTask() {
-        return iconFuture;
+        return loadIcon();
     }
 }
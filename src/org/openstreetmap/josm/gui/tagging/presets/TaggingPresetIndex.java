@@ -0,0 +1,211 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.gui.tagging.presets;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.Predicate;
+
+import org.openstreetmap.josm.data.osm.IPrimitive;
+import org.openstreetmap.josm.gui.tagging.presets.items.CheckGroup;
+import org.openstreetmap.josm.gui.tagging.presets.items.ComboMultiSelect;
+import org.openstreetmap.josm.gui.tagging.presets.items.KeyedItem;
+import org.openstreetmap.josm.tools.Logging;
+
+/**
+ * An inverted index from tags to the tagging presets which can match them.
+ * <p>
+ * A preset only matches if at least one of its items matches positively (see
+ * {@link TaggingPresetItem#matches(Iterable, Map)}), and an item only matches positively if the tags contain its key
+ * (or one of its values for the {@code keyvalue} match types). The presets are thus indexed by the keys or tags of
+ * their items, and only the presets indexed by one of the tags of a primitive need to be tested, instead of all of
+ * them. Presets which cannot be indexed, e.g., presets or items of plugins overriding the matching methods,
+ * are always tested.
+ * @since xxx
+ */
+final class TaggingPresetIndex {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final TaggingPreset[] presets;
+    /** presets which match positively if a key is present */
+    private final Map<String, int[]> byKey;
+    /** presets which match positively if a key has one of the given values */
+    private final Map<String, Map<String, int[]>> byTag;
+    /** presets which must always be tested */
+    private final int[] unindexed;
+
+    private final Map<Class<?>, Boolean> knownItemClasses = new HashMap<>();
+
+    /**
+     * Constructs a new {@code TaggingPresetIndex}.
+     * @param presets the presets to index, in the order in which they are returned
+     */
+    TaggingPresetIndex(Collection<TaggingPreset> presets) {
+        this(new TaggingPreset[0], Collections.emptyMap(), Collections.emptyMap(), EMPTY, presets);
+    }
+
+    /**
+     * Constructs a new {@code TaggingPresetIndex} from an existing index and the presets added after its presets.
+     * Only the added presets are examined, the arrays of the existing index are shared when they do not change.
+     */
+    private TaggingPresetIndex(TaggingPreset[] basePresets, Map<String, int[]> baseByKey, Map<String, Map<String, int[]>> baseByTag,
+            int[] baseUnindexed, Collection<TaggingPreset> added) {
+        TaggingPreset[] addedPresets = added.toArray(new TaggingPreset[0]);
+        this.presets = Arrays.copyOf(basePresets, basePresets.length + addedPresets.length);
+        System.arraycopy(addedPresets, 0, this.presets, basePresets.length, addedPresets.length);
+        Map<String, List<Integer>> keys = new HashMap<>();
+        Map<String, Map<String, List<Integer>>> tags = new HashMap<>();
+        List<Integer> others = new ArrayList<>();
+        for (int i = basePresets.length; i < this.presets.length; i++) {
+            TaggingPreset p = this.presets[i];
+            if (!isKnownClass(p.getClass()) || !index(i, p.data, keys, tags)) {
+                others.add(i);
+            }
+        }
+        byKey = new HashMap<>(baseByKey);
+        keys.forEach((k, l) -> byKey.merge(k, toArray(l), TaggingPresetIndex::concat));
+        byTag = new HashMap<>(baseByTag);
+        tags.forEach((k, m) -> {
+            Map<String, int[]> values = new HashMap<>(baseByTag.getOrDefault(k, Collections.emptyMap()));
+            m.forEach((v, l) -> values.merge(v, toArray(l), TaggingPresetIndex::concat));
+            byTag.put(k, values);
+        });
+        unindexed = concat(baseUnindexed, toArray(others));
+        knownItemClasses.clear();
+    }
+
+    /**
+     * Returns an index of the presets of this index followed by the given presets.
+     * This index is not modified, so that it can still be used concurrently.
+     * @param added the presets added after the presets of this index
+     * @return the new index
+     */
+    TaggingPresetIndex withPresets(Collection<TaggingPreset> added) {
+        return new TaggingPresetIndex(presets, byKey, byTag, unindexed, added);
+    }
+
+    /**
+     * Adds the preset at the given position to the index.
+     * @return {@code false} if the items of the preset cannot be indexed
+     */
+    private boolean index(int i, Iterable<? extends TaggingPresetItem> items,
+            Map<String, List<Integer>> keys, Map<String, Map<String, List<Integer>>> tags) {
+        for (TaggingPresetItem item : items) {
+            if (!isKnownClass(item.getClass())) {
+                return false;
+            } else if (item instanceof CheckGroup) {
+                if (!index(i, ((CheckGroup) item).checks, keys, tags)) {
+                    return false;
+                }
+            } else if (item instanceof KeyedItem && ((KeyedItem) item).key != null) {
+                KeyedItem ki = (KeyedItem) item;
+                switch (KeyedItem.MatchType.ofString(ki.match)) {
+                case KEY:
+                case KEY_REQUIRED:
+                    add(keys.computeIfAbsent(ki.key, k -> new ArrayList<>()), i);
+                    break;
+                case KEY_VALUE:
+                case KEY_VALUE_REQUIRED:
+                    if (ki instanceof ComboMultiSelect) {
+                        // the values of combo boxes and multiselects are initialized on first use, which the index
+                        // does not trigger. The key must be present anyway
+                        add(keys.computeIfAbsent(ki.key, k -> new ArrayList<>()), i);
+                    } else {
+                        Map<String, List<Integer>> values = tags.computeIfAbsent(ki.key, k -> new HashMap<>());
+                        for (String v : ki.getValues()) {
+                            add(values.computeIfAbsent(v, k -> new ArrayList<>()), i);
+                        }
+                    }
+                    break;
+                default:
+                    break;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static void add(List<Integer> list, int i) {
+        if (list.isEmpty() || list.get(list.size() - 1) != i) {
+            list.add(i);
+        }
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        return list.isEmpty() ? EMPTY : list.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int[] concat(int[] a, int[] b) {
+        if (b.length == 0) {
+            return a;
+        }
+        int[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+    /**
+     * Determines whether the matching methods of a preset or item class are the ones known by the index.
+     */
+    private boolean isKnownClass(Class<?> klass) {
+        return knownItemClasses.computeIfAbsent(klass, c -> {
+            try {
+                if (TaggingPreset.class.isAssignableFrom(c)) {
+                    return c.getMethod("test", IPrimitive.class).getDeclaringClass() == TaggingPreset.class
+                        && c.getMethod("matches", Collection.class, Map.class, boolean.class).getDeclaringClass() == TaggingPreset.class;
+                }
+                Class<?> declaring = c.getMethod("matches", Map.class).getDeclaringClass();
+                return declaring == TaggingPresetItem.class || declaring == KeyedItem.class || declaring == CheckGroup.class;
+            } catch (NoSuchMethodException | SecurityException e) {
+                Logging.trace(e);
+                return false;
+            }
+        });
+    }
+
+    /**
+     * Returns the presets which can match the given tags and satisfy the given predicate, in the original order.
+     * @param tags the tags
+     * @param predicate the predicate which the presets must satisfy, typically the full matching test
+     * @return the presets
+     */
+    List<TaggingPreset> getMatchingPresets(Map<String, String> tags, Predicate<TaggingPreset> predicate) {
+        BitSet candidates = new BitSet(presets.length);
+        addAll(candidates, unindexed);
+        for (Entry<String, String> e : tags.entrySet()) {
+            addAll(candidates, byKey.get(e.getKey()));
+            Map<String, int[]> values = byTag.get(e.getKey());
+            if (values != null) {
+                addAll(candidates, values.get(e.getValue()));
+            }
+        }
+        List<TaggingPreset> result = new ArrayList<>();
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            if (predicate.test(presets[i])) {
+                result.add(presets[i]);
+            }
+        }
+        return result;
+    }
+
+    private static void addAll(BitSet set, int[] indices) {
+        if (indices != null) {
+            for (int i : indices) {
+                set.set(i);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "TaggingPresetIndex [presets=" + presets.length + ", keys=" + byKey.size() + ", tags=" + byTag.size()
+                + ", unindexed=" + unindexed.length + ']';
+    }
+}
@@ -8,6 +8,7 @@ import java.awt.event.MouseListener;
 import java.awt.font.TextAttribute;
 import java.util.Collections;
 
+import javax.swing.Action;
 import javax.swing.JLabel;
 
 /**
@@ -26,7 +27,7 @@ public class TaggingPresetLabel extends JLabel {
      */
     public TaggingPresetLabel(TaggingPreset t) {
         super(t.getName() + " …");
-        setIcon(t.getIcon());
+        t.getIconAsync(Action.SMALL_ICON, this::setIcon);
         addMouseListener(new PresetLabelMouseListener(this));
         this.t = t;
     }
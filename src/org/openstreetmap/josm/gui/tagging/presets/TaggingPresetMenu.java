@@ -19,6 +19,8 @@ import javax.swing.JMenu;
 import javax.swing.JMenuItem;
 import javax.swing.JPopupMenu;
 import javax.swing.JSeparator;
+import javax.swing.event.MenuEvent;
+import javax.swing.event.MenuListener;
 
 import org.openstreetmap.josm.gui.MainApplication;
 import org.openstreetmap.josm.gui.MainFrame;
@@ -33,6 +35,26 @@ import org.openstreetmap.josm.tools.Logging;
 public class TaggingPresetMenu extends TaggingPreset {
     public JMenu menu; // set by TaggingPresets
 
+    /**
+     * Starts the loading of the preset icons of a menu when it is shown, see {@link TaggingPreset#getIconLoadingTask()}.
+     */
+    static final MenuListener ICON_LOADER = new MenuListener() {
+        @Override
+        public void menuSelected(MenuEvent e) {
+            loadIcons(((JMenu) e.getSource()).getMenuComponents());
+        }
+
+        @Override
+        public void menuDeselected(MenuEvent e) {
+            // Do nothing
+        }
+
+        @Override
+        public void menuCanceled(MenuEvent e) {
+            // Do nothing
+        }
+    };
+
     private static class PresetTextComparator implements Comparator<JMenuItem>, Serializable {
         private static final long serialVersionUID = 1L;
         @Override
@@ -72,10 +94,19 @@ public class TaggingPresetMenu extends TaggingPreset {
         putValue("toolbar", "tagginggroup_" + getRawName());
     }
 
+    private static void loadIcons(Component... menuComponents) {
+        for (Component c : menuComponents) {
+            if (c instanceof JMenuItem && ((JMenuItem) c).getAction() instanceof TaggingPreset) {
+                ((TaggingPreset) ((JMenuItem) c).getAction()).getIconLoadingTask();
+            }
+        }
+    }
+
     private static Component copyMenuComponent(Component menuComponent) {
         if (menuComponent instanceof JMenu) {
             JMenu menu = (JMenu) menuComponent;
             JMenu result = new JMenu(menu.getAction());
+            result.addMenuListener(ICON_LOADER);
             for (Component item:menu.getMenuComponents()) {
                 result.add(copyMenuComponent(item));
             }
@@ -101,6 +132,7 @@ public class TaggingPresetMenu extends TaggingPreset {
             for (Component c : menu.getMenuComponents()) {
                 pm.add(copyMenuComponent(c));
             }
+            loadIcons(pm.getComponents());
             try {
                 PointerInfo pointerInfo = MouseInfo.getPointerInfo();
                 if (pointerInfo != null) {
@@ -165,7 +165,22 @@ public final class TaggingPresetReader {
      */
     static Collection<TaggingPreset> readAll(Reader in, boolean validate, HashSetWithLast<TaggingPreset> all) throws SAXException {
         XmlObjectParser parser = buildParser();
+        if (validate) {
+            parser.startWithValidation(in, Config.getUrls().getXMLBase()+"/tagging-preset-1.0", "resource://data/tagging-preset.xsd");
+        } else {
+            parser.start(in);
+        }
+        return readAll(parser, all);
+    }
 
+    /**
+     * Reads all tagging presets from a started parser.
+     * @param parser the parser
+     * @param all the accumulator for parsed tagging presets
+     * @return the accumulator
+     * @throws SAXException if any XML error occurs
+     */
+    private static Collection<TaggingPreset> readAll(XmlObjectParser parser, HashSetWithLast<TaggingPreset> all) throws SAXException {
         /** to detect end of {@code <checkgroup>} */
         CheckGroup lastcheckgroup = null;
         /** to detect end of {@code <group>} */
@@ -180,11 +195,6 @@ public final class TaggingPresetReader {
         /** lastIdIterators contains non empty iterators of items to be handled before obtaining the next item from the XML parser */
         final Deque<Iterator<Object>> lastIdIterators = new ArrayDeque<>();
 
-        if (validate) {
-            parser.startWithValidation(in, Config.getUrls().getXMLBase()+"/tagging-preset-1.0", "resource://data/tagging-preset.xsd");
-        } else {
-            parser.start(in);
-        }
         while (parser.hasNext() || !lastIdIterators.isEmpty()) {
             final Object o;
             if (!lastIdIterators.isEmpty()) {
@@ -362,8 +372,16 @@ public final class TaggingPresetReader {
                 zipIcons = cf.getFile();
                 I18n.addTexts(zipIcons);
             }
-            try (InputStreamReader r = UTFInputStreamReader.create(zip == null ? cf.getInputStream() : zip)) {
-                tp = readAll(new BufferedReader(r), validate, all);
+            if (validate) {
+                try (InputStreamReader r = UTFInputStreamReader.create(zip == null ? cf.getInputStream() : zip)) {
+                    tp = readAll(new BufferedReader(r), validate, all);
+                }
+            } else {
+                XmlObjectParser parser = buildParser();
+                try (InputStream in = zip == null ? cf.getInputStream() : zip) {
+                    parser.start(in, getSnapshotFile(source));
+                }
+                tp = readAll(parser, all);
             }
         }
         if (Logging.isDebugEnabled()) {
@@ -372,6 +390,18 @@ public final class TaggingPresetReader {
         return tp;
     }
 
+    /**
+     * Returns the snapshot file of the parsed elements of a preset source, see {@link XmlObjectParser#start(InputStream, File)}.
+     * @param source a given filename, URL or internal resource
+     * @return the snapshot file, or {@code null} if snapshots are disabled by preference {@code taggingpreset.snapshot}
+     */
+    private static File getSnapshotFile(String source) {
+        if (Config.getDirs() == null || !Config.getPref().getBoolean("taggingpreset.snapshot", true)) {
+            return null;
+        }
+        return new File(Config.getDirs().getCacheDirectory(true), "presets-" + Integer.toHexString(source.hashCode()) + ".bin");
+    }
+
     /**
      * Reads all tagging presets from the given sources.
      * @param sources Collection of tagging presets sources.
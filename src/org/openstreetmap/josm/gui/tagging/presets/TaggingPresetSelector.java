@@ -17,10 +17,10 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import javax.swing.AbstractAction;
-import javax.swing.Action;
 import javax.swing.BoxLayout;
 import javax.swing.DefaultListCellRenderer;
 import javax.swing.Icon;
@@ -44,6 +44,7 @@ import org.openstreetmap.josm.gui.tagging.presets.items.Key;
 import org.openstreetmap.josm.gui.tagging.presets.items.KeyedItem;
 import org.openstreetmap.josm.gui.tagging.presets.items.Roles;
 import org.openstreetmap.josm.gui.tagging.presets.items.Roles.Role;
+import org.openstreetmap.josm.gui.util.GuiHelper;
 import org.openstreetmap.josm.gui.widgets.PopupMenuLauncher;
 import org.openstreetmap.josm.gui.widgets.SearchTextResultListPanel;
 import org.openstreetmap.josm.tools.Utils;
@@ -71,12 +72,25 @@ public class TaggingPresetSelector extends SearchTextResultListPanel<TaggingPres
 
     private static class ResultListCellRenderer implements ListCellRenderer<TaggingPreset> {
         private final DefaultListCellRenderer def = new DefaultListCellRenderer();
+        /** presets whose icon is being loaded, to repaint the list only once per preset */
+        private final Set<TaggingPreset> pendingIcons = new HashSet<>();
         @Override
         public Component getListCellRendererComponent(JList<? extends TaggingPreset> list, TaggingPreset tp, int index,
                 boolean isSelected, boolean cellHasFocus) {
             JLabel result = (JLabel) def.getListCellRendererComponent(list, tp, index, isSelected, cellHasFocus);
             result.setText(tp.getName());
-            result.setIcon((Icon) tp.getValue(Action.SMALL_ICON));
+            Icon icon = tp.getIcon();
+            if (icon == null) {
+                // repaint the list once the icon, loaded on first display, is available
+                CompletableFuture<Void> iconLoading = tp.getIconLoadingTask();
+                if (iconLoading != null && !iconLoading.isDone() && pendingIcons.add(tp)) {
+                    iconLoading.thenRun(() -> GuiHelper.runInEDT(() -> {
+                        pendingIcons.remove(tp);
+                        list.repaint();
+                    }));
+                }
+            }
+            result.setIcon(icon);
             return result;
         }
     }
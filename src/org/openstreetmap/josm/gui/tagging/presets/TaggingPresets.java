@@ -6,6 +6,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -24,7 +25,6 @@ import org.openstreetmap.josm.gui.tagging.presets.items.Roles.Role;
 import org.openstreetmap.josm.spi.preferences.Config;
 import org.openstreetmap.josm.tools.Logging;
 import org.openstreetmap.josm.tools.MultiMap;
-import org.openstreetmap.josm.tools.SubclassFilteredCollection;
 
 /**
  * Class holding Tagging Presets and allowing to manage them.
@@ -32,8 +32,10 @@ import org.openstreetmap.josm.tools.SubclassFilteredCollection;
  */
 public final class TaggingPresets {
 
-    /** The collection of tagging presets */
+    /** The collection of tagging presets. Modifications and the building of the index synchronize on it */
     private static final Collection<TaggingPreset> taggingPresets = new ArrayList<>();
+    /** index of the tagging presets by the tags they can match, built on demand */
+    private static volatile TaggingPresetIndex index;
 
     /** cache for key/value pairs found in the preset */
     private static final MultiMap<String, String> PRESET_TAG_CACHE = new MultiMap<>();
@@ -51,9 +53,13 @@ public final class TaggingPresets {
      * Initializes tagging presets from preferences.
      */
     public static void readFromPreferences() {
-        taggingPresets.clear();
-        taggingPresets.addAll(TaggingPresetReader.readFromPreferences(false, false));
-        cachePresets(taggingPresets);
+        Collection<TaggingPreset> presets = TaggingPresetReader.readFromPreferences(false, false);
+        synchronized (taggingPresets) {
+            taggingPresets.clear();
+            taggingPresets.addAll(presets);
+            index = null;
+        }
+        cachePresets(presets);
     }
 
     /**
@@ -61,16 +67,22 @@ public final class TaggingPresets {
      */
     public static void initialize() {
         readFromPreferences();
-        for (TaggingPreset tp: taggingPresets) {
+        List<TaggingPreset> presets;
+        synchronized (taggingPresets) {
+            presets = new ArrayList<>(taggingPresets);
+        }
+        for (TaggingPreset tp: presets) {
             if (!(tp instanceof TaggingPresetSeparator)) {
                 MainApplication.getToolbar().register(tp);
             }
         }
-        if (taggingPresets.isEmpty()) {
+        if (presets.isEmpty()) {
             MainApplication.getMenu().presetsMenu.setVisible(false);
         } else {
+            // the icons are loaded when a menu is first shown
+            MainApplication.getMenu().presetsMenu.addMenuListener(TaggingPresetMenu.ICON_LOADER);
             Map<TaggingPresetMenu, JMenu> submenus = new HashMap<>();
-            for (final TaggingPreset p : taggingPresets) {
+            for (final TaggingPreset p : presets) {
                 JMenu m = p.group != null ? submenus.get(p.group) : MainApplication.getMenu().presetsMenu;
                 if (m == null && p.group != null) {
                     Logging.error("No tagging preset submenu for " + p.group);
@@ -81,6 +93,7 @@ public final class TaggingPresets {
                 } else if (p instanceof TaggingPresetMenu) {
                     JMenu submenu = new JMenu(p);
                     submenu.setText(p.getLocaleName());
+                    submenu.addMenuListener(TaggingPresetMenu.ICON_LOADER);
                     ((TaggingPresetMenu) p).menu = submenu;
                     submenus.put((TaggingPresetMenu) p, submenu);
                     m.add(submenu);
@@ -110,12 +123,18 @@ public final class TaggingPresets {
      * @since 15582
      */
     public static void destroy() {
+        List<TaggingPreset> presets;
+        synchronized (taggingPresets) {
+            presets = new ArrayList<>(taggingPresets);
+            taggingPresets.clear();
+            index = null;
+        }
         ToolbarPreferences toolBar = MainApplication.getToolbar();
-        taggingPresets.forEach(toolBar::unregister);
-        taggingPresets.clear();
+        presets.forEach(toolBar::unregister);
         PRESET_TAG_CACHE.clear();
         PRESET_ROLE_CACHE.clear();
         MainApplication.getMenu().presetsMenu.removeAll();
+        MainApplication.getMenu().presetsMenu.removeMenuListener(TaggingPresetMenu.ICON_LOADER);
         listeners.forEach(TaggingPresetListener::taggingPresetsModified);
     }
 
@@ -199,7 +218,7 @@ public final class TaggingPresets {
      */
     public static Collection<TaggingPreset> getMatchingPresets(final Collection<TaggingPresetType> t,
                                                                final Map<String, String> tags, final boolean onlyShowable) {
-        return SubclassFilteredCollection.filter(getTaggingPresets(), preset -> preset.matches(t, tags, onlyShowable));
+        return getIndex().getMatchingPresets(tags, preset -> preset.matches(t, tags, onlyShowable));
     }
 
     /**
@@ -211,7 +230,22 @@ public final class TaggingPresets {
      * @since 13623 (signature)
      */
     public static Collection<TaggingPreset> getMatchingPresets(final IPrimitive primitive) {
-        return SubclassFilteredCollection.filter(getTaggingPresets(), preset -> preset.test(primitive));
+        return getIndex().getMatchingPresets(primitive.getKeys(), preset -> preset.test(primitive));
+    }
+
+    private static TaggingPresetIndex getIndex() {
+        TaggingPresetIndex i = index;
+        if (i == null) {
+            // built under the lock of the modifications, so that an index of outdated presets is never published
+            synchronized (taggingPresets) {
+                i = index;
+                if (i == null) {
+                    i = new TaggingPresetIndex(taggingPresets);
+                    index = i;
+                }
+            }
+        }
+        return i;
     }
 
     /**
@@ -219,7 +253,15 @@ public final class TaggingPresets {
      * @param presets The tagging presets to add
      */
     public static void addTaggingPresets(Collection<TaggingPreset> presets) {
-        if (presets != null && taggingPresets.addAll(presets)) {
+        boolean added;
+        synchronized (taggingPresets) {
+            added = presets != null && taggingPresets.addAll(presets);
+            if (added && index != null) {
+                // only index the added presets
+                index = index.withPresets(presets);
+            }
+        }
+        if (added) {
             listeners.forEach(TaggingPresetListener::taggingPresetsModified);
         }
     }
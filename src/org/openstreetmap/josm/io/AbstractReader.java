@@ -7,14 +7,22 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.text.MessageFormat;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.OptionalLong;
+import java.util.Set;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import org.openstreetmap.josm.data.Bounds;
 import org.openstreetmap.josm.data.DataSource;
@@ -23,6 +31,7 @@ import org.openstreetmap.josm.data.osm.AbstractPrimitive;
 import org.openstreetmap.josm.data.osm.Changeset;
 import org.openstreetmap.josm.data.osm.DataSet;
 import org.openstreetmap.josm.data.osm.DownloadPolicy;
+import org.openstreetmap.josm.data.osm.LongPrimitiveMap;
 import org.openstreetmap.josm.data.osm.Node;
 import org.openstreetmap.josm.data.osm.NodeData;
 import org.openstreetmap.josm.data.osm.OsmPrimitive;
@@ -90,11 +99,28 @@ public abstract class AbstractReader {
 
     protected Changeset uploadChangeset;
 
-    /** the map from external ids to read OsmPrimitives. External ids are
+    /** the maps from external ids to read OsmPrimitives, one per primitive type. External ids are
      * longs too, but in contrast to internal ids negative values are used
      * to identify primitives unknown to the OSM server
+     * @since xxx
      */
-    protected final Map<PrimitiveId, OsmPrimitive> externalIdMap = new HashMap<>();
+    protected final LongPrimitiveMap<Node> externalNodes = new LongPrimitiveMap<>();
+    /** the map from external ids to read ways, see {@link #externalNodes} */
+    protected final LongPrimitiveMap<Way> externalWays = new LongPrimitiveMap<>();
+    /** the map from external ids to read relations, see {@link #externalNodes} */
+    protected final LongPrimitiveMap<Relation> externalRelations = new LongPrimitiveMap<>();
+
+    /**
+     * the map from external ids to read OsmPrimitives. External ids are
+     * longs too, but in contrast to internal ids negative values are used
+     * to identify primitives unknown to the OSM server.
+     * <p>
+     * This map is a view of {@link #externalNodes}, {@link #externalWays} and {@link #externalRelations}.
+     * Lookups and modifications write through; iterations see a snapshot of the entries.
+     * @deprecated use {@link #getExternalPrimitive(long, OsmPrimitiveType)} and {@link #putExternalPrimitive(long, OsmPrimitive)} instead
+     */
+    @Deprecated
+    protected final Map<PrimitiveId, OsmPrimitive> externalIdMap = new ExternalIdMap();
 
     /**
      * Data structure for the remaining way objects
@@ -106,6 +132,116 @@ public abstract class AbstractReader {
      */
     protected final Map<Long, Collection<RelationMemberData>> relations = new HashMap<>();
 
+    /**
+     * Returns the read primitive with the given external id.
+     * @param id the external id
+     * @param type the primitive type
+     * @return the read primitive, or {@code null}
+     * @since xxx
+     */
+    protected final OsmPrimitive getExternalPrimitive(long id, OsmPrimitiveType type) {
+        LongPrimitiveMap<? extends OsmPrimitive> map = getExternalMap(type);
+        return map != null ? map.get(id) : null;
+    }
+
+    /**
+     * Stores a read primitive under the given external id.
+     * @param id the external id
+     * @param primitive the read primitive
+     * @since xxx
+     */
+    protected final void putExternalPrimitive(long id, OsmPrimitive primitive) {
+        if (primitive instanceof Node) {
+            externalNodes.put(id, (Node) primitive);
+        } else if (primitive instanceof Way) {
+            externalWays.put(id, (Way) primitive);
+        } else if (primitive instanceof Relation) {
+            externalRelations.put(id, (Relation) primitive);
+        }
+    }
+
+    private LongPrimitiveMap<? extends OsmPrimitive> getExternalMap(OsmPrimitiveType type) {
+        switch (type) {
+        case NODE:
+            return externalNodes;
+        case WAY:
+            return externalWays;
+        case RELATION:
+            return externalRelations;
+        default:
+            return null;
+        }
+    }
+
+    /**
+     * Adapter of the external id maps to the former {@code Map<PrimitiveId, OsmPrimitive>} API.
+     */
+    private final class ExternalIdMap extends AbstractMap<PrimitiveId, OsmPrimitive> {
+
+        @Override
+        public OsmPrimitive get(Object key) {
+            if (!(key instanceof PrimitiveId))
+                return null;
+            PrimitiveId id = (PrimitiveId) key;
+            return getExternalPrimitive(id.getUniqueId(), id.getType());
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public OsmPrimitive put(PrimitiveId key, OsmPrimitive value) {
+            if (value.getType() != key.getType())
+                throw new IllegalArgumentException("Primitive " + value + " does not match the type of " + key);
+            OsmPrimitive old = get(key);
+            putExternalPrimitive(key.getUniqueId(), value);
+            return old;
+        }
+
+        @Override
+        public OsmPrimitive remove(Object key) {
+            if (!(key instanceof PrimitiveId))
+                return null;
+            PrimitiveId id = (PrimitiveId) key;
+            LongPrimitiveMap<? extends OsmPrimitive> map = getExternalMap(id.getType());
+            return map != null ? map.remove(id.getUniqueId()) : null;
+        }
+
+        @Override
+        public int size() {
+            return externalNodes.size() + externalWays.size() + externalRelations.size();
+        }
+
+        @Override
+        public void clear() {
+            externalNodes.clear();
+            externalWays.clear();
+            externalRelations.clear();
+        }
+
+        @Override
+        public Set<Entry<PrimitiveId, OsmPrimitive>> entrySet() {
+            List<Entry<PrimitiveId, OsmPrimitive>> entries = new ArrayList<>(size());
+            for (OsmPrimitiveType type : new OsmPrimitiveType[] {OsmPrimitiveType.NODE, OsmPrimitiveType.WAY, OsmPrimitiveType.RELATION}) {
+                getExternalMap(type).forEach((primitive, id) ->
+                        entries.add(new SimpleImmutableEntry<>(new SimplePrimitiveId(id, type), primitive)));
+            }
+            return new AbstractSet<Entry<PrimitiveId, OsmPrimitive>>() {
+                @Override
+                public Iterator<Entry<PrimitiveId, OsmPrimitive>> iterator() {
+                    return Collections.unmodifiableList(entries).iterator();
+                }
+
+                @Override
+                public int size() {
+                    return entries.size();
+                }
+            };
+        }
+    }
+
     /**
      * Replies the parsed data set
      *
@@ -133,10 +269,11 @@ public abstract class AbstractReader {
      *
      */
     protected void processNodesAfterParsing() {
-        for (OsmPrimitive primitive: externalIdMap.values()) {
-            if (primitive instanceof Node) {
-                this.ds.addPrimitive(primitive);
-            }
+        // add nodes by id, which keeps nodes close to each other together and makes building the spatial index faster
+        Node[] nodes = externalNodes.values().toArray(new Node[0]);
+        Arrays.sort(nodes, Comparator.comparingLong(Node::getUniqueId));
+        for (Node node : nodes) {
+            this.ds.addPrimitive(node);
         }
     }
 
@@ -149,10 +286,10 @@ public abstract class AbstractReader {
     protected void processWaysAfterParsing() throws IllegalDataException {
         for (Entry<Long, Collection<Long>> entry : ways.entrySet()) {
             Long externalWayId = entry.getKey();
-            Way w = (Way) externalIdMap.get(new SimplePrimitiveId(externalWayId, OsmPrimitiveType.WAY));
+            Way w = externalWays.get(externalWayId);
             List<Node> wayNodes = new ArrayList<>();
             for (long id : entry.getValue()) {
-                Node n = (Node) externalIdMap.get(new SimplePrimitiveId(id, OsmPrimitiveType.NODE));
+                Node n = externalNodes.get(id);
                 if (n == null) {
                     if (id <= 0)
                         throw new IllegalDataException(
@@ -191,21 +328,17 @@ public abstract class AbstractReader {
 
         // First add all relations to make sure that when relation reference other relation, the referenced will be already in dataset
         for (Long externalRelationId : relations.keySet()) {
-            Relation relation = (Relation) externalIdMap.get(
-                    new SimplePrimitiveId(externalRelationId, OsmPrimitiveType.RELATION)
-            );
+            Relation relation = externalRelations.get(externalRelationId);
             ds.addPrimitive(relation);
         }
 
         for (Entry<Long, Collection<RelationMemberData>> entry : relations.entrySet()) {
             Long externalRelationId = entry.getKey();
-            Relation relation = (Relation) externalIdMap.get(
-                    new SimplePrimitiveId(externalRelationId, OsmPrimitiveType.RELATION)
-            );
+            Relation relation = externalRelations.get(externalRelationId);
             List<RelationMember> relationMembers = new ArrayList<>();
             for (RelationMemberData rm : entry.getValue()) {
                 // lookup the member from the map of already created primitives
-                OsmPrimitive primitive = externalIdMap.get(new SimplePrimitiveId(rm.getMemberId(), rm.getMemberType()));
+                OsmPrimitive primitive = getExternalPrimitive(rm.getMemberId(), rm.getMemberType());
 
                 if (primitive == null) {
                     if (rm.getMemberId() <= 0)
@@ -234,7 +367,7 @@ public abstract class AbstractReader {
                         }
 
                         ds.addPrimitive(primitive);
-                        externalIdMap.put(new SimplePrimitiveId(rm.getMemberId(), rm.getMemberType()), primitive);
+                        putExternalPrimitive(rm.getMemberId(), primitive);
                     }
                 }
                 if (primitive.isDeleted()) {
@@ -281,8 +414,42 @@ public abstract class AbstractReader {
         void accept(InputStreamReader ir) throws IllegalDataException, IOException;
     }
 
+    /**
+     * Parser of binary formats, which read the input stream directly.
+     * @since xxx
+     */
+    @FunctionalInterface
+    protected interface BinaryParserWorker {
+        /**
+         * Effectively parses the file, depending on the format (PBF, etc.)
+         * @param in input stream
+         * @throws IllegalDataException in case of invalid data
+         * @throws IOException in case of I/O error
+         */
+        void accept(InputStream in) throws IllegalDataException, IOException;
+    }
+
     protected final DataSet doParseDataSet(InputStream source, ProgressMonitor progressMonitor, ParserWorker parserWorker)
             throws IllegalDataException {
+        return doParseBinaryDataSet(source, progressMonitor, in -> {
+            try (InputStreamReader ir = UTFInputStreamReader.create(in)) {
+                parserWorker.accept(ir);
+            }
+        });
+    }
+
+    /**
+     * Parses the given input stream with a parser of a binary format, and prepares the data set.
+     * @param source the source input stream. Must not be null.
+     * @param progressMonitor the progress monitor. If null, {@link NullProgressMonitor#INSTANCE} is assumed
+     * @param parserWorker the parser, reading the input stream directly
+     * @return the data set with the parsed data
+     * @throws IllegalDataException if an error was found while parsing the data from the source
+     * @throws IllegalArgumentException if source is null
+     * @since xxx
+     */
+    protected final DataSet doParseBinaryDataSet(InputStream source, ProgressMonitor progressMonitor, BinaryParserWorker parserWorker)
+            throws IllegalDataException {
         if (progressMonitor == null) {
             progressMonitor = NullProgressMonitor.INSTANCE;
         }
@@ -293,8 +460,8 @@ public abstract class AbstractReader {
             progressMonitor.beginTask(tr("Prepare OSM data..."), 4); // read, prepare, post-process, render
             progressMonitor.indeterminateSubTask(tr("Parsing OSM data..."));
 
-            try (InputStreamReader ir = UTFInputStreamReader.create(source)) {
-                parserWorker.accept(ir);
+            try (InputStream in = source) {
+                parserWorker.accept(in);
             }
             progressMonitor.worked(1);
 
@@ -325,7 +492,8 @@ public abstract class AbstractReader {
         } catch (IOException e) {
             throw new IllegalDataException(e);
         } finally {
-            OptionalLong minId = externalIdMap.values().stream().mapToLong(AbstractPrimitive::getUniqueId).min();
+            OptionalLong minId = Stream.of(externalNodes, externalWays, externalRelations)
+                    .flatMap(m -> m.values().stream()).mapToLong(AbstractPrimitive::getUniqueId).min();
             if (minId.isPresent() && minId.getAsLong() < AbstractPrimitive.currentUniqueId()) {
                 AbstractPrimitive.advanceUniqueId(minId.getAsLong());
             }
@@ -420,14 +588,33 @@ public abstract class AbstractReader {
         }
     }
 
-    private static User createUser(String uid, String name) throws IllegalDataException {
+    /**
+     * Creates the user of a parsed primitive.
+     * @param uid the user id, can be null
+     * @param name the user name, can be null
+     * @return the user, or {@code null} if neither id nor name are given
+     * @throws IllegalDataException if the user id is invalid
+     * @since xxx
+     */
+    protected User createUser(String uid, String name) throws IllegalDataException {
         if (uid == null) {
             if (name == null)
                 return null;
             return User.createLocalUser(name);
         }
+        return User.createOsmUser(parseUid(uid), name);
+    }
+
+    /**
+     * Parses a user id.
+     * @param uid the user id
+     * @return the parsed user id
+     * @throws IllegalDataException if the user id is not a number
+     * @since xxx
+     */
+    protected static long parseUid(String uid) throws IllegalDataException {
         try {
-            return User.createOsmUser(Long.parseLong(uid), name);
+            return Long.parseLong(uid);
         } catch (NumberFormatException e) {
             throw new IllegalDataException(MessageFormat.format("Illegal value for attribute ''uid''. Got ''{0}''.", uid), e);
         }
@@ -620,7 +807,7 @@ public abstract class AbstractReader {
         }
         p.setVisible(pd.isVisible());
         p.load(pd);
-        externalIdMap.put(pd.getPrimitiveId(), p);
+        putExternalPrimitive(pd.getUniqueId(), p);
         return p;
     }
 
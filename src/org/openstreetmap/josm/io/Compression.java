@@ -196,11 +196,30 @@ public enum Compression {
      * @throws IOException if any I/O error occurs
      */
     public OutputStream getCompressedOutputStream(OutputStream out) throws IOException {
+        return getCompressedOutputStream(out, 1);
+    }
+
+    /**
+     * Returns a compressing {@link OutputStream} for {@code out}, using several threads if supported.
+     * Gzip and bzip2 data is compressed in parallel blocks with at least 2 threads, the other formats are always compressed
+     * sequentially.
+     * @param out raw output stream
+     * @param threads number of threads compressing the data
+     * @return compressing output stream
+     *
+     * @throws IOException if any I/O error occurs
+     * @since xxx
+     */
+    public OutputStream getCompressedOutputStream(OutputStream out, int threads) throws IOException {
         switch (this) {
             case BZIP2:
-                return new BZip2CompressorOutputStream(out);
+                return threads > 1
+                        ? new ParallelCompressorOutputStream(out, threads, BZip2CompressorOutputStream::new)
+                        : new BZip2CompressorOutputStream(out);
             case GZIP:
-                return new GZIPOutputStream(out);
+                return threads > 1
+                        ? new ParallelCompressorOutputStream(out, threads, GZIPOutputStream::new)
+                        : new GZIPOutputStream(out);
             case ZIP:
                 return new ZipOutputStream(out, StandardCharsets.UTF_8);
             case XZ:
@@ -220,9 +239,23 @@ public enum Compression {
      * @throws InvalidPathException if a Path object cannot be constructed from the abstract path
      */
     public static OutputStream getCompressedFileOutputStream(File file) throws IOException {
+        return getCompressedFileOutputStream(file, 1);
+    }
+
+    /**
+     * Returns a compressing {@link OutputStream} for the {@link File} {@code file}, using several threads if supported.
+     * @param file file
+     * @param threads number of threads compressing the data, see {@link #getCompressedOutputStream(OutputStream, int)}
+     * @return compressing output stream
+     *
+     * @throws IOException if any I/O error occurs
+     * @throws InvalidPathException if a Path object cannot be constructed from the abstract path
+     * @since xxx
+     */
+    public static OutputStream getCompressedFileOutputStream(File file, int threads) throws IOException {
         OutputStream out = Files.newOutputStream(file.toPath()); // NOPMD
         try {
-            return byExtension(file.getName()).getCompressedOutputStream(out);
+            return byExtension(file.getName()).getCompressedOutputStream(out, threads);
         } catch (IOException e) {
             Utils.close(out);
             throw e;
@@ -0,0 +1,774 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import static org.openstreetmap.josm.tools.I18n.tr;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.openstreetmap.josm.data.Bounds;
+import org.openstreetmap.josm.data.DataSource;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.OsmPrimitiveType;
+import org.openstreetmap.josm.data.osm.PrimitiveData;
+import org.openstreetmap.josm.data.osm.Relation;
+import org.openstreetmap.josm.data.osm.RelationMemberData;
+import org.openstreetmap.josm.data.osm.Tagged;
+import org.openstreetmap.josm.data.osm.User;
+import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
+import org.openstreetmap.josm.gui.progress.ProgressMonitor;
+import org.openstreetmap.josm.tools.Logging;
+import org.openstreetmap.josm.tools.Utils;
+
+/**
+ * Parser for the <a href="https://wiki.openstreetmap.org/wiki/PBF_Format">OSM PBF format</a>.
+ * Read from an input stream and construct a dataset out of it.
+ * <p>
+ * A PBF file is a sequence of blobs, each compressed on its own. The blobs are read sequentially, but decompressed and
+ * decoded by a pool of threads. The decoded blocks are added to the data set in file order, like {@link OsmReader}
+ * adds the elements of an XML file, so the result does not depend on the number of threads.
+ * @see OsmPbfWriter
+ * @since xxx
+ */
+public class OsmPbfReader extends AbstractReader {
+
+    /** Maximum size of a blob header, as defined by the format */
+    private static final int MAX_BLOB_HEADER_SIZE = 64 * 1024;
+    /** Maximum size of a blob, compressed or not, as defined by the format */
+    private static final int MAX_BLOB_SIZE = 32 * 1024 * 1024;
+
+    private static final Collection<String> SUPPORTED_FEATURES = Arrays.asList("OsmSchema-V0.6", "DenseNodes");
+    private static final String[] MEMBER_TYPES = {
+            OsmPrimitiveType.NODE.getAPIName(), OsmPrimitiveType.WAY.getAPIName(), OsmPrimitiveType.RELATION.getAPIName()};
+
+    private final int threads;
+    private boolean headerAdded;
+
+    /**
+     * constructor (for private and subclasses use only)
+     * @param threads number of threads decoding blobs. With less than 2 threads, blobs are decoded by the calling thread.
+     *
+     * @see #parseDataSet(InputStream, ProgressMonitor, int)
+     */
+    protected OsmPbfReader(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * A decoded block, added to the data set by the parsing thread.
+     */
+    @FunctionalInterface
+    private interface Block {
+        void addTo(OsmPbfReader reader) throws IllegalDataException;
+    }
+
+    /**
+     * Exception thrown after user cancelation.
+     */
+    static final class PbfParsingCanceledException extends IOException implements ImportCancelException {
+        /**
+         * Constructs a new {@code PbfParsingCanceledException}.
+         * @param msg The error message
+         */
+        PbfParsingCanceledException(String msg) {
+            super(msg);
+        }
+    }
+
+    /**
+     * A blob as read from the file, decoded by any thread.
+     */
+    private static final class Blob {
+        private final String type;
+        private final byte[] data;
+
+        Blob(String type, byte[] data) {
+            this.type = type;
+            this.data = data;
+        }
+
+        Block decode() throws IllegalDataException {
+            if (!"OSMHeader".equals(type) && !"OSMData".equals(type)) {
+                // unknown blob types are to be skipped
+                Logging.info(tr("Undefined blob type ''{0}'' found in PBF file. Skipping.", type));
+                return reader -> { };
+            }
+            byte[] raw = null;
+            byte[] zlib = null;
+            int rawSize = -1;
+            ProtobufInput in = new ProtobufInput(data);
+            while (in.hasRemaining()) {
+                switch (in.readField()) {
+                case 1:
+                    raw = in.readBytes();
+                    break;
+                case 2:
+                    rawSize = in.readInt32();
+                    break;
+                case 3:
+                    zlib = in.readBytes();
+                    break;
+                case 4:
+                case 5:
+                case 6:
+                case 7:
+                    throw new IllegalDataException(tr("Unsupported compression in PBF file."));
+                default:
+                    in.skipField();
+                }
+            }
+            if (zlib != null) {
+                raw = inflate(zlib, rawSize);
+            } else if (raw == null) {
+                throw new IllegalDataException(tr("Missing data in blob of PBF file."));
+            }
+            return "OSMHeader".equals(type) ? decodeHeaderBlock(new ProtobufInput(raw)) : new PrimitiveBlock(new ProtobufInput(raw));
+        }
+    }
+
+    private static byte[] inflate(byte[] zlib, int rawSize) throws IllegalDataException {
+        if (rawSize < 0 || rawSize > MAX_BLOB_SIZE) {
+            throw new IllegalDataException(tr("Illegal blob size {0} in PBF file.", rawSize));
+        }
+        byte[] raw = new byte[rawSize];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(zlib);
+            int length = 0;
+            while (length < rawSize) {
+                int n = inflater.inflate(raw, length, rawSize - length);
+                if (n == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += n;
+            }
+            if (length != rawSize) {
+                throw new IllegalDataException(tr("Illegal blob size {0} in PBF file.", rawSize));
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IllegalDataException(e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static Block decodeHeaderBlock(ProtobufInput in) throws IllegalDataException {
+        Collection<String> requiredFeatures = new ArrayList<>();
+        Bounds bounds = null;
+        String writingProgram = null;
+        String source = null;
+        while (in.hasRemaining()) {
+            switch (in.readField()) {
+            case 1:
+                bounds = decodeBBox(in.readMessage());
+                break;
+            case 4:
+                requiredFeatures.add(in.readString());
+                break;
+            case 16:
+                writingProgram = in.readString();
+                break;
+            case 17:
+                source = in.readString();
+                break;
+            default:
+                in.skipField();
+            }
+        }
+        Bounds b = bounds;
+        String origin = source != null ? source : writingProgram;
+        return reader -> reader.addHeader(requiredFeatures, b, origin);
+    }
+
+    private static Bounds decodeBBox(ProtobufInput in) throws IllegalDataException {
+        double left = 0;
+        double right = 0;
+        double top = 0;
+        double bottom = 0;
+        while (in.hasRemaining()) {
+            switch (in.readField()) {
+            case 1:
+                left = in.readSInt64() * 1e-9;
+                break;
+            case 2:
+                right = in.readSInt64() * 1e-9;
+                break;
+            case 3:
+                top = in.readSInt64() * 1e-9;
+                break;
+            case 4:
+                bottom = in.readSInt64() * 1e-9;
+                break;
+            default:
+                in.skipField();
+            }
+        }
+        Bounds bounds = new Bounds(bottom, left, top, right);
+        if (bounds.isOutOfTheWorld()) {
+            Bounds copy = new Bounds(bounds);
+            bounds.normalize();
+            Logging.info("Bbox " + copy + " is out of the world, normalized to " + bounds);
+        }
+        return bounds;
+    }
+
+    private void addHeader(Collection<String> requiredFeatures, Bounds bounds, String origin) throws IllegalDataException {
+        for (String feature : requiredFeatures) {
+            if (!SUPPORTED_FEATURES.contains(feature)) {
+                throw new IllegalDataException(tr("Unsupported required feature ''{0}'' in PBF file.", feature));
+            }
+        }
+        if (bounds != null) {
+            ds.addDataSource(new DataSource(bounds, origin));
+        }
+        headerAdded = true;
+    }
+
+    /**
+     * A group of primitives within a {@link PrimitiveBlock}.
+     */
+    @FunctionalInterface
+    private interface Group {
+        void addTo(OsmPbfReader reader, PrimitiveBlock block) throws IllegalDataException;
+    }
+
+    /**
+     * A decoded {@code PrimitiveBlock} message: the string table and the primitives referring to it by index.
+     */
+    private static final class PrimitiveBlock implements Block {
+        private String[] strings = new String[0];
+        private long granularity = 100;
+        private long latOffset;
+        private long lonOffset;
+        private long dateGranularity = 1000;
+        private final List<Group> groups = new ArrayList<>();
+
+        PrimitiveBlock(ProtobufInput in) throws IllegalDataException {
+            // the coordinate offsets may follow the primitive groups, so these are decoded at the end
+            List<ProtobufInput> encodedGroups = new ArrayList<>();
+            while (in.hasRemaining()) {
+                switch (in.readField()) {
+                case 1:
+                    strings = decodeStringTable(in.readMessage());
+                    break;
+                case 2:
+                    encodedGroups.add(in.readMessage());
+                    break;
+                case 17:
+                    granularity = in.readInt32();
+                    break;
+                case 18:
+                    dateGranularity = in.readInt32();
+                    break;
+                case 19:
+                    latOffset = in.readInt64();
+                    break;
+                case 20:
+                    lonOffset = in.readInt64();
+                    break;
+                default:
+                    in.skipField();
+                }
+            }
+            for (ProtobufInput group : encodedGroups) {
+                decodeGroup(group);
+            }
+        }
+
+        private static String[] decodeStringTable(ProtobufInput in) throws IllegalDataException {
+            List<String> strings = new ArrayList<>();
+            while (in.hasRemaining()) {
+                if (in.readField() == 1) {
+                    // the same strings are used by many primitives of the block, so they are interned once
+                    strings.add(in.readString().intern());
+                } else {
+                    in.skipField();
+                }
+            }
+            return strings.toArray(new String[0]);
+        }
+
+        private void decodeGroup(ProtobufInput in) throws IllegalDataException {
+            while (in.hasRemaining()) {
+                switch (in.readField()) {
+                case 1:
+                    groups.add(new Element(OsmPrimitiveType.NODE, in.readMessage(), this));
+                    break;
+                case 2:
+                    groups.add(new DenseNodes(in.readMessage(), this));
+                    break;
+                case 3:
+                    groups.add(new Element(OsmPrimitiveType.WAY, in.readMessage(), this));
+                    break;
+                case 4:
+                    groups.add(new Element(OsmPrimitiveType.RELATION, in.readMessage(), this));
+                    break;
+                default:
+                    // changesets are not supported by the OSM format either
+                    in.skipField();
+                }
+            }
+        }
+
+        double lat(long lat) {
+            return 1e-9 * (latOffset + granularity * lat);
+        }
+
+        double lon(long lon) {
+            return 1e-9 * (lonOffset + granularity * lon);
+        }
+
+        long timestamp(long timestamp) {
+            return timestamp * dateGranularity / 1000;
+        }
+
+        String string(long index) throws IllegalDataException {
+            if (index == 0 && strings.length == 0) {
+                // the empty string at index 0 may be omitted if the block does not use other strings
+                return "";
+            } else if (index < 0 || index >= strings.length) {
+                throw new IllegalDataException(tr("Illegal string table index {0} in PBF file.", index));
+            }
+            return strings[(int) index];
+        }
+
+        @Override
+        public void addTo(OsmPbfReader reader) throws IllegalDataException {
+            if (!reader.headerAdded) {
+                throw new IllegalDataException(tr("Missing header block in PBF file."));
+            }
+            for (Group group : groups) {
+                group.addTo(reader, this);
+            }
+        }
+    }
+
+    /**
+     * A decoded {@code Node}, {@code Way} or {@code Relation} message.
+     */
+    private static final class Element implements Group {
+        private final OsmPrimitiveType type;
+        private long id;
+        private long[] keys = ProtobufInput.noValues();
+        private long[] vals = ProtobufInput.noValues();
+        private int version = -1;
+        private long timestamp;
+        private long changeset;
+        private long uid;
+        private long userSid;
+        private double lat = Double.NaN;
+        private double lon = Double.NaN;
+        private long[] refs = ProtobufInput.noValues();
+        private long[] roles = ProtobufInput.noValues();
+        private long[] memberTypes = ProtobufInput.noValues();
+
+        Element(OsmPrimitiveType type, ProtobufInput in, PrimitiveBlock block) throws IllegalDataException {
+            this.type = type;
+            while (in.hasRemaining()) {
+                int field = in.readField();
+                if (field == 1) {
+                    // only node ids are zigzag encoded
+                    id = type == OsmPrimitiveType.NODE ? in.readSInt64() : in.readInt64();
+                } else if (field == 2) {
+                    keys = in.readRepeatedVarints(keys);
+                } else if (field == 3) {
+                    vals = in.readRepeatedVarints(vals);
+                } else if (field == 4) {
+                    decodeInfo(in.readMessage(), block);
+                } else if (type == OsmPrimitiveType.NODE && field == 8) {
+                    lat = block.lat(in.readSInt64());
+                } else if (type == OsmPrimitiveType.NODE && field == 9) {
+                    lon = block.lon(in.readSInt64());
+                } else if (type == OsmPrimitiveType.WAY && field == 8
+                        || type == OsmPrimitiveType.RELATION && field == 9) {
+                    refs = in.readRepeatedVarints(refs);
+                } else if (type == OsmPrimitiveType.RELATION && field == 8) {
+                    roles = in.readRepeatedVarints(roles);
+                } else if (type == OsmPrimitiveType.RELATION && field == 10) {
+                    memberTypes = in.readRepeatedVarints(memberTypes);
+                } else {
+                    in.skipField();
+                }
+            }
+            if (keys.length != vals.length
+                    || type == OsmPrimitiveType.RELATION && (roles.length != refs.length || memberTypes.length != refs.length)) {
+                throw new IllegalDataException(tr("Inconsistent {0} with ID {1} in PBF file.", type.getAPIName(), Long.toString(id)));
+            }
+            // node refs and member ids are delta encoded
+            long ref = 0;
+            for (int i = 0; i < refs.length; i++) {
+                ref += ProtobufInput.decodeZigZag(refs[i]);
+                refs[i] = ref;
+            }
+        }
+
+        private void decodeInfo(ProtobufInput in, PrimitiveBlock block) throws IllegalDataException {
+            while (in.hasRemaining()) {
+                switch (in.readField()) {
+                case 1:
+                    version = in.readInt32();
+                    break;
+                case 2:
+                    timestamp = block.timestamp(in.readInt64());
+                    break;
+                case 3:
+                    changeset = in.readInt64();
+                    break;
+                case 4:
+                    uid = in.readInt32();
+                    break;
+                case 5:
+                    userSid = in.readInt64();
+                    break;
+                default:
+                    in.skipField();
+                }
+            }
+        }
+
+        @Override
+        public void addTo(OsmPbfReader reader, PrimitiveBlock block) throws IllegalDataException {
+            String user = block.string(userSid);
+            switch (type) {
+            case NODE:
+                reader.parseNode(lat, lon, nd -> reader.readCommon(nd, id, version, timestamp, changeset, uid, user),
+                        n -> reader.readTags(n, block, keys, vals));
+                break;
+            case WAY:
+                reader.parseWay(wd -> reader.readCommon(wd, id, version, timestamp, changeset, uid, user), (w, nodeIds) -> {
+                    for (long ref : refs) {
+                        nodeIds.add(ref);
+                    }
+                    reader.readTags(w, block, keys, vals);
+                });
+                break;
+            default:
+                reader.parseRelation(rd -> reader.readCommon(rd, id, version, timestamp, changeset, uid, user), (r, members) -> {
+                    reader.readMembers(r, members, block, this);
+                    reader.readTags(r, block, keys, vals);
+                });
+            }
+        }
+    }
+
+    /**
+     * A decoded {@code DenseNodes} message. Each field is decoded into an array of the exact size at once.
+     */
+    private static final class DenseNodes implements Group {
+        private long[] ids = ProtobufInput.noValues();
+        private long[] lats = ProtobufInput.noValues();
+        private long[] lons = ProtobufInput.noValues();
+        /** key and value indexes of all nodes, the tags of each node are terminated by 0 */
+        private long[] keysVals = ProtobufInput.noValues();
+        /** start of the tags of each node in {@link #keysVals} */
+        private int[] tagStart;
+        private long[] versions = ProtobufInput.noValues();
+        private long[] timestamps = ProtobufInput.noValues();
+        private long[] changesets = ProtobufInput.noValues();
+        private long[] uids = ProtobufInput.noValues();
+        private long[] userSids = ProtobufInput.noValues();
+
+        DenseNodes(ProtobufInput in, PrimitiveBlock block) throws IllegalDataException {
+            while (in.hasRemaining()) {
+                switch (in.readField()) {
+                case 1:
+                    ids = in.readRepeatedVarints(ids);
+                    break;
+                case 5:
+                    decodeDenseInfo(in.readMessage());
+                    break;
+                case 8:
+                    lats = in.readRepeatedVarints(lats);
+                    break;
+                case 9:
+                    lons = in.readRepeatedVarints(lons);
+                    break;
+                case 10:
+                    keysVals = in.readRepeatedVarints(keysVals);
+                    break;
+                default:
+                    in.skipField();
+                }
+            }
+            int n = ids.length;
+            if (lats.length != n || lons.length != n || !hasLength(n, versions, timestamps, changesets, uids, userSids)) {
+                throw new IllegalDataException(tr("Inconsistent dense nodes in PBF file."));
+            }
+            decodeDelta(ids);
+            decodeDelta(lats);
+            decodeDelta(lons);
+            decodeDelta(timestamps);
+            decodeDelta(changesets);
+            decodeDelta(uids);
+            decodeDelta(userSids);
+            for (int i = 0; i < timestamps.length; i++) {
+                timestamps[i] = block.timestamp(timestamps[i]);
+            }
+            tagStart = new int[n + 1];
+            int j = 0;
+            for (int i = 0; i < n && keysVals.length > 0; i++) {
+                tagStart[i] = j;
+                while (j < keysVals.length && keysVals[j] != 0) {
+                    j += 2;
+                }
+                if (j >= keysVals.length) {
+                    throw new IllegalDataException(tr("Inconsistent dense nodes in PBF file."));
+                }
+                j++;
+                tagStart[i + 1] = j;
+            }
+        }
+
+        private void decodeDenseInfo(ProtobufInput in) throws IllegalDataException {
+            while (in.hasRemaining()) {
+                switch (in.readField()) {
+                case 1:
+                    versions = in.readRepeatedVarints(versions);
+                    break;
+                case 2:
+                    timestamps = in.readRepeatedVarints(timestamps);
+                    break;
+                case 3:
+                    changesets = in.readRepeatedVarints(changesets);
+                    break;
+                case 4:
+                    uids = in.readRepeatedVarints(uids);
+                    break;
+                case 5:
+                    userSids = in.readRepeatedVarints(userSids);
+                    break;
+                default:
+                    in.skipField();
+                }
+            }
+        }
+
+        private static boolean hasLength(int n, long[]... arrays) {
+            for (long[] array : arrays) {
+                if (array.length != 0 && array.length != n) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static void decodeDelta(long[] values) {
+            long value = 0;
+            for (int i = 0; i < values.length; i++) {
+                value += ProtobufInput.decodeZigZag(values[i]);
+                values[i] = value;
+            }
+        }
+
+        @Override
+        public void addTo(OsmPbfReader reader, PrimitiveBlock block) throws IllegalDataException {
+            boolean withInfo = versions.length > 0;
+            for (int i = 0; i < ids.length; i++) {
+                int index = i;
+                String user = userSids.length > 0 ? block.string(userSids[i]) : "";
+                reader.parseNode(block.lat(lats[i]), block.lon(lons[i]), nd -> reader.readCommon(nd, ids[index],
+                        withInfo ? (int) versions[index] : -1,
+                        timestamps.length > 0 ? timestamps[index] : 0,
+                        changesets.length > 0 ? changesets[index] : 0,
+                        uids.length > 0 ? uids[index] : 0, user),
+                        n -> reader.readDenseTags(n, block, keysVals, tagStart[index], tagStart[index + 1] - 1));
+            }
+        }
+    }
+
+    /**
+     * Reads the common primitive attributes. Unset values are 0, except for the version which defaults to -1.
+     * Like in OSM XML files, the version is mandatory for primitives with an id assigned by the server.
+     * @param pd primitive data to update
+     * @param id primitive id
+     * @param version version, -1 if unset
+     * @param timestamp timestamp in seconds, ignored if not positive
+     * @param changeset changeset id, ignored if 0
+     * @param uid user id, 0 for anonymous users
+     * @param user user name
+     * @throws IllegalDataException in case of invalid data
+     */
+    private void readCommon(PrimitiveData pd, long id, int version, long timestamp, long changeset, long uid, String user)
+            throws IllegalDataException {
+        parseId(pd, id);
+        if (timestamp > 0) {
+            pd.setRawTimestamp((int) timestamp);
+        }
+        if (uid > 0) {
+            parseUser(pd, user, uid);
+        } else if (!user.isEmpty()) {
+            pd.setUser(User.createLocalUser(user));
+        }
+        if (version >= 0) {
+            parseVersion(pd, version);
+        } else {
+            parseVersion(pd, (String) null);
+        }
+        if (changeset != 0) {
+            parseChangeset(pd, (int) changeset);
+        }
+    }
+
+    private void readTags(Tagged t, PrimitiveBlock block, long[] keys, long[] vals) throws IllegalDataException {
+        for (int i = 0; i < keys.length; i++) {
+            parseTag(t, block.string(keys[i]), block.string(vals[i]));
+        }
+    }
+
+    private void readDenseTags(Tagged t, PrimitiveBlock block, long[] keysVals, int start, int end) throws IllegalDataException {
+        for (int i = start; i < end; i += 2) {
+            parseTag(t, block.string(keysVals[i]), block.string(keysVals[i + 1]));
+        }
+    }
+
+    private void readMembers(Relation r, Collection<RelationMemberData> members, PrimitiveBlock block, Element e)
+            throws IllegalDataException {
+        for (int i = 0; i < e.refs.length; i++) {
+            long type = e.memberTypes[i];
+            members.add(parseRelationMember(r, e.refs[i],
+                    type >= 0 && type < MEMBER_TYPES.length ? MEMBER_TYPES[(int) type] : Long.toString(type),
+                    block.string(e.roles[i])));
+        }
+    }
+
+    private static Blob readBlob(DataInputStream in) throws IOException, IllegalDataException {
+        int headerSize;
+        try {
+            headerSize = in.readInt();
+        } catch (EOFException e) {
+            Logging.trace(e);
+            return null;
+        }
+        if (headerSize < 0 || headerSize > MAX_BLOB_HEADER_SIZE) {
+            throw new IllegalDataException(tr("Illegal blob header size {0} in PBF file.", headerSize));
+        }
+        byte[] header = new byte[headerSize];
+        in.readFully(header);
+        String type = null;
+        int dataSize = -1;
+        ProtobufInput h = new ProtobufInput(header);
+        while (h.hasRemaining()) {
+            switch (h.readField()) {
+            case 1:
+                type = h.readString();
+                break;
+            case 3:
+                dataSize = h.readInt32();
+                break;
+            default:
+                h.skipField();
+            }
+        }
+        if (type == null || dataSize < 0 || dataSize > MAX_BLOB_SIZE) {
+            throw new IllegalDataException(tr("Illegal blob header in PBF file."));
+        }
+        byte[] data = new byte[dataSize];
+        in.readFully(data);
+        return new Blob(type, data);
+    }
+
+    private void parse(InputStream source) throws IOException, IllegalDataException {
+        parseVersion("0.6");
+        DataInputStream in = new DataInputStream(source);
+        ExecutorService executor = threads < 2 ? null
+                : Executors.newFixedThreadPool(threads, Utils.newThreadFactory("pbf-reader-%d", Thread.NORM_PRIORITY));
+        try {
+            Deque<Future<Block>> pending = new ArrayDeque<>();
+            for (Blob blob = readBlob(in); blob != null; blob = readBlob(in)) {
+                if (cancel) {
+                    cancel = false;
+                    throw new PbfParsingCanceledException(tr("Reading was canceled"));
+                }
+                if (executor == null) {
+                    blob.decode().addTo(this);
+                } else {
+                    pending.add(executor.submit(blob::decode));
+                    // add the decoded blocks while the next blobs are decoded, and limit the number of blobs in memory
+                    if (pending.size() > 2 * threads) {
+                        addBlock(pending.remove());
+                    }
+                }
+            }
+            while (!pending.isEmpty()) {
+                addBlock(pending.remove());
+            }
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+        if (!headerAdded) {
+            throw new IllegalDataException(tr("Missing header block in PBF file."));
+        }
+    }
+
+    private void addBlock(Future<Block> future) throws IllegalDataException {
+        Block block;
+        try {
+            block = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalDataException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IllegalDataException) {
+                throw (IllegalDataException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalDataException(cause);
+        }
+        block.addTo(this);
+    }
+
+    @Override
+    protected DataSet doParseDataSet(InputStream source, ProgressMonitor progressMonitor) throws IllegalDataException {
+        return doParseBinaryDataSet(source, progressMonitor, this::parse);
+    }
+
+    /**
+     * Parse the given input source and return the dataset. Blobs are decoded by one thread per processor.
+     *
+     * @param source the source input stream. Must not be null.
+     * @param progressMonitor the progress monitor. If null, {@link NullProgressMonitor#INSTANCE} is assumed
+     *
+     * @return the dataset with the parsed data
+     * @throws IllegalDataException if an error was found while parsing the data from the source
+     * @throws IllegalArgumentException if source is null
+     */
+    public static DataSet parseDataSet(InputStream source, ProgressMonitor progressMonitor) throws IllegalDataException {
+        return parseDataSet(source, progressMonitor, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Parse the given input source and return the dataset.
+     *
+     * @param source the source input stream. Must not be null.
+     * @param progressMonitor the progress monitor. If null, {@link NullProgressMonitor#INSTANCE} is assumed
+     * @param threads number of threads decoding blobs. With less than 2 threads, blobs are decoded by the calling thread.
+     *
+     * @return the dataset with the parsed data
+     * @throws IllegalDataException if an error was found while parsing the data from the source
+     * @throws IllegalArgumentException if source is null
+     */
+    public static DataSet parseDataSet(InputStream source, ProgressMonitor progressMonitor, int threads) throws IllegalDataException {
+        return new OsmPbfReader(threads).doParseDataSet(source, progressMonitor);
+    }
+}
@@ -0,0 +1,408 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import static org.openstreetmap.josm.tools.I18n.tr;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.Predicate;
+import java.util.zip.Deflater;
+
+import org.openstreetmap.josm.data.Bounds;
+import org.openstreetmap.josm.data.DataSource;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.Relation;
+import org.openstreetmap.josm.data.osm.User;
+import org.openstreetmap.josm.data.osm.Way;
+
+/**
+ * Save the dataset into a stream in the <a href="https://wiki.openstreetmap.org/wiki/PBF_Format">OSM PBF format</a>.
+ * <p>
+ * Like the data sent to the OSM server, PBF files only contain the current state of primitives: modifications are not
+ * marked, and deleted or incomplete primitives are not written. The data sources are written as one bounding box.
+ * @see OsmPbfReader
+ * @since xxx
+ */
+public class OsmPbfWriter implements Closeable {
+
+    /** Maximum number of primitives per block, as written by other tools */
+    private static final int BLOCK_SIZE = 8000;
+    /** Granularity of coordinates in nanodegrees, the precision of the OSM server */
+    private static final int GRANULARITY = 100;
+    /**
+     * Maximum size of an uncompressed block, as recommended by the format. Readers refuse blobs larger than 32 MB,
+     * so blocks of large ways or relations are split.
+     */
+    static final int MAX_BLOCK_SIZE = 16 * 1024 * 1024;
+
+    private final OutputStream out;
+    private final int maxBlockSize;
+    private final Deflater deflater = new Deflater();
+    private byte[] compressed = new byte[64 * 1024];
+
+    /** String table of the current block, index 0 is reserved */
+    private final List<String> strings = new ArrayList<>();
+    private final Map<String, Integer> stringIndexes = new HashMap<>();
+
+    // encoders, reused for all blocks to avoid allocations. Each one is used for one level of nested messages
+    private final ProtobufOutput blobHeader = new ProtobufOutput();
+    private final ProtobufOutput blob = new ProtobufOutput();
+    private final ProtobufOutput block = new ProtobufOutput();
+    private final ProtobufOutput group = new ProtobufOutput();
+    private final ProtobufOutput element = new ProtobufOutput();
+    private final ProtobufOutput info = new ProtobufOutput();
+    private final ProtobufOutput packed = new ProtobufOutput();
+
+    /**
+     * Constructs a new {@code OsmPbfWriter}.
+     * @param out the stream to write to. It is not buffered by this writer, but written in large chunks.
+     */
+    public OsmPbfWriter(OutputStream out) {
+        this(out, MAX_BLOCK_SIZE);
+    }
+
+    /**
+     * Constructs a new {@code OsmPbfWriter} with the given maximum size of an uncompressed block, for tests.
+     * @param out the stream to write to
+     * @param maxBlockSize the maximum size of an uncompressed block, in bytes
+     */
+    OsmPbfWriter(OutputStream out, int maxBlockSize) {
+        this.out = out;
+        this.maxBlockSize = maxBlockSize;
+        resetStrings();
+    }
+
+    /**
+     * Writes the full PBF file for the given data set (header with the data sources, nodes, ways, relations).
+     * @param ds OSM data set
+     * @throws IOException if an I/O error occurs
+     */
+    public void write(DataSet ds) throws IOException {
+        writeHeader(ds);
+        List<Node> nodes = sortById(ds.getNodes(), Node::isLatLonKnown);
+        for (int i = 0; i < nodes.size(); i += BLOCK_SIZE) {
+            writeNodes(nodes.subList(i, Math.min(nodes.size(), i + BLOCK_SIZE)));
+        }
+        List<Way> ways = sortById(ds.getWays(), w -> true);
+        for (int i = 0; i < ways.size(); i += BLOCK_SIZE) {
+            writeWays(ways.subList(i, Math.min(ways.size(), i + BLOCK_SIZE)));
+        }
+        List<Relation> relations = sortById(ds.getRelations(), r -> true);
+        for (int i = 0; i < relations.size(); i += BLOCK_SIZE) {
+            writeRelations(relations.subList(i, Math.min(relations.size(), i + BLOCK_SIZE)));
+        }
+        out.flush();
+    }
+
+    private static <T extends OsmPrimitive> List<T> sortById(Collection<T> primitives, Predicate<T> filter) {
+        List<T> result = new ArrayList<>(primitives.size());
+        for (T p : primitives) {
+            if (!p.isIncomplete() && !p.isDeleted() && p.isVisible() && filter.test(p)) {
+                result.add(p);
+            }
+        }
+        // ids are delta encoded, so sorting them makes the file smaller
+        result.sort(OsmWriter.byIdComparator);
+        return result;
+    }
+
+    private void writeHeader(DataSet ds) throws IOException {
+        block.reset();
+        Bounds bounds = null;
+        String origin = null;
+        for (DataSource source : ds.getDataSources()) {
+            if (bounds == null) {
+                bounds = new Bounds(source.bounds);
+                origin = source.origin;
+            } else {
+                bounds.extend(source.bounds);
+            }
+        }
+        if (bounds != null) {
+            element.reset();
+            element.writeSInt64(1, Math.round(bounds.getMinLon() * 1e9));
+            element.writeSInt64(2, Math.round(bounds.getMaxLon() * 1e9));
+            element.writeSInt64(3, Math.round(bounds.getMaxLat() * 1e9));
+            element.writeSInt64(4, Math.round(bounds.getMinLat() * 1e9));
+            block.writeMessage(1, element);
+        }
+        block.writeString(4, "OsmSchema-V0.6");
+        block.writeString(4, "DenseNodes");
+        block.writeString(16, "JOSM");
+        if (origin != null) {
+            block.writeString(17, origin);
+        }
+        writeBlob("OSMHeader", block);
+    }
+
+    private void resetStrings() {
+        strings.clear();
+        stringIndexes.clear();
+        string("");
+    }
+
+    private int string(String s) {
+        return stringIndexes.computeIfAbsent(s, k -> {
+            strings.add(k);
+            return strings.size() - 1;
+        });
+    }
+
+    private static long coordinate(double degrees) {
+        return Math.round(degrees * 1e9 / GRANULARITY);
+    }
+
+    private void writeNodes(List<Node> nodes) throws IOException {
+        element.reset();
+        long last = 0;
+        packed.reset();
+        for (Node n : nodes) {
+            packed.writeVarint(ProtobufOutput.encodeZigZag(n.getUniqueId() - last));
+            last = n.getUniqueId();
+        }
+        element.writeMessage(1, packed);
+        info.reset();
+        writeDenseInfo(nodes);
+        element.writeMessage(5, info);
+        last = 0;
+        packed.reset();
+        for (Node n : nodes) {
+            long lat = coordinate(n.lat());
+            packed.writeVarint(ProtobufOutput.encodeZigZag(lat - last));
+            last = lat;
+        }
+        element.writeMessage(8, packed);
+        last = 0;
+        packed.reset();
+        for (Node n : nodes) {
+            long lon = coordinate(n.lon());
+            packed.writeVarint(ProtobufOutput.encodeZigZag(lon - last));
+            last = lon;
+        }
+        element.writeMessage(9, packed);
+        if (nodes.stream().anyMatch(OsmPrimitive::hasKeys)) {
+            packed.reset();
+            for (Node n : nodes) {
+                for (Entry<String, String> tag : n.getKeys().entrySet()) {
+                    packed.writeVarint(string(tag.getKey()));
+                    packed.writeVarint(string(tag.getValue()));
+                }
+                packed.writeVarint(0);
+            }
+            element.writeMessage(10, packed);
+        }
+        group.reset();
+        group.writeMessage(2, element);
+        if (!writeBlock()) {
+            writeSplit(nodes, this::writeNodes);
+        }
+    }
+
+    private void writeDenseInfo(List<Node> nodes) {
+        packed.reset();
+        for (Node n : nodes) {
+            packed.writeVarint(n.getVersion());
+        }
+        info.writeMessage(1, packed);
+        long last = 0;
+        packed.reset();
+        for (Node n : nodes) {
+            packed.writeVarint(ProtobufOutput.encodeZigZag(n.getRawTimestamp() - last));
+            last = n.getRawTimestamp();
+        }
+        info.writeMessage(2, packed);
+        last = 0;
+        packed.reset();
+        for (Node n : nodes) {
+            packed.writeVarint(ProtobufOutput.encodeZigZag(n.getChangesetId() - last));
+            last = n.getChangesetId();
+        }
+        info.writeMessage(3, packed);
+        last = 0;
+        packed.reset();
+        for (Node n : nodes) {
+            long uid = uid(n.getUser());
+            packed.writeVarint(ProtobufOutput.encodeZigZag(uid - last));
+            last = uid;
+        }
+        info.writeMessage(4, packed);
+        last = 0;
+        packed.reset();
+        for (Node n : nodes) {
+            long sid = userSid(n.getUser());
+            packed.writeVarint(ProtobufOutput.encodeZigZag(sid - last));
+            last = sid;
+        }
+        info.writeMessage(5, packed);
+    }
+
+    private static long uid(User user) {
+        return user != null && user.isOsmUser() ? user.getId() : 0;
+    }
+
+    private int userSid(User user) {
+        return user != null ? string(user.getName()) : 0;
+    }
+
+    /**
+     * Writes the tags and metadata of a way or relation, which are encoded the same way.
+     * @param p the primitive
+     */
+    private void writeCommon(OsmPrimitive p) {
+        element.writeInt64(1, p.getUniqueId());
+        if (p.hasKeys()) {
+            Map<String, String> tags = p.getKeys();
+            packed.reset();
+            for (String key : tags.keySet()) {
+                packed.writeVarint(string(key));
+            }
+            element.writeMessage(2, packed);
+            packed.reset();
+            for (String value : tags.values()) {
+                packed.writeVarint(string(value));
+            }
+            element.writeMessage(3, packed);
+        }
+        info.reset();
+        info.writeInt64(1, p.getVersion());
+        info.writeInt64(2, p.getRawTimestamp());
+        info.writeInt64(3, p.getChangesetId());
+        info.writeInt64(4, uid(p.getUser()));
+        info.writeInt64(5, userSid(p.getUser()));
+        element.writeMessage(4, info);
+    }
+
+    private void writeWays(List<Way> ways) throws IOException {
+        group.reset();
+        for (Way w : ways) {
+            element.reset();
+            writeCommon(w);
+            long last = 0;
+            packed.reset();
+            for (int i = 0; i < w.getNodesCount(); i++) {
+                long id = w.getNodeId(i);
+                packed.writeVarint(ProtobufOutput.encodeZigZag(id - last));
+                last = id;
+            }
+            element.writeMessage(8, packed);
+            group.writeMessage(3, element);
+        }
+        if (!writeBlock()) {
+            writeSplit(ways, this::writeWays);
+        }
+    }
+
+    private void writeRelations(List<Relation> relations) throws IOException {
+        group.reset();
+        for (Relation r : relations) {
+            element.reset();
+            writeCommon(r);
+            packed.reset();
+            for (int i = 0; i < r.getMembersCount(); i++) {
+                packed.writeVarint(string(r.getRole(i)));
+            }
+            element.writeMessage(8, packed);
+            long last = 0;
+            packed.reset();
+            for (int i = 0; i < r.getMembersCount(); i++) {
+                long id = r.getMemberId(i);
+                packed.writeVarint(ProtobufOutput.encodeZigZag(id - last));
+                last = id;
+            }
+            element.writeMessage(9, packed);
+            packed.reset();
+            for (int i = 0; i < r.getMembersCount(); i++) {
+                // node, way and relation are numbered in the order of OsmPrimitiveType
+                packed.writeVarint(r.getMemberType(i).ordinal());
+            }
+            element.writeMessage(10, packed);
+            group.writeMessage(4, element);
+        }
+        if (!writeBlock()) {
+            writeSplit(relations, this::writeRelations);
+        }
+    }
+
+    /**
+     * Writes a primitive block with the current primitive group and string table, unless it is too large.
+     * @return {@code true} if the block has been written, {@code false} if it is too large and must be split
+     * @throws IOException if an I/O error occurs
+     */
+    private boolean writeBlock() throws IOException {
+        element.reset();
+        for (String s : strings) {
+            element.writeString(1, s);
+        }
+        block.reset();
+        block.writeMessage(1, element);
+        block.writeMessage(2, group);
+        resetStrings();
+        if (block.size() > maxBlockSize) {
+            return false;
+        }
+        writeBlob("OSMData", block);
+        return true;
+    }
+
+    /**
+     * Writes primitives whose block is too large in two blocks.
+     * @param <T> the type of primitives
+     * @param primitives the primitives
+     * @param writer writes the block of some of the primitives
+     * @throws IOException if an I/O error occurs, or if a primitive alone is too large for a block
+     */
+    private static <T extends OsmPrimitive> void writeSplit(List<T> primitives, BlockWriter<T> writer) throws IOException {
+        if (primitives.size() < 2) {
+            OsmPrimitive p = primitives.get(0);
+            throw new IOException(tr("Cannot write {0} with ID {1}, it is too large for a PBF block.",
+                    p.getType().getAPIName(), Long.toString(p.getUniqueId())));
+        }
+        int half = primitives.size() / 2;
+        writer.write(primitives.subList(0, half));
+        writer.write(primitives.subList(half, primitives.size()));
+    }
+
+    @FunctionalInterface
+    private interface BlockWriter<T> {
+        void write(List<T> primitives) throws IOException;
+    }
+
+    private void writeBlob(String type, ProtobufOutput data) throws IOException {
+        deflater.reset();
+        deflater.setInput(data.getBuffer(), 0, data.size());
+        deflater.finish();
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == compressed.length) {
+                compressed = Arrays.copyOf(compressed, compressed.length * 2);
+            }
+            length += deflater.deflate(compressed, length, compressed.length - length);
+        }
+        blob.reset();
+        blob.writeInt64(2, data.size());
+        blob.writeBytes(3, compressed, 0, length);
+        blobHeader.reset();
+        blobHeader.writeString(1, type);
+        blobHeader.writeInt64(3, blob.size());
+        int size = blobHeader.size();
+        out.write(new byte[] {(byte) (size >>> 24), (byte) (size >>> 16), (byte) (size >>> 8), (byte) size});
+        blobHeader.writeTo(out);
+        blob.writeTo(out);
+    }
+
+    @Override
+    public void close() throws IOException {
+        deflater.end();
+        out.close();
+    }
+}
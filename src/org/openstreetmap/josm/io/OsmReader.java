@@ -450,7 +450,7 @@ public class OsmReader extends AbstractReader {
     /**
      * Exception thrown after user cancelation.
      */
-    private static final class OsmParsingCanceledException extends XmlStreamParsingException implements ImportCancelException {
+    static final class OsmParsingCanceledException extends XmlStreamParsingException implements ImportCancelException {
         /**
          * Constructs a new {@code OsmParsingCanceledException}.
          * @param msg The error message
@@ -470,21 +470,31 @@ public class OsmReader extends AbstractReader {
             } catch (XmlStreamParsingException | UncheckedParseException e) {
                 throw new IllegalDataException(e.getMessage(), e);
             } catch (XMLStreamException e) {
-                String msg = e.getMessage();
-                Pattern p = Pattern.compile("Message: (.+)");
-                Matcher m = p.matcher(msg);
-                if (m.find()) {
-                    msg = m.group(1);
-                }
-                if (e.getLocation() != null)
-                    throw new IllegalDataException(tr("Line {0} column {1}: ",
-                            e.getLocation().getLineNumber(), e.getLocation().getColumnNumber()) + msg, e);
-                else
-                    throw new IllegalDataException(msg, e);
+                throw toIllegalDataException(e, e.getLocation());
             }
         });
     }
 
+    /**
+     * Converts an error reported by the XML parser.
+     * @param e the error
+     * @param location the location of the error in the input, can be null
+     * @return the exception to throw
+     */
+    static IllegalDataException toIllegalDataException(XMLStreamException e, Location location) {
+        String msg = e.getMessage();
+        Pattern p = Pattern.compile("Message: (.+)");
+        Matcher m = p.matcher(msg);
+        if (m.find()) {
+            msg = m.group(1);
+        }
+        if (location != null)
+            return new IllegalDataException(tr("Line {0} column {1}: ",
+                    location.getLineNumber(), location.getColumnNumber()) + msg, e);
+        else
+            return new IllegalDataException(msg, e);
+    }
+
     /**
      * Parse the given input source and return the dataset.
      *
@@ -515,4 +525,27 @@ public class OsmReader extends AbstractReader {
             throws IllegalDataException {
         return new OsmReader(convertUnknownToTags).doParseDataSet(source, progressMonitor);
     }
+
+    /**
+     * Parse the given input source on several threads and return the dataset.
+     * <p>
+     * The returned dataset is the same as the one returned by {@link #parseDataSet(InputStream, ProgressMonitor, boolean)}.
+     *
+     * @param source the source input stream. Must not be null.
+     * @param progressMonitor the progress monitor. If null, {@link NullProgressMonitor#INSTANCE} is assumed
+     * @param convertUnknownToTags true if unknown xml attributes should be kept as tags
+     * @param threads the number of threads parsing the input. If less than 2, the input is parsed on the calling thread
+     *
+     * @return the dataset with the parsed data
+     * @throws IllegalDataException if an error was found while parsing the data from the source
+     * @throws IllegalArgumentException if source is null
+     * @since xxx
+     */
+    public static DataSet parseDataSet(InputStream source, ProgressMonitor progressMonitor, boolean convertUnknownToTags, int threads)
+            throws IllegalDataException {
+        if (threads < 2) {
+            return parseDataSet(source, progressMonitor, convertUnknownToTags);
+        }
+        return new ParallelOsmReader(convertUnknownToTags, threads).doParseDataSet(source, progressMonitor);
+    }
 }
@@ -5,6 +5,7 @@ import static org.openstreetmap.josm.tools.I18n.tr;
 
 import java.io.PrintWriter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.Date;
@@ -22,6 +23,7 @@ import org.openstreetmap.josm.data.osm.INode;
 import org.openstreetmap.josm.data.osm.IPrimitive;
 import org.openstreetmap.josm.data.osm.IRelation;
 import org.openstreetmap.josm.data.osm.IWay;
+import org.openstreetmap.josm.data.osm.KeyValueVisitor;
 import org.openstreetmap.josm.data.osm.Node;
 import org.openstreetmap.josm.data.osm.OsmPrimitive;
 import org.openstreetmap.josm.data.osm.Relation;
@@ -48,6 +50,13 @@ public class OsmWriter extends XmlWriter implements PrimitiveVisitor {
     private String version;
     private Changeset changeset;
 
+    /** Scratch buffer to format numbers and timestamps without creating strings */
+    private final char[] chars = new char[32];
+    /** Scratch array of the keys and values of the tags being written, reused for all primitives */
+    private String[] tags = new String[32];
+    private int tagsSize;
+    private final KeyValueVisitor tagSorter = (p, key, value) -> addSortedTag(key, value);
+
     /**
      * Constructs a new {@code OsmWriter}.
      * Do not call this directly. Use {@link OsmWriterFactory} instead.
@@ -238,9 +247,120 @@ public class OsmWriter extends XmlWriter implements PrimitiveVisitor {
 
     void writeLatLon(LatLon ll) {
         if (ll != null) {
-            out.print(" lat='"+LatLon.cDdHighPecisionFormatter.format(ll.lat())+
-                     "' lon='"+LatLon.cDdHighPecisionFormatter.format(ll.lon())+'\'');
+            writeLatLon(ll.lat(), ll.lon());
+        }
+    }
+
+    private void writeLatLon(double lat, double lon) {
+        out.print(" lat='");
+        writeCoordinate(lat);
+        out.print("' lon='");
+        writeCoordinate(lon);
+        out.print('\'');
+    }
+
+    /**
+     * Writes a coordinate as formatted by {@link LatLon#cDdHighPecisionFormatter}.
+     * Coordinates with at most 7 decimals, the precision of the OSM server, are formatted here without creating strings.
+     * @param value the coordinate
+     */
+    private void writeCoordinate(double value) {
+        long units = Math.round(value * 1e7);
+        if (units / 1e7 != value || Double.doubleToRawLongBits(value) == Long.MIN_VALUE /* -0.0 */) {
+            out.print(LatLon.cDdHighPecisionFormatter.format(value));
+            return;
+        }
+        // the shortest decimal representation of value is units * 1e-7, so the formatter would not round it
+        long abs = Math.abs(units);
+        long fraction = abs % 10_000_000;
+        int fractionDigits = 7;
+        while (fractionDigits > 1 && fraction % 10 == 0) {
+            fraction /= 10;
+            fractionDigits--;
+        }
+        int pos = chars.length;
+        for (int i = 0; i < fractionDigits; i++) {
+            chars[--pos] = (char) ('0' + fraction % 10);
+            fraction /= 10;
         }
+        chars[--pos] = '.';
+        pos = formatDigits(abs / 10_000_000, pos);
+        if (units < 0) {
+            chars[--pos] = '-';
+        }
+        out.write(chars, pos, chars.length - pos);
+    }
+
+    /**
+     * Writes a number like {@link PrintWriter#print(long)}, without creating a string.
+     * @param value the number
+     */
+    private void writeLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            out.print(value);
+            return;
+        }
+        int pos = formatDigits(Math.abs(value), chars.length);
+        if (value < 0) {
+            chars[--pos] = '-';
+        }
+        out.write(chars, pos, chars.length - pos);
+    }
+
+    /**
+     * Formats the digits of a non-negative number into {@link #chars}, before the given position.
+     * @param value the number
+     * @param end the position after the last digit
+     * @return the position of the first digit
+     */
+    private int formatDigits(long value, int end) {
+        int pos = end;
+        long v = value;
+        do {
+            chars[--pos] = (char) ('0' + v % 10);
+            v /= 10;
+        } while (v != 0);
+        return pos;
+    }
+
+    /**
+     * Writes a timestamp as formatted by {@link DateUtils#fromTimestamp(int)}, without creating a string.
+     * @param rawTimestamp number of seconds since the epoch, as unsigned int
+     */
+    private void writeTimestamp(int rawTimestamp) {
+        long seconds = Integer.toUnsignedLong(rawTimestamp);
+        long days = seconds / 86_400;
+        int secondOfDay = (int) (seconds % 86_400);
+        // civil date of the proleptic Gregorian calendar, see http://howardhinnant.github.io/date_algorithms.html#civil_from_days
+        long z = days + 719_468;
+        long era = z / 146_097;
+        long dayOfEra = z - era * 146_097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long monthIndex = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * monthIndex + 2) / 5 + 1);
+        int month = (int) (monthIndex < 10 ? monthIndex + 3 : monthIndex - 9);
+        int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+        // yyyy-MM-ddTHH:mm:ssZ, all unsigned timestamps are in the years 1970 to 2106
+        formatTwoDigits(year / 100, 0);
+        formatTwoDigits(year % 100, 2);
+        chars[4] = '-';
+        formatTwoDigits(month, 5);
+        chars[7] = '-';
+        formatTwoDigits(day, 8);
+        chars[10] = 'T';
+        formatTwoDigits(secondOfDay / 3600, 11);
+        chars[13] = ':';
+        formatTwoDigits(secondOfDay / 60 % 60, 14);
+        chars[16] = ':';
+        formatTwoDigits(secondOfDay % 60, 17);
+        chars[19] = 'Z';
+        out.write(chars, 0, 20);
+    }
+
+    private void formatTwoDigits(int value, int pos) {
+        chars[pos] = (char) ('0' + value / 10);
+        chars[pos + 1] = (char) ('0' + value % 10);
     }
 
     @Override
@@ -250,7 +370,9 @@ public class OsmWriter extends XmlWriter implements PrimitiveVisitor {
         if (!withBody) {
             out.println("/>");
         } else {
-            writeLatLon(n.getCoor());
+            if (n.isLatLonKnown()) {
+                writeLatLon(n.lat(), n.lon());
+            }
             addTags(n, "node", true);
         }
     }
@@ -264,7 +386,9 @@ public class OsmWriter extends XmlWriter implements PrimitiveVisitor {
         } else {
             out.println(">");
             for (int i = 0; i < w.getNodesCount(); ++i) {
-                out.println("    <nd ref='"+w.getNodeId(i) +"' />");
+                out.print("    <nd ref='");
+                writeLong(w.getNodeId(i));
+                out.println("' />");
             }
             addTags(w, "way", false);
         }
@@ -281,8 +405,11 @@ public class OsmWriter extends XmlWriter implements PrimitiveVisitor {
             for (int i = 0; i < e.getMembersCount(); ++i) {
                 out.print("    <member type='");
                 out.print(e.getMemberType(i).getAPIName());
-                out.println("' ref='"+e.getMemberId(i)+"' role='" +
-                        XmlWriter.encode(e.getRole(i)) + "' />");
+                out.print("' ref='");
+                writeLong(e.getMemberId(i));
+                out.print("' role='");
+                writeEncoded(e.getRole(i));
+                out.println("' />");
             }
             addTags(e, "relation", false);
         }
@@ -326,18 +453,52 @@ public class OsmWriter extends XmlWriter implements PrimitiveVisitor {
             if (tagOpen) {
                 out.println(">");
             }
-            List<Entry<String, String>> entries = new ArrayList<>(osm.getKeys().entrySet());
-            entries.sort(byKeyComparator);
-            for (Entry<String, String> e : entries) {
-                out.println("    <tag k='"+ XmlWriter.encode(e.getKey()) +
-                        "' v='"+XmlWriter.encode(e.getValue())+ "' />");
+            sortTags(osm);
+            for (int i = 0; i < tagsSize; i += 2) {
+                out.print("    <tag k='");
+                writeEncoded(tags[i]);
+                out.print("' v='");
+                writeEncoded(tags[i + 1]);
+                out.println("' />");
             }
-            out.println("  </" + tagname + '>');
+            Arrays.fill(tags, 0, tagsSize, null);
+            writeEndTag(tagname);
         } else if (tagOpen) {
             out.println(" />");
         } else {
-            out.println("  </" + tagname + '>');
+            writeEndTag(tagname);
+        }
+    }
+
+    /**
+     * Copies the tags of the given object to {@link #tags}, sorted by key like {@link #byKeyComparator}.
+     * Objects have few tags, so they are sorted by insertion, without creating a map or entries.
+     * @param osm tagged object
+     */
+    private void sortTags(Tagged osm) {
+        tagsSize = 0;
+        osm.visitKeys(tagSorter);
+    }
+
+    private void addSortedTag(String key, String value) {
+        if (tagsSize == tags.length) {
+            tags = Arrays.copyOf(tags, tags.length * 2);
         }
+        int i = tagsSize;
+        while (i > 0 && tags[i - 2].compareTo(key) > 0) {
+            tags[i] = tags[i - 2];
+            tags[i + 1] = tags[i - 1];
+            i -= 2;
+        }
+        tags[i] = key;
+        tags[i + 1] = value;
+        tagsSize += 2;
+    }
+
+    private void writeEndTag(String tagname) {
+        out.print("  </");
+        out.print(tagname);
+        out.println('>');
     }
 
     /**
@@ -347,9 +508,12 @@ public class OsmWriter extends XmlWriter implements PrimitiveVisitor {
      * @param tagname XML tag matching osm primitive (node, way, relation)
      */
     protected void addCommon(IPrimitive osm, String tagname) {
-        out.print("  <"+tagname);
+        out.print("  <");
+        out.print(tagname);
         if (osm.getUniqueId() != 0) {
-            out.print(" id='"+ osm.getUniqueId()+'\'');
+            out.print(" id='");
+            writeLong(osm.getUniqueId());
+            out.print('\'');
         } else
             throw new IllegalStateException(tr("Unexpected id 0 for osm primitive found"));
         if (!isOsmChange) {
@@ -361,33 +525,53 @@ public class OsmWriter extends XmlWriter implements PrimitiveVisitor {
                     action = "modify";
                 }
                 if (action != null) {
-                    out.print(" action='"+action+'\'');
+                    out.print(" action='");
+                    out.print(action);
+                    out.print('\'');
                 }
             }
             if (!osm.isTimestampEmpty()) {
-                out.print(" timestamp='"+DateUtils.fromTimestamp(osm.getRawTimestamp())+'\'');
+                out.print(" timestamp='");
+                writeTimestamp(osm.getRawTimestamp());
+                out.print('\'');
             }
             // user and visible added with 0.4 API
             if (osm.getUser() != null) {
                 if (osm.getUser().isLocalUser()) {
-                    out.print(" user='"+XmlWriter.encode(osm.getUser().getName())+'\'');
+                    writeUserName(osm.getUser().getName());
                 } else if (osm.getUser().isOsmUser()) {
                     // uid added with 0.6
-                    out.print(" uid='"+ osm.getUser().getId()+'\'');
-                    out.print(" user='"+XmlWriter.encode(osm.getUser().getName())+'\'');
+                    out.print(" uid='");
+                    writeLong(osm.getUser().getId());
+                    out.print('\'');
+                    writeUserName(osm.getUser().getName());
                 }
             }
             if (withVisible) {
-                out.print(" visible='"+osm.isVisible()+'\'');
+                out.print(" visible='");
+                out.print(osm.isVisible());
+                out.print('\'');
             }
         }
         if (osm.getVersion() != 0) {
-            out.print(" version='"+osm.getVersion()+'\'');
+            out.print(" version='");
+            writeLong(osm.getVersion());
+            out.print('\'');
         }
         if (this.changeset != null && this.changeset.getId() != 0) {
-            out.print(" changeset='"+this.changeset.getId()+'\'');
+            out.print(" changeset='");
+            writeLong(this.changeset.getId());
+            out.print('\'');
         } else if (osm.getChangesetId() > 0 && !osm.isNew()) {
-            out.print(" changeset='"+osm.getChangesetId()+'\'');
+            out.print(" changeset='");
+            writeLong(osm.getChangesetId());
+            out.print('\'');
         }
     }
+
+    private void writeUserName(String name) {
+        out.print(" user='");
+        writeEncoded(name);
+        out.print('\'');
+    }
 }
@@ -0,0 +1,202 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.openstreetmap.josm.tools.Utils;
+
+/**
+ * Output stream compressing its data with several threads.
+ * <p>
+ * The data is cut into blocks, which are compressed independently into complete compressed streams, and written one
+ * after the other. This works for the formats whose decompressors read concatenated streams as one: gzip (each block
+ * is a gzip member) and bzip2 (see {@link Compression#getBZip2InputStream}). The result is slightly larger than a
+ * file compressed sequentially.
+ * @since xxx
+ */
+final class ParallelCompressorOutputStream extends OutputStream {
+
+    /** Size of the uncompressed blocks, large enough for the loss of compression to be negligible */
+    static final int BLOCK_SIZE = 1 << 20;
+
+    /**
+     * Creates the compressing stream of one block.
+     */
+    @FunctionalInterface
+    interface Compressor {
+        /**
+         * Returns a stream compressing the data written to it into the given stream.
+         * @param out stream receiving the compressed data
+         * @return compressing stream
+         * @throws IOException if any I/O error occurs
+         */
+        OutputStream wrap(OutputStream out) throws IOException;
+    }
+
+    private final OutputStream out;
+    private final Compressor compressor;
+    private final int threads;
+    /** The threads compressing the blocks, created with the first block and shut down on close or on failure */
+    private ExecutorService executor;
+    /** The blocks being compressed, in order */
+    private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+    private byte[] block = new byte[BLOCK_SIZE];
+    private int size;
+    private boolean empty = true;
+    private boolean failed;
+    private boolean closed;
+
+    /**
+     * Constructs a new {@code ParallelCompressorOutputStream}.
+     * @param out stream receiving the compressed data
+     * @param threads number of threads compressing the blocks
+     * @param compressor compressor of the blocks
+     */
+    ParallelCompressorOutputStream(OutputStream out, int threads, Compressor compressor) {
+        this.out = out;
+        this.compressor = compressor;
+        this.threads = threads;
+    }
+
+    private ExecutorService getExecutor() {
+        if (executor == null) {
+            ThreadFactory factory = Utils.newThreadFactory("compressor-%d", Thread.NORM_PRIORITY);
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                    runnable -> {
+                        Thread thread = factory.newThread(runnable);
+                        // a stream which is not closed, for instance after an error of the writer, must not keep the JVM alive
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            pool.allowCoreThreadTimeOut(true);
+            executor = pool;
+        }
+        return executor;
+    }
+
+    private void shutdown() {
+        pending.forEach(future -> future.cancel(true));
+        pending.clear();
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        block[size++] = (byte) b;
+        if (size == block.length) {
+            submitBlock();
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        int offset = off;
+        int remaining = len;
+        while (remaining > 0) {
+            int n = Math.min(remaining, block.length - size);
+            System.arraycopy(b, offset, block, size, n);
+            size += n;
+            offset += n;
+            remaining -= n;
+            if (size == block.length) {
+                submitBlock();
+            }
+        }
+    }
+
+    private void submitBlock() throws IOException {
+        if (failed) {
+            throw new IOException("Compression failed, see previous error");
+        }
+        byte[] data = block;
+        int length = size;
+        pending.add(getExecutor().submit(() -> compress(data, length)));
+        empty = false;
+        block = new byte[BLOCK_SIZE];
+        size = 0;
+        // limit the memory used by blocks waiting to be written
+        while (pending.size() > 2 * threads) {
+            writeCompressed(pending.remove());
+        }
+    }
+
+    private byte[] compress(byte[] data, int length) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(length / 4);
+        try (OutputStream c = compressor.wrap(compressed)) {
+            c.write(data, 0, length);
+        }
+        return compressed.toByteArray();
+    }
+
+    private void writeCompressed(Future<byte[]> future) throws IOException {
+        boolean written = false;
+        try {
+            out.write(future.get());
+            written = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } finally {
+            if (!written) {
+                // the following blocks can no longer be written, stop compressing them
+                failed = true;
+                shutdown();
+            }
+        }
+    }
+
+    /**
+     * Writes the blocks compressed so far. Like the sequential compressors, the current block is not cut, since each
+     * block makes the output larger.
+     */
+    @Override
+    public void flush() throws IOException {
+        while (!pending.isEmpty() && pending.peek().isDone()) {
+            writeCompressed(pending.remove());
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (failed) {
+                return;
+            }
+            if (size > 0 || empty) {
+                // an empty stream is still written as one empty compressed stream
+                submitBlock();
+            }
+            while (!pending.isEmpty()) {
+                writeCompressed(pending.remove());
+            }
+        } finally {
+            shutdown();
+            out.close();
+        }
+    }
+}
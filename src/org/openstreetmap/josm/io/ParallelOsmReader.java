@@ -0,0 +1,604 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import static org.openstreetmap.josm.tools.I18n.tr;
+
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.util.StreamReaderDelegate;
+
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.PrimitiveData;
+import org.openstreetmap.josm.data.osm.Relation;
+import org.openstreetmap.josm.data.osm.User;
+import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.gui.progress.ProgressMonitor;
+import org.openstreetmap.josm.tools.UncheckedParseException;
+import org.openstreetmap.josm.tools.Utils;
+import org.openstreetmap.josm.tools.XmlUtils;
+
+/**
+ * Parser for the Osm API (XML output), which parses the input on several threads.
+ * <p>
+ * The input is split into chunks of complete elements below the root element. Each chunk is prefixed by the start of
+ * the document up to the root element and parsed by an {@link OsmReader} of its own, concurrently to the other chunks.
+ * The primitives of the chunks are then added in the order of the input, so the resulting dataset is the same as the
+ * one of {@link OsmReader}, including users and the ids of new primitives. Locations of errors refer to the input.
+ * <p>
+ * Input which cannot be split, e.g. with a document type declaration, is parsed sequentially.
+ * @since xxx
+ */
+class ParallelOsmReader extends OsmReader {
+
+    /** Approximate number of characters of a chunk */
+    private static final int CHUNK_SIZE = 1 << 20;
+
+    private final int threads;
+    private final int chunkSize;
+
+    /**
+     * Constructs a new {@code ParallelOsmReader}.
+     * @param convertUnknownToTags if true, keep unknown xml attributes as tags
+     * @param threads number of threads parsing the input
+     */
+    ParallelOsmReader(boolean convertUnknownToTags, int threads) {
+        this(convertUnknownToTags, threads, CHUNK_SIZE);
+    }
+
+    /**
+     * Constructs a new {@code ParallelOsmReader}.
+     * @param convertUnknownToTags if true, keep unknown xml attributes as tags
+     * @param threads number of threads parsing the input
+     * @param chunkSize approximate number of characters of a chunk
+     */
+    ParallelOsmReader(boolean convertUnknownToTags, int threads, int chunkSize) {
+        super(convertUnknownToTags);
+        this.threads = threads;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    protected DataSet doParseDataSet(InputStream source, ProgressMonitor progressMonitor) throws IllegalDataException {
+        return doParseDataSet(source, progressMonitor, ir -> {
+            try {
+                parseChunks(ir);
+            } catch (XmlStreamParsingException | UncheckedParseException e) {
+                throw new IllegalDataException(e.getMessage(), e);
+            } catch (XMLStreamException e) {
+                throw toIllegalDataException(e, e.getLocation());
+            }
+        });
+    }
+
+    private void parseChunks(Reader source) throws IllegalDataException, IOException, XMLStreamException {
+        ChunkSplitter splitter = new ChunkSplitter(source, chunkSize);
+        Chunk header = splitter.readHeader();
+        if (header == null) {
+            setParser(XmlUtils.newSafeXMLInputFactory().createXMLStreamReader(splitter.getUnsplitInput()));
+            parse();
+            return;
+        }
+        // read the attributes of the root element
+        parseChunk(header, this);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads, Utils.newThreadFactory("osm-reader-%d", Thread.NORM_PRIORITY));
+        try {
+            Deque<Future<ChunkReader>> pending = new ArrayDeque<>();
+            for (Chunk chunk = splitter.nextChunk(); chunk != null; chunk = splitter.nextChunk()) {
+                if (cancel) {
+                    cancel = false;
+                    throw new OsmParsingCanceledException(tr("Reading was canceled"), null);
+                }
+                Chunk c = chunk;
+                pending.add(executor.submit(() -> parseChunk(c, new ChunkReader(convertUnknownToTags))));
+                // add the parsed primitives while the next chunks are parsed, and limit the number of chunks in memory
+                if (pending.size() > 2 * threads) {
+                    addChunk(pending.remove());
+                }
+            }
+            while (!pending.isEmpty()) {
+                addChunk(pending.remove());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static <T extends OsmReader> T parseChunk(Chunk chunk, T reader) throws XMLStreamException, IllegalDataException {
+        reader.setParser(chunk.createParser());
+        try {
+            reader.parse();
+        } catch (XmlStreamParsingException e) {
+            // the location is already translated by the parser
+            throw e;
+        } catch (XMLStreamException e) {
+            throw toIllegalDataException(e, chunk.translate(e.getLocation()));
+        }
+        return reader;
+    }
+
+    /**
+     * Adds the primitives and other data of a parsed chunk, like {@link OsmReader} does while parsing.
+     * @param future the parsed chunk
+     * @throws IllegalDataException if the chunk could not be parsed
+     * @throws XMLStreamException if the chunk could not be parsed
+     */
+    private void addChunk(Future<ChunkReader> future) throws IllegalDataException, XMLStreamException {
+        ChunkReader chunk;
+        try {
+            chunk = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalDataException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof XMLStreamException) {
+                throw (XMLStreamException) cause;
+            } else if (cause instanceof IllegalDataException) {
+                throw (IllegalDataException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalDataException(cause);
+        }
+
+        for (int i = 0; i < chunk.primitives.size(); i++) {
+            OsmPrimitive parsed = chunk.primitives.get(i);
+            long id = parsed.getUniqueId();
+            OsmPrimitive p;
+            if (id > 0) {
+                p = parsed;
+                putExternalPrimitive(id, p);
+            } else {
+                // new primitives may need a new id, which depends on the primitives read before
+                p = buildPrimitive(parsed.save());
+            }
+            p.setUser(createUser(chunk.users.get(2 * i), chunk.users.get(2 * i + 1)));
+            if (p instanceof Way) {
+                ways.put(id, chunk.ways.get(id));
+            } else if (p instanceof Relation) {
+                relations.put(id, chunk.relations.get(id));
+            }
+        }
+        DataSet chunkDataSet = chunk.getDataSet();
+        ds.addDataSources(chunkDataSet.getDataSources());
+        if (chunkDataSet.getRemark() != null) {
+            ds.setRemark(chunkDataSet.getRemark());
+        }
+        if (chunk.uploadChangeset != null) {
+            uploadChangeset = chunk.uploadChangeset;
+        }
+    }
+
+    /**
+     * Reader for a chunk. It creates no users and assigns no ids to new primitives, since these depend
+     * on the preceding chunks. {@link ParallelOsmReader#addChunk} does so instead.
+     */
+    private static final class ChunkReader extends OsmReader {
+        private final List<OsmPrimitive> primitives = new ArrayList<>();
+        /** id and name of the user of each primitive */
+        private final List<String> users = new ArrayList<>();
+        private String uid;
+        private String userName;
+
+        ChunkReader(boolean convertUnknownToTags) {
+            super(convertUnknownToTags);
+        }
+
+        @Override
+        protected User createUser(String uid, String name) throws IllegalDataException {
+            if (uid != null) {
+                parseUid(uid);
+            }
+            this.uid = uid;
+            this.userName = name;
+            return null;
+        }
+
+        @Override
+        protected OsmPrimitive buildPrimitive(PrimitiveData pd) {
+            OsmPrimitive p = pd.getType().newInstance(pd.getUniqueId(), true);
+            p.setVisible(pd.isVisible());
+            p.load(pd);
+            primitives.add(p);
+            users.add(uid);
+            users.add(userName);
+            uid = null;
+            userName = null;
+            return p;
+        }
+    }
+
+    /**
+     * A part of the input, prefixed by the start of the input up to the root element.
+     */
+    private static final class Chunk {
+        private final char[] text;
+        private final int length;
+        /** offset, line and column of the part of the input in {@link #text} */
+        private final int start;
+        private final int startLine;
+        private final int startColumn;
+        /** offset, line and column of the part of the input in the input */
+        private final long inputOffset;
+        private final int inputLine;
+        private final int inputColumn;
+
+        Chunk(char[] text, int length, int start, long inputOffset, int inputLine, int inputColumn) {
+            this.text = text;
+            this.length = length;
+            this.start = start;
+            int line = 1;
+            int lineStart = 0;
+            for (int i = 0; i < start; i++) {
+                if (text[i] == '\n') {
+                    line++;
+                    lineStart = i + 1;
+                }
+            }
+            this.startLine = line;
+            this.startColumn = start - lineStart + 1;
+            this.inputOffset = inputOffset;
+            this.inputLine = inputLine;
+            this.inputColumn = inputColumn;
+        }
+
+        XMLStreamReader createParser() throws XMLStreamException {
+            XMLStreamReader parser = XmlUtils.newSafeXMLInputFactory().createXMLStreamReader(new CharArrayReader(text, 0, length));
+            return new StreamReaderDelegate(parser) {
+                @Override
+                public Location getLocation() {
+                    return translate(super.getLocation());
+                }
+            };
+        }
+
+        /**
+         * Translates a location in this chunk to the location in the input.
+         * @param location location in this chunk, can be null
+         * @return location in the input
+         */
+        Location translate(Location location) {
+            if (location == null) {
+                return null;
+            }
+            int line = location.getLineNumber();
+            int column = location.getColumnNumber();
+            if (line == startLine) {
+                column += inputColumn - startColumn;
+            }
+            line += inputLine - startLine;
+            int offset = location.getCharacterOffset();
+            if (offset >= 0) {
+                offset = (int) Math.min(Integer.MAX_VALUE, inputOffset + offset - start);
+            }
+            return new InputLocation(line, column, offset);
+        }
+    }
+
+    private static final class InputLocation implements Location {
+        private final int line;
+        private final int column;
+        private final int offset;
+
+        InputLocation(int line, int column, int offset) {
+            this.line = line;
+            this.column = column;
+            this.offset = offset;
+        }
+
+        @Override
+        public int getLineNumber() {
+            return line;
+        }
+
+        @Override
+        public int getColumnNumber() {
+            return column;
+        }
+
+        @Override
+        public int getCharacterOffset() {
+            return offset;
+        }
+
+        @Override
+        public String getPublicId() {
+            return null;
+        }
+
+        @Override
+        public String getSystemId() {
+            return null;
+        }
+    }
+
+    /**
+     * Splits the input into chunks of complete elements below the root element. Only the markup needed to
+     * find the ends of elements is recognized, everything else is left to the XML parser.
+     */
+    private static final class ChunkSplitter {
+        private static final String ROOT = "osm";
+        private static final char[] ROOT_END = ("</" + ROOT + '>').toCharArray();
+
+        /** lexical states */
+        private static final int TEXT = 0;
+        private static final int MARKUP = 1;
+        private static final int START_TAG = 2;
+        private static final int ATTRIBUTE_VALUE = 3;
+        private static final int END_TAG = 4;
+        private static final int DECLARATION = 5;
+        private static final int COMMENT = 6;
+        private static final int CDATA = 7;
+        private static final int DOCTYPE = 8;
+        private static final int PROCESSING_INSTRUCTION = 9;
+
+        /** events returned by {@link #scan} */
+        private static final int NONE = 0;
+        private static final int START = 1;
+        private static final int EMPTY = 2;
+        private static final int END = 3;
+        private static final int DOCTYPE_START = 4;
+
+        private final Reader input;
+        private final int chunkSize;
+        private final char[] buffer = new char[1 << 16];
+        private int pos;
+        private int limit;
+        /** offset of the buffer in the input */
+        private long bufferOffset;
+        private int line = 1;
+        /** offset of the current line in the input */
+        private long lineStart;
+
+        private int state = TEXT;
+        /** the last character of the current tag or processing instruction, outside of attribute values */
+        private char last;
+        /** the quote character of the current attribute value */
+        private char quote;
+        /** number of consecutive '-' or ']' in the current comment or CDATA section */
+        private int repeat;
+        private int depth;
+
+        private char[] header;
+        private boolean rootClosed;
+        private boolean finished;
+
+        ChunkSplitter(Reader input, int chunkSize) {
+            this.input = input;
+            this.chunkSize = chunkSize;
+        }
+
+        /**
+         * Reads the start of the input up to the root element.
+         * @return the start of the input, or {@code null} if the input cannot be split
+         * @throws IOException if the input cannot be read
+         */
+        Chunk readHeader() throws IOException {
+            int rootStart = -1;
+            for (int i = 0;; i++) {
+                while (i == limit) {
+                    int n = limit < buffer.length ? input.read(buffer, limit, buffer.length - limit) : -1;
+                    if (n < 0) {
+                        // end of input, or too much before the root element
+                        return null;
+                    }
+                    limit += n;
+                }
+                char c = buffer[i];
+                if (c == '\n') {
+                    line++;
+                    lineStart = i + 1;
+                }
+                if (state == TEXT && c == '<') {
+                    rootStart = i;
+                }
+                int event = scan(c);
+                if (event == START && isRoot(rootStart)) {
+                    pos = i + 1;
+                    depth = 1;
+                    header = Arrays.copyOf(buffer, pos);
+                    char[] text = Arrays.copyOf(header, header.length + ROOT_END.length);
+                    System.arraycopy(ROOT_END, 0, text, header.length, ROOT_END.length);
+                    return new Chunk(text, text.length, 0, 0, 1, 1);
+                } else if (event != NONE) {
+                    // not the expected root element, an empty root element or a document type declaration
+                    return null;
+                }
+            }
+        }
+
+        private boolean isRoot(int tagStart) {
+            int nameEnd = tagStart + 1 + ROOT.length();
+            if (nameEnd >= limit || !new String(buffer, tagStart + 1, ROOT.length()).equals(ROOT)) {
+                return false;
+            }
+            char c = buffer[nameEnd];
+            return c == '>' || Character.isWhitespace(c);
+        }
+
+        /**
+         * Returns a reader for the whole input, if it cannot be split.
+         * @return a reader for the whole input
+         */
+        Reader getUnsplitInput() {
+            if (limit == 0) {
+                return input;
+            }
+            PushbackReader reader = new PushbackReader(input, limit);
+            try {
+                reader.unread(buffer, 0, limit);
+            } catch (IOException e) {
+                // cannot happen, the pushback buffer is large enough
+                throw new IllegalStateException(e);
+            }
+            return reader;
+        }
+
+        /**
+         * Reads the next chunk of the input.
+         * @return the next chunk, or {@code null} if the whole input has been read
+         * @throws IOException if the input cannot be read
+         */
+        Chunk nextChunk() throws IOException {
+            if (finished) {
+                return null;
+            }
+            long inputOffset = bufferOffset + pos;
+            int inputLine = line;
+            int inputColumn = (int) (inputOffset - lineStart) + 1;
+            char[] text = Arrays.copyOf(header, header.length + chunkSize + ROOT_END.length);
+            int length = header.length;
+            boolean complete = false;
+            while (!complete) {
+                if (pos == limit) {
+                    bufferOffset += limit;
+                    pos = 0;
+                    limit = Math.max(0, input.read(buffer));
+                    if (limit == 0) {
+                        finished = true;
+                        break;
+                    }
+                }
+                int from = pos;
+                int i = pos;
+                while (i < limit) {
+                    char c = buffer[i++];
+                    if (c == '\n') {
+                        line++;
+                        lineStart = bufferOffset + i;
+                    }
+                    int event = scan(c);
+                    if (event == START) {
+                        depth++;
+                    } else if (event == END || event == EMPTY) {
+                        if (event == END && --depth == 0) {
+                            // the rest of the input is parsed with the last chunk
+                            rootClosed = true;
+                        } else if (depth == 1 && !rootClosed && length + i - from >= chunkSize) {
+                            complete = true;
+                            break;
+                        }
+                    }
+                }
+                if (text.length < length + i - from + ROOT_END.length) {
+                    text = Arrays.copyOf(text, Math.max(2 * text.length, length + i - from + ROOT_END.length));
+                }
+                System.arraycopy(buffer, from, text, length, i - from);
+                length += i - from;
+                pos = i;
+            }
+            if (!finished) {
+                System.arraycopy(ROOT_END, 0, text, length, ROOT_END.length);
+                length += ROOT_END.length;
+            }
+            return new Chunk(text, length, header.length, inputOffset, inputLine, inputColumn);
+        }
+
+        /**
+         * Advances the lexical state by one character.
+         * @param c the next character
+         * @return the event completed by this character
+         */
+        private int scan(char c) {
+            switch (state) {
+            case TEXT:
+                if (c == '<') {
+                    state = MARKUP;
+                }
+                return NONE;
+            case MARKUP:
+                if (c == '/') {
+                    state = END_TAG;
+                } else if (c == '!') {
+                    state = DECLARATION;
+                } else if (c == '?') {
+                    state = PROCESSING_INSTRUCTION;
+                    last = c;
+                } else {
+                    state = START_TAG;
+                    last = c;
+                }
+                return NONE;
+            case START_TAG:
+                if (c == '"' || c == '\'') {
+                    state = ATTRIBUTE_VALUE;
+                    quote = c;
+                } else if (c == '>') {
+                    state = TEXT;
+                    return last == '/' ? EMPTY : START;
+                } else {
+                    last = c;
+                }
+                return NONE;
+            case ATTRIBUTE_VALUE:
+                if (c == quote) {
+                    state = START_TAG;
+                    last = c;
+                }
+                return NONE;
+            case END_TAG:
+                if (c == '>') {
+                    state = TEXT;
+                    return END;
+                }
+                return NONE;
+            case DECLARATION:
+                repeat = 0;
+                if (c == '-') {
+                    state = COMMENT;
+                } else if (c == '[') {
+                    state = CDATA;
+                } else {
+                    state = DOCTYPE;
+                    return DOCTYPE_START;
+                }
+                return NONE;
+            case COMMENT:
+                return endOfSection(c, '-');
+            case CDATA:
+                return endOfSection(c, ']');
+            case PROCESSING_INSTRUCTION:
+                if (c == '>' && last == '?') {
+                    state = TEXT;
+                } else {
+                    last = c;
+                }
+                return NONE;
+            default:
+                if (c == '>') {
+                    state = TEXT;
+                }
+                return NONE;
+            }
+        }
+
+        private int endOfSection(char c, char end) {
+            if (c == '>' && repeat >= 2) {
+                state = TEXT;
+            } else {
+                repeat = c == end ? repeat + 1 : 0;
+            }
+            return NONE;
+        }
+    }
+}
@@ -0,0 +1,266 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import static org.openstreetmap.josm.tools.I18n.tr;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Decoder for messages in the <a href="https://developers.google.com/protocol-buffers/docs/encoding">protocol buffers
+ * wire format</a>, reading the fields of a message one after the other from a byte array.
+ * <p>
+ * Typical usage, for each message type:
+ * <pre>
+ * while (in.hasRemaining()) {
+ *     switch (in.readField()) {
+ *     case 1: id = in.readSInt64(); break;
+ *     default: in.skipField();
+ *     }
+ * }
+ * </pre>
+ * @since xxx
+ */
+final class ProtobufInput {
+
+    /** Wire type of int32, int64, uint32, uint64, sint32, sint64, bool and enum values */
+    static final int VARINT = 0;
+    /** Wire type of fixed64, sfixed64 and double values */
+    static final int FIXED64 = 1;
+    /** Wire type of strings, bytes, embedded messages and packed repeated fields */
+    static final int LENGTH_DELIMITED = 2;
+    /** Wire type of fixed32, sfixed32 and float values */
+    static final int FIXED32 = 5;
+
+    private static final long[] EMPTY = new long[0];
+
+    private final byte[] buf;
+    private final int limit;
+    private int pos;
+    private int wireType = -1;
+
+    /**
+     * Constructs a new {@code ProtobufInput} reading a whole array.
+     * @param buf the encoded message
+     */
+    ProtobufInput(byte[] buf) {
+        this(buf, 0, buf.length);
+    }
+
+    private ProtobufInput(byte[] buf, int offset, int length) {
+        this.buf = buf;
+        this.pos = offset;
+        this.limit = offset + length;
+    }
+
+    /**
+     * Determines if there are more fields to read.
+     * @return {@code true} if the end of the message is not reached
+     */
+    boolean hasRemaining() {
+        return pos < limit;
+    }
+
+    /**
+     * Reads the key of the next field. Its value must then be read by the method matching its type, or skipped.
+     * @return the field number
+     * @throws IllegalDataException if the key is malformed
+     */
+    int readField() throws IllegalDataException {
+        long key = readVarint();
+        if (key >>> 3 == 0 || key >>> 3 > Integer.MAX_VALUE) {
+            throw new IllegalDataException(tr("Illegal field key {0} in protocol buffer.", key));
+        }
+        wireType = (int) key & 7;
+        return (int) (key >>> 3);
+    }
+
+    /**
+     * Skips the value of the current field.
+     * @throws IllegalDataException if the value is truncated or of an unsupported wire type
+     */
+    void skipField() throws IllegalDataException {
+        switch (wireType) {
+        case VARINT:
+            readVarint();
+            break;
+        case FIXED64:
+            advance(8);
+            break;
+        case LENGTH_DELIMITED:
+            advance(readLength());
+            break;
+        case FIXED32:
+            advance(4);
+            break;
+        default:
+            throw new IllegalDataException(tr("Unsupported wire type {0} in protocol buffer.", wireType));
+        }
+    }
+
+    private void expect(int expected) throws IllegalDataException {
+        if (wireType != expected) {
+            throw new IllegalDataException(tr("Unexpected wire type {0} in protocol buffer, expected {1}.", wireType, expected));
+        }
+    }
+
+    private void advance(int length) throws IllegalDataException {
+        if (length > limit - pos) {
+            throw new IllegalDataException(tr("Truncated protocol buffer."));
+        }
+        pos += length;
+    }
+
+    private long readVarint() throws IllegalDataException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (pos >= limit) {
+                throw new IllegalDataException(tr("Truncated protocol buffer."));
+            }
+            byte b = buf[pos++];
+            result |= (long) (b & 0x7f) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw new IllegalDataException(tr("Malformed varint in protocol buffer."));
+    }
+
+    private int readLength() throws IllegalDataException {
+        long length = readVarint();
+        if (length < 0 || length > limit - pos) {
+            throw new IllegalDataException(tr("Truncated protocol buffer."));
+        }
+        return (int) length;
+    }
+
+    /**
+     * Decodes a zigzag encoded value, as used by {@code sint32} and {@code sint64}.
+     * @param value the encoded value
+     * @return the decoded value
+     */
+    static long decodeZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Reads an {@code int64}, {@code uint64} or {@code uint32} value of the current field.
+     * @return the value
+     * @throws IllegalDataException if the value is malformed
+     */
+    long readInt64() throws IllegalDataException {
+        expect(VARINT);
+        return readVarint();
+    }
+
+    /**
+     * Reads an {@code int32}, {@code uint32} or {@code enum} value of the current field.
+     * @return the value
+     * @throws IllegalDataException if the value is malformed
+     */
+    int readInt32() throws IllegalDataException {
+        return (int) readInt64();
+    }
+
+    /**
+     * Reads a {@code sint64} or {@code sint32} value of the current field.
+     * @return the value
+     * @throws IllegalDataException if the value is malformed
+     */
+    long readSInt64() throws IllegalDataException {
+        return decodeZigZag(readInt64());
+    }
+
+    /**
+     * Reads a {@code bool} value of the current field.
+     * @return the value
+     * @throws IllegalDataException if the value is malformed
+     */
+    boolean readBool() throws IllegalDataException {
+        return readInt64() != 0;
+    }
+
+    /**
+     * Reads a {@code string} value of the current field.
+     * @return the value
+     * @throws IllegalDataException if the value is malformed
+     */
+    String readString() throws IllegalDataException {
+        expect(LENGTH_DELIMITED);
+        int length = readLength();
+        String s = new String(buf, pos, length, StandardCharsets.UTF_8);
+        pos += length;
+        return s;
+    }
+
+    /**
+     * Reads a {@code bytes} value of the current field.
+     * @return the value
+     * @throws IllegalDataException if the value is malformed
+     */
+    byte[] readBytes() throws IllegalDataException {
+        expect(LENGTH_DELIMITED);
+        int length = readLength();
+        byte[] bytes = new byte[length];
+        System.arraycopy(buf, pos, bytes, 0, length);
+        pos += length;
+        return bytes;
+    }
+
+    /**
+     * Reads an embedded message of the current field. The returned decoder shares the array of this one.
+     * @return decoder of the embedded message
+     * @throws IllegalDataException if the value is malformed
+     */
+    ProtobufInput readMessage() throws IllegalDataException {
+        expect(LENGTH_DELIMITED);
+        int length = readLength();
+        ProtobufInput message = new ProtobufInput(buf, pos, length);
+        pos += length;
+        return message;
+    }
+
+    /**
+     * Reads the raw values of a repeated varint field, and appends them to the given ones.
+     * Values are usually packed, then the array is allocated once with the exact number of values.
+     * Unpacked values are accepted as well, since parsers have to accept both encodings.
+     * @param values the values read so far for this field
+     * @return the values read so far, followed by the new ones
+     * @throws IllegalDataException if the values are malformed
+     */
+    long[] readRepeatedVarints(long[] values) throws IllegalDataException {
+        if (wireType == VARINT) {
+            long[] result = new long[values.length + 1];
+            System.arraycopy(values, 0, result, 0, values.length);
+            result[values.length] = readVarint();
+            return result;
+        }
+        expect(LENGTH_DELIMITED);
+        int end = readLength() + pos;
+        // each varint ends with a byte without continuation bit
+        int count = 0;
+        for (int i = pos; i < end; i++) {
+            if (buf[i] >= 0) {
+                count++;
+            }
+        }
+        long[] result = new long[values.length + count];
+        System.arraycopy(values, 0, result, 0, values.length);
+        ProtobufInput packed = new ProtobufInput(buf, pos, end - pos);
+        for (int i = values.length; i < result.length; i++) {
+            result[i] = packed.readVarint();
+        }
+        if (packed.hasRemaining()) {
+            throw new IllegalDataException(tr("Truncated protocol buffer."));
+        }
+        pos = end;
+        return result;
+    }
+
+    /**
+     * Returns an empty array, to start reading a repeated field with {@link #readRepeatedVarints}.
+     * @return an empty array
+     */
+    static long[] noValues() {
+        return EMPTY;
+    }
+}
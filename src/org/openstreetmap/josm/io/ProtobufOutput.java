@@ -0,0 +1,138 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Encoder for messages in the <a href="https://developers.google.com/protocol-buffers/docs/encoding">protocol buffers
+ * wire format</a>, writing the fields of a message into a growing byte array. Embedded messages and packed fields
+ * are encoded into a separate {@code ProtobufOutput} first, then written with {@link #writeMessage}.
+ * @see ProtobufInput
+ * @since xxx
+ */
+final class ProtobufOutput {
+
+    private byte[] buf = new byte[256];
+    private int size;
+
+    private void ensureCapacity(int additional) {
+        if (size + additional > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, size + additional));
+        }
+    }
+
+    private void writeKey(int field, int wireType) {
+        writeVarint((long) field << 3 | wireType);
+    }
+
+    /**
+     * Writes a raw varint, without key. Used for the values of packed fields.
+     * @param value the value
+     */
+    void writeVarint(long value) {
+        ensureCapacity(10);
+        long v = value;
+        while ((v & ~0x7fL) != 0) {
+            buf[size++] = (byte) ((v & 0x7f) | 0x80);
+            v >>>= 7;
+        }
+        buf[size++] = (byte) v;
+    }
+
+    /**
+     * Encodes a value with zigzag encoding, as used by {@code sint32} and {@code sint64}.
+     * @param value the value
+     * @return the encoded value
+     */
+    static long encodeZigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * Writes an {@code int32}, {@code int64}, {@code uint32}, {@code uint64}, {@code bool} or {@code enum} field.
+     * @param field the field number
+     * @param value the value
+     */
+    void writeInt64(int field, long value) {
+        writeKey(field, ProtobufInput.VARINT);
+        writeVarint(value);
+    }
+
+    /**
+     * Writes a {@code sint32} or {@code sint64} field.
+     * @param field the field number
+     * @param value the value
+     */
+    void writeSInt64(int field, long value) {
+        writeInt64(field, encodeZigZag(value));
+    }
+
+    /**
+     * Writes a {@code bytes} field.
+     * @param field the field number
+     * @param bytes the array containing the value
+     * @param offset the start of the value in {@code bytes}
+     * @param length the length of the value
+     */
+    void writeBytes(int field, byte[] bytes, int offset, int length) {
+        writeKey(field, ProtobufInput.LENGTH_DELIMITED);
+        writeVarint(length);
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, buf, size, length);
+        size += length;
+    }
+
+    /**
+     * Writes a {@code string} field.
+     * @param field the field number
+     * @param value the value
+     */
+    void writeString(int field, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeBytes(field, bytes, 0, bytes.length);
+    }
+
+    /**
+     * Writes an embedded message or packed field.
+     * @param field the field number
+     * @param message the encoded message or packed values
+     */
+    void writeMessage(int field, ProtobufOutput message) {
+        writeBytes(field, message.buf, 0, message.size);
+    }
+
+    /**
+     * Returns the number of bytes written.
+     * @return the number of bytes written
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the array containing the bytes written. Only the first {@link #size()} bytes are valid.
+     * @return the array of this encoder, not a copy
+     */
+    byte[] getBuffer() {
+        return buf;
+    }
+
+    /**
+     * Writes the bytes written so far to the given stream.
+     * @param out the stream
+     * @throws IOException if an I/O error occurs
+     */
+    void writeTo(OutputStream out) throws IOException {
+        out.write(buf, 0, size);
+    }
+
+    /**
+     * Discards the bytes written so far, keeping the allocated array for reuse.
+     */
+    void reset() {
+        size = 0;
+    }
+}
@@ -1,17 +1,32 @@
 // License: GPL. For details, see LICENSE file.
 package org.openstreetmap.josm.plugins;
 
+import java.io.IOException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.util.Collections;
+import java.util.Enumeration;
 
 /**
  * ClassLoader that makes the {@link #addURL} method of {@link URLClassLoader} public.
  *
  * Like URLClassLoader, but allows to add more URLs after construction.
+ * <p>
+ * When all URLs are local jar files, classes and resources are looked up in the {@link JarIndex} of the jar files
+ * first, so that only the jar file containing them is searched, and missing ones are reported without searching.
  * @since 14234 (extracted from PluginHandler)
  */
 public class DynamicURLClassLoader extends URLClassLoader {
 
+    private static final JarIndex[] NOT_INDEXED = new JarIndex[0];
+
+    private final Object indexLock = new Object();
+    private volatile JarIndex[] indexes;
+
+    static {
+        ClassLoader.registerAsParallelCapable();
+    }
+
     /**
      * Constructs a new {@code DynamicURLClassLoader}.
      * @param urls the URLs from which to load classes and resources
@@ -23,6 +38,77 @@ public class DynamicURLClassLoader extends URLClassLoader {
 
     @Override
     public void addURL(URL url) {
-        super.addURL(url);
+        synchronized (indexLock) {
+            super.addURL(url);
+            indexes = null;
+        }
+    }
+
+    /**
+     * Returns the indexes of the jar files of this class loader.
+     * @return the indexes of the jar files in class path order, or an empty array if they cannot be used
+     */
+    private JarIndex[] getIndexes() {
+        JarIndex[] result = indexes;
+        if (result == null) {
+            synchronized (indexLock) {
+                result = indexes;
+                if (result == null) {
+                    result = JarIndex.getAll(getURLs());
+                    if (result == null) {
+                        result = NOT_INDEXED;
+                    }
+                    indexes = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Determines if a class or resource can be found in the jar files of this class loader.
+     * @param name the name of the class file or resource
+     * @return {@code false} if the jar files are indexed and none of them contains the class or resource
+     */
+    private boolean mayContain(String name) {
+        JarIndex[] result = getIndexes();
+        if (result.length == 0) {
+            return true;
+        }
+        for (JarIndex index : result) {
+            if (index.contains(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        if (!mayContain(name.replace('.', '/').concat(".class"))) {
+            throw new ClassNotFoundException(name);
+        }
+        return super.findClass(name);
+    }
+
+    @Override
+    public URL findResource(String name) {
+        for (JarIndex index : getIndexes()) {
+            if (index.contains(name)) {
+                URL url = index.getResource(name);
+                return url != null ? url : super.findResource(name);
+            }
+        }
+        // names not in the indexes, such as the empty name of the jar roots, are resolved by the class loader
+        return super.findResource(name);
+    }
+
+    @Override
+    public Enumeration<URL> findResources(String name) throws IOException {
+        // the indexes do not contain the jar roots
+        if (!name.isEmpty() && !mayContain(name)) {
+            return Collections.emptyEnumeration();
+        }
+        return super.findResources(name);
     }
 }
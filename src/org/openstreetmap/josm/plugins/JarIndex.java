@@ -0,0 +1,319 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.plugins;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.CRC32;
+
+import org.openstreetmap.josm.spi.preferences.Config;
+import org.openstreetmap.josm.tools.Logging;
+import org.openstreetmap.josm.tools.Utils;
+
+/**
+ * The names of the entries of a jar file, used by {@link DynamicURLClassLoader} to find the jar file containing a
+ * class or resource without opening and searching every jar file of its class path.
+ * <p>
+ * Indexes are stored in binary files of the cache directory, together with the size, modification time and
+ * checksum of the jar file. A cache file is used as long as the size and modification time of the jar file are
+ * unchanged, or as its checksum is unchanged; it is rebuilt otherwise.
+ * @since xxx
+ */
+final class JarIndex {
+
+    /** The magic number at the beginning of the cache files */
+    private static final int MAGIC = 0x4a504958;
+    /** The version of the format of the cache files, to be increased on each change of the format */
+    private static final int VERSION = 1;
+    /** The directory of the versioned entries of multi-release jar files */
+    private static final String VERSIONS_DIRECTORY = "META-INF/versions/";
+
+    private static final Map<String, Optional<JarIndex>> INDEXES = new ConcurrentHashMap<>();
+
+    private final URL url;
+    private final List<String> classPath;
+    private final Set<String> entries;
+
+    private JarIndex(URL url, List<String> classPath, Set<String> entries) {
+        this.url = url;
+        this.classPath = classPath;
+        this.entries = entries;
+    }
+
+    /**
+     * Determines if the jar files are indexed, see preference {@code pluginmanager.class-index}.
+     * @return {@code true} if the jar files are indexed
+     */
+    static boolean isEnabled() {
+        return Config.getPref() == null || Config.getPref().getBoolean("pluginmanager.class-index", true);
+    }
+
+    /**
+     * Returns the index of a jar file.
+     * @param url the URL of the jar file
+     * @return the index of the jar file, or {@code null} if the URL does not denote a local jar file which can be indexed
+     */
+    static JarIndex get(URL url) {
+        if (!"file".equals(url.getProtocol()) || !url.getPath().toLowerCase(Locale.ENGLISH).endsWith(".jar")) {
+            return null;
+        }
+        File jar;
+        try {
+            jar = new File(url.toURI());
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            Logging.trace(e);
+            return null;
+        }
+        if (!jar.isFile()) {
+            return null;
+        }
+        String key = jar.getPath() + '|' + jar.length() + '|' + jar.lastModified();
+        Optional<JarIndex> index = INDEXES.get(key);
+        if (index == null) {
+            index = Optional.ofNullable(load(url, jar));
+            Optional<JarIndex> previous = INDEXES.putIfAbsent(key, index);
+            if (previous != null) {
+                index = previous;
+            }
+        }
+        return index.orElse(null);
+    }
+
+    /**
+     * Returns the indexes of the jar files of a class path.
+     * @param urls the class path
+     * @return the indexes of the jar files in class path order, or {@code null} if a class or resource could be found
+     * outside of the indexed jar files, i.e. if an URL is not an indexed jar file or if a jar file refers to a library
+     * which is not part of the class path
+     */
+    static JarIndex[] getAll(URL... urls) {
+        if (urls.length == 0 || !isEnabled()) {
+            return null;
+        }
+        JarIndex[] indexes = new JarIndex[urls.length];
+        Set<String> classPath = new HashSet<>();
+        for (int i = 0; i < urls.length; i++) {
+            indexes[i] = get(urls[i]);
+            if (indexes[i] == null) {
+                return null;
+            }
+            classPath.add(urls[i].toExternalForm());
+        }
+        for (JarIndex index : indexes) {
+            for (String library : index.classPath) {
+                try {
+                    if (!classPath.contains(new URL(index.url, library).toExternalForm())) {
+                        return null;
+                    }
+                } catch (MalformedURLException e) {
+                    Logging.trace(e);
+                    return null;
+                }
+            }
+        }
+        return indexes;
+    }
+
+    /**
+     * Determines if the jar file contains an entry.
+     * @param name the name of a class file or resource, such as {@code org/openstreetmap/josm/Foo.class}
+     * @return {@code true} if the jar file contains an entry or directory with this name
+     */
+    boolean contains(String name) {
+        return entries.contains(name) || entries.contains(name + '/');
+    }
+
+    /**
+     * Returns the URL of an entry of the jar file, like {@link java.net.URLClassLoader#findResource}.
+     * @param name the name of the entry
+     * @return the URL of the entry, or {@code null} if it cannot be built
+     */
+    URL getResource(String name) {
+        try {
+            return new URL(new URL("jar:" + url.toExternalForm() + "!/"), new URI(null, null, name, null).getRawPath());
+        } catch (MalformedURLException | URISyntaxException e) {
+            Logging.trace(e);
+            return null;
+        }
+    }
+
+    private static File getCacheFile(File jar) {
+        if (Config.getDirs() == null) {
+            return null;
+        }
+        return new File(new File(Config.getDirs().getCacheDirectory(true), "plugin-index"),
+                jar.getName() + '.' + Integer.toHexString(jar.getAbsolutePath().hashCode()) + ".idx");
+    }
+
+    private static JarIndex load(URL url, File jar) {
+        File cache = getCacheFile(jar);
+        long length = jar.length();
+        long lastModified = jar.lastModified();
+        Long checksum = null;
+        if (cache != null && cache.isFile()) {
+            try (InputStream is = Files.newInputStream(cache.toPath());
+                 DataInputStream in = new DataInputStream(new BufferedInputStream(is))) {
+                if (in.readInt() == MAGIC && in.readInt() == VERSION) {
+                    long cachedLength = in.readLong();
+                    long cachedLastModified = in.readLong();
+                    long cachedChecksum = in.readLong();
+                    boolean unchanged = cachedLength == length && cachedLastModified == lastModified;
+                    if (!unchanged && cachedLength == length) {
+                        checksum = getChecksum(jar);
+                        unchanged = checksum == cachedChecksum;
+                    }
+                    if (unchanged) {
+                        JarIndex index = new JarIndex(url, Collections.unmodifiableList(readStrings(in, new ArrayList<>())),
+                                readStrings(in, new HashSet<>()));
+                        if (cachedLastModified != lastModified) {
+                            write(cache, index, length, lastModified, cachedChecksum);
+                        }
+                        return index;
+                    }
+                }
+                Logging.debug("Outdated plugin index {0}", cache);
+            } catch (IOException | InvalidPathException e) {
+                Logging.log(Logging.LEVEL_WARN, "Unable to read plugin index " + cache, e);
+            }
+        }
+        JarIndex index = build(url, jar);
+        if (index != null && cache != null) {
+            try {
+                write(cache, index, length, lastModified, checksum != null ? checksum : getChecksum(jar));
+            } catch (IOException e) {
+                Logging.log(Logging.LEVEL_WARN, "Unable to compute checksum of " + jar, e);
+            }
+        }
+        return index;
+    }
+
+    private static <T extends Collection<String>> T readStrings(DataInputStream in, T strings) throws IOException {
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            strings.add(in.readUTF());
+        }
+        return strings;
+    }
+
+    private static JarIndex build(URL url, File jar) {
+        try (JarFile jarFile = new JarFile(jar, false)) {
+            if (jarFile.getEntry("META-INF/INDEX.LIST") != null) {
+                // The class path is extended by the jar index, let the class loader handle it
+                return null;
+            }
+            List<String> classPath = new ArrayList<>();
+            boolean multiRelease = false;
+            Manifest manifest = jarFile.getManifest();
+            if (manifest != null) {
+                String value = manifest.getMainAttributes().getValue(Attributes.Name.CLASS_PATH);
+                if (value != null) {
+                    for (StringTokenizer st = new StringTokenizer(value); st.hasMoreTokens();) {
+                        classPath.add(st.nextToken());
+                    }
+                }
+                multiRelease = "true".equalsIgnoreCase(manifest.getMainAttributes().getValue("Multi-Release"));
+            }
+            Set<String> entries = new HashSet<>();
+            for (Enumeration<JarEntry> e = jarFile.entries(); e.hasMoreElements();) {
+                String name = e.nextElement().getName();
+                entries.add(name);
+                if (multiRelease && name.startsWith(VERSIONS_DIRECTORY)) {
+                    int index = name.indexOf('/', VERSIONS_DIRECTORY.length());
+                    if (index > 0 && index < name.length() - 1) {
+                        entries.add(name.substring(index + 1));
+                    }
+                }
+            }
+            return new JarIndex(url, Collections.unmodifiableList(classPath), entries);
+        } catch (IOException | SecurityException e) {
+            Logging.log(Logging.LEVEL_WARN, "Unable to index " + jar, e);
+            return null;
+        }
+    }
+
+    private static void write(File cache, JarIndex index, long length, long lastModified, long checksum) {
+        Path tmp = null;
+        try {
+            if (!cache.getParentFile().isDirectory()) {
+                Utils.mkDirs(cache.getParentFile());
+            }
+            // a unique temporary file, since several instances of JOSM may write the index at the same time
+            tmp = Files.createTempFile(cache.getParentFile().toPath(), cache.getName(), ".tmp");
+            try (OutputStream os = Files.newOutputStream(tmp);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(length);
+                out.writeLong(lastModified);
+                out.writeLong(checksum);
+                writeStrings(out, index.classPath);
+                writeStrings(out, index.entries);
+            }
+            try {
+                Files.move(tmp, cache.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Logging.trace(e);
+                Files.move(tmp, cache.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | InvalidPathException e) {
+            Logging.log(Logging.LEVEL_WARN, "Unable to write plugin index " + cache, e);
+            if (tmp != null) {
+                Utils.deleteFile(tmp.toFile());
+            }
+        }
+    }
+
+    private static void writeStrings(DataOutputStream out, Collection<String> strings) throws IOException {
+        out.writeInt(strings.size());
+        for (String s : strings) {
+            out.writeUTF(s);
+        }
+    }
+
+    private static long getChecksum(File jar) throws IOException {
+        CRC32 crc = new CRC32();
+        try (InputStream in = Files.newInputStream(jar.toPath())) {
+            byte[] buffer = new byte[65536];
+            int n;
+            while ((n = in.read(buffer)) >= 0) {
+                crc.update(buffer, 0, n);
+            }
+        }
+        return crc.getValue();
+    }
+
+    @Override
+    public String toString() {
+        return "JarIndex [url=" + url + ", entries=" + entries.size() + ']';
+    }
+}
@@ -35,6 +35,9 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
 import java.util.jar.JarFile;
@@ -73,6 +76,7 @@ import org.openstreetmap.josm.tools.Destroyable;
 import org.openstreetmap.josm.tools.GBC;
 import org.openstreetmap.josm.tools.I18n;
 import org.openstreetmap.josm.tools.ImageProvider;
+import org.openstreetmap.josm.tools.JosmRuntimeException;
 import org.openstreetmap.josm.tools.Logging;
 import org.openstreetmap.josm.tools.ResourceProvider;
 import org.openstreetmap.josm.tools.SubclassFilteredCollection;
@@ -834,6 +838,9 @@ public final class PluginHandler {
 
     /**
      * Loads the plugin in <code>plugins</code> from locally available jar files into memory.
+     * <p>
+     * If {@link #isParallelLoadingEnabled() parallel loading} is enabled, the plugin classes are read concurrently
+     * before the plugins are instantiated one after the other.
      *
      * @param parent The parent component to be used for the displayed dialog
      * @param plugins the list of plugins
@@ -894,6 +901,10 @@ public final class PluginHandler {
 
             extendJoinedPluginResourceCL(toLoad);
             ResourceProvider.addAdditionalClassLoaders(getResourceClassLoaders());
+            if (isParallelLoadingEnabled()) {
+                monitor.subTask(tr("Reading plugin classes..."));
+                preloadPluginClasses(toLoad);
+            }
             monitor.setTicksCount(toLoad.size());
             for (PluginInformation info : toLoad) {
                 monitor.setExtraText(tr("Loading plugin ''{0}''...", info.name));
@@ -905,6 +916,66 @@ public final class PluginHandler {
         }
     }
 
+    /**
+     * Loads the main classes of the plugins concurrently, without initializing them, so that the plugin jar files
+     * are opened, verified and indexed in parallel. The plugins are then instantiated one after the other by
+     * {@link #loadPlugin}, in stage order, once the class loaders of their dependencies are set up.
+     *
+     * @param plugins the plugins
+     */
+    private static void preloadPluginClasses(Collection<PluginInformation> plugins) {
+        List<Runnable> tasks = new ArrayList<>(plugins.size());
+        for (PluginInformation info : plugins) {
+            PluginClassLoader cl = classLoaders.get(info.name);
+            if (info.className != null && cl != null) {
+                tasks.add(() -> {
+                    try {
+                        Class.forName(info.className, false, cl);
+                    } catch (ClassNotFoundException | LinkageError e) {
+                        // Reported when the plugin is loaded
+                        Logging.trace(e);
+                    }
+                });
+            }
+        }
+        runConcurrently("plugin-loader-%d", tasks);
+    }
+
+    /**
+     * Determines if plugins are read and loaded concurrently, see preference {@code pluginmanager.parallel-loading}.
+     * @return {@code true} if plugins are read and loaded concurrently
+     */
+    static boolean isParallelLoadingEnabled() {
+        return Config.getPref().getBoolean("pluginmanager.parallel-loading", false);
+    }
+
+    /**
+     * Runs tasks concurrently if {@link #isParallelLoadingEnabled() parallel loading} is enabled, one after the other
+     * otherwise, and waits for their completion.
+     * @param nameFormat the name format of the threads, see {@link Utils#newThreadFactory}
+     * @param tasks the tasks, which should handle their exceptions
+     */
+    static void runConcurrently(String nameFormat, Collection<Runnable> tasks) {
+        int threads = Math.min(tasks.size(), Runtime.getRuntime().availableProcessors());
+        if (threads < 2 || !isParallelLoadingEnabled()) {
+            tasks.forEach(Runnable::run);
+            return;
+        }
+        ExecutorService service = Executors.newFixedThreadPool(threads, Utils.newThreadFactory(nameFormat, Thread.NORM_PRIORITY));
+        try {
+            for (Future<Object> future : service.invokeAll(tasks.stream().map(Executors::callable).collect(Collectors.toList()))) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Logging.warn(e);
+        } catch (ExecutionException e) {
+            throw new JosmRuntimeException(e.getCause());
+        } finally {
+            service.shutdown();
+        }
+    }
+
     private static boolean isDependency(PluginInformation pi, String depName) {
         return depName.equals(pi.getName()) || depName.equals(pi.provides);
     }
@@ -14,6 +14,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.openstreetmap.josm.gui.PleaseWaitRunnable;
 import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
@@ -38,6 +39,8 @@ import org.xml.sax.SAXException;
  */
 public class ReadLocalPluginInformationTask extends PleaseWaitRunnable {
     private final Map<String, PluginInformation> availablePlugins;
+    /** plugin information read concurrently from the jar files, before they are processed */
+    private final Map<File, PluginInformation> preloadedJars = new ConcurrentHashMap<>();
     private boolean canceled;
 
     /**
@@ -68,10 +71,13 @@ public class ReadLocalPluginInformationTask extends PleaseWaitRunnable {
     }
 
     protected void processJarFile(File f, String pluginName) throws PluginException {
-        PluginInformation info = new PluginInformation(
-                f,
-                pluginName
-        );
+        PluginInformation info = preloadedJars.remove(f);
+        if (info == null) {
+            info = new PluginInformation(
+                    f,
+                    pluginName
+            );
+        }
         if (!availablePlugins.containsKey(info.getName())) {
             info.updateLocalInfo(info);
             availablePlugins.put(info.getName(), info);
@@ -112,23 +118,52 @@ public class ReadLocalPluginInformationTask extends PleaseWaitRunnable {
             return;
         monitor.subTask(tr("Processing plugin files..."));
         monitor.setTicksCount(pluginFiles.length);
-        for (File f: pluginFiles) {
-            String fname = f.getName();
-            monitor.setCustomText(tr("Processing file ''{0}''", fname));
-            try {
-                if (fname.endsWith(".jar")) {
-                    String pluginName = fname.substring(0, fname.length() - 4);
-                    processJarFile(f, pluginName);
-                } else if (fname.endsWith(".jar.new")) {
-                    String pluginName = fname.substring(0, fname.length() - 8);
-                    processJarFile(f, pluginName);
+        if (PluginHandler.isParallelLoadingEnabled()) {
+            preloadJarFiles(pluginFiles);
+        }
+        try {
+            for (File f: pluginFiles) {
+                String fname = f.getName();
+                monitor.setCustomText(tr("Processing file ''{0}''", fname));
+                try {
+                    if (fname.endsWith(".jar")) {
+                        String pluginName = fname.substring(0, fname.length() - 4);
+                        processJarFile(f, pluginName);
+                    } else if (fname.endsWith(".jar.new")) {
+                        String pluginName = fname.substring(0, fname.length() - 8);
+                        processJarFile(f, pluginName);
+                    }
+                } catch (PluginException e) {
+                    Logging.log(Logging.LEVEL_WARN, "PluginException: ", e);
+                    Logging.warn(tr("Failed to scan file ''{0}'' for plugin information. Skipping.", fname));
                 }
-            } catch (PluginException e) {
-                Logging.log(Logging.LEVEL_WARN, "PluginException: ", e);
-                Logging.warn(tr("Failed to scan file ''{0}'' for plugin information. Skipping.", fname));
+                monitor.worked(1);
             }
-            monitor.worked(1);
+        } finally {
+            preloadedJars.clear();
+        }
+    }
+
+    /**
+     * Reads the manifests of the given plugin files concurrently. {@link #processJarFile} then uses the information
+     * read for its file, or reads the file again if it failed.
+     * @param pluginFiles the plugin files
+     */
+    private void preloadJarFiles(File[] pluginFiles) {
+        List<Runnable> tasks = new ArrayList<>(pluginFiles.length);
+        for (File f : pluginFiles) {
+            String fname = f.getName();
+            String pluginName = fname.substring(0, fname.length() - (fname.endsWith(".jar") ? 4 : 8));
+            tasks.add(() -> {
+                try {
+                    preloadedJars.put(f, new PluginInformation(f, pluginName));
+                } catch (PluginException e) {
+                    // Reported when the file is processed
+                    Logging.trace(e);
+                }
+            });
         }
+        PluginHandler.runConcurrently("plugin-reader-%d", tasks);
     }
 
     protected void scanLocalPluginRepository(ProgressMonitor progressMonitor, File pluginsDirectory) {
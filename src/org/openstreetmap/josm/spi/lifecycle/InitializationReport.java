@@ -0,0 +1,135 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.spi.lifecycle;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Timing report of an initialization sequence.
+ * <p>
+ * The report lists the wall and CPU times of the {@link InitializationTask}s, and their critical path: the chain of
+ * tasks, each waiting for the previous one, which determined the total initialization time. Tasks run before or
+ * after the parallel tasks wait for the previous task of their phase, parallel tasks wait for their prerequisites.
+ * @see Lifecycle#getInitializationReport()
+ * @since xxx
+ */
+public final class InitializationReport {
+
+    private final long startTime;
+    private final long endTime;
+    private final List<InitializationTask> tasks = new ArrayList<>();
+    private final Map<InitializationTask, List<InitializationTask>> predecessors = new IdentityHashMap<>();
+
+    /**
+     * Constructs a new {@code InitializationReport}.
+     * @param startTime the value of {@link System#nanoTime} at the start of the initialization
+     * @param endTime the value of {@link System#nanoTime} at the end of the initialization
+     * @param before the tasks run before the parallel tasks
+     * @param parallel the parallel tasks
+     * @param after the tasks run after the parallel tasks
+     */
+    InitializationReport(long startTime, long endTime, List<InitializationTask> before, Collection<InitializationTask> parallel,
+            List<InitializationTask> after) {
+        this.startTime = startTime;
+        this.endTime = endTime;
+        InitializationTask previous = null;
+        for (InitializationTask t : before) {
+            add(t, previous == null ? Collections.emptyList() : Collections.singletonList(previous));
+            previous = t;
+        }
+        Set<InitializationTask> parallelSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        parallelSet.addAll(parallel);
+        for (InitializationTask t : parallel) {
+            List<InitializationTask> list = t.getPrerequisites().stream().filter(parallelSet::contains).collect(Collectors.toList());
+            if (previous != null) {
+                list.add(previous);
+            }
+            add(t, list);
+        }
+        List<InitializationTask> barrier = new ArrayList<>(parallel);
+        if (previous != null) {
+            barrier.add(previous);
+        }
+        for (InitializationTask t : after) {
+            add(t, barrier);
+            barrier = Collections.singletonList(t);
+        }
+        tasks.sort(Comparator.comparingLong(InitializationTask::getStartTime));
+    }
+
+    private void add(InitializationTask t, List<InitializationTask> list) {
+        if (t.getStartTime() >= 0 && t.getWallTime() >= 0) {
+            tasks.add(t);
+            predecessors.put(t, list);
+        }
+    }
+
+    private static long getEndTime(InitializationTask t) {
+        return t.getStartTime() + t.getWallTime();
+    }
+
+    /**
+     * Returns the tasks which have been run, by start time.
+     * @return the tasks which have been run
+     */
+    public List<InitializationTask> getTasks() {
+        return Collections.unmodifiableList(tasks);
+    }
+
+    /**
+     * Returns the critical path, i.e. the chain of tasks ending with the last task, where each task is the
+     * predecessor which completed last before the next one could start.
+     * @return the tasks of the critical path, in execution order
+     */
+    public List<InitializationTask> getCriticalPath() {
+        List<InitializationTask> path = new ArrayList<>();
+        InitializationTask t = tasks.stream().max(Comparator.comparingLong(InitializationReport::getEndTime)).orElse(null);
+        while (t != null) {
+            path.add(t);
+            t = predecessors.get(t).stream()
+                    .filter(predecessors::containsKey)
+                    .max(Comparator.comparingLong(InitializationReport::getEndTime)).orElse(null);
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Returns the wall time of the whole initialization.
+     * @return the wall time of the whole initialization, in nanoseconds
+     */
+    public long getWallTime() {
+        return endTime - startTime;
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    @Override
+    public String toString() {
+        List<InitializationTask> criticalPath = getCriticalPath();
+        StringBuilder sb = new StringBuilder(String.format(Locale.ENGLISH,
+                "Initialization: %d ms, sum of tasks: %d ms, critical path (*): %d ms%n",
+                millis(getWallTime()),
+                millis(tasks.stream().mapToLong(InitializationTask::getWallTime).sum()),
+                millis(criticalPath.stream().mapToLong(InitializationTask::getWallTime).sum())));
+        sb.append(String.format(Locale.ENGLISH, "%8s %8s %8s  %-16s %s%n", "start", "wall", "cpu", "thread", "task"));
+        for (InitializationTask t : tasks) {
+            sb.append(String.format(Locale.ENGLISH, "%5d ms %5d ms %8s  %-16s %s%s%n",
+                    millis(t.getStartTime() - startTime), millis(t.getWallTime()),
+                    t.getCpuTime() < 0 ? "-" : millis(t.getCpuTime()) + " ms", t.getThreadName(),
+                    criticalPath.contains(t) ? "* " : "  ", t.getName()));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,71 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.spi.lifecycle;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs initialization tasks on an executor as soon as their {@link InitializationTask#getPrerequisites prerequisites}
+ * are completed.
+ * <p>
+ * Prerequisites which are not part of the scheduled tasks are assumed to have been run before. As prerequisites are
+ * given when a task is created, the tasks always form a directed acyclic graph.
+ * @since xxx
+ */
+final class InitializationScheduler {
+
+    private InitializationScheduler() {
+        // Hide default constructor for utilities classes
+    }
+
+    /**
+     * Sorts tasks so that each task comes after its prerequisites, keeping the given order otherwise.
+     * @param tasks the tasks
+     * @return the sorted tasks
+     */
+    static List<InitializationTask> sort(Collection<InitializationTask> tasks) {
+        Map<InitializationTask, Boolean> scheduled = new IdentityHashMap<>();
+        tasks.forEach(t -> scheduled.put(Objects.requireNonNull(t), Boolean.FALSE));
+        List<InitializationTask> result = new ArrayList<>(tasks.size());
+        for (InitializationTask t : tasks) {
+            visit(t, scheduled, result);
+        }
+        return result;
+    }
+
+    private static void visit(InitializationTask t, Map<InitializationTask, Boolean> scheduled, List<InitializationTask> result) {
+        if (Boolean.FALSE.equals(scheduled.get(t))) {
+            scheduled.put(t, Boolean.TRUE);
+            for (InitializationTask p : t.getPrerequisites()) {
+                visit(p, scheduled, result);
+            }
+            result.add(t);
+        }
+    }
+
+    /**
+     * Runs the tasks and waits for their completion. A task whose prerequisite fails is not run.
+     * @param tasks the tasks
+     * @param executor the executor running the tasks
+     * @throws InterruptedException if the current thread was interrupted while waiting
+     * @throws ExecutionException if a task failed
+     */
+    static void run(Collection<InitializationTask> tasks, Executor executor) throws InterruptedException, ExecutionException {
+        Map<InitializationTask, CompletableFuture<Void>> futures = new IdentityHashMap<>();
+        for (InitializationTask t : sort(tasks)) {
+            CompletableFuture<?>[] prerequisites = t.getPrerequisites().stream()
+                    .map(futures::get)
+                    .filter(Objects::nonNull)
+                    .toArray(CompletableFuture<?>[]::new);
+            futures.put(t, CompletableFuture.allOf(prerequisites).thenRunAsync(t::call, executor));
+        }
+        CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0])).get();
+    }
+}
@@ -1,17 +1,33 @@
 // License: GPL. For details, see LICENSE file.
 package org.openstreetmap.josm.spi.lifecycle;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.Callable;
 
 /**
  * Initialization task notifying the current lifecycle {@link InitStatusListener}.
+ * <p>
+ * A task can declare prerequisites, i.e. tasks which must be completed before it starts. The wall and CPU times of
+ * the last run of the task are recorded for the {@link InitializationReport}.
  * @since 14125
  */
 public final class InitializationTask implements Callable<Void> {
 
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
     private final String name;
     private final Runnable task;
+    private final List<InitializationTask> prerequisites;
+
+    private volatile long startTime = -1;
+    private volatile long wallTime = -1;
+    private volatile long cpuTime = -1;
+    private volatile String threadName;
 
     /**
      * Constructs a new {@code InitializationTask}.
@@ -19,8 +35,21 @@ public final class InitializationTask implements Callable<Void> {
      * @param task runnable initialization task
      */
     public InitializationTask(String name, Runnable task) {
+        this(name, task, new InitializationTask[0]);
+    }
+
+    /**
+     * Constructs a new {@code InitializationTask} with prerequisites.
+     * @param name translated name to be displayed to user
+     * @param task runnable initialization task
+     * @param prerequisites tasks which must be completed before this task starts
+     * @since xxx
+     */
+    public InitializationTask(String name, Runnable task, InitializationTask... prerequisites) {
         this.name = Objects.requireNonNull(name);
         this.task = Objects.requireNonNull(task);
+        this.prerequisites = Collections.unmodifiableList(Arrays.asList(prerequisites.clone()));
+        this.prerequisites.forEach(Objects::requireNonNull);
     }
 
     @Override
@@ -30,10 +59,86 @@ public final class InitializationTask implements Callable<Void> {
         if (initListener != null) {
             status = initListener.updateStatus(name);
         }
-        task.run();
+        long cpuStart = getCurrentThreadCpuTime();
+        long start = System.nanoTime();
+        startTime = start;
+        threadName = Thread.currentThread().getName();
+        try {
+            task.run();
+        } finally {
+            wallTime = System.nanoTime() - start;
+            cpuTime = cpuStart < 0 ? -1 : getCurrentThreadCpuTime() - cpuStart;
+        }
         if (initListener != null) {
             initListener.finish(status);
         }
         return null;
     }
+
+    private static long getCurrentThreadCpuTime() {
+        try {
+            return THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported() ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : -1;
+        } catch (UnsupportedOperationException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Returns the name of this task.
+     * @return translated name to be displayed to user
+     * @since xxx
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the tasks which must be completed before this task starts.
+     * @return the prerequisites of this task
+     * @since xxx
+     */
+    public List<InitializationTask> getPrerequisites() {
+        return prerequisites;
+    }
+
+    /**
+     * Returns the value of {@link System#nanoTime} when this task was last started.
+     * @return the start time of this task in nanoseconds, or -1 if it has not been run
+     * @since xxx
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * Returns the wall-clock time of the last run of this task.
+     * @return the wall time of this task in nanoseconds, or -1 if it has not completed
+     * @since xxx
+     */
+    public long getWallTime() {
+        return wallTime;
+    }
+
+    /**
+     * Returns the CPU time used by the thread running this task during its last run.
+     * @return the CPU time of this task in nanoseconds, or -1 if it has not completed or if it cannot be measured
+     * @since xxx
+     */
+    public long getCpuTime() {
+        return cpuTime;
+    }
+
+    /**
+     * Returns the name of the thread which last ran this task.
+     * @return the name of the thread, or {@code null} if it has not been run
+     * @since xxx
+     */
+    public String getThreadName() {
+        return threadName;
+    }
+
+    @Override
+    public String toString() {
+        return "InitializationTask [name=" + name + ']';
+    }
 }
@@ -1,12 +1,12 @@
 // License: GPL. For details, see LICENSE file.
 package org.openstreetmap.josm.spi.lifecycle;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
 
 import org.openstreetmap.josm.tools.JosmRuntimeException;
 import org.openstreetmap.josm.tools.Logging;
@@ -23,6 +23,8 @@ public final class Lifecycle {
 
     private static volatile Runnable shutdownSequence;
 
+    private static volatile InitializationReport initializationReport;
+
     private Lifecycle() {
         // Hide constructor
     }
@@ -61,22 +63,37 @@ public final class Lifecycle {
         shutdownSequence = Objects.requireNonNull(sequence);
     }
 
+    /**
+     * Returns the timing report of the last initialization.
+     * @return the timing report of the last initialization, or {@code null}
+     * @since xxx
+     */
+    public static InitializationReport getInitializationReport() {
+        return initializationReport;
+    }
+
     /**
      * Initializes the main object. A lot of global variables are initialized here.
+     * <p>
+     * The parallel tasks are started as soon as their {@link InitializationTask#getPrerequisites() prerequisites}
+     * are completed. The timing of all tasks is recorded in the {@link #getInitializationReport() initialization report}.
      * @param initSequence Initialization sequence
      * @since 14139
      */
     public static void initialize(InitializationSequence initSequence) {
+        long start = System.nanoTime();
+        List<InitializationTask> beforeTasks = initSequence.beforeInitializationTasks();
+        Collection<InitializationTask> parallelTasks;
+
         // Initializes tasks that must be run before parallel tasks
-        runInitializationTasks(initSequence.beforeInitializationTasks());
+        runInitializationTasks(beforeTasks);
 
         // Initializes tasks to be executed (in parallel) by a ExecutorService
         try {
             ExecutorService service = Executors.newFixedThreadPool(
                     Runtime.getRuntime().availableProcessors(), Utils.newThreadFactory("main-init-%d", Thread.NORM_PRIORITY));
-            for (Future<Void> i : service.invokeAll(initSequence.parallelInitializationTasks())) {
-                i.get();
-            }
+            parallelTasks = initSequence.parallelInitializationTasks();
+            InitializationScheduler.run(parallelTasks, service);
             // asynchronous initializations to be completed eventually
             initSequence.asynchronousRunnableTasks().forEach(service::submit);
             initSequence.asynchronousCallableTasks().forEach(service::submit);
@@ -90,7 +107,11 @@ public final class Lifecycle {
         }
 
         // Initializes tasks that must be run after parallel tasks
-        runInitializationTasks(initSequence.afterInitializationTasks());
+        List<InitializationTask> afterTasks = initSequence.afterInitializationTasks();
+        runInitializationTasks(afterTasks);
+
+        initializationReport = new InitializationReport(start, System.nanoTime(), beforeTasks, parallelTasks, afterTasks);
+        Logging.debug(initializationReport.toString());
     }
 
     private static void runInitializationTasks(List<InitializationTask> tasks) {
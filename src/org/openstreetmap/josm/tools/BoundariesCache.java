@@ -0,0 +1,285 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.tools;
+
+import java.awt.Shape;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.openstreetmap.josm.spi.preferences.Config;
+
+/**
+ * A binary cache of the boundaries computed from the internal {@link Territories#FILENAME} file.
+ * <p>
+ * Parsing the boundaries and computing their areas is slow, and the result only changes with the internal file.
+ * The outlines of the computed areas are thus stored in binary files of the cache directory, together with a format
+ * version and the size and modification time of the internal file, and read on the next startup. A cache file is
+ * ignored and rebuilt when its version, size or modification time does not match.
+ * @since xxx
+ */
+final class BoundariesCache {
+
+    /** The magic number at the beginning of the cache files */
+    private static final int MAGIC = 0x4a424e44;
+    /** The version of the format of the cache files, to be increased on each change of the format */
+    private static final int VERSION = 2;
+    /** The size of the header: magic, version, size and modification time of the internal file */
+    private static final int HEADER_SIZE = 24;
+
+    private static long[] sourceKey;
+
+    /**
+     * A boundary, i.e. the outline of an area with some tags.
+     */
+    static final class Boundary {
+        private final Map<String, String> tags;
+        private final Shape outline;
+
+        /**
+         * Constructs a new {@code Boundary}.
+         * @param tags the tags, such as ISO3166 codes
+         * @param outline the outline of the area
+         */
+        Boundary(Map<String, String> tags, Shape outline) {
+            this.tags = tags;
+            this.outline = outline;
+        }
+
+        /**
+         * Returns the value of a tag.
+         * @param key the key
+         * @return the value, or {@code null}
+         */
+        String get(String key) {
+            return tags.get(key);
+        }
+
+        /**
+         * Returns the tags.
+         * @return the tags
+         */
+        Map<String, String> getTags() {
+            return Collections.unmodifiableMap(tags);
+        }
+
+        /**
+         * Returns the outline of the area.
+         * @return the outline of the area
+         */
+        Shape getOutline() {
+            return outline;
+        }
+    }
+
+    private BoundariesCache() {
+        // Hide implicit public constructor for utility classes
+    }
+
+    /**
+     * Returns the size and modification time of the internal boundaries file, which identify its version.
+     * Unlike a checksum, they are known without reading the file.
+     * @return the size and modification time of the internal boundaries file
+     * @throws IOException if the file cannot be found, or its size is unknown
+     */
+    static synchronized long[] getSourceKey() throws IOException {
+        if (sourceKey == null) {
+            URL url = ResourceProvider.getResource("data/" + Territories.FILENAME);
+            if (url == null) {
+                throw new IOException("Resource not found: " + Territories.FILENAME);
+            }
+            URLConnection connection = url.openConnection();
+            try (InputStream is = connection.getInputStream()) {
+                long size = connection.getContentLengthLong();
+                if (size < 0) {
+                    throw new IOException("Unknown size of " + url);
+                }
+                sourceKey = new long[] {size, connection.getLastModified()};
+            }
+        }
+        return sourceKey.clone();
+    }
+
+    private static File getFile(String name) {
+        if (Config.getDirs() == null) {
+            return null;
+        }
+        return new File(Config.getDirs().getCacheDirectory(true), "boundaries-" + name + ".bin");
+    }
+
+    /**
+     * Reads boundaries from the cache.
+     * @param name the name of the cache file
+     * @return the cached boundaries, or {@code null} if they are not cached or outdated
+     */
+    static List<Boundary> read(String name) {
+        File file = getFile(name);
+        if (file == null || !file.isFile()) {
+            return null;
+        }
+        try {
+            // read the whole file at once, a mapped buffer could not be unmapped once read
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+            long[] key = getSourceKey();
+            if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getInt() != VERSION
+                    || buffer.getLong() != key[0] || buffer.getLong() != key[1]) {
+                Logging.info("Outdated boundaries cache {0}", file);
+                return null;
+            }
+            int count = buffer.getInt();
+            List<Boundary> boundaries = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                boundaries.add(new Boundary(readTags(buffer), readOutline(buffer)));
+            }
+            return boundaries;
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            Logging.log(Logging.LEVEL_WARN, "Unable to read boundaries cache " + file, e);
+            return null;
+        }
+    }
+
+    private static Map<String, String> readTags(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        Map<String, String> tags = new HashMap<>(count);
+        for (int i = 0; i < count; i++) {
+            tags.put(readString(buffer), readString(buffer));
+        }
+        return tags;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static Path2D readOutline(ByteBuffer buffer) {
+        int windingRule = buffer.get();
+        int segments = buffer.getInt();
+        Path2D path = new Path2D.Double(windingRule, segments);
+        for (int i = 0; i < segments; i++) {
+            switch (buffer.get()) {
+            case PathIterator.SEG_MOVETO:
+                path.moveTo(buffer.getDouble(), buffer.getDouble());
+                break;
+            case PathIterator.SEG_LINETO:
+                path.lineTo(buffer.getDouble(), buffer.getDouble());
+                break;
+            case PathIterator.SEG_QUADTO:
+                path.quadTo(buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble());
+                break;
+            case PathIterator.SEG_CUBICTO:
+                path.curveTo(buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(),
+                        buffer.getDouble(), buffer.getDouble());
+                break;
+            case PathIterator.SEG_CLOSE:
+                path.closePath();
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid path segment");
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Writes boundaries to the cache.
+     * @param name the name of the cache file
+     * @param boundaries the boundaries
+     */
+    static void write(String name, List<Boundary> boundaries) {
+        File file = getFile(name);
+        if (file == null) {
+            return;
+        }
+        Path tmp = null;
+        try {
+            long[] key = getSourceKey();
+            // a unique temporary file, since several instances of JOSM may write the cache at the same time
+            tmp = Files.createTempFile(file.getParentFile().toPath(), file.getName(), ".tmp");
+            try (OutputStream os = Files.newOutputStream(tmp);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(key[0]);
+                out.writeLong(key[1]);
+                out.writeInt(boundaries.size());
+                for (Boundary b : boundaries) {
+                    out.writeInt(b.tags.size());
+                    for (Entry<String, String> e : b.tags.entrySet()) {
+                        writeString(out, e.getKey());
+                        writeString(out, e.getValue());
+                    }
+                    writeOutline(out, b.outline);
+                }
+            }
+            try {
+                Files.move(tmp, file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Logging.trace(e);
+                Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            Logging.log(Logging.LEVEL_WARN, "Unable to write boundaries cache " + file, e);
+            if (tmp != null) {
+                Utils.deleteFile(tmp.toFile());
+            }
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeOutline(DataOutputStream out, Shape outline) throws IOException {
+        int segments = 0;
+        for (PathIterator it = outline.getPathIterator(null); !it.isDone(); it.next()) {
+            segments++;
+        }
+        PathIterator it = outline.getPathIterator(null);
+        out.writeByte(it.getWindingRule());
+        out.writeInt(segments);
+        double[] coords = new double[6];
+        for (; !it.isDone(); it.next()) {
+            int type = it.currentSegment(coords);
+            out.writeByte(type);
+            for (int i = 0; i < getCoordinateCount(type); i++) {
+                out.writeDouble(coords[i]);
+            }
+        }
+    }
+
+    private static int getCoordinateCount(int segmentType) {
+        switch (segmentType) {
+        case PathIterator.SEG_QUADTO:
+            return 4;
+        case PathIterator.SEG_CUBICTO:
+            return 6;
+        case PathIterator.SEG_CLOSE:
+            return 0;
+        default:
+            return 2;
+        }
+    }
+}
@@ -2,6 +2,7 @@
 package org.openstreetmap.josm.tools;
 
 import java.awt.Rectangle;
+import java.awt.Shape;
 import java.awt.geom.Area;
 import java.awt.geom.Path2D;
 import java.util.Collection;
@@ -16,7 +17,8 @@ import org.openstreetmap.josm.data.osm.Way;
  */
 public class DefaultGeoProperty implements GeoProperty<Boolean> {
 
-    private final Area area;
+    private volatile Area area;
+    private Shape outline;
     private LatLon random;
 
     /**
@@ -42,15 +44,26 @@ public class DefaultGeoProperty implements GeoProperty<Boolean> {
         this.area = Geometry.getAreaLatLon(multipolygon);
     }
 
+    /**
+     * Create DefaultGeoProperty based on the outline of an area, as returned by the path iterator of {@link #getArea()}.
+     * The area is only computed when first needed.
+     *
+     * @param outline the outline of the area, in lat/lon coordinates
+     * @since xxx
+     */
+    public DefaultGeoProperty(Shape outline) {
+        this.outline = outline;
+    }
+
     @Override
     public Boolean get(LatLon ll) {
-        return area.contains(ll.lon(), ll.lat());
+        return getArea().contains(ll.lon(), ll.lat());
     }
 
     @Override
     public Boolean get(BBox box) {
         Area abox = new Area(box.toRectangle());
-        Geometry.PolygonIntersection is = Geometry.polygonIntersection(abox, area, 1e-10 /* using deg and not meters */);
+        Geometry.PolygonIntersection is = Geometry.polygonIntersection(abox, getArea(), 1e-10 /* using deg and not meters */);
         switch (is) {
             case FIRST_INSIDE_SECOND:
                 return Boolean.TRUE;
@@ -67,7 +80,18 @@ public class DefaultGeoProperty implements GeoProperty<Boolean> {
      * @since 14484
      */
     public final Area getArea() {
-        return area;
+        Area a = area;
+        if (a == null) {
+            synchronized (this) {
+                a = area;
+                if (a == null) {
+                    a = new Area(outline);
+                    area = a;
+                    outline = null;
+                }
+            }
+        }
+        return a;
     }
 
     /**
@@ -77,12 +101,13 @@ public class DefaultGeoProperty implements GeoProperty<Boolean> {
      */
     public final synchronized LatLon getRandomLatLon() {
         if (random == null) {
-            Rectangle r = area.getBounds();
+            Area a = getArea();
+            Rectangle r = a.getBounds();
             double x, y;
             do {
                 x = r.getX() + r.getWidth() * Math.random();
                 y = r.getY() + r.getHeight() * Math.random();
-            } while (!area.contains(x, y));
+            } while (!a.contains(x, y));
 
             random = new LatLon(y, x);
         }
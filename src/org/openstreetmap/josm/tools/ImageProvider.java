@@ -38,6 +38,7 @@ import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -299,15 +300,21 @@ public class ImageProvider {
     private static final Map<String, ImageResource> cache = new ConcurrentHashMap<>();
 
     /**
-     * Caches the image data for rotated versions of the same image.
+     * The maximum number of images kept by {@link #ROTATE_CACHE} and {@link #paddedImageCache}.
      */
-    private static final Map<Image, Map<Long, Image>> ROTATE_CACHE = new HashMap<>();
+    private static final int MAX_DERIVED_IMAGES = 1024;
+
+    /**
+     * Caches the image data for rotated versions of the same image, by image and angle.
+     * The least recently used images are evicted.
+     */
+    private static final Map<Pair<Image, Long>, Image> ROTATE_CACHE = createLruCache(MAX_DERIVED_IMAGES);
 
     /** small cache of critical images used in many parts of the application */
     private static final Map<OsmPrimitiveType, ImageIcon> osmPrimitiveTypeCache = new EnumMap<>(OsmPrimitiveType.class);
 
-    /** larger cache of critical padded image icons used in many parts of the application */
-    private static final Map<Dimension, Map<MapImage, ImageIcon>> paddedImageCache = new HashMap<>();
+    /** larger cache of critical padded image icons used in many parts of the application, by size and image */
+    private static final Map<Pair<Dimension, MapImage>, ImageIcon> paddedImageCache = createLruCache(MAX_DERIVED_IMAGES);
 
     private static final ExecutorService IMAGE_FETCHER =
             Executors.newSingleThreadExecutor(Utils.newThreadFactory("image-fetcher-%d", Thread.NORM_PRIORITY));
@@ -831,6 +838,23 @@ public class ImageProvider {
     private static final Pattern dataUrlPattern = Pattern.compile(
             "^data:([a-zA-Z]+/[a-zA-Z+]+)?(;base64)?,(.+)$");
 
+    /**
+     * Creates a map evicting its least recently used entry when it grows over a maximum size.
+     * It must be externally synchronized.
+     * @param <K> type of the keys
+     * @param <V> type of the values
+     * @param maxSize the maximum number of entries
+     * @return a new map
+     */
+    private static <K, V> Map<K, V> createLruCache(int maxSize) {
+        return new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
     /**
      * Clears the internal image caches.
      * @since 11021
@@ -1366,8 +1390,8 @@ public class ImageProvider {
         Long originalAngle = rotatedAngle != 0 && angleLong == 0 ? Long.valueOf(360L) : angleLong;
 
         synchronized (ROTATE_CACHE) {
-            Map<Long, Image> cacheByAngle = ROTATE_CACHE.computeIfAbsent(img, k -> new HashMap<>());
-            Image rotatedImg = cacheByAngle.get(originalAngle);
+            Pair<Image, Long> key = Pair.create(img, originalAngle);
+            Image rotatedImg = ROTATE_CACHE.get(key);
 
             if (rotatedImg == null) {
                 // convert originalAngle to a value from 0 to 90
@@ -1412,7 +1436,7 @@ public class ImageProvider {
                     new ImageIcon(image); // load completely
                     return image;
                 });
-                cacheByAngle.put(originalAngle, rotatedImg);
+                ROTATE_CACHE.put(key, rotatedImg);
             }
             return rotatedImg;
         }
@@ -1515,8 +1539,14 @@ public class ImageProvider {
             });
             presets.addAll(TaggingPresets.getMatchingPresets(primitive));
             for (final TaggingPreset preset : presets) {
-                if (preset.getIcon() != null) {
-                    return preset.getIcon();
+                final ImageIcon icon = preset.getIcon();
+                if (icon != null) {
+                    return icon;
+                }
+                final CompletableFuture<Void> iconLoadingTask = preset.getIconLoadingTask();
+                if (iconLoadingTask != null && !iconLoadingTask.isDone()) {
+                    // do not start loading the icons of the next presets, the icon of this one is still loading
+                    break;
                 }
             }
         }
@@ -1568,7 +1598,8 @@ public class ImageProvider {
      */
     public static ImageIcon getPaddedIcon(MapImage mapImage, Dimension iconSize) {
         synchronized (paddedImageCache) {
-            return paddedImageCache.computeIfAbsent(iconSize, x -> new HashMap<>()).computeIfAbsent(mapImage, icon -> {
+            return paddedImageCache.computeIfAbsent(Pair.create(iconSize, mapImage), key -> {
+                MapImage icon = key.b;
                 int backgroundRealWidth = GuiSizesHelper.getSizeDpiAdjusted(iconSize.width);
                 int backgroundRealHeight = GuiSizesHelper.getSizeDpiAdjusted(iconSize.height);
                 int iconRealWidth = icon.getWidth();
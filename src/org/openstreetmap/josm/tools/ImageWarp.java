@@ -3,22 +3,40 @@ package org.openstreetmap.josm.tools;
 
 import java.awt.Dimension;
 import java.awt.geom.Point2D;
-import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * Image warping algorithm.
  *
  * Deforms an image geometrically according to a given transformation formula.
+ * The target image is computed in horizontal strips, concurrently, from the pixels of the original image.
  * @since 11858
  */
 public final class ImageWarp {
 
+    /** Minimum number of rows of the target image computed by a task */
+    private static final int MIN_STRIP_HEIGHT = 16;
+    /** Minimum number of rows of a {@link TransformGrid} computed by a task */
+    private static final int MIN_GRID_STRIP_HEIGHT = 2;
+
+    private static final ForkJoinPool THREAD_POOL = newForkJoinPool();
+
     private ImageWarp() {
         // Hide default constructor
     }
@@ -43,8 +61,8 @@ public final class ImageWarp {
      * bilinear interpolation to approximate transformed values in between.
      * <p>
      * For memory optimization, this class assumes that rows are more or less scanned
-     * one-by-one as is done in {@link ImageWarp#warp}. I.e. this transform is <em>not</em>
-     * random access in the y coordinate.
+     * one-by-one. I.e. this transform is <em>not</em> random access in the y coordinate.
+     * {@link ImageWarp#warp} replaces it by the equivalent {@link TransformGrid}.
      */
     public static class GridTransform implements ImageWarp.PointTransform {
 
@@ -140,8 +158,144 @@ public final class ImageWarp {
         BILINEAR;
     }
 
+
+    /**
+     * Inverse transformation evaluated once on a regular grid covering the target image.
+     * <p>
+     * Like {@link GridTransform}, it invokes the potentially expensive master transform only at the grid points and
+     * uses bilinear interpolation in between, with the same results. But the grid is computed up front, concurrently,
+     * and it is immutable: it is random access, can be used by several threads, and can be kept to warp other images
+     * with the same geometry.
+     * @since xxx
+     */
+    public static final class TransformGrid implements ImageWarp.PointTransform {
+
+        private final double stride;
+        private final int columns;
+        private final int rows;
+        /** transformed coordinates of the grid points, row by row */
+        private final double[] xs;
+        private final double[] ys;
+
+        private TransformGrid(double stride, int columns, int rows) {
+            this.stride = stride;
+            this.columns = columns;
+            this.rows = rows;
+            this.xs = new double[columns * rows];
+            this.ys = new double[columns * rows];
+        }
+
+        /**
+         * Computes the grid of a transform.
+         * @param trfm the master transform, which is invoked concurrently
+         * @param targetDim dimension of the target image, covered by the grid
+         * @param stride step size
+         * @return the grid
+         */
+        public static TransformGrid create(ImageWarp.PointTransform trfm, Dimension targetDim, double stride) {
+            if (!(stride > 0)) {
+                throw new IllegalArgumentException("Invalid stride: " + stride);
+            }
+            TransformGrid grid = new TransformGrid(stride, getGridSize(targetDim.width, stride), getGridSize(targetDim.height, stride));
+            forEachStrip(grid.rows, MIN_GRID_STRIP_HEIGHT, (from, to) -> grid.computeRows(trfm, from, to));
+            return grid;
+        }
+
+        private static int getGridSize(int pixels, double stride) {
+            // the last pixel needs the grid points on both sides
+            return (int) Math.floor(Math.max(0, pixels - 1) / stride) + 2;
+        }
+
+        private void computeRows(ImageWarp.PointTransform trfm, int from, int to) {
+            for (int yIdx = from; yIdx < to; yIdx++) {
+                for (int xIdx = 0; xIdx < columns; xIdx++) {
+                    Point2D value = trfm.transform(new Point2D.Double(xIdx * stride, yIdx * stride));
+                    xs[yIdx * columns + xIdx] = value.getX();
+                    ys[yIdx * columns + xIdx] = value.getY();
+                }
+            }
+        }
+
+        /**
+         * Returns the number of bytes used by the grid.
+         * @return the size of the grid, in bytes
+         */
+        public long getMemorySize() {
+            return 2L * Double.BYTES * xs.length;
+        }
+
+        @Override
+        public Point2D transform(Point2D pt) {
+            // points outside of the target image are extrapolated from the outermost cells
+            int xIdx = Utils.clamp((int) Math.floor(pt.getX() / stride), 0, columns - 2);
+            int yIdx = Utils.clamp((int) Math.floor(pt.getY() / stride), 0, rows - 2);
+            double dx = pt.getX() / stride - xIdx;
+            double dy = pt.getY() / stride - yIdx;
+            int i00 = yIdx * columns + xIdx;
+            return new Point2D.Double(interpolate(xs, i00, i00 + columns, dx, dy), interpolate(ys, i00, i00 + columns, dx, dy));
+        }
+
+        private void transformRow(int j, double[] srcX, double[] srcY) {
+            int yIdx = Math.min((int) Math.floor(j / stride), rows - 2);
+            double dy = j / stride - yIdx;
+            int row0 = yIdx * columns;
+            int row1 = row0 + columns;
+            for (int i = 0; i < srcX.length; i++) {
+                int xIdx = Math.min((int) Math.floor(i / stride), columns - 2);
+                double dx = i / stride - xIdx;
+                srcX[i] = interpolate(xs, row0 + xIdx, row1 + xIdx, dx, dy);
+                srcY[i] = interpolate(ys, row0 + xIdx, row1 + xIdx, dx, dy);
+            }
+        }
+
+        private static double interpolate(double[] values, int i00, int i01, double dx, double dy) {
+            return (values[i00] * (1-dx) + values[i00 + 1] * dx) * (1-dy) +
+                    (values[i01] * (1-dx) + values[i01 + 1] * dx) * dy;
+        }
+    }
+
+    @FunctionalInterface
+    private interface StripAction {
+        void run(int from, int to);
+    }
+
+    private static ForkJoinPool newForkJoinPool() {
+        try {
+            return Utils.newForkJoinPool("imagery.warp.numberOfThreads", "image-warp-%d", Thread.NORM_PRIORITY);
+        } catch (SecurityException e) {
+            Logging.log(Logging.LEVEL_ERROR, "Unable to create new ForkJoinPool", e);
+            return null;
+        }
+    }
+
+    /**
+     * Runs an action on horizontal strips of rows, concurrently if there are enough rows.
+     * @param height the number of rows
+     * @param minHeight the minimum number of rows of a strip
+     * @param action the action, called with the first row and the row after the last row of each strip
+     */
+    private static void forEachStrip(int height, int minHeight, StripAction action) {
+        int count = THREAD_POOL == null ? 1 : Math.min(2 * THREAD_POOL.getParallelism(), height / minHeight);
+        if (count < 2) {
+            action.run(0, height);
+            return;
+        }
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int from = (int) ((long) height * i / count);
+            int to = (int) ((long) height * (i + 1) / count);
+            tasks.add(THREAD_POOL.submit(() -> action.run(from, to)));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+    }
+
     /**
      * Warp an image.
+     * <p>
+     * The target image is computed in horizontal strips, concurrently, so the inverse transformation must be thread safe.
+     * A {@link GridTransform} is replaced by the equivalent {@link TransformGrid}.
      * @param srcImg the original image
      * @param targetDim dimension of the target image
      * @param invTransform inverse transformation (translates pixel coordinates
@@ -150,50 +304,152 @@ public final class ImageWarp {
      * @return the warped image
      */
     public static BufferedImage warp(BufferedImage srcImg, Dimension targetDim, PointTransform invTransform, Interpolation interpolation) {
+        Objects.requireNonNull(interpolation);
         BufferedImage imgTarget = new BufferedImage(targetDim.width, targetDim.height, BufferedImage.TYPE_INT_ARGB);
-        Rectangle2D srcRect = new Rectangle2D.Double(0, 0, srcImg.getWidth(), srcImg.getHeight());
-        for (int j = 0; j < imgTarget.getHeight(); j++) {
-            for (int i = 0; i < imgTarget.getWidth(); i++) {
-                Point2D srcCoord = invTransform.transform(new Point2D.Double(i, j));
-                if (srcRect.contains(srcCoord)) {
-                    int rgba;
-                    switch (interpolation) {
-                        case NEAREST_NEIGHBOR:
-                            rgba = getColor((int) Math.round(srcCoord.getX()), (int) Math.round(srcCoord.getY()), srcImg);
-                            break;
-                        case BILINEAR:
-                            int x0 = (int) Math.floor(srcCoord.getX());
-                            double dx = srcCoord.getX() - x0;
-                            int y0 = (int) Math.floor(srcCoord.getY());
-                            double dy = srcCoord.getY() - y0;
-                            int c00 = getColor(x0, y0, srcImg);
-                            int c01 = getColor(x0, y0 + 1, srcImg);
-                            int c10 = getColor(x0 + 1, y0, srcImg);
-                            int c11 = getColor(x0 + 1, y0 + 1, srcImg);
-                            rgba = 0;
-                            // loop over color components: blue, green, red, alpha
-                            for (int ch = 0; ch <= 3; ch++) {
-                                int shift = 8 * ch;
-                                int chVal = (int) Math.round(
-                                    (((c00 >> shift) & 0xff) * (1-dx) + ((c10 >> shift) & 0xff) * dx) * (1-dy) +
-                                    (((c01 >> shift) & 0xff) * (1-dx) + ((c11 >> shift) & 0xff) * dx) * dy);
-                                rgba |= chVal << shift;
-                            }
-                            break;
-                        default:
-                            throw new AssertionError(Objects.toString(interpolation));
-                    }
-                    imgTarget.setRGB(i, j, rgba);
+        PointTransform transform = invTransform;
+        if (invTransform instanceof GridTransform) {
+            GridTransform gridTransform = (GridTransform) invTransform;
+            transform = TransformGrid.create(gridTransform.trfm, targetDim, gridTransform.stride);
+        }
+        PointTransform rowTransform = transform;
+        int[] src = getPixels(srcImg);
+        int srcWidth = srcImg.getWidth();
+        int srcHeight = srcImg.getHeight();
+        int width = targetDim.width;
+        WritableRaster raster = imgTarget.getRaster();
+        forEachStrip(targetDim.height, MIN_STRIP_HEIGHT, (from, to) -> {
+            int[] pixels = new int[width * (to - from)];
+            double[] srcX = new double[width];
+            double[] srcY = new double[width];
+            for (int j = from; j < to; j++) {
+                transformRow(rowTransform, j, srcX, srcY);
+                int offset = (j - from) * width;
+                if (interpolation == Interpolation.NEAREST_NEIGHBOR) {
+                    sampleNearestNeighbor(src, srcWidth, srcHeight, srcX, srcY, pixels, offset);
+                } else {
+                    sampleBilinear(src, srcWidth, srcHeight, srcX, srcY, pixels, offset);
                 }
             }
-        }
+            // the strips do not overlap; writing through the raster keeps the image eligible for acceleration
+            raster.setDataElements(0, from, width, to - from, pixels);
+        });
         return imgTarget;
     }
 
-    private static int getColor(int x, int y, BufferedImage img) {
-        // border strategy: continue with the color of the outermost pixel,
-        return img.getRGB(
-                Utils.clamp(x, 0, img.getWidth() - 1),
-                Utils.clamp(y, 0, img.getHeight() - 1));
+    private static void transformRow(PointTransform transform, int j, double[] srcX, double[] srcY) {
+        if (transform instanceof TransformGrid) {
+            ((TransformGrid) transform).transformRow(j, srcX, srcY);
+        } else {
+            for (int i = 0; i < srcX.length; i++) {
+                Point2D srcCoord = transform.transform(new Point2D.Double(i, j));
+                srcX[i] = srcCoord.getX();
+                srcY[i] = srcCoord.getY();
+            }
+        }
+    }
+
+    private static void sampleNearestNeighbor(int[] src, int srcWidth, int srcHeight, double[] srcX, double[] srcY,
+            int[] pixels, int offset) {
+        for (int i = 0; i < srcX.length; i++) {
+            double x = srcX[i];
+            double y = srcY[i];
+            if (x >= 0 && y >= 0 && x < srcWidth && y < srcHeight) {
+                // border strategy: continue with the color of the outermost pixel
+                int x0 = Math.min((int) Math.round(x), srcWidth - 1);
+                int y0 = Math.min((int) Math.round(y), srcHeight - 1);
+                pixels[offset + i] = src[y0 * srcWidth + x0];
+            }
+        }
+    }
+
+    private static void sampleBilinear(int[] src, int srcWidth, int srcHeight, double[] srcX, double[] srcY,
+            int[] pixels, int offset) {
+        for (int i = 0; i < srcX.length; i++) {
+            double x = srcX[i];
+            double y = srcY[i];
+            if (x >= 0 && y >= 0 && x < srcWidth && y < srcHeight) {
+                int x0 = (int) x;
+                int y0 = (int) y;
+                double dx = x - x0;
+                double dy = y - y0;
+                // border strategy: continue with the color of the outermost pixel
+                int x1 = Math.min(x0 + 1, srcWidth - 1);
+                int row0 = y0 * srcWidth;
+                int row1 = Math.min(y0 + 1, srcHeight - 1) * srcWidth;
+                int c00 = src[row0 + x0];
+                int c01 = src[row1 + x0];
+                int c10 = src[row0 + x1];
+                int c11 = src[row1 + x1];
+                pixels[offset + i] = interpolateChannel(c00, c01, c10, c11, dx, dy, 24)
+                        | interpolateChannel(c00, c01, c10, c11, dx, dy, 16)
+                        | interpolateChannel(c00, c01, c10, c11, dx, dy, 8)
+                        | interpolateChannel(c00, c01, c10, c11, dx, dy, 0);
+            }
+        }
+    }
+
+    private static int interpolateChannel(int c00, int c01, int c10, int c11, double dx, double dy, int shift) {
+        int chVal = (int) Math.round(
+                (((c00 >> shift) & 0xff) * (1-dx) + ((c10 >> shift) & 0xff) * dx) * (1-dy) +
+                (((c01 >> shift) & 0xff) * (1-dx) + ((c11 >> shift) & 0xff) * dx) * dy);
+        return chVal << shift;
+    }
+
+    /**
+     * Returns the colors of the pixels of an image, in the default ARGB color model, row by row.
+     * <p>
+     * The pixels of the usual tile image types are read directly from the data buffer of the image, which prevents
+     * the image from being accelerated afterwards; the source images are not displayed once warped.
+     * @param img the image
+     * @return the pixels of the image
+     */
+    private static int[] getPixels(BufferedImage img) {
+        int width = img.getWidth();
+        int height = img.getHeight();
+        WritableRaster raster = img.getRaster();
+        DataBuffer buffer = raster.getDataBuffer();
+        SampleModel sm = raster.getSampleModel();
+        boolean plain = raster.getParent() == null && raster.getSampleModelTranslateX() == 0 && raster.getSampleModelTranslateY() == 0
+                && buffer.getNumBanks() == 1 && buffer.getOffset() == 0;
+        int count = width * height;
+        switch (img.getType()) {
+            case BufferedImage.TYPE_INT_ARGB:
+            case BufferedImage.TYPE_INT_RGB:
+                if (plain && ((SinglePixelPackedSampleModel) sm).getScanlineStride() == width) {
+                    int[] data = ((DataBufferInt) buffer).getData();
+                    if (img.getType() == BufferedImage.TYPE_INT_ARGB) {
+                        return data;
+                    }
+                    int[] pixels = new int[count];
+                    for (int k = 0; k < count; k++) {
+                        pixels[k] = 0xff000000 | data[k];
+                    }
+                    return pixels;
+                }
+                break;
+            case BufferedImage.TYPE_3BYTE_BGR:
+                if (plain && ((ComponentSampleModel) sm).getScanlineStride() == 3 * width) {
+                    byte[] data = ((DataBufferByte) buffer).getData();
+                    int[] pixels = new int[count];
+                    for (int k = 0, p = 0; k < count; k++, p += 3) {
+                        pixels[k] = 0xff000000 | (data[p + 2] & 0xff) << 16 | (data[p + 1] & 0xff) << 8 | (data[p] & 0xff);
+                    }
+                    return pixels;
+                }
+                break;
+            case BufferedImage.TYPE_4BYTE_ABGR:
+                if (plain && ((ComponentSampleModel) sm).getScanlineStride() == 4 * width) {
+                    byte[] data = ((DataBufferByte) buffer).getData();
+                    int[] pixels = new int[count];
+                    for (int k = 0, p = 0; k < count; k++, p += 4) {
+                        pixels[k] = (data[p] & 0xff) << 24 | (data[p + 3] & 0xff) << 16 | (data[p + 2] & 0xff) << 8 | (data[p + 1] & 0xff);
+                    }
+                    return pixels;
+                }
+                break;
+            default:
+                // other types are converted by their color model
+        }
+        return img.getRGB(0, 0, width, height, null, 0, width);
     }
 }
@@ -1,9 +1,11 @@
 // License: GPL. For details, see LICENSE file.
 package org.openstreetmap.josm.tools;
 
+import java.awt.Shape;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 
 import org.openstreetmap.josm.data.coor.LatLon;
@@ -12,6 +14,7 @@ import org.openstreetmap.josm.data.osm.OsmPrimitive;
 import org.openstreetmap.josm.data.osm.Relation;
 import org.openstreetmap.josm.data.osm.RelationMember;
 import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.tools.BoundariesCache.Boundary;
 
 /**
  * Look up, if there is right- or left-hand traffic at a certain place.
@@ -22,6 +25,7 @@ public final class RightAndLefthandTraffic {
     private static final String DRIVING_SIDE = "driving_side";
     private static final String LEFT = "left";
     private static final String RIGHT = "right";
+    private static final String CACHE_NAME = "lefthandtraffic";
 
     private static volatile GeoPropertyIndex<Boolean> rlCache;
 
@@ -42,10 +46,21 @@ public final class RightAndLefthandTraffic {
 
     /**
      * Initializes Right and lefthand traffic data.
+     * <p>
+     * The left-driving area is read from the {@link BoundariesCache binary cache} if it is up to date. Otherwise it is
+     * computed from the territories dataset and the cache is rebuilt.
      * TODO: Synchronization can be refined inside the {@link GeoPropertyIndex} as most look-ups are read-only.
      */
     public static synchronized void initialize() {
-        rlCache = new GeoPropertyIndex<>(computeLeftDrivingBoundaries(), 24);
+        List<Boundary> cached = BoundariesCache.read(CACHE_NAME);
+        Shape outline;
+        if (cached != null && cached.size() == 1) {
+            outline = cached.get(0).getOutline();
+        } else {
+            outline = computeLeftDrivingBoundaries().getArea();
+            BoundariesCache.write(CACHE_NAME, Collections.singletonList(new Boundary(Collections.emptyMap(), outline)));
+        }
+        rlCache = new GeoPropertyIndex<>(new DefaultGeoProperty(outline), 24);
     }
 
     private static DefaultGeoProperty computeLeftDrivingBoundaries() {
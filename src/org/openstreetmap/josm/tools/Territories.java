@@ -6,9 +6,11 @@ import static org.openstreetmap.josm.tools.I18n.tr;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -23,6 +25,7 @@ import org.openstreetmap.josm.data.osm.Way;
 import org.openstreetmap.josm.io.CachedFile;
 import org.openstreetmap.josm.io.IllegalDataException;
 import org.openstreetmap.josm.io.OsmReader;
+import org.openstreetmap.josm.tools.BoundariesCache.Boundary;
 
 /**
  * Look up territories ISO3166 codes at a certain place.
@@ -35,6 +38,7 @@ public final class Territories {
     private static final String ISO3166_1 = "ISO3166-1:alpha2";
     private static final String ISO3166_2 = "ISO3166-2";
     private static final String TAGINFO = "taginfo";
+    private static final String CACHE_NAME = "territories";
 
     private static DataSet dataSet;
 
@@ -87,6 +91,14 @@ public final class Territories {
      * @since 15565
      */
     public static synchronized DataSet getOriginalDataSet() {
+        if (dataSet == null) {
+            try (CachedFile cf = new CachedFile("resource://data/" + FILENAME);
+                    InputStream is = cf.getInputStream()) {
+                dataSet = OsmReader.parseDataSet(is, null);
+            } catch (IOException | IllegalDataException ex) {
+                throw new JosmRuntimeException(ex);
+            }
+        }
         return dataSet;
     }
 
@@ -95,47 +107,66 @@ public final class Territories {
      * @return a copy of the territories dataset
      */
     public static synchronized DataSet getDataSet() {
-        return new DataSet(dataSet);
+        return new DataSet(getOriginalDataSet());
     }
 
     /**
      * Initializes territories.
+     * <p>
+     * The boundaries are read from the {@link BoundariesCache binary cache} if it is up to date. Otherwise the internal
+     * dataset is parsed and the cache is rebuilt.
      * TODO: Synchronization can be refined inside the {@link GeoPropertyIndex} as most look-ups are read-only.
      */
     public static synchronized void initialize() {
         iso3166Cache = new HashMap<>();
         taginfoCache = new TreeMap<>();
-        try (CachedFile cf = new CachedFile("resource://data/" + FILENAME);
-                InputStream is = cf.getInputStream()) {
-            dataSet = OsmReader.parseDataSet(is, null);
-            Collection<OsmPrimitive> candidates = new ArrayList<>(dataSet.getWays());
-            candidates.addAll(dataSet.getRelations());
-            for (OsmPrimitive osm : candidates) {
-                String iso1 = osm.get(ISO3166_1);
-                String iso2 = osm.get(ISO3166_2);
-                if (iso1 != null || iso2 != null) {
-                    GeoProperty<Boolean> gp;
-                    if (osm instanceof Way) {
-                        gp = new DefaultGeoProperty(Collections.singleton((Way) osm));
-                    } else {
-                        gp = new DefaultGeoProperty((Relation) osm);
-                    }
-                    GeoPropertyIndex<Boolean> gpi = new GeoPropertyIndex<>(gp, 24);
-                    if (iso1 != null) {
-                        iso3166Cache.put(iso1, gpi);
-                        String taginfo = osm.get(TAGINFO);
-                        if (taginfo != null) {
-                            taginfoCache.put(iso1, taginfo);
-                        }
-                    }
-                    if (iso2 != null) {
-                        iso3166Cache.put(iso2, gpi);
+        List<Boundary> boundaries = BoundariesCache.read(CACHE_NAME);
+        if (boundaries == null) {
+            boundaries = computeBoundaries();
+            BoundariesCache.write(CACHE_NAME, boundaries);
+        }
+        for (Boundary b : boundaries) {
+            String iso1 = b.get(ISO3166_1);
+            String iso2 = b.get(ISO3166_2);
+            GeoPropertyIndex<Boolean> gpi = new GeoPropertyIndex<>(new DefaultGeoProperty(b.getOutline()), 24);
+            if (iso1 != null) {
+                iso3166Cache.put(iso1, gpi);
+                String taginfo = b.get(TAGINFO);
+                if (taginfo != null) {
+                    taginfoCache.put(iso1, taginfo);
+                }
+            }
+            if (iso2 != null) {
+                iso3166Cache.put(iso2, gpi);
+            }
+        }
+    }
+
+    private static List<Boundary> computeBoundaries() {
+        DataSet data = getOriginalDataSet();
+        Collection<OsmPrimitive> candidates = new ArrayList<>(data.getWays());
+        candidates.addAll(data.getRelations());
+        List<Boundary> boundaries = new ArrayList<>();
+        for (OsmPrimitive osm : candidates) {
+            String iso1 = osm.get(ISO3166_1);
+            String iso2 = osm.get(ISO3166_2);
+            if (iso1 != null || iso2 != null) {
+                DefaultGeoProperty gp;
+                if (osm instanceof Way) {
+                    gp = new DefaultGeoProperty(Collections.singleton((Way) osm));
+                } else {
+                    gp = new DefaultGeoProperty((Relation) osm);
+                }
+                Map<String, String> tags = new HashMap<>();
+                for (String key : Arrays.asList(ISO3166_1, ISO3166_2, TAGINFO)) {
+                    if (osm.hasKey(key)) {
+                        tags.put(key, osm.get(key));
                     }
                 }
+                boundaries.add(new Boundary(tags, gp.getArea()));
             }
-        } catch (IOException | IllegalDataException ex) {
-            throw new JosmRuntimeException(ex);
         }
+        return boundaries;
     }
 
     /**
@@ -3,12 +3,29 @@ package org.openstreetmap.josm.tools;
 
 import static org.openstreetmap.josm.tools.I18n.tr;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Reader;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -16,6 +33,9 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Stack;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.stream.StreamSource;
@@ -24,6 +44,7 @@ import javax.xml.validation.SchemaFactory;
 import javax.xml.validation.ValidatorHandler;
 
 import org.openstreetmap.josm.io.CachedFile;
+import org.openstreetmap.josm.io.UTFInputStreamReader;
 import org.xml.sax.Attributes;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.InputSource;
@@ -31,11 +52,18 @@ import org.xml.sax.Locator;
 import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
 import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.AttributesImpl;
 import org.xml.sax.helpers.DefaultHandler;
 import org.xml.sax.helpers.XMLFilterImpl;
 
 /**
  * An helper class that reads from a XML stream into specific objects.
+ * <p>
+ * The attributes of the XML elements are set to the public fields or setters of the mapped classes. These are
+ * resolved once per class and attribute name into method handles, shared by all parsers.
+ * <p>
+ * The mapped elements of a document can also be recorded into a binary snapshot, which is replayed instead of
+ * parsing the document again as long as the document and the mapping are unchanged, see {@link #start(InputStream, File)}.
  *
  * @author Imi
  */
@@ -45,6 +73,14 @@ public class XmlObjectParser implements Iterable<Object> {
      */
     public static final String lang = LanguageInfo.getLanguageCodeXML();
 
+    /** The magic number at the beginning of the snapshot files */
+    private static final int SNAPSHOT_MAGIC = 0x4a584f50;
+    /** The version of the format of the snapshot files, to be increased on each change of the format */
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final int END_OF_DOCUMENT = 0;
+    private static final int START_ELEMENT = 1;
+    private static final int END_ELEMENT = 2;
+
     private static class AddNamespaceFilter extends XMLFilterImpl {
 
         private final String namespace;
@@ -80,31 +116,49 @@ public class XmlObjectParser implements Iterable<Object> {
 
         @Override
         public void startElement(String ns, String lname, String qname, Attributes a) throws SAXException {
-            if (mapping.containsKey(qname)) {
-                Class<?> klass = mapping.get(qname).klass;
-                try {
-                    current.push(klass.getConstructor().newInstance());
-                } catch (ReflectiveOperationException e) {
-                    throwException(e);
-                }
-                for (int i = 0; i < a.getLength(); ++i) {
-                    setValue(mapping.get(qname), a.getQName(i), a.getValue(i));
-                }
-                if (mapping.get(qname).onStart) {
-                    report();
-                }
-                if (mapping.get(qname).both) {
-                    queue.add(current.peek());
+            Entry entry = mapping.get(qname);
+            if (entry != null) {
+                if (recorder != null) {
+                    recorder.start(qname, a);
                 }
+                start(entry, a);
+            }
+        }
+
+        private void start(Entry entry, Attributes a) throws SAXException {
+            try {
+                current.push(entry.binding.newInstance());
+            } catch (ReflectiveOperationException e) {
+                throwException(e);
+            }
+            for (int i = 0; i < a.getLength(); ++i) {
+                setValue(entry, a.getQName(i), a.getValue(i));
+            }
+            if (entry.onStart) {
+                report();
+            }
+            if (entry.both) {
+                queue.add(current.peek());
             }
         }
 
         @Override
         public void endElement(String ns, String lname, String qname) throws SAXException {
-            if (mapping.containsKey(qname) && !mapping.get(qname).onStart) {
+            Entry entry = mapping.get(qname);
+            if (entry != null) {
+                String text = entry.onStart && !current.isEmpty() ? characters.toString().trim() : null;
+                if (recorder != null) {
+                    recorder.end(qname, text);
+                }
+                end(entry, qname, text);
+            }
+        }
+
+        private void end(Entry entry, String qname, String text) throws SAXException {
+            if (!entry.onStart) {
                 report();
-            } else if (mapping.containsKey(qname) && characters != null && !current.isEmpty()) {
-                setValue(mapping.get(qname), qname, characters.toString().trim());
+            } else if (text != null && !current.isEmpty()) {
+                setValue(entry, qname, text);
                 characters = new StringBuilder(64);
             }
         }
@@ -119,65 +173,16 @@ public class XmlObjectParser implements Iterable<Object> {
             characters = new StringBuilder(64);
         }
 
-        private Object getValueForClass(Class<?> klass, String value) {
-            if (boolean.class.equals(klass))
-                return parseBoolean(value);
-            else if (Integer.class.equals(klass))
-                return Integer.valueOf(value);
-            else if (Long.class.equals(klass))
-                return Long.valueOf(value);
-            else if (Float.class.equals(klass))
-                return Float.valueOf(value);
-            else if (Double.class.equals(klass))
-                return Double.valueOf(value);
-            return value;
-        }
-
         private void setValue(Entry entry, String fieldName, String value) throws SAXException {
             CheckParameterUtil.ensureParameterNotNull(entry, "entry");
-            if ("class".equals(fieldName) || "default".equals(fieldName) || "throw".equals(fieldName) ||
-                    "new".equals(fieldName) || "null".equals(fieldName)) {
-                fieldName += '_';
-            }
-            fieldName = fieldName.replace(':', '_');
             try {
-                Object c = current.peek();
-                Field f = entry.getField(fieldName);
-                if (f == null && fieldName.startsWith(lang)) {
-                    f = entry.getField("locale_" + fieldName.substring(lang.length()));
-                }
-                if (f != null && Modifier.isPublic(f.getModifiers()) && (
-                        String.class.equals(f.getType()) || boolean.class.equals(f.getType()) ||
-                        Float.class.equals(f.getType()) || Double.class.equals(f.getType()) ||
-                        Long.class.equals(f.getType()) || Integer.class.equals(f.getType()))) {
-                    f.set(c, getValueForClass(f.getType(), value));
-                } else {
-                    String setter;
-                    if (fieldName.startsWith(lang)) {
-                        int l = lang.length();
-                        setter = "set" + fieldName.substring(l, l + 1).toUpperCase(Locale.ENGLISH) + fieldName.substring(l + 1);
-                    } else {
-                        setter = "set" + fieldName.substring(0, 1).toUpperCase(Locale.ENGLISH) + fieldName.substring(1);
-                    }
-                    Method m = entry.getMethod(setter);
-                    if (m != null) {
-                        m.invoke(c, getValueForClass(m.getParameterTypes()[0], value));
-                    }
-                }
+                entry.binding.getAttribute(fieldName).set(current.peek(), value);
             } catch (ReflectiveOperationException | IllegalArgumentException e) {
                 Logging.error(e); // SAXException does not dump inner exceptions.
                 throwException(e);
             }
         }
 
-        private boolean parseBoolean(String s) {
-            return s != null
-                    && !"0".equals(s)
-                    && !s.startsWith("off")
-                    && !s.startsWith("false")
-                    && !s.startsWith("no");
-        }
-
         @Override
         public void error(SAXParseException e) throws SAXException {
             throwException(e);
@@ -193,49 +198,272 @@ public class XmlObjectParser implements Iterable<Object> {
         private final Class<?> klass;
         private final boolean onStart;
         private final boolean both;
-        private final Map<String, Field> fields = new HashMap<>();
-        private final Map<String, Method> methods = new HashMap<>();
+        private final ClassBinding binding;
 
         Entry(Class<?> klass, boolean onStart, boolean both) {
             this.klass = klass;
             this.onStart = onStart;
             this.both = both;
+            this.binding = BINDINGS.get(klass);
+        }
+    }
+
+    /**
+     * The bindings of the mapped classes, shared by all parsers.
+     */
+    private static final ClassValue<ClassBinding> BINDINGS = new ClassValue<ClassBinding>() {
+        @Override
+        protected ClassBinding computeValue(Class<?> type) {
+            return new ClassBinding(type);
         }
+    };
 
-        Field getField(String s) {
-            if (fields.containsKey(s)) {
-                return fields.get(s);
-            } else {
+    /**
+     * The constructor of a mapped class, and the bindings of its attributes resolved on first use.
+     */
+    private static final class ClassBinding {
+        private final Class<?> klass;
+        private final MethodHandle constructor;
+        private final Map<String, AttributeBinding> attributes = new ConcurrentHashMap<>();
+
+        ClassBinding(Class<?> klass) {
+            this.klass = klass;
+            MethodHandle handle;
+            try {
+                handle = MethodHandles.publicLookup().findConstructor(klass, MethodType.methodType(void.class))
+                        .asType(MethodType.methodType(Object.class));
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                // The error is reported by reflection on instantiation
+                Logging.trace(e);
+                handle = null;
+            }
+            this.constructor = handle;
+        }
+
+        Object newInstance() throws ReflectiveOperationException {
+            if (constructor == null) {
+                return klass.getConstructor().newInstance();
+            }
+            try {
+                return (Object) constructor.invokeExact();
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) { // NOPMD
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        AttributeBinding getAttribute(String name) {
+            AttributeBinding binding = attributes.get(name);
+            if (binding == null) {
+                binding = resolve(name);
+                attributes.put(name, binding);
+            }
+            return binding;
+        }
+
+        private AttributeBinding resolve(String name) {
+            String fieldName = name;
+            if ("class".equals(fieldName) || "default".equals(fieldName) || "throw".equals(fieldName) ||
+                    "new".equals(fieldName) || "null".equals(fieldName)) {
+                fieldName += '_';
+            }
+            fieldName = fieldName.replace(':', '_');
+            Field f = getField(fieldName);
+            if (f == null && fieldName.startsWith(lang)) {
+                f = getField("locale_" + fieldName.substring(lang.length()));
+            }
+            try {
+                if (f != null && Modifier.isPublic(f.getModifiers()) && (
+                        String.class.equals(f.getType()) || boolean.class.equals(f.getType()) ||
+                        Float.class.equals(f.getType()) || Double.class.equals(f.getType()) ||
+                        Long.class.equals(f.getType()) || Integer.class.equals(f.getType()))) {
+                    return new AttributeBinding(f.getType(), ignoreTargetIfStatic(f.getModifiers(),
+                            MethodHandles.publicLookup().unreflectSetter(f)));
+                }
+                String setter;
+                if (fieldName.startsWith(lang)) {
+                    int l = lang.length();
+                    setter = "set" + fieldName.substring(l, l + 1).toUpperCase(Locale.ENGLISH) + fieldName.substring(l + 1);
+                } else {
+                    setter = "set" + fieldName.substring(0, 1).toUpperCase(Locale.ENGLISH) + fieldName.substring(1);
+                }
+                Method m = getMethod(setter);
+                if (m != null) {
+                    return new AttributeBinding(m.getParameterTypes()[0], ignoreTargetIfStatic(m.getModifiers(),
+                            MethodHandles.publicLookup().unreflect(m)));
+                }
+                return AttributeBinding.NONE;
+            } catch (IllegalAccessException e) {
+                Logging.trace(e);
+                return new AttributeBinding(e.getMessage());
+            }
+        }
+
+        private static MethodHandle ignoreTargetIfStatic(int modifiers, MethodHandle handle) {
+            return Modifier.isStatic(modifiers) ? MethodHandles.dropArguments(handle, 0, Object.class) : handle;
+        }
+
+        private Field getField(String s) {
+            try {
+                return klass.getField(s);
+            } catch (NoSuchFieldException ex) {
+                Logging.trace(ex);
+                return null;
+            }
+        }
+
+        private Method getMethod(String s) {
+            for (Method m : klass.getMethods()) {
+                if (m.getName().equals(s) && m.getParameterTypes().length == 1) {
+                    return m;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * The field or setter corresponding to an attribute, with the type its value is converted to.
+     */
+    private static final class AttributeBinding {
+        /** The binding of attributes without field or setter, which are ignored */
+        static final AttributeBinding NONE = new AttributeBinding(null, null);
+
+        private final Class<?> type;
+        private final MethodHandle setter;
+        private final String inaccessible;
+
+        AttributeBinding(Class<?> type, MethodHandle setter) {
+            this.type = type;
+            this.setter = setter == null ? null : setter.asType(MethodType.methodType(void.class, Object.class, Object.class));
+            this.inaccessible = null;
+        }
+
+        AttributeBinding(String inaccessible) {
+            this.type = null;
+            this.setter = null;
+            this.inaccessible = inaccessible;
+        }
+
+        void set(Object target, String value) throws ReflectiveOperationException {
+            if (inaccessible != null) {
+                throw new IllegalAccessException(inaccessible);
+            } else if (setter != null) {
+                Object converted = getValueForClass(type, value);
                 try {
-                    Field f = klass.getField(s);
-                    fields.put(s, f);
-                    return f;
-                } catch (NoSuchFieldException ex) {
-                    Logging.trace(ex);
-                    fields.put(s, null);
-                    return null;
+                    setter.invokeExact(target, converted);
+                } catch (Error e) {
+                    throw e;
+                } catch (Throwable e) { // NOPMD
+                    throw new InvocationTargetException(e);
                 }
             }
         }
+    }
+
+    /**
+     * Records the mapped elements of a parsed document, see {@link XmlObjectParser#start(InputStream, File)}.
+     * Strings are written once, and then referred to by index.
+     */
+    private static final class SnapshotRecorder {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(65536);
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        private final Map<String, Integer> strings = new HashMap<>();
+        private IOException failure;
 
-        Method getMethod(String s) {
-            if (methods.containsKey(s)) {
-                return methods.get(s);
+        void start(String qname, Attributes a) {
+            try {
+                out.writeByte(START_ELEMENT);
+                writeString(qname);
+                out.writeInt(a.getLength());
+                for (int i = 0; i < a.getLength(); ++i) {
+                    writeString(a.getQName(i));
+                    writeString(a.getValue(i));
+                }
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+
+        void end(String qname, String text) {
+            try {
+                out.writeByte(END_ELEMENT);
+                writeString(qname);
+                out.writeBoolean(text != null);
+                if (text != null) {
+                    writeString(text);
+                }
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+
+        private void writeString(String s) throws IOException {
+            Integer index = strings.get(s);
+            if (index != null) {
+                out.writeInt(index);
             } else {
-                for (Method m : klass.getMethods()) {
-                    if (m.getName().equals(s) && m.getParameterTypes().length == 1) {
-                        methods.put(s, m);
-                        return m;
-                    }
+                strings.put(s, strings.size());
+                byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(-1);
+                out.writeInt(utf8.length);
+                out.write(utf8);
+            }
+        }
+
+        void write(File file, long checksum, int fingerprint) {
+            if (failure != null) {
+                Logging.log(Logging.LEVEL_WARN, "Unable to record XML snapshot " + file, failure);
+                return;
+            }
+            File tmp = new File(file.getPath() + ".tmp");
+            try {
+                if (!file.getAbsoluteFile().getParentFile().isDirectory()) {
+                    Utils.mkDirs(file.getAbsoluteFile().getParentFile());
                 }
-                methods.put(s, null);
-                return null;
+                try (OutputStream os = Files.newOutputStream(tmp.toPath());
+                     DataOutputStream header = new DataOutputStream(os)) {
+                    header.writeInt(SNAPSHOT_MAGIC);
+                    header.writeInt(SNAPSHOT_VERSION);
+                    header.writeLong(checksum);
+                    header.writeInt(fingerprint);
+                    out.writeByte(END_OF_DOCUMENT);
+                    bytes.writeTo(header);
+                }
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException | InvalidPathException e) {
+                Logging.log(Logging.LEVEL_WARN, "Unable to write XML snapshot " + file, e);
+                Utils.deleteFile(tmp);
             }
         }
     }
 
+    private static Object getValueForClass(Class<?> klass, String value) {
+        if (boolean.class.equals(klass))
+            return parseBoolean(value);
+        else if (Integer.class.equals(klass))
+            return Integer.valueOf(value);
+        else if (Long.class.equals(klass))
+            return Long.valueOf(value);
+        else if (Float.class.equals(klass))
+            return Float.valueOf(value);
+        else if (Double.class.equals(klass))
+            return Double.valueOf(value);
+        return value;
+    }
+
+    private static boolean parseBoolean(String s) {
+        return s != null
+                && !"0".equals(s)
+                && !s.startsWith("off")
+                && !s.startsWith("false")
+                && !s.startsWith("no");
+    }
+
     private final Map<String, Entry> mapping = new HashMap<>();
-    private final DefaultHandler parser;
+    private final Parser parser;
+    private SnapshotRecorder recorder;
 
     /**
      * The queue of already parsed items from the parsing thread.
@@ -307,6 +535,103 @@ public class XmlObjectParser implements Iterable<Object> {
         }
     }
 
+    /**
+     * Starts parsing from the given input stream, without validation.
+     * <p>
+     * If a snapshot file is given, the mapped elements of the document are recorded into it. On the next call with
+     * the same document and mapping, the snapshot is replayed instead of parsing the document again.
+     * @param in The input stream, see {@link UTFInputStreamReader} for the supported encodings
+     * @param snapshot the snapshot file, can be {@code null}
+     * @return iterable collection of objects
+     * @throws SAXException if any XML error occurs
+     * @throws IOException if any I/O error occurs
+     * @since xxx
+     */
+    public Iterable<Object> start(InputStream in, File snapshot) throws SAXException, IOException {
+        byte[] content = Utils.readBytesFromStream(in);
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        long checksum = crc.getValue();
+        if (snapshot != null && snapshot.isFile() && replay(snapshot, checksum)) {
+            queueIterator = queue.iterator();
+            return this;
+        }
+        recorder = snapshot != null ? new SnapshotRecorder() : null;
+        try (Reader reader = new BufferedReader(UTFInputStreamReader.create(new ByteArrayInputStream(content)))) {
+            start(reader, parser);
+            if (recorder != null) {
+                recorder.write(snapshot, checksum, getMappingFingerprint());
+            }
+        } finally {
+            recorder = null;
+        }
+        return this;
+    }
+
+    private boolean replay(File snapshot, long checksum) throws SAXException {
+        try {
+            ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(snapshot.toPath()));
+            if (in.getInt() != SNAPSHOT_MAGIC || in.getInt() != SNAPSHOT_VERSION || in.getLong() != checksum
+                    || in.getInt() != getMappingFingerprint()) {
+                Logging.debug("Outdated XML snapshot {0}", snapshot);
+                return false;
+            }
+            List<String> strings = new ArrayList<>();
+            AttributesImpl attributes = new AttributesImpl();
+            parser.setDocumentLocator(null);
+            for (int type = in.get(); type != END_OF_DOCUMENT; type = in.get()) {
+                String qname = readString(in, strings);
+                Entry entry = mapping.get(qname);
+                if (entry == null) {
+                    throw new IOException("Unmapped element " + qname);
+                } else if (type == START_ELEMENT) {
+                    attributes.clear();
+                    for (int i = in.getInt(); i > 0; i--) {
+                        attributes.addAttribute("", "", readString(in, strings), "CDATA", readString(in, strings));
+                    }
+                    parser.start(entry, attributes);
+                } else if (type == END_ELEMENT) {
+                    parser.end(entry, qname, in.get() != 0 ? readString(in, strings) : null);
+                } else {
+                    throw new IOException("Invalid element type " + type);
+                }
+            }
+            return true;
+        } catch (IOException | InvalidPathException | BufferUnderflowException | IndexOutOfBoundsException e) {
+            Logging.log(Logging.LEVEL_WARN, "Unable to read XML snapshot " + snapshot, e);
+            queue.clear();
+            parser.current.clear();
+            parser.characters = new StringBuilder(64);
+            return false;
+        }
+    }
+
+    private static String readString(ByteBuffer in, List<String> strings) {
+        int index = in.getInt();
+        if (index < 0) {
+            int length = in.getInt();
+            if (length < 0 || length > in.remaining()) {
+                throw new BufferUnderflowException();
+            }
+            String s = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+            strings.add(s);
+            return s;
+        }
+        return strings.get(index);
+    }
+
+    /**
+     * Returns a hash of the mapping, to detect outdated snapshots.
+     * @return a hash of the mapping
+     */
+    private int getMappingFingerprint() {
+        StringBuilder sb = new StringBuilder();
+        new TreeMap<>(mapping).forEach((tagName, entry) -> sb.append(tagName).append('=').append(entry.klass.getName())
+                .append(entry.onStart ? ",onStart" : "").append(entry.both ? ",both" : "").append(';'));
+        return sb.toString().hashCode();
+    }
+
     /**
      * Add a new tag name to class type mapping
      * @param tagName The tag name that should be converted to that class
@@ -69,7 +69,7 @@ public final class DateUtils {
      * @throws UncheckedParseException if the date does not match any of the supported date formats
      * @throws DateTimeException if the value of any field is out of range, or if the day-of-month is invalid for the month-year
      */
-    public static synchronized Date fromString(String str) {
+    public static Date fromString(String str) {
         return new Date(tsFromString(str));
     }
 
@@ -80,7 +80,7 @@ public final class DateUtils {
      * @throws UncheckedParseException if the date does not match any of the supported date formats
      * @throws DateTimeException if the value of any field is out of range, or if the day-of-month is invalid for the month-year
      */
-    public static synchronized long tsFromString(String str) {
+    public static long tsFromString(String str) {
         // "2007-07-25T09:26:24{Z|{+|-}01[:00]}"
         if (checkLayout(str, "xxxx-xx-xxTxx:xx:xxZ") ||
                 checkLayout(str, "xxxx-xx-xxTxx:xx:xx") ||
@@ -137,7 +137,11 @@ public final class DateUtils {
         }
 
         try {
-            return XML_DATE.newXMLGregorianCalendar(str).toGregorianCalendar().getTimeInMillis();
+            // DatatypeFactory is not guaranteed to be thread-safe. The other formats are parsed without lock,
+            // so that readers parsing in parallel do not contend here
+            synchronized (XML_DATE) {
+                return XML_DATE.newXMLGregorianCalendar(str).toGregorianCalendar().getTimeInMillis();
+            }
         } catch (IllegalArgumentException ex) {
             throw new UncheckedParseException("The date string (" + str + ") could not be parsed.", ex);
         }
@@ -0,0 +1,100 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.jcs.auxiliary.disk.AbstractDiskCache;
+import org.apache.commons.jcs.auxiliary.disk.behavior.IDiskCacheAttributes;
+import org.apache.commons.jcs.auxiliary.disk.block.BlockDiskCacheAttributes;
+import org.apache.commons.jcs.auxiliary.disk.block.BlockDiskCacheFactory;
+import org.apache.commons.jcs.engine.CacheElement;
+import org.apache.commons.jcs.utils.serialization.StandardSerializer;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openstreetmap.josm.JOSMFixture;
+import org.openstreetmap.josm.PerformanceTestUtils;
+
+/**
+ * This test compares the latency of cache hits of the JCS block disk cache and of the {@link MappedDiskCache}.
+ */
+public class DiskCachePerformanceTest {
+
+    private static final int TILES = 2000;
+    private static final int TILE_SIZE = 20_000;
+    private static final int READS = 20_000;
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Prepare the test.
+     */
+    @BeforeClass
+    public static void createJOSMFixture() {
+        JOSMFixture.createPerformanceTestFixture().init(true);
+    }
+
+    private static void fill(AbstractDiskCache<String, BufferedImageCacheEntry> cache) throws IOException, InterruptedException {
+        Random random = new Random(0);
+        for (int i = 0; i < TILES; i++) {
+            byte[] content = new byte[TILE_SIZE];
+            random.nextBytes(content);
+            cache.update(new CacheElement<>("test", "tile:" + i, new BufferedImageCacheEntry(content)));
+        }
+        // elements are written asynchronously
+        for (int i = 0; i < 600 && cache.getSize() < TILES; i++) {
+            TimeUnit.MILLISECONDS.sleep(100);
+        }
+        assertEquals(TILES, cache.getSize());
+    }
+
+    private static void read(String name, AbstractDiskCache<String, BufferedImageCacheEntry> cache) {
+        Random random = new Random(1);
+        PerformanceTestUtils.runPerformanceTest(name, () -> {
+            for (int i = 0; i < READS; i++) {
+                assertNotNull(cache.get("tile:" + random.nextInt(TILES)));
+            }
+        });
+    }
+
+    private <T extends IDiskCacheAttributes> T configure(T attributes, String name) {
+        attributes.setDiskPath(folder.getRoot().getPath());
+        attributes.setCacheName(name);
+        attributes.setDiskLimitType(IDiskCacheAttributes.DiskLimitType.SIZE);
+        return attributes;
+    }
+
+    /**
+     * Measures the time needed to read random elements from both disk caches.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testCacheHits() throws Exception {
+        BlockDiskCacheAttributes blockAttributes = configure(new BlockDiskCacheAttributes(), "block");
+        blockAttributes.setMaxKeySize(TILES * TILE_SIZE / 1024 * 2);
+        blockAttributes.setBlockSizeBytes(4096);
+        AbstractDiskCache<String, BufferedImageCacheEntry> block = new BlockDiskCacheFactory().createCache(
+                blockAttributes, null, null, new StandardSerializer());
+        fill(block);
+        read("BlockDiskCache.get", block);
+        block.dispose();
+
+        MappedDiskCacheAttributes mappedAttributes = configure(new MappedDiskCacheAttributes(), "mapped");
+        mappedAttributes.setMaxSize(TILES * TILE_SIZE / 1024 * 2);
+        AbstractDiskCache<String, BufferedImageCacheEntry> mapped = new MappedDiskCacheFactory().createCache(
+                mappedAttributes, null, null, new StandardSerializer());
+        fill(mapped);
+        read("MappedDiskCache.get", mapped);
+        mapped.dispose();
+    }
+}
@@ -0,0 +1,75 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import org.openstreetmap.josm.PerformanceTestUtils;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.projection.ProjectionRegistry;
+import org.openstreetmap.josm.testutils.JOSMTestRules;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * This test measures the heap used by the nodes of a large {@link DataSet}, including their cached projected coordinates.
+ */
+public class NodeMemoryPerformanceTest {
+    private static final int NODE_COUNT = 1_000_000;
+
+    /**
+     * Global timeout applied to all test methods.
+     */
+    @Rule
+    @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
+    public Timeout globalTimeout = Timeout.seconds(15*60);
+
+    /**
+     * Prepare the test.
+     */
+    @Rule
+    @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
+    public JOSMTestRules test = new JOSMTestRules().projection();
+
+    @SuppressFBWarnings(value = "DM_GC", justification = "Performance test code")
+    private static long usedMemory() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Measures the bytes used per untagged node of a dataset, before and after all nodes have been projected.
+     */
+    @Test
+    public void testBytesPerNode() {
+        Random random = new Random(42);
+        long before = usedMemory();
+        DataSet ds = new DataSet();
+        ds.beginUpdate();
+        try {
+            for (int i = 0; i < NODE_COUNT; i++) {
+                Node n = new Node(i + 1, 1);
+                n.setCoor(new LatLon(random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180));
+                ds.addPrimitive(n);
+            }
+        } finally {
+            ds.endUpdate();
+        }
+        long loaded = usedMemory();
+        for (Node n : ds.getNodes()) {
+            assertNotNull(n.getEastNorth(ProjectionRegistry.getProjection()));
+        }
+        long projected = usedMemory();
+        assertEquals(NODE_COUNT, ds.getNodes().size());
+        PerformanceTestUtils.measurementPlotsPluginOutput("Bytes per node", (double) (loaded - before) / NODE_COUNT);
+        PerformanceTestUtils.measurementPlotsPluginOutput("Bytes per projected node", (double) (projected - before) / NODE_COUNT);
+    }
+}
@@ -3,11 +3,18 @@ package org.openstreetmap.josm.data.osm.visitor.paint;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToLongFunction;
 
 import javax.imageio.ImageIO;
 
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
+import org.junit.Test;
+import org.openstreetmap.josm.PerformanceTestUtils;
+import org.openstreetmap.josm.data.Bounds;
+import org.openstreetmap.josm.data.osm.visitor.paint.RenderBenchmarkCollector.CapturingBenchmark;
 import org.openstreetmap.josm.gui.mappaint.MapPaintStyles;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
@@ -34,6 +41,60 @@ public class StyledMapRendererPerformanceTest extends AbstractMapRendererPerform
         return new StyledMapRenderer(g, nc, false);
     }
 
+    /**
+     * Measures the phases of the rendering of the city, with the styles painted sequentially and in strips of the view.
+     */
+    @Test
+    public void testCityTiledPainting() {
+        try {
+            StyledMapRenderer.PREFERENCE_TILED_PAINTING.put(false);
+            measureCityPhases("sequential");
+            StyledMapRenderer.PREFERENCE_TILED_PAINTING.put(true);
+            measureCityPhases("tiled");
+        } finally {
+            StyledMapRenderer.PREFERENCE_TILED_PAINTING.put(false);
+        }
+    }
+
+    /**
+     * Measures the phases of the rendering of the city, with and without the cache of the geometry of the ways.
+     */
+    @Test
+    public void testCityGeometryCache() {
+        measureCityPhases("uncached geometry");
+        WayGeometryCache.getInstance().addDataSet(dsCity);
+        try {
+            measureCityPhases("cached geometry");
+        } finally {
+            WayGeometryCache.getInstance().removeDataSet(dsCity);
+        }
+    }
+
+    private static void measureCityPhases(String mode) {
+        Bounds bounds = new Bounds(53.51, 13.20, 53.59, 13.34);
+        nc.zoomTo(bounds);
+        List<CapturingBenchmark> benchmarks = new ArrayList<>();
+        StyledMapRenderer renderer = new StyledMapRenderer(g, nc, false);
+        renderer.setBenchmarkFactory(() -> {
+            CapturingBenchmark benchmark = new CapturingBenchmark();
+            benchmarks.add(benchmark);
+            return benchmark;
+        });
+        for (int i = 0; i < 20; i++) {
+            renderer.render(dsCity, true, bounds);
+        }
+        // ignore the first rendering, which computes the styles
+        benchmarks.remove(0);
+        outputAverage("city " + mode + " generate", benchmarks, CapturingBenchmark::getGenerateTime);
+        outputAverage("city " + mode + " sort", benchmarks, CapturingBenchmark::getSortTime);
+        outputAverage("city " + mode + " paint", benchmarks, CapturingBenchmark::getPaintTime);
+        outputAverage("city " + mode + " composite", benchmarks, CapturingBenchmark::getCompositeTime);
+    }
+
+    private static void outputAverage(String name, List<CapturingBenchmark> benchmarks, ToLongFunction<CapturingBenchmark> time) {
+        PerformanceTestUtils.measurementPlotsPluginOutput(name + " (ms)", benchmarks.stream().mapToLong(time).average().orElse(0));
+    }
+
     /**
      * run this manually to verify that the rendering is set up properly
      * @throws IOException if any I/O error occurs
@@ -0,0 +1,141 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.validation.tests;
+
+import static org.junit.Assert.assertTrue;
+
+import java.awt.geom.Point2D;
+import java.io.File;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import org.openstreetmap.josm.JOSMFixture;
+import org.openstreetmap.josm.PerformanceTestUtils;
+import org.openstreetmap.josm.data.coor.EastNorth;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.data.osm.WaySegment;
+import org.openstreetmap.josm.data.validation.util.SegmentGrid;
+import org.openstreetmap.josm.io.Compression;
+import org.openstreetmap.josm.io.OsmReader;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * This test tests how fast the crossing ways tests are, and how much they allocate, on a dense urban area.
+ * <p>
+ * For this, we use the neubrandenburg-file, which is a good real world example of an OSM file.
+ */
+public class CrossingWaysPerformanceTest {
+    private static final int TIMES = 4;
+    private static final String DATA_FILE = "data_nodist/neubrandenburg.osm.bz2";
+    private static DataSet ds;
+    private static List<WaySegment> segments;
+
+    /**
+     * Global timeout applied to all test methods.
+     */
+    @Rule
+    @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
+    public Timeout globalTimeout = Timeout.seconds(15*60);
+
+    /**
+     * Prepare the test.
+     * @throws Exception if the data set cannot be read
+     */
+    @BeforeClass
+    public static void createJOSMFixture() throws Exception {
+        JOSMFixture.createPerformanceTestFixture().init(true);
+        try (InputStream in = Compression.getUncompressedFileInputStream(new File(DATA_FILE))) {
+            ds = OsmReader.parseDataSet(in, null);
+        }
+        segments = new ArrayList<>();
+        for (Way w : ds.getWays()) {
+            if (w.isUsable() && !w.hasIncompleteNodes()) {
+                for (int i = 0; i < w.getNodesCount() - 1; i++) {
+                    segments.add(new WaySegment(w, i));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of bytes allocated by the current thread so far, if the JVM supports it.
+     * @return the allocated bytes, or 0
+     */
+    private static long getAllocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    /**
+     * Runs the given code {@link #TIMES} times and outputs the average time and allocated memory.
+     * @param what description of the measurement
+     * @param runnable the code to measure
+     */
+    private static void measure(String what, Runnable runnable) {
+        runnable.run();
+        long allocated = getAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < TIMES; i++) {
+            runnable.run();
+        }
+        PerformanceTestUtils.measurementPlotsPluginOutput(what + " (ms)", (System.nanoTime() - start) / 1e6 / TIMES);
+        PerformanceTestUtils.measurementPlotsPluginOutput(what + " (MB allocated)", (getAllocatedBytes() - allocated) / 1e6 / TIMES);
+    }
+
+    /**
+     * Compares the grid of segments with the map of cells it replaces, by adding all segments of the data set and
+     * visiting the segments of their cells.
+     */
+    @Test
+    public void testSegmentGrid() {
+        int[] count = new int[1];
+        measure("map of cells", () -> {
+            Map<Point2D, List<WaySegment>> cellSegments = new HashMap<>(1000);
+            for (WaySegment s : segments) {
+                for (List<WaySegment> cell : CrossingWays.getSegments(cellSegments,
+                        s.getFirstNode().getEastNorth(), s.getSecondNode().getEastNorth())) {
+                    count[0] += cell.size();
+                    cell.add(s);
+                }
+            }
+        });
+        SegmentGrid grid = new SegmentGrid();
+        measure("segment grid", () -> {
+            grid.clear();
+            for (WaySegment s : segments) {
+                EastNorth en1 = s.getFirstNode().getEastNorth();
+                EastNorth en2 = s.getSecondNode().getEastNorth();
+                grid.visitAndAdd(s, en1, en2, x -> count[0]++);
+            }
+        });
+        assertTrue(count[0] > 0);
+    }
+
+    /**
+     * Measures the crossing ways tests.
+     */
+    @Test
+    public void testCrossingWays() {
+        for (CrossingWays test : new CrossingWays[] {
+                new CrossingWays.Ways(), new CrossingWays.Boundaries(), new CrossingWays.Barrier(), new CrossingWays.SelfCrossing()}) {
+            measure(test.getClass().getSimpleName(), () -> {
+                test.startTest(null);
+                test.visit(ds.allPrimitives());
+                test.endTest();
+                test.clear();
+            });
+        }
+    }
+}
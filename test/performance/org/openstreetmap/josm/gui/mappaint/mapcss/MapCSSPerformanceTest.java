@@ -12,12 +12,16 @@ import java.util.Collection;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.openstreetmap.josm.JOSMFixture;
+import org.openstreetmap.josm.PerformanceTestUtils;
 import org.openstreetmap.josm.data.Bounds;
 import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
 import org.openstreetmap.josm.data.osm.visitor.paint.StyledMapRenderer;
 import org.openstreetmap.josm.data.preferences.sources.SourceEntry;
 import org.openstreetmap.josm.data.preferences.sources.SourceType;
 import org.openstreetmap.josm.gui.NavigatableComponent;
+import org.openstreetmap.josm.gui.mappaint.ElemStyles;
+import org.openstreetmap.josm.gui.mappaint.MapPaintStyles;
 import org.openstreetmap.josm.gui.mappaint.MapRendererPerformanceTest;
 import org.openstreetmap.josm.io.Compression;
 import org.openstreetmap.josm.io.IllegalDataException;
@@ -120,4 +124,29 @@ public class MapCSSPerformanceTest {
         System.out.println("");
         System.out.println("Rendering took "+time+" ms.");
     }
+
+    /**
+     * Measures time for the generation of the styles of all primitives, with and without the compilation of the
+     * MapCSS expressions.
+     * @throws IOException if any I/O error occurs
+     * @throws IllegalDataException if any invalid data is found
+     */
+    @Test
+    public void measureTimeForStyleGeneration() throws IllegalDataException, IOException {
+        loadData();
+        try {
+            for (boolean compile : new boolean[] {false, true}) {
+                ExpressionFactory.COMPILE_EXPRESSIONS.put(compile);
+                loadStyle();
+                ElemStyles styles = MapPaintStyles.getStyles();
+                PerformanceTestUtils.runPerformanceTest("Style generation" + (compile ? " (compiled expressions)" : ""), () -> {
+                    for (OsmPrimitive osm : ds.allPrimitives()) {
+                        styles.generateStyles(osm, 1, false);
+                    }
+                });
+            }
+        } finally {
+            ExpressionFactory.COMPILE_EXPRESSIONS.remove();
+        }
+    }
 }
@@ -0,0 +1,114 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.gui.tagging.presets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import org.openstreetmap.josm.JOSMFixture;
+import org.openstreetmap.josm.PerformanceTestUtils;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.gui.MainApplication;
+import org.openstreetmap.josm.io.Compression;
+import org.openstreetmap.josm.io.OsmReader;
+import org.openstreetmap.josm.spi.preferences.Config;
+import org.openstreetmap.josm.tools.JosmRuntimeException;
+import org.openstreetmap.josm.tools.SubclassFilteredCollection;
+import org.xml.sax.SAXException;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * This test measures how fast the tagging presets are read, and how fast the tagging presets matching the primitives
+ * of a data set are found.
+ * <p>
+ * For this, we use the default presets and the neubrandenburg-file, which is a good real world example of an OSM file.
+ */
+public class TaggingPresetsPerformanceTest {
+    private static final String DATA_FILE = "data_nodist/neubrandenburg.osm.bz2";
+    private static List<OsmPrimitive> primitives;
+
+    /**
+     * Global timeout applied to all test methods.
+     */
+    @Rule
+    @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
+    public Timeout globalTimeout = Timeout.seconds(15*60);
+
+    /**
+     * Prepare the test.
+     * @throws Exception if the data set cannot be read
+     */
+    @BeforeClass
+    public static void createJOSMFixture() throws Exception {
+        JOSMFixture.createPerformanceTestFixture().init(true);
+        TaggingPresets.readFromPreferences();
+        assertFalse(TaggingPresets.getTaggingPresets().isEmpty());
+        try (InputStream in = Compression.getUncompressedFileInputStream(new File(DATA_FILE))) {
+            DataSet ds = OsmReader.parseDataSet(in, null);
+            primitives = new ArrayList<>(ds.allPrimitives());
+        }
+    }
+
+    private static int countMatchingPresets(boolean indexed) {
+        int count = 0;
+        for (OsmPrimitive p : primitives) {
+            if (indexed) {
+                count += TaggingPresets.getMatchingPresets(p).size();
+            } else {
+                count += new ArrayList<>(SubclassFilteredCollection.filter(
+                        TaggingPresets.getTaggingPresets(), preset -> preset.test(p))).size();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Measures the time needed to find the matching presets of all primitives, by testing all presets or by using
+     * the index of the presets.
+     */
+    @Test
+    public void testGetMatchingPresets() {
+        assertEquals(countMatchingPresets(false), countMatchingPresets(true));
+        PerformanceTestUtils.runPerformanceTest("TaggingPresets.getMatchingPresets (all presets)",
+                () -> countMatchingPresets(false));
+        PerformanceTestUtils.runPerformanceTest("TaggingPresets.getMatchingPresets (indexed)",
+                () -> countMatchingPresets(true));
+    }
+
+    private static void readDefaultPresets(boolean snapshot) {
+        Config.getPref().putBoolean("taggingpreset.snapshot", snapshot);
+        try {
+            Collection<TaggingPreset> presets = TaggingPresetReader.readAll("resource://data/defaultpresets.xml", false);
+            assertFalse(presets.isEmpty());
+            // Do not accumulate the listeners registered by the presets
+            presets.forEach(MainApplication.getLayerManager()::removeActiveLayerChangeListener);
+        } catch (SAXException | IOException e) {
+            throw new JosmRuntimeException(e);
+        } finally {
+            Config.getPref().put("taggingpreset.snapshot", null);
+        }
+    }
+
+    /**
+     * Measures the time needed to read the default presets, by parsing the XML file or by replaying the snapshot of
+     * its parsed elements.
+     */
+    @Test
+    public void testReadDefaultPresets() {
+        readDefaultPresets(true);
+        PerformanceTestUtils.runPerformanceTest("TaggingPresetReader.readAll (parsed)", () -> readDefaultPresets(false));
+        PerformanceTestUtils.runPerformanceTest("TaggingPresetReader.readAll (snapshot)", () -> readDefaultPresets(true));
+    }
+}
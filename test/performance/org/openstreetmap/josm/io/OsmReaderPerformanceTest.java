@@ -65,6 +65,54 @@ public class OsmReaderPerformanceTest {
         runTest(".osm-file", true);
     }
 
+    /**
+     * Measures the throughput of reading the .osm file (from memory) with a growing number of threads
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testThreads() throws Exception {
+        InputStream is = loadFile(true);
+        int size = is.available();
+        int maxThreads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            long start = System.nanoTime();
+            DataSet ds = null;
+            for (int i = 0; i < TIMES; i++) {
+                is.reset();
+                ds = OsmReader.parseDataSet(is, null, false, threads);
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            assertNotNull(ds);
+            PerformanceTestUtils.measurementPlotsPluginOutput("throughput with " + threads + " threads (MB/s)",
+                    TIMES * size / 1e6 / seconds);
+        }
+    }
+
+    /**
+     * Measures the heap used by the data set read from the .osm file
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testMemory() throws Exception {
+        InputStream is = loadFile(true);
+        long before = usedMemory();
+        DataSet ds = OsmReader.parseDataSet(is, null);
+        long after = usedMemory();
+        assertNotNull(ds);
+        PerformanceTestUtils.measurementPlotsPluginOutput("heap used by data set (MB)", (after - before) / 1e6);
+        PerformanceTestUtils.measurementPlotsPluginOutput("heap used per primitive (bytes)",
+                (double) (after - before) / ds.allPrimitives().size());
+    }
+
+    @SuppressFBWarnings(value = "DM_GC", justification = "Performance test code")
+    private static long usedMemory() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
     private void runTest(String what, boolean decompressBeforeRead) throws IllegalDataException, IOException {
         InputStream is = loadFile(decompressBeforeRead);
         PerformanceTestTimer timer = PerformanceTestUtils.startTimer("load " + what + " " + TIMES + " times");
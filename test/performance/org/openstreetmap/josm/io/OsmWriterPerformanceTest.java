@@ -0,0 +1,145 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import org.openstreetmap.josm.JOSMFixture;
+import org.openstreetmap.josm.PerformanceTestUtils;
+import org.openstreetmap.josm.data.osm.DataSet;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * This test tests how fast we are at writing an OSM file.
+ * <p>
+ * For this, we use the neubrandenburg-file, which is a good real world example of an OSM file. We ignore disk access times.
+ */
+public class OsmWriterPerformanceTest {
+    private static final int TIMES = 4;
+    private static final String DATA_FILE = "data_nodist/neubrandenburg.osm.bz2";
+    private static DataSet ds;
+
+    /**
+     * Global timeout applied to all test methods.
+     */
+    @Rule
+    @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
+    public Timeout globalTimeout = Timeout.seconds(15*60);
+
+    /**
+     * Prepare the test.
+     * @throws Exception if the data set cannot be read
+     */
+    @BeforeClass
+    public static void createJOSMFixture() throws Exception {
+        JOSMFixture.createPerformanceTestFixture().init(true);
+        try (InputStream in = Compression.getUncompressedFileInputStream(new File(DATA_FILE))) {
+            ds = OsmReader.parseDataSet(in, null);
+        }
+    }
+
+    /**
+     * Output stream counting the bytes written, and discarding them or passing them to another stream.
+     */
+    private static class CountingOutputStream extends OutputStream {
+        private final OutputStream out;
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (out != null) {
+                out.write(b);
+            }
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (out != null) {
+                out.write(b, off, len);
+            }
+            count += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (out != null) {
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * Writes the data set {@link #TIMES} times and outputs the throughput, measured against the size of the .osm data.
+     * @param what description of the measurement
+     * @param compression the compression of the written data
+     * @param threads number of threads compressing the data
+     * @throws IOException if an I/O error occurs
+     */
+    private static void runTest(String what, Compression compression, int threads) throws IOException {
+        long size = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < TIMES; i++) {
+            CountingOutputStream compressed = new CountingOutputStream(null);
+            CountingOutputStream uncompressed = new CountingOutputStream(compression.getCompressedOutputStream(compressed, threads));
+            try (Writer writer = new OutputStreamWriter(uncompressed, StandardCharsets.UTF_8);
+                 OsmWriter w = OsmWriterFactory.createOsmWriter(new PrintWriter(writer), false, ds.getVersion())) {
+                w.write(ds);
+            }
+            size += uncompressed.count;
+            assertTrue(compressed.count > 0);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        PerformanceTestUtils.measurementPlotsPluginOutput(what + " (MB/s)", size / 1e6 / seconds);
+    }
+
+    /**
+     * Measures the throughput of writing an uncompressed .osm file
+     * @throws IOException if an I/O error occurs
+     */
+    @Test
+    public void testPlain() throws IOException {
+        runTest("write .osm", Compression.NONE, 1);
+    }
+
+    /**
+     * Measures the throughput of writing .osm.gz files with a growing number of threads
+     * @throws IOException if an I/O error occurs
+     */
+    @Test
+    public void testGzip() throws IOException {
+        int maxThreads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            runTest("write .osm.gz with " + threads + " threads", Compression.GZIP, threads);
+        }
+    }
+
+    /**
+     * Measures the throughput of writing .osm.bz2 files with a growing number of threads
+     * @throws IOException if an I/O error occurs
+     */
+    @Test
+    public void testBzip2() throws IOException {
+        int maxThreads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            runTest("write .osm.bz2 with " + threads + " threads", Compression.BZIP2, threads);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.tools;
+
+import java.awt.Dimension;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.openstreetmap.josm.JOSMFixture;
+import org.openstreetmap.josm.PerformanceTestUtils;
+import org.openstreetmap.josm.data.coor.EastNorth;
+import org.openstreetmap.josm.data.projection.Projection;
+import org.openstreetmap.josm.data.projection.Projections;
+import org.openstreetmap.josm.tools.ImageWarp.Interpolation;
+import org.openstreetmap.josm.tools.ImageWarp.PointTransform;
+
+/**
+ * This test measures the time needed to reproject a Mercator tile to Lambert 93, for each interpolation method.
+ */
+public class ImageWarpPerformanceTest {
+
+    private static final int TILE_SIZE = 512;
+    /** Bounds of the tile in EPSG:3857, around Paris */
+    private static final double MIN_EAST = 255_000;
+    private static final double MAX_NORTH = 6_260_000;
+    private static final double TILE_WIDTH = 2_500;
+
+    private static BufferedImage image;
+    private static PointTransform transform;
+
+    /**
+     * Prepare the test.
+     */
+    @BeforeClass
+    public static void createJOSMFixture() {
+        JOSMFixture.createPerformanceTestFixture().init(true);
+        image = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < TILE_SIZE; y++) {
+            for (int x = 0; x < TILE_SIZE; x++) {
+                image.setRGB(x, y, 0xff000000 | (x * 31 + y * 17) * 0x010101);
+            }
+        }
+        Projection projServer = Projections.getProjectionByCode("EPSG:3857");
+        Projection projCurrent = Projections.getProjectionByCode("EPSG:2154");
+        EastNorth origin = projCurrent.latlon2eastNorth(projServer.eastNorth2latlon(new EastNorth(MIN_EAST, MAX_NORTH)));
+        double scale = TILE_WIDTH / TILE_SIZE;
+        transform = pt -> {
+            EastNorth target = new EastNorth(origin.east() + pt.getX() * scale, origin.north() - pt.getY() * scale);
+            EastNorth source = projServer.latlon2eastNorth(projCurrent.eastNorth2latlon(target));
+            return new Point2D.Double((source.east() - MIN_EAST) / scale, (MAX_NORTH - source.north()) / scale);
+        };
+    }
+
+    private static void warp(String name, Interpolation interpolation) {
+        Dimension dim = new Dimension(TILE_SIZE, TILE_SIZE);
+        ImageWarp.TransformGrid grid = ImageWarp.TransformGrid.create(transform, dim, 7);
+        PerformanceTestUtils.runPerformanceTest("ImageWarp.warp (" + name + ", grid)",
+                () -> ImageWarp.warp(image, dim, new ImageWarp.GridTransform(transform, 7), interpolation));
+        PerformanceTestUtils.runPerformanceTest("ImageWarp.warp (" + name + ", cached grid)",
+                () -> ImageWarp.warp(image, dim, grid, interpolation));
+        PerformanceTestUtils.runPerformanceTest("ImageWarp.warp (" + name + ", no grid)",
+                () -> ImageWarp.warp(image, dim, transform, interpolation));
+    }
+
+    /**
+     * Measures the time needed to warp a tile with the nearest neighbor interpolation.
+     */
+    @Test
+    public void testNearestNeighbor() {
+        warp("nearest neighbor", Interpolation.NEAREST_NEIGHBOR);
+    }
+
+    /**
+     * Measures the time needed to warp a tile with the bilinear interpolation.
+     */
+    @Test
+    public void testBilinear() {
+        warp("bilinear", Interpolation.BILINEAR);
+    }
+}
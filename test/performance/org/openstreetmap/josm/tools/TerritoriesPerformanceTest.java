@@ -0,0 +1,45 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.tools;
+
+import java.io.File;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.openstreetmap.josm.JOSMFixture;
+import org.openstreetmap.josm.PerformanceTestUtils;
+import org.openstreetmap.josm.spi.preferences.Config;
+
+/**
+ * This test measures the startup time of the territories and traffic data, with and without the binary cache of
+ * the boundaries.
+ */
+public class TerritoriesPerformanceTest {
+
+    /**
+     * Prepare the test.
+     */
+    @BeforeClass
+    public static void createJOSMFixture() {
+        JOSMFixture.createPerformanceTestFixture().init(true);
+    }
+
+    private static void initialize(boolean cached) {
+        if (!cached) {
+            File dir = Config.getDirs().getCacheDirectory(true);
+            Utils.deleteFileIfExists(new File(dir, "boundaries-territories.bin"));
+            Utils.deleteFileIfExists(new File(dir, "boundaries-lefthandtraffic.bin"));
+        }
+        Territories.initialize();
+        RightAndLefthandTraffic.initialize();
+    }
+
+    /**
+     * Measures the time needed to initialize the territories and traffic data, by computing them from the
+     * internal boundaries file or by reading them from the cache.
+     */
+    @Test
+    public void testInitialize() {
+        PerformanceTestUtils.runPerformanceTest("Territories.initialize (computed)", () -> initialize(false));
+        PerformanceTestUtils.runPerformanceTest("Territories.initialize (cached)", () -> initialize(true));
+    }
+}
@@ -2,6 +2,8 @@
 package org.openstreetmap.josm.data.cache;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
@@ -149,4 +151,147 @@ public class HostLimitQueueTest {
         assertTrue("Expected duration between 4 and 6 seconds not met. Actual duration: " + (duration /1000),
                 duration < 6*1000 & duration > 4*1000);
     }
+
+    /**
+     * Check that prefetch jobs are taken only when no other job is queued, and that they can be promoted
+     * @throws Exception in case of error
+     */
+    @Test
+    public void testPrefetchJobsLast() throws Exception {
+        HostLimitQueue queue = new HostLimitQueue(10);
+        ICacheAccess<String, CacheEntry> cache = JCSCacheManager.getCache("test", 3, 0, "");
+        AtomicInteger counter = new AtomicInteger(0);
+        Task prefetch1 = new Task(cache, new URL("http://localhost/1"), counter);
+        Task prefetch2 = new Task(cache, new URL("http://localhost/2"), counter);
+        Task regular = new Task(cache, new URL("http://localhost/3"), counter);
+        prefetch1.setPrefetch(true);
+        prefetch2.setPrefetch(true);
+        queue.offer(prefetch1);
+        queue.offer(prefetch2);
+        queue.offer(regular);
+        assertSame(regular, queue.poll(1, TimeUnit.SECONDS));
+        prefetch2.setPrefetch(false);
+        assertSame(prefetch2, queue.poll(1, TimeUnit.SECONDS));
+        assertSame(prefetch1, queue.poll(1, TimeUnit.SECONDS));
+        assertTrue(queue.isEmpty());
+    }
+
+    private static Task createTask(ICacheAccess<String, CacheEntry> cache, String url, Object owner, int priority, boolean needed)
+            throws IOException {
+        Task task = new Task(cache, new URL(url), new AtomicInteger(0));
+        task.setScheduling(owner, () -> priority, () -> needed);
+        return task;
+    }
+
+    /**
+     * Check that jobs are taken by priority, and that the jobs that are not needed anymore are cancelled
+     * @throws Exception in case of error
+     */
+    @Test
+    public void testPriority() throws Exception {
+        HostLimitQueue queue = new HostLimitQueue(10);
+        ICacheAccess<String, CacheEntry> cache = JCSCacheManager.getCache("test", 3, 0, "");
+        Task low = createTask(cache, "http://localhost/1", "layer", 3, true);
+        Task high = createTask(cache, "http://localhost/2", "layer", 1, true);
+        Task medium = createTask(cache, "http://localhost/3", "layer", 2, true);
+        Task stale = createTask(cache, "http://localhost/4", "layer", 0, false);
+        queue.offer(low);
+        queue.offer(high);
+        queue.offer(medium);
+        queue.offer(stale);
+        assertSame(high, queue.poll(1, TimeUnit.SECONDS));
+        assertEquals(1, queue.getCancelledCount());
+        assertSame(medium, queue.poll(1, TimeUnit.SECONDS));
+        assertSame(low, queue.poll(1, TimeUnit.SECONDS));
+        assertTrue(queue.isEmpty());
+        assertEquals(3, queue.getTakenCount());
+        assertTrue(queue.getAverageWaitTime() >= 0);
+        assertTrue(queue.getStats(), queue.getStats().startsWith("depth: 0,"));
+    }
+
+    /**
+     * Check that the connections to a host are shared between the owners of the jobs
+     * @throws Exception in case of error
+     */
+    @Test
+    public void testFairSharing() throws Exception {
+        HostLimitQueue queue = new HostLimitQueue(3);
+        ICacheAccess<String, CacheEntry> cache = JCSCacheManager.getCache("test", 3, 0, "");
+        Task a1 = createTask(cache, "http://localhost/a1", "a", 0, true);
+        Task a2 = createTask(cache, "http://localhost/a2", "a", 0, true);
+        Task a3 = createTask(cache, "http://localhost/a3", "a", 0, true);
+        Task b1 = createTask(cache, "http://localhost/b1", "b", 5, true);
+        queue.offer(a1);
+        queue.offer(a2);
+        queue.offer(a3);
+        queue.offer(b1);
+        assertSame(a1, queue.poll(1, TimeUnit.SECONDS));
+        assertSame(b1, queue.poll(1, TimeUnit.SECONDS));
+        assertSame(a2, queue.poll(1, TimeUnit.SECONDS));
+        // host limit reached
+        assertNull(queue.poll(100, TimeUnit.MILLISECONDS));
+        a1.run();
+        assertSame(a3, queue.poll(1, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Check that the job waiting for a busy host is chosen like the other jobs, and that jobs not needed anymore are cancelled
+     * @throws Exception in case of error
+     */
+    @Test
+    public void testWaitForBusyHost() throws Exception {
+        HostLimitQueue queue = new HostLimitQueue(1);
+        ICacheAccess<String, CacheEntry> cache = JCSCacheManager.getCache("test", 3, 0, "");
+        Task running = createTask(cache, "http://localhost/1", "layer", 0, true);
+        queue.offer(running);
+        assertSame(running, queue.poll(1, TimeUnit.SECONDS));
+        Task stale = createTask(cache, "http://localhost/2", "layer", 0, false);
+        Task prefetch = createTask(cache, "http://localhost/3", "layer", 0, true);
+        prefetch.setPrefetch(true);
+        Task low = createTask(cache, "http://localhost/4", "layer", 2, true);
+        Task high = createTask(cache, "http://localhost/5", "layer", 1, true);
+        queue.offer(stale);
+        queue.offer(prefetch);
+        queue.offer(low);
+        queue.offer(high);
+        // host limit reached
+        assertNull(queue.poll(100, TimeUnit.MILLISECONDS));
+        assertEquals(1, queue.getCancelledCount());
+        assertEquals(3, queue.size());
+        Thread finisher = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Logging.trace(e);
+            }
+            running.executionFinished();
+        });
+        finisher.start();
+        assertSame(high, queue.take());
+        finisher.join();
+        high.executionFinished();
+        assertSame(low, queue.poll(1, TimeUnit.SECONDS));
+        low.executionFinished();
+        assertSame(prefetch, queue.poll(1, TimeUnit.SECONDS));
+        assertTrue(queue.isEmpty());
+    }
+
+    /**
+     * Check that removing a job from the queue, as done by the executor, is counted as a cancellation
+     * @throws Exception in case of error
+     */
+    @Test
+    public void testRemove() throws Exception {
+        ThreadPoolExecutor tpe = TMSCachedTileLoader.getNewThreadPoolExecutor("test-%d", 1, 1);
+        ICacheAccess<String, CacheEntry> cache = JCSCacheManager.getCache("test", 3, 0, "");
+        AtomicInteger counter = new AtomicInteger(0);
+        tpe.execute(new Task(cache, new URL("http://localhost/1"), counter));
+        Task queued = new Task(cache, new URL("http://localhost/2"), counter);
+        tpe.execute(queued);
+        assertTrue(tpe.remove(queued));
+        assertEquals(1, ((HostLimitQueue) tpe.getQueue()).getCancelledCount());
+        tpe.shutdown();
+        tpe.awaitTermination(5, TimeUnit.SECONDS);
+        assertEquals(1, counter.get());
+    }
 }
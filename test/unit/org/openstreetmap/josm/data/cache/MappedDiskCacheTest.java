@@ -0,0 +1,153 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.cache;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.commons.jcs.engine.CacheElement;
+import org.apache.commons.jcs.engine.behavior.ICacheElement;
+import org.apache.commons.jcs.utils.serialization.StandardSerializer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openstreetmap.josm.testutils.JOSMTestRules;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * Unit tests of {@link MappedDiskCache} class.
+ */
+public class MappedDiskCacheTest {
+
+    /**
+     * Setup test.
+     */
+    @Rule
+    @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
+    public JOSMTestRules test = new JOSMTestRules();
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private MappedDiskCache<String, CacheEntry> createCache(int maxSize, int segmentSize) {
+        MappedDiskCacheAttributes attributes = new MappedDiskCacheAttributes();
+        attributes.setDiskPath(folder.getRoot());
+        attributes.setCacheName("test");
+        attributes.setMaxSize(maxSize);
+        attributes.setSegmentSize(segmentSize);
+        MappedDiskCache<String, CacheEntry> cache = new MappedDiskCache<>(attributes, new StandardSerializer());
+        assertTrue(cache.isAlive());
+        return cache;
+    }
+
+    private static void put(MappedDiskCache<String, CacheEntry> cache, String key, int size) throws IOException {
+        byte[] content = new byte[size];
+        Arrays.fill(content, (byte) key.hashCode());
+        cache.processUpdate(new CacheElement<>("test", key, new CacheEntry(content)));
+    }
+
+    private static void assertContent(MappedDiskCache<String, CacheEntry> cache, String key, int size) {
+        ICacheElement<String, CacheEntry> element = cache.processGet(key);
+        assertNotNull(key, element);
+        assertEquals(key, element.getKey());
+        byte[] content = new byte[size];
+        Arrays.fill(content, (byte) key.hashCode());
+        assertArrayEquals(key, content, element.getVal().getContent());
+    }
+
+    /**
+     * Tests storing, reading and removing elements, across segments.
+     * @throws IOException if an I/O error occurs
+     */
+    @Test
+    public void testReadWrite() throws IOException {
+        MappedDiskCache<String, CacheEntry> cache = createCache(-1, 4096);
+        for (int i = 0; i < 20; i++) {
+            put(cache, (i % 2 == 0 ? "a:" : "b:") + i, 1000);
+        }
+        put(cache, "a:0", 2000);
+        assertEquals(20, cache.getSize());
+        assertContent(cache, "a:0", 2000);
+        for (int i = 1; i < 20; i++) {
+            assertContent(cache, (i % 2 == 0 ? "a:" : "b:") + i, 1000);
+        }
+        assertNull(cache.processGet("c:0"));
+        assertTrue(cache.getStatistics().getStatElements().stream().anyMatch(e -> "Data File Length".equals(e.getName())));
+        assertEquals(10, cache.processGetMatching("^b:.*").size());
+
+        assertTrue(cache.processRemove("b:1"));
+        assertFalse(cache.processRemove("b:1"));
+        assertTrue(cache.processRemove("a:"));
+        assertEquals(9, cache.getSize());
+        assertNull(cache.processGet("a:2"));
+        assertContent(cache, "b:3", 1000);
+
+        cache.processRemoveAll();
+        assertEquals(0, cache.getSize());
+        assertEquals(0, cache.getDataLength());
+        cache.processDispose();
+    }
+
+    /**
+     * Tests that the elements are kept when the cache is reopened, with the saved index or after a crash.
+     * @throws IOException if an I/O error occurs
+     */
+    @Test
+    public void testReopen() throws IOException {
+        MappedDiskCache<String, CacheEntry> cache = createCache(-1, 4096);
+        for (int i = 0; i < 10; i++) {
+            put(cache, "a:" + i, 1000);
+        }
+        cache.processDispose();
+        assertTrue(new File(folder.getRoot(), "test.idx").isFile());
+
+        cache = createCache(-1, 4096);
+        assertFalse(new File(folder.getRoot(), "test.idx").isFile());
+        assertEquals(10, cache.getSize());
+        assertContent(cache, "a:5", 1000);
+        put(cache, "a:10", 1000);
+        long length = cache.getDataLength();
+
+        // not disposed: the index is rebuilt from the segments
+        MappedDiskCache<String, CacheEntry> rebuilt = createCache(-1, 4096);
+        assertEquals(11, rebuilt.getSize());
+        assertEquals(length, rebuilt.getDataLength());
+        assertContent(rebuilt, "a:10", 1000);
+        rebuilt.processDispose();
+        cache.processDispose();
+    }
+
+    /**
+     * Tests that the least recently used elements are removed and the segments compacted when the maximum size is exceeded.
+     * @throws IOException if an I/O error occurs
+     */
+    @Test
+    public void testMaxSize() throws IOException {
+        MappedDiskCache<String, CacheEntry> cache = createCache(64, 8192);
+        for (int i = 0; i < 200; i++) {
+            put(cache, "a:" + i, 1000);
+            // keep the first element in use
+            assertContent(cache, "a:0", 1000);
+        }
+        assertTrue(cache.getDataLength() <= 64 * 1024);
+        assertTrue(cache.getSize() > 40);
+        assertContent(cache, "a:0", 1000);
+        assertContent(cache, "a:199", 1000);
+        assertNull(cache.processGet("a:1"));
+        File[] segments = folder.getRoot().listFiles((dir, name) -> name.endsWith(".seg"));
+        assertNotNull(segments);
+        assertEquals(cache.getDataLength(), Arrays.stream(segments).mapToLong(File::length).sum());
+        cache.processDispose();
+    }
+}
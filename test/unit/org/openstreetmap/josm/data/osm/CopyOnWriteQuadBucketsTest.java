@@ -0,0 +1,181 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.testutils.JOSMTestRules;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * Unit tests of {@link CopyOnWriteQuadBuckets}.
+ */
+public class CopyOnWriteQuadBucketsTest {
+
+    /**
+     * Setup test.
+     */
+    @Rule
+    @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
+    public JOSMTestRules test = new JOSMTestRules();
+
+    private static final BBox PLANET = new BBox(-180, -90, 180, 90);
+
+    private static List<Node> createNodes(Random random, int count, long firstId) {
+        List<Node> nodes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Node n = new Node(firstId + i);
+            n.setCoor(new LatLon(random.nextDouble() * 2 + 45, random.nextDouble() * 2 + 5));
+            nodes.add(n);
+        }
+        return nodes;
+    }
+
+    /**
+     * Test that searches give the same result as {@link QuadBuckets}, also after removals.
+     */
+    @Test
+    public void testSearchLikeQuadBuckets() {
+        Random random = new Random(42);
+        List<Node> nodes = createNodes(random, 5000, 1);
+        CopyOnWriteQuadBuckets<Node> cow = new CopyOnWriteQuadBuckets<>();
+        QuadBuckets<Node> qb = new QuadBuckets<>();
+        cow.addAll(nodes);
+        qb.addAll(nodes);
+        for (int i = 0; i < nodes.size(); i += 3) {
+            assertTrue(cow.remove(nodes.get(i)));
+            assertTrue(qb.remove(nodes.get(i)));
+        }
+        assertEquals(qb.size(), cow.size());
+        for (int i = 0; i < 100; i++) {
+            double lat = random.nextDouble() * 2 + 45;
+            double lon = random.nextDouble() * 2 + 5;
+            BBox bbox = new BBox(lon, lat, lon + random.nextDouble() / 4, lat + random.nextDouble() / 4);
+            assertEquals(new HashSet<>(qb.search(bbox)), new HashSet<>(cow.search(bbox)));
+        }
+        for (Node n : nodes) {
+            assertEquals(qb.contains(n), cow.contains(n));
+        }
+    }
+
+    /**
+     * Test that a published snapshot is not affected by later modifications.
+     */
+    @Test
+    public void testSnapshotIsolation() {
+        Random random = new Random(42);
+        List<Node> nodes = createNodes(random, 1000, 1);
+        CopyOnWriteQuadBuckets<Node> cow = new CopyOnWriteQuadBuckets<>();
+        assertEquals(0, cow.getSnapshot().size());
+        cow.addAll(nodes.subList(0, 500));
+        assertTrue(cow.getSnapshot().search(PLANET).isEmpty());
+        cow.publish();
+        CopyOnWriteQuadBuckets.Snapshot<Node> first = cow.getSnapshot();
+        assertEquals(500, first.size());
+
+        cow.addAll(nodes.subList(500, 1000));
+        for (Node n : nodes.subList(0, 100)) {
+            assertTrue(cow.remove(n));
+        }
+        assertEquals(900, cow.search(PLANET).size());
+        assertEquals(new HashSet<>(nodes.subList(0, 500)), new HashSet<>(first.search(PLANET)));
+
+        cow.publish();
+        assertEquals(new HashSet<>(nodes.subList(100, 1000)), new HashSet<>(cow.getSnapshot().search(PLANET)));
+        assertEquals(500, first.search(PLANET).size());
+    }
+
+    /**
+     * Test handling of objects with invalid bbox, and removal through the iterator.
+     */
+    @Test
+    public void testSpecialBBox() {
+        CopyOnWriteQuadBuckets<Way> cow = new CopyOnWriteQuadBuckets<>();
+        Way w1 = new Way(1);
+        Way w2 = new Way(2);
+        Node n1 = new Node(1);
+        Node n2 = new Node(2);
+        n2.setCoor(new LatLon(10, 20));
+        w2.setNodes(Arrays.asList(n1, n2));
+        cow.add(w1);
+        cow.add(w2);
+        assertEquals(2, cow.size());
+        assertTrue(cow.contains(w1));
+        assertTrue(cow.contains(w2));
+        cow.publish();
+        assertEquals(Arrays.asList(w2), cow.getSnapshot().search(PLANET));
+
+        int count = cow.size();
+        Iterator<Way> iter = cow.iterator();
+        while (iter.hasNext()) {
+            iter.next();
+            iter.remove();
+            count--;
+            assertEquals(count, cow.size());
+        }
+        assertTrue(cow.isEmpty());
+        assertFalse(cow.contains(w1));
+        assertEquals(2, cow.getSnapshot().size());
+    }
+
+    /**
+     * Test that snapshots can be searched while another thread modifies the index.
+     * @throws Exception if a reader fails
+     */
+    @Test
+    public void testConcurrentSearch() throws Exception {
+        Random random = new Random(42);
+        List<Node> nodes = createNodes(random, 20000, 1);
+        CopyOnWriteQuadBuckets<Node> cow = new CopyOnWriteQuadBuckets<>();
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread reader = new Thread(() -> {
+                try {
+                    while (!done.get()) {
+                        CopyOnWriteQuadBuckets.Snapshot<Node> snapshot = cow.getSnapshot();
+                        assertEquals(snapshot.size(), snapshot.search(PLANET).size());
+                    }
+                } catch (Throwable t) { // NOPMD
+                    failure.set(t);
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+        try {
+            for (int i = 0; i < nodes.size(); i++) {
+                cow.add(nodes.get(i));
+                if (i % 7 == 0) {
+                    cow.remove(nodes.get(i / 2));
+                }
+                if (i % 100 == 0) {
+                    cow.publish();
+                }
+            }
+        } finally {
+            done.set(true);
+            for (Thread reader : readers) {
+                reader.join();
+            }
+        }
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+    }
+}
@@ -9,6 +9,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Assert;
 import org.junit.Rule;
@@ -287,4 +289,62 @@ public class DataSetTest {
         ds.addDataSourceListener(removeListener);
         new DataSet().mergeFrom(ds);
     }
+
+    /**
+     * Checks that spatial searches from another thread do not wait for a running update,
+     * and only see the changes after {@link DataSet#endUpdate()}.
+     * @throws Exception if the search thread fails
+     */
+    @Test
+    public void testSearchDuringUpdate() throws Exception {
+        DataSet ds = new DataSet();
+        Node n1 = new Node(new LatLon(10, 10));
+        ds.addPrimitive(n1);
+        BBox bbox = new BBox(0, 0, 20, 20);
+        ds.beginUpdate();
+        try {
+            ds.addPrimitive(new Node(new LatLon(11, 11)));
+            assertEquals(2, ds.searchNodes(bbox).size());
+            List<Node> found = new ArrayList<>();
+            Thread reader = new Thread(() -> found.addAll(ds.searchNodes(bbox)));
+            reader.start();
+            reader.join(10000);
+            assertFalse(reader.isAlive());
+            assertEquals(Arrays.asList(n1), found);
+        } finally {
+            ds.endUpdate();
+        }
+        assertEquals(2, ds.searchNodes(bbox).size());
+    }
+
+    /**
+     * Checks that primitives are found by id from another thread while the dataset grows.
+     * @throws Exception if the lookup thread fails
+     */
+    @Test
+    public void testGetPrimitiveByIdDuringUpdate() throws Exception {
+        DataSet ds = new DataSet();
+        Node first = new Node(1);
+        ds.addPrimitive(first);
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicInteger misses = new AtomicInteger();
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                if (ds.getPrimitiveById(1, OsmPrimitiveType.NODE) != first) {
+                    misses.incrementAndGet();
+                }
+            }
+        });
+        reader.start();
+        try {
+            for (int i = 2; i < 100_000; i++) {
+                ds.addPrimitive(new Node(i));
+            }
+        } finally {
+            done.set(true);
+            reader.join(10000);
+        }
+        assertFalse(reader.isAlive());
+        assertEquals(0, misses.get());
+    }
 }
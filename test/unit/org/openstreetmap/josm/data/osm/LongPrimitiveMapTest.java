@@ -0,0 +1,131 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.openstreetmap.josm.testutils.JOSMTestRules;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * Unit tests of {@link LongPrimitiveMap}.
+ */
+public class LongPrimitiveMapTest {
+
+    /**
+     * Setup test.
+     */
+    @Rule
+    @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
+    public JOSMTestRules test = new JOSMTestRules();
+
+    /**
+     * Test basic operations, including keys with equal hash slots and negative keys.
+     */
+    @Test
+    public void testPutGetRemove() {
+        LongPrimitiveMap<Node> map = new LongPrimitiveMap<>();
+        assertTrue(map.isEmpty());
+        Node n1 = new Node(1);
+        Node n2 = new Node(2);
+        assertNull(map.put(1, n1));
+        assertNull(map.put(-1, n2));
+        assertSame(n1, map.get(1));
+        assertSame(n2, map.get(-1));
+        assertNull(map.get(0));
+        assertEquals(2, map.size());
+        assertSame(n2, map.put(-1, n1));
+        assertEquals(2, map.size());
+        assertSame(n1, map.remove(-1));
+        assertNull(map.remove(-1));
+        assertFalse(map.containsKey(-1));
+        assertTrue(map.containsKey(1));
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1));
+    }
+
+    /**
+     * Compare a random sequence of operations against a {@link HashMap}, to cover resizing and removal in clusters.
+     */
+    @Test
+    public void testRandomOperations() {
+        Random random = new Random(42);
+        LongPrimitiveMap<Node> map = new LongPrimitiveMap<>();
+        Map<Long, Node> expected = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(20_000) - 10_000;
+            if (random.nextInt(3) == 0) {
+                assertSame(expected.remove(key), map.remove(key));
+            } else {
+                Node n = new Node();
+                assertSame(expected.put(key, n), map.put(key, n));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (long key = -10_000; key < 10_000; key++) {
+            assertSame(expected.get(key), map.get(key));
+        }
+        assertEquals(new HashSet<>(expected.values()), new HashSet<>(map.values()));
+        assertEquals(expected.size(), map.values().size());
+    }
+
+    /**
+     * Test a map keyed by the unique ids of its values.
+     */
+    @Test
+    public void testByUniqueId() {
+        LongPrimitiveMap<Node> map = LongPrimitiveMap.byUniqueId();
+        Map<Long, Node> expected = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            Node n = i % 2 == 0 ? new Node(i + 1) : new Node();
+            assertNull(map.put(n.getUniqueId(), n));
+            expected.put(n.getUniqueId(), n);
+        }
+        for (int i = 0; i < 1000; i += 3) {
+            long key = expected.keySet().iterator().next();
+            assertSame(expected.remove(key), map.remove(key));
+        }
+        assertEquals(expected.size(), map.size());
+        for (Node n : expected.values()) {
+            assertSame(n, map.get(n.getUniqueId()));
+        }
+        assertEquals(new HashSet<>(expected.values()), new HashSet<>(map.values()));
+    }
+
+    /**
+     * Test {@link LongPrimitiveMap#forEach}.
+     */
+    @Test
+    public void testForEach() {
+        LongPrimitiveMap<Node> map = new LongPrimitiveMap<>();
+        Map<Long, Node> expected = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            Node n = new Node();
+            map.put(-i, n);
+            expected.put((long) -i, n);
+        }
+        Map<Long, Node> actual = new HashMap<>();
+        map.forEach((n, key) -> assertNull(actual.put(key, n)));
+        assertEquals(expected, actual);
+    }
+
+    /**
+     * Test that a map keyed by unique id rejects other keys.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testByUniqueIdIAE() {
+        LongPrimitiveMap.<Node>byUniqueId().put(1, new Node(2));
+    }
+}
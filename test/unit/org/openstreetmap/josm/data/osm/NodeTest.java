@@ -5,14 +5,24 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.junit.Rule;
 import org.junit.Test;
 import org.openstreetmap.josm.data.Bounds;
 import org.openstreetmap.josm.data.DataSource;
 import org.openstreetmap.josm.data.coor.EastNorth;
 import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.projection.Projection;
+import org.openstreetmap.josm.data.projection.ProjectionRegistry;
+import org.openstreetmap.josm.data.projection.Projections;
 import org.openstreetmap.josm.testutils.JOSMTestRules;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
@@ -129,4 +139,98 @@ public class NodeTest {
         assertTrue(n.isOutSideWorld());
     }
 
+    /**
+     * Test that projected coordinates are kept when a node is added to or removed from a dataset,
+     * and that slots of removed nodes are reused.
+     */
+    @Test
+    public void testEastNorthCache() {
+        EastNorth en = new EastNorth(1000.5, 2000.25);
+        Node n1 = new Node(en);
+        assertEquals(en, n1.getEastNorth());
+        DataSet ds = new DataSet();
+        ds.addPrimitive(n1);
+        assertEquals(en, n1.getEastNorth());
+        Node n2 = new Node(LatLon.NORTH_POLE);
+        ds.addPrimitive(n2);
+        assertEquals(2, ds.getEastNorthCache().size());
+        ds.removePrimitive(n1);
+        assertEquals(1, ds.getEastNorthCache().size());
+        assertEquals(en, n1.getEastNorth());
+        Node n3 = new Node(LatLon.ZERO);
+        ds.addPrimitive(n3);
+        assertEquals(2, ds.getEastNorthCache().size());
+        assertEquals(ProjectionRegistry.getProjection().latlon2eastNorth(LatLon.ZERO), n3.getEastNorth());
+        n3.setEastNorth(en);
+        assertEquals(en, n3.getEastNorth());
+        ds.invalidateEastNorthCache();
+        assertTrue(n3.getEastNorth().equalsEpsilon(en, 1e-6));
+        ds.clear();
+        assertEquals(0, ds.getEastNorthCache().size());
+        assertTrue(n3.getEastNorth().equalsEpsilon(en, 1e-6));
+    }
+
+    /**
+     * Test that nodes can be projected concurrently, with the current projection and another one,
+     * while the pages of the cache are allocated.
+     * @throws Exception if a thread fails
+     */
+    @Test
+    public void testEastNorthCacheConcurrent() throws Exception {
+        DataSet ds = new DataSet();
+        List<Node> nodes = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            Node n = new Node(new LatLon(i * 0.001, -i * 0.002));
+            ds.addPrimitive(n);
+            nodes.add(n);
+        }
+        Projection current = ProjectionRegistry.getProjection();
+        Projection other = Projections.getProjectionByCode("EPSG:4326");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int offset = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < nodes.size(); i++) {
+                        Node n = nodes.get((i * 7 + offset * 5003) % nodes.size());
+                        Projection p = (i + offset) % 3 == 0 ? other : current;
+                        assertEquals(p.latlon2eastNorth(n), n.getEastNorth(p));
+                    }
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        for (Node n : nodes) {
+            assertEquals(current.latlon2eastNorth(n), n.getEastNorth());
+        }
+    }
+
+    /**
+     * Test that a reader racing the removal of a node does not get the coordinates of the node which reuses its slot.
+     */
+    @Test
+    public void testEastNorthCacheSlotReuse() {
+        EastNorthCache cache = new EastNorthCache();
+        Object key = ProjectionRegistry.getProjection().getCacheKey();
+        Node n1 = new Node(new LatLon(1, 2));
+        Node n2 = new Node(new LatLon(3, 4));
+        EastNorth en1 = new EastNorth(1, 2);
+        EastNorth en2 = new EastNorth(3, 4);
+        int slot = cache.allocate();
+        cache.put(slot, n1, en1, key);
+        assertSame(en1, cache.get(slot, n1, key));
+        cache.release(slot);
+        assertEquals(slot, cache.allocate());
+        cache.put(slot, n2, en2, key);
+        assertNull(cache.get(slot, n1, key));
+        assertSame(en2, cache.get(slot, n2, key));
+        // a late reader of the removed node only replaces the entry
+        cache.put(slot, n1, en1, key);
+        assertNull(cache.get(slot, n2, key));
+    }
 }
@@ -3,8 +3,12 @@ package org.openstreetmap.josm.data.osm;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Arrays;
+
 import org.junit.Rule;
 import org.junit.Test;
 import org.openstreetmap.josm.data.coor.LatLon;
@@ -152,6 +156,42 @@ public class OsmPrimitiveKeyHandlingTest {
         assertFalse(n1.hasEqualSemanticAttributes(n2));
     }
 
+    /**
+     * Test that small equal tag arrays are shared between primitives, and that changing the tags of one of
+     * them does not affect the others.
+     */
+    @Test
+    public void testSharedTags() {
+        Node n1 = new Node();
+        Node n2 = new Node();
+        n1.put("building", "yes");
+        n2.put("building", "yes");
+        assertSame(n1.keys, n2.keys);
+        n2.put("building", "house");
+        testGetKey(n1, "building", "yes");
+        testGetKey(n2, "building", "house");
+
+        Way w = new Way();
+        w.setKeys(n2.getKeys());
+        assertSame(n2.keys, w.keys);
+        w.put("roof:shape", "flat");
+        n2.put("roof:shape", "flat");
+        assertSame(n2.keys, w.keys);
+        w.remove("roof:shape");
+        testKeysSize(w, 1);
+        testKeysSize(n2, 2);
+
+        Node n3 = new Node();
+        Node n4 = new Node();
+        for (Node n : Arrays.asList(n3, n4)) {
+            n.put("building", "yes");
+            n.put("name", "A");
+            n.put("addr:housenumber", "1");
+        }
+        assertNotSame(n3.keys, n4.keys);
+        assertEquals(n3.getKeys(), n4.getKeys());
+    }
+
     /**
      * Tests if the size of the keys map is right.
      * @author Michael Zangl
@@ -45,8 +45,8 @@ public class QuadBucketsTest {
         List<Relation> allRelations = new ArrayList<>(ds.getRelations());
 
         QuadBucketPrimitiveStore<Node, Way, Relation> s = (QuadBucketPrimitiveStore<Node, Way, Relation>) getPrivateField(ds, "store");
-        QuadBuckets<Node> nodes = (QuadBuckets<Node>) getPrivateField(s, "nodes");
-        QuadBuckets<Way> ways = (QuadBuckets<Way>) getPrivateField(s, "ways");
+        CopyOnWriteQuadBuckets<Node> nodes = (CopyOnWriteQuadBuckets<Node>) getPrivateField(s, "nodes");
+        CopyOnWriteQuadBuckets<Way> ways = (CopyOnWriteQuadBuckets<Way>) getPrivateField(s, "ways");
         Collection<Relation> relations = (Collection<Relation>) getPrivateField(s, "relations");
 
         int expectedCount = allNodes.size();
@@ -4,10 +4,27 @@ package org.openstreetmap.josm.data.osm.visitor.paint;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.junit.Rule;
 import org.junit.Test;
 import org.openstreetmap.josm.TestUtils;
+import org.openstreetmap.josm.data.Bounds;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.Way;
 import org.openstreetmap.josm.data.osm.visitor.paint.StyledMapRenderer.StyleRecord;
+import org.openstreetmap.josm.gui.MainApplication;
+import org.openstreetmap.josm.gui.MapView;
+import org.openstreetmap.josm.gui.NavigatableComponent;
+import org.openstreetmap.josm.testutils.JOSMTestRules;
 
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import nl.jqno.equalsverifier.EqualsVerifier;
 import nl.jqno.equalsverifier.Warning;
 
@@ -18,6 +35,13 @@ import nl.jqno.equalsverifier.Warning;
  */
 public class StyledMapRendererTest {
 
+    /**
+     * Setup test.
+     */
+    @Rule
+    @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
+    public JOSMTestRules test = new JOSMTestRules().preferences().projection().mapStyles();
+
     /**
      * Tests the floatToFixed function.
      */
@@ -90,4 +114,98 @@ public class StyledMapRendererTest {
             .suppress(Warning.NONFINAL_FIELDS)
             .verify();
     }
+
+    private static DataSet createDataSet() {
+        DataSet ds = new DataSet();
+        for (int i = 0; i < 10; i++) {
+            Way horizontal = new Way();
+            Way vertical = new Way();
+            for (int j = 0; j < 10; j++) {
+                Node n1 = new Node(new LatLon(50 + i * 1e-3, 10 + j * 1e-3));
+                Node n2 = new Node(new LatLon(50 + j * 1e-3, 10.0005 + i * 1e-3));
+                n1.put("amenity", j % 3 == 0 ? "bench" : null);
+                ds.addPrimitive(n1);
+                ds.addPrimitive(n2);
+                horizontal.addNode(n1);
+                vertical.addNode(n2);
+            }
+            horizontal.put("highway", i % 2 == 0 ? "primary" : "residential");
+            horizontal.put("name", "Street " + i);
+            vertical.put(i % 3 == 0 ? "waterway" : "railway", i % 3 == 0 ? "river" : "rail");
+            ds.addPrimitive(horizontal);
+            ds.addPrimitive(vertical);
+        }
+        Way area = new Way();
+        area.setNodes(Arrays.asList(ds.getNodes().stream().filter(n -> n.lat() < 50.0015 && n.lon() < 10.004)
+                .sorted(Comparator.comparingDouble(Node::lon)).toArray(Node[]::new)));
+        area.addNode(area.firstNode());
+        area.put("landuse", "forest");
+        ds.addPrimitive(area);
+        return ds;
+    }
+
+    private static void assertSimilar(BufferedImage expected, BufferedImage actual) {
+        int different = 0;
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                int rgb1 = expected.getRGB(x, y);
+                int rgb2 = actual.getRGB(x, y);
+                for (int shift = 0; shift < 32; shift += 8) {
+                    // the images painted in strips are composited, which may round differently
+                    if (Math.abs((rgb1 >> shift & 0xff) - (rgb2 >> shift & 0xff)) > 2) {
+                        different++;
+                        break;
+                    }
+                }
+            }
+        }
+        assertEquals(0, different);
+    }
+
+    /**
+     * Test that painting the view in strips gives the same image as painting it at once.
+     */
+    @Test
+    public void testTiledPainting() {
+        DataSet ds = createDataSet();
+        try {
+            BufferedImage expected = render(ds);
+            StyledMapRenderer.PREFERENCE_TILED_PAINTING.put(true);
+            assertSimilar(expected, render(ds));
+        } finally {
+            StyledMapRenderer.PREFERENCE_TILED_PAINTING.put(false);
+        }
+    }
+
+    /**
+     * Test that painting the ways with their cached geometry gives the same image, also after a change of the ways.
+     */
+    @Test
+    public void testGeometryCache() {
+        DataSet ds = createDataSet();
+        WayGeometryCache.getInstance().addDataSet(ds);
+        try {
+            assertSimilar(render(new DataSet(ds)), render(ds));
+            Node n = ds.getWays().iterator().next().getNode(3);
+            n.setCoor(new LatLon(n.lat() + 5e-4, n.lon()));
+            assertSimilar(render(new DataSet(ds)), render(ds));
+        } finally {
+            WayGeometryCache.getInstance().removeDataSet(ds);
+        }
+    }
+
+    private static BufferedImage render(DataSet ds) {
+        BufferedImage img = new BufferedImage(400, 300, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = img.createGraphics();
+        g.setClip(0, 0, 400, 300);
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, 400, 300);
+        NavigatableComponent nc = new MapView(MainApplication.getLayerManager(), null);
+        nc.setBounds(0, 0, 400, 300);
+        Bounds bounds = new Bounds(50, 10, 50.01, 10.01);
+        nc.zoomTo(bounds);
+        new StyledMapRenderer(g, nc, false).render(ds, false, bounds);
+        g.dispose();
+        return img;
+    }
 }
@@ -0,0 +1,159 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.osm.visitor.paint;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.awt.geom.PathIterator;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.openstreetmap.josm.data.coor.EastNorth;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.data.osm.visitor.paint.WayGeometryCache.WayGeometry;
+import org.openstreetmap.josm.gui.MapViewState;
+import org.openstreetmap.josm.gui.MapViewState.MapViewPoint;
+import org.openstreetmap.josm.gui.draw.MapViewPath;
+import org.openstreetmap.josm.testutils.JOSMTestRules;
+import org.openstreetmap.josm.tools.Geometry;
+import org.openstreetmap.josm.tools.Geometry.AreaAndPerimeter;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * Unit tests of {@link WayGeometryCache} class.
+ */
+public class WayGeometryCacheTest {
+
+    /**
+     * Setup test.
+     */
+    @Rule
+    @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
+    public JOSMTestRules test = new JOSMTestRules().projection();
+
+    private final WayGeometryCache cache = WayGeometryCache.getInstance();
+    private DataSet ds;
+    private Way way;
+    private MapViewState state;
+
+    /**
+     * Creates a data set with a closed way.
+     */
+    @Before
+    public void setUp() {
+        ds = new DataSet();
+        Node n1 = new Node(new LatLon(50, 10));
+        Node n2 = new Node(new LatLon(50, 10.01));
+        Node n3 = new Node(new LatLon(50.01, 10.01));
+        way = new Way();
+        way.setNodes(Arrays.asList(n1, n2, n3, n1));
+        ds.addPrimitive(n1);
+        ds.addPrimitive(n2);
+        ds.addPrimitive(n3);
+        ds.addPrimitive(way);
+        state = MapViewState.createDefaultState(800, 600).usingCenter(n2.getEastNorth()).usingScale(10);
+    }
+
+    private void assertGeometry(WayGeometry geometry) {
+        assertEquals(way.getNodesCount(), geometry.getPointCount());
+        double[] coordinates = geometry.getViewCoordinates(state);
+        for (int i = 0; i < way.getNodesCount(); i++) {
+            MapViewPoint p = state.getPointFor(way.getNode(i));
+            assertEquals(p.getInViewX(), coordinates[2 * i], 1e-6);
+            assertEquals(p.getInViewY(), coordinates[2 * i + 1], 1e-6);
+        }
+        AreaAndPerimeter expected = Geometry.getAreaAndPerimeter(way.getNodes());
+        assertEquals(expected.getArea(), geometry.getAreaAndPerimeter().getArea(), 1e-6);
+        assertEquals(expected.getPerimeter(), geometry.getAreaAndPerimeter().getPerimeter(), 1e-6);
+    }
+
+    /**
+     * Test that only the ways of the added data sets are cached.
+     */
+    @Test
+    public void testAddRemoveDataSet() {
+        assertNull(cache.get(way, state.getProjecting()));
+        cache.addDataSet(ds);
+        try {
+            WayGeometry geometry = cache.get(way, state.getProjecting());
+            assertNotNull(geometry);
+            assertGeometry(geometry);
+            assertSame(geometry, cache.get(way, state.getProjecting()));
+            assertNull(cache.get(new Way(), state.getProjecting()));
+        } finally {
+            cache.removeDataSet(ds);
+        }
+        assertNull(cache.get(way, state.getProjecting()));
+    }
+
+    /**
+     * Test that the view coordinates are computed again only when the view changes.
+     */
+    @Test
+    public void testViewCoordinates() {
+        cache.addDataSet(ds);
+        try {
+            WayGeometry geometry = cache.get(way, state.getProjecting());
+            double[] coordinates = geometry.getViewCoordinates(state);
+            assertSame(coordinates, geometry.getViewCoordinates(state.usingScale(state.getScale())));
+            EastNorth center = state.getCenter().getEastNorth();
+            state = state.usingCenter(new EastNorth(center.east() + 100, center.north()));
+            assertNotSame(coordinates, geometry.getViewCoordinates(state));
+            assertGeometry(geometry);
+
+            MapViewPath path = new MapViewPath(state);
+            geometry.appendTo(path);
+            MapViewPath expected = new MapViewPath(state).appendClosed(way.getNodes(), false);
+            assertArrayEquals(toArray(expected), toArray(path), 1e-6);
+        } finally {
+            cache.removeDataSet(ds);
+        }
+    }
+
+    private static double[] toArray(MapViewPath path) {
+        double[] result = new double[0];
+        double[] coords = new double[6];
+        for (PathIterator it = path.getPathIterator(null); !it.isDone(); it.next()) {
+            int type = it.currentSegment(coords);
+            result = Arrays.copyOf(result, result.length + 3);
+            result[result.length - 3] = type;
+            result[result.length - 2] = coords[0];
+            result[result.length - 1] = coords[1];
+        }
+        return result;
+    }
+
+    /**
+     * Test that the geometry is computed again after a change of the way.
+     */
+    @Test
+    public void testInvalidation() {
+        cache.addDataSet(ds);
+        try {
+            WayGeometry geometry = cache.get(way, state.getProjecting());
+            way.getNode(1).setCoor(new LatLon(49.99, 10.02));
+            WayGeometry moved = cache.get(way, state.getProjecting());
+            assertNotSame(geometry, moved);
+            assertGeometry(moved);
+
+            Node n = new Node(new LatLon(50.01, 10));
+            ds.addPrimitive(n);
+            way.addNode(3, n);
+            WayGeometry changed = cache.get(way, state.getProjecting());
+            assertNotSame(moved, changed);
+            assertGeometry(changed);
+        } finally {
+            cache.removeDataSet(ds);
+        }
+    }
+}
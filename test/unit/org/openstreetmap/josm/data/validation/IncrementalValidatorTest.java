@@ -0,0 +1,221 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.validation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.openstreetmap.josm.command.DeleteCommand;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.data.osm.event.DataChangedEvent;
+import org.openstreetmap.josm.data.validation.tests.CrossingWays;
+import org.openstreetmap.josm.data.validation.tests.DuplicateNode;
+import org.openstreetmap.josm.data.validation.tests.MapCSSTagChecker;
+import org.openstreetmap.josm.data.validation.tests.TagChecker;
+import org.openstreetmap.josm.data.validation.tests.UnconnectedWays;
+import org.openstreetmap.josm.data.validation.tests.UntaggedNode;
+import org.openstreetmap.josm.testutils.JOSMTestRules;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * Unit tests of {@link IncrementalValidator} class.
+ */
+public class IncrementalValidatorTest {
+
+    /**
+     * Setup test.
+     */
+    @Rule
+    @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
+    public JOSMTestRules test = new JOSMTestRules().projection().territories().presets();
+
+    private DataSet ds;
+    private List<Test> tests;
+    private IncrementalValidator validator;
+    private List<TestError> errors;
+
+    /**
+     * Creates a grid of highways, validates it completely and starts listening to its changes.
+     * @throws Exception if an error occurs
+     */
+    @Before
+    public void setUp() throws Exception {
+        ds = new DataSet();
+        for (int i = 0; i < 20; i++) {
+            Way horizontal = new Way();
+            Way vertical = new Way();
+            for (int j = 0; j < 20; j++) {
+                horizontal.addNode(addNode(50 + i * 1e-3, 10 + j * 1e-3));
+                vertical.addNode(addNode(50 + j * 1e-3, 10.0005 + i * 1e-3));
+            }
+            horizontal.put("highway", "residential");
+            vertical.put("highway", i % 2 == 0 ? "residential" : "footway");
+            vertical.put("name", i % 3 == 0 ? "Some  street" : "Street " + i);
+            ds.addPrimitive(horizontal);
+            ds.addPrimitive(vertical);
+        }
+        tests = Arrays.asList(new TagChecker(), new MapCSSTagChecker(), new DuplicateNode(), new CrossingWays.Ways(),
+                new UnconnectedWays.UnconnectedHighways(), new UntaggedNode());
+        for (Test t : tests) {
+            t.initialize();
+        }
+        errors = validateAll();
+        validator = new IncrementalValidator();
+        ds.addDataSetListener(validator);
+    }
+
+    private Node addNode(double lat, double lon) {
+        Node n = new Node(new LatLon(lat, lon));
+        ds.addPrimitive(n);
+        return n;
+    }
+
+    private List<TestError> validateAll() {
+        for (Test t : tests) {
+            t.setPartialSelection(false);
+        }
+        return ValidationEngine.runTests(tests, ds.allNonDeletedPrimitives(), null);
+    }
+
+    private static List<String> toStrings(Collection<TestError> errors) {
+        return errors.stream()
+                .map(e -> e.getTester().getClass().getSimpleName() + ' ' + e.getCode() + ' ' + e.getMessage() + ' '
+                        + e.getDescription() + ' ' + e.getPrimitives().stream()
+                        .map(p -> p.getPrimitiveId().toString()).sorted().collect(Collectors.joining(",")))
+                .sorted().collect(Collectors.toList());
+    }
+
+    /**
+     * Validates the changes and checks that the errors are the same as the errors of a complete validation.
+     */
+    private void assertValidation() {
+        errors = validator.validate(ds, tests, errors, null);
+        assertEquals(toStrings(validateAll()), toStrings(errors));
+    }
+
+    private Way getWay(int index) {
+        return ds.getWays().stream().sorted((a, b) -> Long.compare(b.getUniqueId(), a.getUniqueId()))
+                .skip(index).findFirst().get();
+    }
+
+    /**
+     * Test that the errors are updated after moving nodes.
+     */
+    @org.junit.Test
+    public void testNodeMoved() {
+        Way w = getWay(4);
+        // duplicate node and crossing ways
+        w.getNode(3).setCoor(getWay(7).getNode(8).getCoor());
+        assertValidation();
+        // unconnected end node
+        w.firstNode().setCoor(new LatLon(w.firstNode().lat(), w.firstNode().lon() + 2e-4));
+        assertValidation();
+        assertNotEquals(0, errors.size());
+    }
+
+    /**
+     * Test that the errors are updated after changing tags.
+     */
+    @org.junit.Test
+    public void testTagsChanged() {
+        int before = errors.size();
+        Way w = getWay(3);
+        w.put("name", "Other  street");
+        w.put("Highway", "yes");
+        assertValidation();
+        w.remove("highway");
+        assertValidation();
+        getWay(5).firstNode().put("fixme", "check");
+        assertValidation();
+        assertNotEquals(before, errors.size());
+    }
+
+    /**
+     * Test that the errors are updated after adding, changing and deleting ways.
+     */
+    @org.junit.Test
+    public void testWaysChanged() {
+        Way w = new Way();
+        w.setNodes(Arrays.asList(addNode(50.0102, 10.0018), addNode(50.0121, 10.0052)));
+        w.put("highway", "service");
+        ds.addPrimitive(w);
+        assertValidation();
+        w.addNode(getWay(2).getNode(10));
+        assertValidation();
+        getWay(6).removeNode(getWay(6).getNode(5));
+        assertValidation();
+        new DeleteCommand(Collections.singleton(getWay(9))).executeCommand();
+        assertValidation();
+        new DeleteCommand(Collections.singleton(w)).executeCommand();
+        assertValidation();
+    }
+
+    /**
+     * Test that too many changes at once require a complete validation.
+     */
+    @org.junit.Test
+    public void testDataChanged() {
+        List<OsmPrimitive> primitives = new ArrayList<>(ds.allPrimitives());
+        validator.dataChanged(new DataChangedEvent(ds));
+        assertNull(validator.validate(ds, tests, errors, null));
+        assertEquals(primitives.size(), ds.allPrimitives().size());
+        assertEquals(errors, validator.validate(ds, tests, errors, null));
+    }
+
+    /**
+     * Test that the validator uses its own instances of the enabled tests, and creates them again
+     * after the shared tests have been initialized again.
+     */
+    @org.junit.Test
+    public void testOwnTests() {
+        List<Test> own = validator.getEnabledTests();
+        Collection<Test> shared = OsmValidator.getEnabledTests(false);
+        assertEquals(shared.size(), own.size());
+        for (Test t : own) {
+            assertFalse(shared.contains(t));
+        }
+        assertEquals(own, validator.getEnabledTests());
+        OsmValidator.initializeTests(Collections.emptyList());
+        assertNotEquals(own, validator.getEnabledTests());
+    }
+
+    /**
+     * Test that the validation waits until the data set is not modified anymore.
+     * @throws Exception if an error occurs
+     */
+    @org.junit.Test
+    public void testReadLock() throws Exception {
+        getWay(4).put("name", "Other  street");
+        List<List<TestError>> result = new ArrayList<>();
+        Thread worker;
+        ds.beginUpdate();
+        try {
+            worker = new Thread(() -> result.add(validator.validate(ds, tests, errors, null)));
+            worker.start();
+            worker.join(1000);
+            assertTrue(worker.isAlive());
+            assertTrue(result.isEmpty());
+        } finally {
+            ds.endUpdate();
+        }
+        worker.join(10000);
+        assertFalse(worker.isAlive());
+        assertEquals(toStrings(validateAll()), toStrings(result.get(0)));
+    }
+}
@@ -0,0 +1,154 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.validation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.junit.Rule;
+import org.openstreetmap.josm.TestUtils;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.data.validation.tests.CrossingWays;
+import org.openstreetmap.josm.data.validation.tests.DuplicateNode;
+import org.openstreetmap.josm.data.validation.tests.MapCSSTagChecker;
+import org.openstreetmap.josm.data.validation.tests.TagChecker;
+import org.openstreetmap.josm.data.validation.tests.UntaggedNode;
+import org.openstreetmap.josm.io.OsmReader;
+import org.openstreetmap.josm.testutils.JOSMTestRules;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * Unit tests of {@link ValidationEngine} class.
+ */
+public class ValidationEngineTest {
+
+    /**
+     * Setup test.
+     */
+    @Rule
+    @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
+    public JOSMTestRules test = new JOSMTestRules().projection().territories().presets();
+
+    private static DataSet createDataSet() throws Exception {
+        DataSet ds;
+        try (InputStream in = Files.newInputStream(Paths.get(TestUtils.getTestDataRoot(), "regress/12038/data.osm"))) {
+            ds = OsmReader.parseDataSet(in, null);
+        }
+        // enough primitives to be split into several parts, with errors found by tag and geometry checks
+        Node previous = null;
+        for (int i = 0; i < 5000; i++) {
+            Node n = new Node(new LatLon(50 + (i % 100) * 1e-3, 10 + (i / 100) * 1e-3));
+            if (i % 3 == 0) {
+                n.put("name", "Bar  " + i);
+                n.put("amenity", i % 2 == 0 ? "bar" : "pub ");
+            }
+            if (i % 7 == 0) {
+                n.put("fixme", "check");
+            }
+            ds.addPrimitive(n);
+            if (i % 11 == 0) {
+                ds.addPrimitive(new Node(n.getCoor()));
+            }
+            if (previous != null && i % 2 == 1) {
+                Way w = new Way();
+                w.setNodes(Arrays.asList(previous, n));
+                w.put("highway", i % 4 == 1 ? "residential" : "footway");
+                w.put("Highway", "yes");
+                ds.addPrimitive(w);
+            }
+            previous = n;
+        }
+        return ds;
+    }
+
+    private static List<String> runTests(List<Supplier<Test>> suppliers,
+            List<OsmPrimitive> primitives, ForkJoinPool pool) throws Exception {
+        List<Test> tests = new ArrayList<>();
+        for (Supplier<Test> supplier : suppliers) {
+            Test t = supplier.get();
+            t.initialize();
+            tests.add(t);
+        }
+        return ValidationEngine.runTests(tests, primitives, null, pool).stream()
+                .map(e -> e.getTester().getClass().getSimpleName() + ' ' + e.getCode() + ' ' + e.getSeverity() + ' '
+                        + e.getMessage() + ' ' + e.getDescription() + ' '
+                        + e.getPrimitives().stream().map(p -> p.getPrimitiveId().toString()).collect(Collectors.joining(",")))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Test that the errors found with several threads are the same as the errors found sequentially.
+     * @throws Exception if an error occurs
+     */
+    @org.junit.Test
+    public void testParallelErrors() throws Exception {
+        List<OsmPrimitive> primitives = new ArrayList<>(createDataSet().allNonDeletedPrimitives());
+        List<Supplier<Test>> tests = Arrays.asList(
+                TagChecker::new, MapCSSTagChecker::new, DuplicateNode::new, CrossingWays.Ways::new, UntaggedNode::new);
+        List<String> expected = runTests(tests, primitives, null);
+        assertTrue(expected.size() > 1000);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertEquals(expected, runTests(tests, primitives, pool));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static class ThreadRecordingTest extends Test {
+        private final boolean splittable;
+        final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+        ThreadRecordingTest(boolean splittable) {
+            super("thread recording");
+            this.splittable = splittable;
+        }
+
+        @Override
+        public void visit(Node n) {
+            threads.add(Thread.currentThread());
+        }
+
+        @Override
+        public boolean isSplittable() {
+            return splittable;
+        }
+    }
+
+    /**
+     * Test that only the tests opting in with {@link Test#isSplittable()} run in other threads.
+     * @throws Exception if an error occurs
+     */
+    @org.junit.Test
+    public void testOptIn() throws Exception {
+        List<OsmPrimitive> primitives = new ArrayList<>(createDataSet().getNodes());
+        ThreadRecordingTest sequential = new ThreadRecordingTest(false);
+        ThreadRecordingTest splittable = new ThreadRecordingTest(true);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ValidationEngine.runTests(Arrays.asList(sequential, splittable), primitives, null, pool);
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(Collections.singleton(Thread.currentThread()), sequential.threads);
+        assertFalse(splittable.threads.contains(Thread.currentThread()));
+    }
+}
@@ -0,0 +1,98 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.data.validation.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.openstreetmap.josm.data.coor.EastNorth;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.data.osm.WaySegment;
+import org.openstreetmap.josm.data.validation.tests.CrossingWays;
+import org.openstreetmap.josm.testutils.JOSMTestRules;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * Unit tests of {@link SegmentGrid} class.
+ */
+public class SegmentGridTest {
+
+    /**
+     * Setup test.
+     */
+    @Rule
+    @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
+    public JOSMTestRules test = new JOSMTestRules().projection();
+
+    private static List<WaySegment> createSegments(int count) {
+        Random random = new Random(42);
+        List<WaySegment> segments = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Way w = new Way();
+            Node n = new Node(new LatLon(50 + random.nextDouble() * 1e-2, 10 + random.nextDouble() * 1e-2));
+            w.addNode(n);
+            w.addNode(new Node(new LatLon(n.lat() + (random.nextDouble() - 0.5) * 2e-3, n.lon() + (random.nextDouble() - 0.5) * 2e-3)));
+            segments.add(new WaySegment(w, 0));
+        }
+        return segments;
+    }
+
+    /**
+     * Test that the grid visits the same segments, in the same order, as a map of cells.
+     */
+    @Test
+    public void testVisitAndAdd() {
+        Map<Point2D, List<WaySegment>> cellSegments = new HashMap<>();
+        SegmentGrid grid = new SegmentGrid();
+        assertTrue(grid.isEmpty());
+        for (WaySegment s : createSegments(2000)) {
+            EastNorth en1 = s.getFirstNode().getEastNorth();
+            EastNorth en2 = s.getSecondNode().getEastNorth();
+            List<WaySegment> expected = new ArrayList<>();
+            for (List<WaySegment> segments : CrossingWays.getSegments(cellSegments, en1, en2)) {
+                expected.addAll(segments);
+                segments.add(s);
+            }
+            List<WaySegment> visited = new ArrayList<>();
+            grid.visitAndAdd(s, en1, en2, visited::add);
+            assertEquals(expected, visited);
+        }
+        assertFalse(grid.isEmpty());
+    }
+
+    /**
+     * Test of {@link SegmentGrid#visit}, {@link SegmentGrid#anyMatch} and {@link SegmentGrid#clear}.
+     */
+    @Test
+    public void testVisitAnyMatchClear() {
+        SegmentGrid grid = new SegmentGrid();
+        List<WaySegment> segments = createSegments(500);
+        for (WaySegment s : segments) {
+            grid.add(s, s.getFirstNode().getEastNorth(), s.getSecondNode().getEastNorth());
+        }
+        for (WaySegment s : segments) {
+            EastNorth en1 = s.getFirstNode().getEastNorth();
+            EastNorth en2 = s.getSecondNode().getEastNorth();
+            List<WaySegment> visited = new ArrayList<>();
+            grid.visit(en1, en2, visited::add);
+            assertTrue(visited.contains(s));
+            assertTrue(grid.anyMatch(en1, en2, s::equals));
+        }
+        grid.clear();
+        assertTrue(grid.isEmpty());
+        WaySegment s = segments.get(0);
+        assertFalse(grid.anyMatch(s.getFirstNode().getEastNorth(), s.getSecondNode().getEastNorth(), x -> true));
+    }
+}
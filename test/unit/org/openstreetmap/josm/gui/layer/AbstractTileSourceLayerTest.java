@@ -181,6 +181,18 @@ public class AbstractTileSourceLayerTest {
         assertEquals(0, testLayer.getTileCache().getTileCount());
     }
 
+    /**
+     * Test that {@link AbstractTileSourceLayer#destroy} removes the tiles of the layer from the shared cache
+     */
+    @Test
+    public void testDestroy() {
+        TileCache cache = testLayer.getTileCache();
+        cache.addTile(new Tile(testLayer.tileSource, 1, 2, 3));
+        assertEquals(1, cache.getTileCount());
+        testLayer.destroy();
+        assertEquals(0, cache.getTileCount());
+    }
+
     /**
      * Test {@link AbstractTileSourceLayer#getAdjustAction}
      */
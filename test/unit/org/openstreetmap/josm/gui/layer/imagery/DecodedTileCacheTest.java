@@ -0,0 +1,105 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.gui.layer.imagery;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.awt.image.BufferedImage;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.openstreetmap.gui.jmapviewer.Tile;
+import org.openstreetmap.gui.jmapviewer.tilesources.TMSTileSource;
+import org.openstreetmap.josm.data.imagery.ImageryInfo;
+import org.openstreetmap.josm.testutils.JOSMTestRules;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * Unit tests of {@link DecodedTileCache} class.
+ */
+public class DecodedTileCacheTest {
+
+    /**
+     * Setup test.
+     */
+    @Rule
+    @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
+    public JOSMTestRules test = new JOSMTestRules().preferences();
+
+    /** Size of a 256x256 ARGB tile, image and overhead */
+    private static final long TILE_SIZE = 256 * 256 * 4 + 512;
+
+    private static Tile createTile(TMSTileSource source, int x) {
+        Tile tile = new Tile(source, x, 0, 10);
+        tile.setImage(new BufferedImage(256, 256, BufferedImage.TYPE_INT_ARGB));
+        tile.finishLoading();
+        return tile;
+    }
+
+    /**
+     * Tests {@link DecodedTileCache#getImageSize}.
+     */
+    @Test
+    public void testImageSize() {
+        assertEquals(0, DecodedTileCache.getImageSize(null));
+        assertEquals(256 * 256 * 4, DecodedTileCache.getImageSize(new BufferedImage(256, 256, BufferedImage.TYPE_INT_ARGB)));
+        assertEquals(256 * 256 * 4, DecodedTileCache.getImageSize(new BufferedImage(256, 256, BufferedImage.TYPE_INT_RGB)));
+        assertEquals(512 * 512 * 3, DecodedTileCache.getImageSize(new BufferedImage(512, 512, BufferedImage.TYPE_3BYTE_BGR)));
+        assertEquals(256 * 256, DecodedTileCache.getImageSize(new BufferedImage(256, 256, BufferedImage.TYPE_BYTE_INDEXED)));
+    }
+
+    /**
+     * Tests that the least recently used tiles of all layers are evicted when the byte budget is exceeded.
+     */
+    @Test
+    public void testEviction() {
+        DecodedTileCache.PROP_MIN_SIZE.put(0);
+        DecodedTileCache cache = DecodedTileCache.getInstance();
+        DecodedTileCache.View view1 = cache.createView(10);
+        DecodedTileCache.View view2 = cache.createView(10);
+        TMSTileSource source1 = new TMSTileSource(new ImageryInfo("test1"));
+        TMSTileSource source2 = new TMSTileSource(new ImageryInfo("test2"));
+        cache.reserve(3 * TILE_SIZE);
+        try {
+            Tile a = createTile(source1, 1);
+            Tile b = createTile(source2, 2);
+            Tile c = createTile(source1, 3);
+            view1.addTile(a);
+            view2.addTile(b);
+            view1.addTile(c);
+            assertEquals(3 * TILE_SIZE, cache.getSize());
+            assertSame(a, view1.getTile(source1, 1, 0, 10));
+            assertNull(view2.getTile(source1, 1, 0, 10));
+
+            // b is the least recently used tile
+            Tile d = createTile(source2, 4);
+            view2.addTile(d);
+            assertNull(view2.getTile(source2, 2, 0, 10));
+            assertSame(a, view1.getTile(source1, 1, 0, 10));
+            assertEquals(2, view1.getTileCount());
+            assertEquals(1, view2.getTileCount());
+
+            // derived images are accounted for, and dropped when the tile is loaded
+            Tile e = new Tile(source2, 5, 0, 10);
+            view2.addTile(e);
+            view2.setDerivedImage(e, new BufferedImage(256, 256, BufferedImage.TYPE_INT_ARGB));
+            assertNull(view1.getTile(source1, 3, 0, 10));
+            assertEquals(256, view2.getDerivedImage(e).getWidth());
+            view2.tileLoaded(e);
+            assertNull(view2.getDerivedImage(e));
+            assertEquals(3 * TILE_SIZE - 256 * 256 * 4, cache.getSize());
+
+            view1.clear();
+            assertEquals(0, view1.getTileCount());
+            assertEquals(2, view2.getTileCount());
+            assertEquals(2 * TILE_SIZE - 256 * 256 * 4, cache.getSize());
+        } finally {
+            cache.release(3 * TILE_SIZE);
+            view1.clear();
+            view2.clear();
+        }
+        assertEquals(0, cache.getTileCount());
+    }
+}
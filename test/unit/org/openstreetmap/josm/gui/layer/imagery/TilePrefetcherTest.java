@@ -0,0 +1,150 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.gui.layer.imagery;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URL;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.openstreetmap.gui.jmapviewer.Tile;
+import org.openstreetmap.gui.jmapviewer.tilesources.TMSTileSource;
+import org.openstreetmap.josm.data.ProjectionBounds;
+import org.openstreetmap.josm.data.cache.CacheEntry;
+import org.openstreetmap.josm.data.cache.JCSCacheManager;
+import org.openstreetmap.josm.data.cache.JCSCachedTileLoaderJob;
+import org.openstreetmap.josm.data.imagery.ImageryInfo;
+import org.openstreetmap.josm.data.imagery.TileJobOptions;
+import org.openstreetmap.josm.gui.layer.imagery.TilePrefetcher.Motion;
+import org.openstreetmap.josm.testutils.JOSMTestRules;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * Unit tests of {@link TilePrefetcher} class.
+ */
+public class TilePrefetcherTest {
+
+    /**
+     * Setup test.
+     */
+    @Rule
+    @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
+    public JOSMTestRules test = new JOSMTestRules().preferences();
+
+    private static Motion move(TilePrefetcher prefetcher, double east, double north, double size, long time) {
+        return prefetcher.viewChanged(new ProjectionBounds(east, north, east + size, north + size), time);
+    }
+
+    /**
+     * Tests the prediction of the movement of the viewport.
+     */
+    @Test
+    public void testMotion() {
+        TilePrefetcher prefetcher = new TilePrefetcher();
+        assertTrue(move(prefetcher, 0, 0, 100, 0).isStill());
+
+        // pan towards north-east, by a tenth of the viewport every 50 ms
+        Motion motion = null;
+        boolean turned = false;
+        for (int i = 1; i <= 5; i++) {
+            motion = move(prefetcher, 10 * i, 10 * i, 100, 50 * i);
+            turned |= prefetcher.hasTurned();
+        }
+        assertEquals(1, motion.getDx());
+        assertEquals(-1, motion.getDy());
+        assertEquals(0, motion.getZoom());
+        assertEquals(2, motion.getDistance(5));
+        assertFalse(turned);
+
+        // pan towards south
+        for (int i = 1; i <= 8; i++) {
+            motion = move(prefetcher, 50, 50 - 10 * i, 100, 250 + 50 * i);
+            turned |= prefetcher.hasTurned();
+        }
+        assertEquals(0, motion.getDx());
+        assertEquals(1, motion.getDy());
+        assertTrue(turned);
+
+        // stop moving
+        for (int i = 1; i <= 10; i++) {
+            motion = move(prefetcher, 50, -30, 100, 650 + 50 * i);
+        }
+        assertTrue(motion.isStill());
+        assertFalse(prefetcher.hasTurned());
+
+        // zoom in after a pause
+        assertTrue(move(prefetcher, 50, 0, 100, 5000).isStill());
+        turned = false;
+        for (int i = 1; i <= 5; i++) {
+            motion = move(prefetcher, 50 + 5 * i, 5 * i, 100 - 10 * i, 5000 + 50 * i);
+            turned |= prefetcher.hasTurned();
+        }
+        assertEquals(0, motion.getDx());
+        assertEquals(0, motion.getDy());
+        assertEquals(1, motion.getZoom());
+        assertTrue(turned);
+    }
+
+    private static JCSCachedTileLoaderJob<String, CacheEntry> createJob() {
+        return new JCSCachedTileLoaderJob<String, CacheEntry>(JCSCacheManager.getCache("test"), new TileJobOptions(1, 1, null, 10)) {
+            @Override
+            public String getCacheKey() {
+                return "";
+            }
+
+            @Override
+            public URL getUrl() {
+                return null;
+            }
+
+            @Override
+            protected CacheEntry createCacheEntry(byte[] content) {
+                return null;
+            }
+        };
+    }
+
+    /**
+     * Tests the prefetch statistics, and the promotion of the pending jobs.
+     */
+    @Test
+    public void testHitRate() {
+        TilePrefetcher prefetcher = new TilePrefetcher();
+        TMSTileSource source = new TMSTileSource(new ImageryInfo("test"));
+        Tile hit = new Tile(source, 1, 1, 2);
+        Tile late = new Tile(source, 2, 1, 2);
+        Tile cancelled = new Tile(source, 3, 1, 2);
+        Tile miss = new Tile(source, 1, 2, 2);
+        JCSCachedTileLoaderJob<String, CacheEntry> lateJob = createJob();
+        for (Tile t : new Tile[] {hit, late, cancelled, miss}) {
+            JCSCachedTileLoaderJob<String, CacheEntry> job = t == late ? lateJob : createJob();
+            job.setPrefetch(true);
+            prefetcher.tilePrefetched(t, job);
+            assertTrue(prefetcher.isPending(t));
+        }
+
+        hit.finishLoading();
+        prefetcher.tileLoadingFinished(hit);
+        prefetcher.tileVisible(hit);
+        prefetcher.tileVisible(hit);
+        prefetcher.tileVisible(late);
+        assertFalse(lateJob.isPrefetch());
+        assertFalse(prefetcher.isPending(late));
+        cancelled.loadingCanceled();
+        prefetcher.tileLoadingFinished(cancelled);
+        prefetcher.tilesCancelled(1);
+        prefetcher.tileVisible(cancelled);
+        miss.finishLoading();
+        prefetcher.tileLoadingFinished(miss);
+
+        assertEquals(4, prefetcher.getRequestedCount());
+        assertEquals(1, prefetcher.getHitCount());
+        assertEquals(1, prefetcher.getLateCount());
+        assertEquals(1, prefetcher.getCancelledCount());
+        assertEquals(0.25, prefetcher.getHitRate(), 1e-9);
+        assertEquals("requested: 4, hits: 1 (25.0%), late: 1, cancelled: 1", prefetcher.getStats());
+    }
+}
@@ -0,0 +1,154 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.gui.mappaint;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.openstreetmap.josm.TestUtils;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.IPrimitive;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.Relation;
+import org.openstreetmap.josm.data.osm.RelationMember;
+import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.gui.mappaint.mapcss.MapCSSStyleSource;
+import org.openstreetmap.josm.testutils.JOSMTestRules;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * Unit tests of {@link ElemStyles} class.
+ */
+public class ElemStylesTest {
+
+    /**
+     * Setup rule
+     */
+    @Rule
+    @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
+    public JOSMTestRules test = new JOSMTestRules().preferences().projection();
+
+    private static ElemStyles createStyles(String css) {
+        MapCSSStyleSource source = new MapCSSStyleSource(css);
+        source.loadStyleSource();
+        assertTrue(source.getErrors().isEmpty());
+        ElemStyles styles = new ElemStyles();
+        styles.add(source);
+        return styles;
+    }
+
+    private static Way createWay(DataSet ds, String tags) {
+        Node n1 = new Node(new LatLon(0, 0));
+        Node n2 = new Node(new LatLon(0, 0.001));
+        ds.addPrimitive(n1);
+        ds.addPrimitive(n2);
+        Way w = TestUtils.newWay(tags, n1, n2);
+        ds.addPrimitive(w);
+        return w;
+    }
+
+    private static StyleElementList generate(ElemStyles styles, IPrimitive osm) {
+        return styles.generateStyles(osm, 1, false).a;
+    }
+
+    /**
+     * Test that the styles of primitives with the same tags are shared.
+     */
+    @Test
+    public void testSharedStyles() {
+        ElemStyles styles = createStyles("node[amenity=bench] { symbol-shape: circle; } way[highway] { color: red; width: 2; }");
+        DataSet ds = new DataSet();
+        Node n1 = TestUtils.newNode("amenity=bench");
+        Node n2 = TestUtils.newNode("amenity=bench");
+        Way w1 = createWay(ds, "highway=residential");
+        Way w2 = createWay(ds, "highway=residential");
+        Way w3 = createWay(ds, "highway=primary");
+
+        StyleElementList nodeStyles = generate(styles, n1);
+        assertFalse(nodeStyles.isEmpty());
+        assertSame(nodeStyles, generate(styles, n2));
+        StyleElementList wayStyles = generate(styles, w1);
+        assertFalse(wayStyles.isEmpty());
+        assertSame(wayStyles, generate(styles, w2));
+        assertNotSame(wayStyles, generate(styles, w3));
+        assertEquals(2, styles.getSharedStyleHits());
+        assertEquals(3, styles.getSharedStyleMisses());
+
+        styles.resetSharedStyleStatistics();
+        assertEquals(0, styles.getSharedStyleHits());
+        assertEquals(0, styles.getSharedStyleMisses());
+    }
+
+    /**
+     * Test that the styles depending on the parents or on the geometry of a primitive are not shared.
+     */
+    @Test
+    public void testContextDependentStyles() {
+        ElemStyles styles = createStyles("relation[type=route] > way { color: blue; } "
+                + "way[highway] { color: red; } way[railway] { width: eval(waylength()); }");
+        DataSet ds = new DataSet();
+        Way w1 = createWay(ds, "highway=residential");
+        Way w2 = createWay(ds, "highway=residential");
+        Relation r = TestUtils.newRelation("type=route", new RelationMember("", w1), new RelationMember("", w2));
+        ds.addPrimitive(r);
+        Way w3 = createWay(ds, "highway=residential");
+        Way w4 = createWay(ds, "highway=residential");
+        Way w5 = createWay(ds, "railway=rail");
+        Way w6 = createWay(ds, "railway=rail");
+
+        generate(styles, w1);
+        generate(styles, w2);
+        generate(styles, w5);
+        generate(styles, w6);
+        assertEquals(0, styles.getSharedStyleHits());
+        assertSame(generate(styles, w3), generate(styles, w4));
+        assertEquals(1, styles.getSharedStyleHits());
+    }
+
+    /**
+     * Test that the styles are not shared when the preference is disabled.
+     */
+    @Test
+    public void testSharedStylesDisabled() {
+        ElemStyles styles = createStyles("node[amenity=bench] { symbol-shape: circle; }");
+        ElemStyles.SHARED_STYLES.put(false);
+        Node n1 = TestUtils.newNode("amenity=bench");
+        Node n2 = TestUtils.newNode("amenity=bench");
+        assertNotSame(generate(styles, n1), generate(styles, n2));
+        assertEquals(0, styles.getSharedStyleHits());
+        assertEquals(0, styles.getSharedStyleMisses());
+    }
+
+    /**
+     * Test that styles computed before the shared styles were reset are not shared afterwards.
+     */
+    @Test
+    public void testResetDuringGeneration() {
+        ElemStyles styles = new ElemStyles();
+        MapCSSStyleSource other = new MapCSSStyleSource("way { color: blue; }");
+        other.loadStyleSource();
+        MapCSSStyleSource source = new MapCSSStyleSource("node[amenity=bench] { symbol-shape: circle; }") {
+            @Override
+            public void apply(MultiCascade mc, IPrimitive osm, double scale, boolean pretendWayIsClosed) {
+                super.apply(mc, osm, scale, pretendWayIsClosed);
+                // simulates a change of the style sources while another thread computes the styles
+                styles.remove(other);
+            }
+        };
+        source.loadStyleSource();
+        styles.add(source);
+        styles.add(other);
+        Node n1 = TestUtils.newNode("amenity=bench");
+        Node n2 = TestUtils.newNode("amenity=bench");
+        StyleElementList nodeStyles = generate(styles, n1);
+        assertFalse(nodeStyles.isEmpty());
+        assertNotSame(nodeStyles, generate(styles, n2));
+        assertEquals(0, styles.getSharedStyleHits());
+    }
+}
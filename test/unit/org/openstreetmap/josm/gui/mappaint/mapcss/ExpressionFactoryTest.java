@@ -1,8 +1,20 @@
 // License: GPL. For details, see LICENSE file.
 package org.openstreetmap.josm.gui.mappaint.mapcss;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 import org.junit.Rule;
 import org.junit.Test;
+import org.openstreetmap.josm.gui.mappaint.mapcss.ExpressionFactory.ArrayFunction;
+import org.openstreetmap.josm.gui.mappaint.mapcss.ExpressionFactory.ParameterFunction;
+import org.openstreetmap.josm.gui.mappaint.mapcss.ExpressionFactory.RegexpFunction;
 import org.openstreetmap.josm.testutils.JOSMTestRules;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
@@ -18,7 +30,7 @@ public class ExpressionFactoryTest {
      */
     @Rule
     @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
-    public JOSMTestRules test = new JOSMTestRules();
+    public JOSMTestRules test = new JOSMTestRules().preferences();
 
     /**
      * Tests that {@code Functions} satisfies utility class criterias.
@@ -28,4 +40,66 @@ public class ExpressionFactoryTest {
     public void testUtilityClass() throws ReflectiveOperationException {
         UtilityClassTestUtil.assertUtilityClassWellDefined(Functions.class);
     }
+
+    private static List<Expression> literals(Object... values) {
+        return Arrays.asList(Arrays.stream(values).map(LiteralExpression::new).toArray(Expression[]::new));
+    }
+
+    /**
+     * Tests that functions with literal arguments are evaluated once, unless they have side effects.
+     */
+    @Test
+    public void testCompileLiterals() {
+        Expression concat = ExpressionFactory.createFunctionExpression("concat", literals("a", "b"));
+        assertTrue(concat instanceof LiteralExpression);
+        assertEquals("ab", concat.evaluate(null));
+        Expression rgb = ExpressionFactory.createFunctionExpression("rgb", literals(1f, 0f, 0f));
+        assertTrue(rgb instanceof LiteralExpression);
+        assertEquals(Color.RED, rgb.evaluate(null));
+        Expression upper = ExpressionFactory.createFunctionExpression("upper",
+                Collections.singletonList(ExpressionFactory.createFunctionExpression("lower", literals("aB"))));
+        assertTrue(upper instanceof LiteralExpression);
+        assertEquals("AB", upper.evaluate(null));
+
+        assertTrue(ExpressionFactory.createFunctionExpression("tr", literals("text")) instanceof ArrayFunction);
+        assertTrue(ExpressionFactory.createFunctionExpression("random", Collections.emptyList()) instanceof ParameterFunction);
+        assertTrue(ExpressionFactory.createFunctionExpression("list", literals("a", "b")) instanceof ArrayFunction);
+    }
+
+    /**
+     * Tests that the regular expressions given as literals are compiled once.
+     */
+    @Test
+    public void testCompileRegexp() {
+        Expression test = ExpressionFactory.createFunctionExpression("regexp_test",
+                Arrays.asList(new LiteralExpression("a.c"), env -> "abc"));
+        assertTrue(test instanceof RegexpFunction);
+        assertEquals(Boolean.TRUE, test.evaluate(null));
+        Expression match = ExpressionFactory.createFunctionExpression("regexp_match",
+                Arrays.asList(new LiteralExpression("a(b)c"), env -> "ABC", new LiteralExpression("i")));
+        assertTrue(match instanceof RegexpFunction);
+        assertEquals(Arrays.asList("ABC", "B"), match.evaluate(null));
+        assertNull(ExpressionFactory.createFunctionExpression("regexp_match",
+                Arrays.asList(new LiteralExpression("a(b)c"), env -> null)).evaluate(null));
+        assertTrue(ExpressionFactory.createFunctionExpression("regexp_test",
+                Arrays.asList(new LiteralExpression("a(c"), env -> "abc")) instanceof ParameterFunction);
+    }
+
+    /**
+     * Tests that the functions are not specialised when the compilation is disabled.
+     */
+    @Test
+    public void testCompilationDisabled() {
+        ExpressionFactory.COMPILE_EXPRESSIONS.put(false);
+        Expression concat = ExpressionFactory.createFunctionExpression("concat", literals("a", "b"));
+        assertTrue(concat instanceof ArrayFunction);
+        assertEquals("ab", concat.evaluate(null));
+        Expression test = ExpressionFactory.createFunctionExpression("regexp_test",
+                Arrays.asList(new LiteralExpression("a.c"), env -> "abc", new LiteralExpression("i")));
+        assertTrue(test instanceof ParameterFunction);
+        assertEquals(Boolean.TRUE, test.evaluate(null));
+        Expression substring = ExpressionFactory.createFunctionExpression("substring", literals("abc", 1f));
+        assertTrue(substring instanceof ParameterFunction);
+        assertEquals("bc", substring.evaluate(null));
+    }
 }
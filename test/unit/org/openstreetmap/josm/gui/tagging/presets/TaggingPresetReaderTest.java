@@ -3,21 +3,35 @@ package org.openstreetmap.josm.gui.tagging.presets;
 
 import static org.CustomMatchers.hasSize;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import javax.swing.Action;
+import javax.swing.JMenuItem;
+
 import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
 import org.openstreetmap.josm.TestUtils;
 import org.openstreetmap.josm.gui.tagging.presets.items.Check;
 import org.openstreetmap.josm.gui.tagging.presets.items.Key;
+import org.openstreetmap.josm.gui.tagging.presets.items.KeyedItem;
+import org.openstreetmap.josm.gui.util.GuiHelper;
+import org.openstreetmap.josm.spi.preferences.Config;
 import org.openstreetmap.josm.testutils.JOSMTestRules;
+import org.openstreetmap.josm.tools.Utils;
 import org.xml.sax.SAXException;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
@@ -77,4 +91,83 @@ public class TaggingPresetReaderTest {
         final Collection<TaggingPreset> presets = TaggingPresetReader.readAll(presetfile, true);
         Assert.assertTrue("Default presets are empty", presets.size() > 0);
     }
+
+    private static List<String> describe(Collection<TaggingPreset> presets) {
+        return presets.stream().map(p -> p.getClass().getSimpleName() + ' ' + p.getRawName() + ' ' + p.data.stream()
+                .map(i -> i instanceof KeyedItem ? ((KeyedItem) i).key + '=' + ((KeyedItem) i).getValues() : i.getClass().getSimpleName())
+                .collect(Collectors.toList())).collect(Collectors.toList());
+    }
+
+    /**
+     * Checks that the presets replayed from the snapshot of a source are the same as the parsed ones, and that an
+     * invalid snapshot is ignored.
+     * @throws SAXException if any XML error occurs
+     * @throws IOException if any I/O error occurs
+     */
+    @Test
+    public void testSnapshot() throws SAXException, IOException {
+        String presetfile = "resource://data/defaultpresets.xml";
+        File snapshot = new File(Config.getDirs().getCacheDirectory(true), "presets-" + Integer.toHexString(presetfile.hashCode()) + ".bin");
+        Utils.deleteFileIfExists(snapshot);
+
+        List<String> parsed = describe(TaggingPresetReader.readAll(presetfile, false));
+        assertTrue(snapshot.isFile());
+        List<String> replayed = describe(TaggingPresetReader.readAll(presetfile, false));
+        assertTrue(parsed.size() > 0);
+        assertEquals(parsed, replayed);
+
+        byte[] bytes = Files.readAllBytes(snapshot.toPath());
+        Files.write(snapshot.toPath(), Arrays.copyOf(bytes, bytes.length / 2));
+        assertEquals(parsed, describe(TaggingPresetReader.readAll(presetfile, false)));
+        assertEquals(bytes.length, snapshot.length());
+    }
+
+    /**
+     * Checks that preset icons are only loaded when they are displayed, and then set on the components of the preset.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testLazyIcons() throws Exception {
+        boolean loadIcons = TaggingPresetReader.isLoadIcons();
+        TaggingPresetReader.setLoadIcons(true);
+        try {
+            TaggingPreset preset = TaggingPresetReader.readAll(new StringReader(
+                    "<presets xmlns=\"http://josm.openstreetmap.de/tagging-preset-1.0\">"
+                    + "<item name=\"Test\" icon=\"cancel\"><key key=\"test\" value=\"yes\"/></item></presets>"), false)
+                    .iterator().next();
+            JMenuItem item = new JMenuItem(preset);
+            GuiHelper.runInEDTAndWait(() -> { });
+            assertFalse(Arrays.asList(preset.getKeys()).contains(Action.SMALL_ICON));
+            assertNull(item.getIcon());
+            preset.getIconLoadingTask().get();
+            GuiHelper.runInEDTAndWait(() -> { });
+            assertNotNull(item.getIcon());
+            assertNotNull(preset.getIcon());
+            assertNotNull(preset.getIcon(Action.LARGE_ICON_KEY));
+        } finally {
+            TaggingPresetReader.setLoadIcons(loadIcons);
+        }
+    }
+
+    /**
+     * Checks that components reading the preset icon once get it when its loading has been deferred.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testLazyIconsReadOnce() throws Exception {
+        boolean loadIcons = TaggingPresetReader.isLoadIcons();
+        TaggingPresetReader.setLoadIcons(true);
+        try {
+            TaggingPreset preset = TaggingPresetReader.readAll(new StringReader(
+                    "<presets xmlns=\"http://josm.openstreetmap.de/tagging-preset-1.0\">"
+                    + "<item name=\"Test\" icon=\"cancel\"><key key=\"test\" value=\"yes\"/></item></presets>"), false)
+                    .iterator().next();
+            TaggingPresetLabel label = new TaggingPresetLabel(preset);
+            preset.getIconLoadingTask().get();
+            GuiHelper.runInEDTAndWait(() -> { });
+            assertNotNull(label.getIcon());
+        } finally {
+            TaggingPresetReader.setLoadIcons(loadIcons);
+        }
+    }
 }
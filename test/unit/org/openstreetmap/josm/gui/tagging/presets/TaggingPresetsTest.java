@@ -1,8 +1,23 @@
 // License: GPL. For details, see LICENSE file.
 package org.openstreetmap.josm.gui.tagging.presets;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
 import org.junit.Rule;
 import org.junit.Test;
+import org.openstreetmap.josm.TestUtils;
+import org.openstreetmap.josm.data.osm.Node;
 import org.openstreetmap.josm.testutils.JOSMTestRules;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
@@ -18,7 +33,7 @@ public class TaggingPresetsTest {
      */
     @Rule
     @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
-    public JOSMTestRules test = new JOSMTestRules();
+    public JOSMTestRules test = new JOSMTestRules().presets();
 
     /**
      * Tests that {@code TaggingPresets} satisfies utility class criterias.
@@ -28,4 +43,98 @@ public class TaggingPresetsTest {
     public void testUtilityClass() throws ReflectiveOperationException {
         UtilityClassTestUtil.assertUtilityClassWellDefined(TaggingPresets.class);
     }
+
+    private static List<TaggingPreset> filter(Collection<TaggingPresetType> t, Map<String, String> tags, boolean onlyShowable) {
+        return TaggingPresets.getTaggingPresets().stream()
+                .filter(preset -> preset.matches(t, tags, onlyShowable))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Tests that {@link TaggingPresets#getMatchingPresets} finds the same presets as testing all of them.
+     */
+    @Test
+    public void testGetMatchingPresets() {
+        List<Map<String, String>> allTags = new ArrayList<>();
+        Map<String, String> combined = new HashMap<>();
+        for (String key : TaggingPresets.getPresetKeys()) {
+            for (String value : TaggingPresets.getPresetValues(key)) {
+                Map<String, String> tags = new HashMap<>();
+                tags.put(key, value);
+                allTags.add(tags);
+                combined.put(key, value);
+                if (combined.size() == 3) {
+                    allTags.add(combined);
+                    combined = new HashMap<>();
+                }
+            }
+        }
+        assertFalse(allTags.isEmpty());
+        for (Map<String, String> tags : allTags) {
+            assertEquals(tags.toString(), filter(null, tags, false), TaggingPresets.getMatchingPresets(null, tags, false));
+            EnumSet<TaggingPresetType> t = EnumSet.of(TaggingPresetType.NODE);
+            assertEquals(tags.toString(), filter(t, tags, true), TaggingPresets.getMatchingPresets(t, tags, true));
+        }
+
+        Node n = TestUtils.newNode("amenity=restaurant cuisine=pizza");
+        List<TaggingPreset> matching = filter(EnumSet.of(TaggingPresetType.NODE), n.getKeys(), false);
+        assertFalse(matching.isEmpty());
+        assertEquals(matching, TaggingPresets.getMatchingPresets(n));
+    }
+
+    /**
+     * Tests that {@link TaggingPresets#getMatchingPresets} takes into account the presets overriding the matching.
+     */
+    @Test
+    public void testGetMatchingPresetsNotIndexed() {
+        TaggingPreset custom = new TaggingPreset() {
+            @Override
+            public boolean matches(Collection<TaggingPresetType> t, Map<String, String> tags, boolean onlyShowable) {
+                return tags.containsKey("custom");
+            }
+        };
+        Map<String, String> tags = new HashMap<>();
+        tags.put("custom", "yes");
+        assertFalse(TaggingPresets.getMatchingPresets(null, tags, false).contains(custom));
+        TaggingPresets.addTaggingPresets(Collections.singleton(custom));
+        assertEquals(Collections.singletonList(custom), TaggingPresets.getMatchingPresets(null, tags, false));
+    }
+
+    /**
+     * Tests that the index built while presets are added concurrently is not kept once they are added.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testIndexConcurrentModification() throws Exception {
+        Map<String, String> tags = Collections.singletonMap("concurrent", "yes");
+        List<TaggingPreset> added = new ArrayList<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    TaggingPresets.getMatchingPresets(null, tags, false);
+                }
+            } catch (RuntimeException e) {
+                failure.set(e);
+            }
+        });
+        reader.start();
+        try {
+            for (int i = 0; i < 100; i++) {
+                TaggingPreset custom = new TaggingPreset() {
+                    @Override
+                    public boolean matches(Collection<TaggingPresetType> t, Map<String, String> tags, boolean onlyShowable) {
+                        return tags.containsKey("concurrent");
+                    }
+                };
+                added.add(custom);
+                TaggingPresets.addTaggingPresets(Collections.singleton(custom));
+            }
+        } finally {
+            reader.interrupt();
+            reader.join();
+        }
+        assertEquals(null, failure.get());
+        assertEquals(added, TaggingPresets.getMatchingPresets(null, tags, false));
+    }
 }
@@ -0,0 +1,249 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.openstreetmap.josm.TestUtils;
+import org.openstreetmap.josm.data.Bounds;
+import org.openstreetmap.josm.data.DataSource;
+import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.UploadPolicy;
+import org.openstreetmap.josm.data.osm.User;
+import org.openstreetmap.josm.data.osm.Way;
+import org.openstreetmap.josm.testutils.JOSMTestRules;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * Unit tests of {@link OsmPbfReader} and {@link OsmPbfWriter} classes.
+ */
+public class OsmPbfReaderTest {
+
+    /**
+     * Setup rule
+     */
+    @Rule
+    @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
+    public JOSMTestRules test = new JOSMTestRules();
+
+    /**
+     * Returns the data set as written by {@link OsmWriter}, with the ids of new primitives replaced by their order.
+     * @param ds the data set
+     * @return the data set as XML
+     */
+    private static String toXml(DataSet ds) {
+        StringWriter out = new StringWriter();
+        OsmWriter writer = OsmWriterFactory.createOsmWriter(new PrintWriter(out), true, OsmWriter.DEFAULT_API_VERSION);
+        writer.write(ds);
+        writer.flush();
+        Map<String, String> newIds = new HashMap<>();
+        Matcher m = Pattern.compile("'-\\d+'").matcher(out.toString());
+        StringBuffer sb = new StringBuffer();
+        while (m.find()) {
+            m.appendReplacement(sb, newIds.computeIfAbsent(m.group(), k -> "'new" + newIds.size() + "'"));
+        }
+        m.appendTail(sb);
+        return sb.toString();
+    }
+
+    private static byte[] write(DataSet ds) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OsmPbfWriter writer = new OsmPbfWriter(out)) {
+            writer.write(ds);
+        }
+        return out.toByteArray();
+    }
+
+    private static void testRoundTrip(DataSet ds) throws Exception {
+        String expected = toXml(ds);
+        byte[] pbf = write(ds);
+        for (int threads : new int[] {1, 2}) {
+            assertEquals("threads " + threads, expected, toXml(OsmPbfReader.parseDataSet(new ByteArrayInputStream(pbf), null, threads)));
+        }
+    }
+
+    /**
+     * Test that test data files are read back as written, with the precision of the OSM server.
+     * @throws Exception if any error occurs
+     */
+    @Test
+    public void testRoundTrip() throws Exception {
+        for (String file : Arrays.asList("multipolygon.osm", "regress/12038/data.osm", "regress/17767/upd-mp.osm")) {
+            try (InputStream in = Files.newInputStream(Paths.get(TestUtils.getTestDataRoot(), file))) {
+                DataSet ds = OsmReader.parseDataSet(in, null);
+                // the upload policy is not part of the PBF format
+                ds.setUploadPolicy(UploadPolicy.NORMAL);
+                for (Node n : ds.getNodes()) {
+                    if (n.isLatLonKnown()) {
+                        n.setCoor(n.getCoor().getRoundedToOsmPrecision());
+                    }
+                }
+                testRoundTrip(ds);
+            }
+        }
+    }
+
+    /**
+     * Test a data set spanning several blocks, with new primitives, local users and a data source.
+     * @throws Exception if any error occurs
+     */
+    @Test
+    public void testLargeDataSet() throws Exception {
+        DataSet ds = new DataSet();
+        ds.addDataSource(new DataSource(new Bounds(-10, -20, 10, 20), "test"));
+        User user = User.createLocalUser("local");
+        Node previous = null;
+        for (int i = 0; i < 20_000; i++) {
+            Node n = i % 3 == 0 ? new Node(new LatLon(i * 1e-4 - 1, 1 - i * 1e-4)) : new Node(i + 1, 1 + i % 4);
+            if (!n.isNew()) {
+                n.setCoor(new LatLon(0.5 - i * 1e-5, i * 1e-5));
+                n.setRawTimestamp(1_500_000_000 + i);
+                n.setUser(i % 2 == 0 ? user : User.createOsmUser(i, "user" + i));
+                n.setChangesetId(100 + i / 10);
+            }
+            if (i % 5 == 0) {
+                n.put("ref", Integer.toString(i % 7));
+                n.put("name", "äöü " + i);
+            }
+            ds.addPrimitive(n);
+            if (previous != null && i % 2 == 0) {
+                Way w = i % 4 == 0 ? new Way() : new Way(i, 1);
+                w.setNodes(Arrays.asList(previous, n));
+                w.put("highway", "residential");
+                ds.addPrimitive(w);
+            }
+            previous = n;
+        }
+        testRoundTrip(ds);
+    }
+
+    private static void testError(byte[] pbf, String expected) {
+        try {
+            OsmPbfReader.parseDataSet(new ByteArrayInputStream(pbf), null, 1);
+            fail("Expected error: " + expected);
+        } catch (IllegalDataException e) {
+            assertEquals(expected, e.getMessage());
+        }
+    }
+
+    /**
+     * Test that invalid files are rejected.
+     * @throws Exception if any error occurs
+     */
+    @Test
+    public void testErrors() throws Exception {
+        testError(new byte[0], "Missing header block in PBF file.");
+        byte[] pbf = write(new DataSet());
+        testError(Arrays.copyOf(pbf, pbf.length - 1), "java.io.EOFException");
+
+        ProtobufOutput header = new ProtobufOutput();
+        header.writeString(4, "HistoricalInformation");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeRawBlob(out, "OSMHeader", header);
+        testError(out.toByteArray(), "Unsupported required feature 'HistoricalInformation' in PBF file.");
+    }
+
+    private static void writeRawBlob(ByteArrayOutputStream out, String type, ProtobufOutput data) throws IOException {
+        ProtobufOutput blob = new ProtobufOutput();
+        blob.writeBytes(1, data.getBuffer(), 0, data.size());
+        ProtobufOutput blobHeader = new ProtobufOutput();
+        blobHeader.writeString(1, type);
+        blobHeader.writeInt64(3, blob.size());
+        out.write(new byte[] {0, 0, 0, (byte) blobHeader.size()});
+        blobHeader.writeTo(out);
+        blob.writeTo(out);
+    }
+
+    /**
+     * Test that nodes with an id assigned by the server need a version, like in OSM XML files.
+     * @throws Exception if any error occurs
+     */
+    @Test
+    public void testMissingVersion() throws Exception {
+        // dense nodes without info
+        ProtobufOutput header = new ProtobufOutput();
+        header.writeString(4, "OsmSchema-V0.6");
+        header.writeString(4, "DenseNodes");
+        ProtobufOutput strings = new ProtobufOutput();
+        strings.writeString(1, "");
+        ProtobufOutput values = new ProtobufOutput();
+        ProtobufOutput dense = new ProtobufOutput();
+        for (int field : new int[] {1, 8, 9}) {
+            values.reset();
+            // node id 5 at (0, 0)
+            values.writeVarint(ProtobufOutput.encodeZigZag(field == 1 ? 5 : 0));
+            dense.writeMessage(field, values);
+        }
+        ProtobufOutput group = new ProtobufOutput();
+        group.writeMessage(2, dense);
+        ProtobufOutput block = new ProtobufOutput();
+        block.writeMessage(1, strings);
+        block.writeMessage(2, group);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeRawBlob(out, "OSMHeader", header);
+        writeRawBlob(out, "OSMData", block);
+        testError(out.toByteArray(), "Missing attribute 'version' on OSM primitive with ID 5.");
+    }
+
+    /**
+     * Test that blocks exceeding the maximum size are split, and that a primitive exceeding it alone is refused.
+     * @throws Exception if any error occurs
+     */
+    @Test
+    public void testMaxBlockSize() throws Exception {
+        DataSet ds = new DataSet();
+        Node n = new Node(1, 1);
+        n.setCoor(LatLon.ZERO);
+        ds.addPrimitive(n);
+        for (int i = 1; i <= 100; i++) {
+            Way w = new Way(i, 1);
+            w.setNodes(Collections.nCopies(100, n));
+            ds.addPrimitive(w);
+        }
+        String expected = toXml(ds);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OsmPbfWriter writer = new OsmPbfWriter(out, 1000)) {
+            writer.write(ds);
+        }
+        assertEquals(expected, toXml(OsmPbfReader.parseDataSet(new ByteArrayInputStream(out.toByteArray()), null, 1)));
+
+        try (OsmPbfWriter writer = new OsmPbfWriter(new ByteArrayOutputStream(), 100)) {
+            writer.write(ds);
+            fail("Expected IOException");
+        } catch (IOException e) {
+            assertEquals("Cannot write way with ID 1, it is too large for a PBF block.", e.getMessage());
+        }
+    }
+
+    /**
+     * Test that an empty data set can be written and read.
+     * @throws Exception if any error occurs
+     */
+    @Test
+    public void testEmpty() throws Exception {
+        DataSet ds = OsmPbfReader.parseDataSet(new ByteArrayInputStream(write(new DataSet())), null);
+        assertEquals(0, ds.allPrimitives().size());
+        assertTrue(ds.getDataSourceBounds().isEmpty());
+    }
+}
@@ -4,6 +4,7 @@ package org.openstreetmap.josm.io;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -13,12 +14,18 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
 
 import org.junit.Rule;
 import org.junit.Test;
 import org.openstreetmap.josm.TestUtils;
 import org.openstreetmap.josm.data.osm.DataSet;
 import org.openstreetmap.josm.data.osm.Node;
+import org.openstreetmap.josm.data.osm.OsmPrimitive;
+import org.openstreetmap.josm.data.osm.OsmPrimitiveType;
+import org.openstreetmap.josm.data.osm.PrimitiveId;
+import org.openstreetmap.josm.data.osm.SimplePrimitiveId;
 import org.openstreetmap.josm.data.osm.Way;
 import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
 import org.openstreetmap.josm.gui.progress.ProgressMonitor;
@@ -47,6 +54,42 @@ public class OsmReaderTest {
         }
     }
 
+    private static final class ExternalIdMapReader extends OsmReader {
+        @SuppressWarnings("deprecation")
+        Map<PrimitiveId, OsmPrimitive> getExternalIdMap() {
+            return externalIdMap;
+        }
+    }
+
+    /**
+     * Unit test of the deprecated {@link AbstractReader#externalIdMap} view, still used by plugins.
+     * @throws Exception if any error occurs
+     */
+    @Test
+    public void testExternalIdMap() throws Exception {
+        String osm = "<osm version=\"0.6\"><node id=\"-1\" lat=\"0\" lon=\"0\"/><node id=\"2\" version=\"1\" lat=\"1\" lon=\"1\"/>"
+                + "<way id=\"-3\"><nd ref=\"-1\"/><nd ref=\"2\"/></way></osm>";
+        ExternalIdMapReader reader = new ExternalIdMapReader();
+        try (InputStream in = new ByteArrayInputStream(osm.getBytes(StandardCharsets.UTF_8))) {
+            reader.doParseDataSet(in, NullProgressMonitor.INSTANCE);
+        }
+        Map<PrimitiveId, OsmPrimitive> map = reader.getExternalIdMap();
+        assertEquals(3, map.size());
+        Node n1 = (Node) map.get(new SimplePrimitiveId(-1, OsmPrimitiveType.NODE));
+        Way w3 = (Way) map.get(new SimplePrimitiveId(-3, OsmPrimitiveType.WAY));
+        assertEquals(2, map.get(new SimplePrimitiveId(2, OsmPrimitiveType.NODE)).getUniqueId());
+        assertNull(map.get(new SimplePrimitiveId(-1, OsmPrimitiveType.WAY)));
+        assertSame(n1, w3.firstNode());
+        assertEquals(map.keySet(), new HashSet<>(Arrays.asList(new SimplePrimitiveId(-1, OsmPrimitiveType.NODE),
+                new SimplePrimitiveId(2, OsmPrimitiveType.NODE), new SimplePrimitiveId(-3, OsmPrimitiveType.WAY))));
+
+        Node n4 = new Node();
+        assertNull(map.put(new SimplePrimitiveId(-4, OsmPrimitiveType.NODE), n4));
+        assertSame(n4, map.get(new SimplePrimitiveId(-4, OsmPrimitiveType.NODE)));
+        assertSame(w3, map.remove(new SimplePrimitiveId(-3, OsmPrimitiveType.WAY)));
+        assertEquals(3, map.size());
+    }
+
     /**
      * Unit test of {@link OsmReader#registerPostprocessor} / {@link OsmReader#deregisterPostprocessor}.
      * @throws Exception if any error occurs
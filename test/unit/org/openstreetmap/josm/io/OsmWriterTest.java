@@ -8,17 +8,22 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 import org.junit.Test;
+import org.openstreetmap.josm.data.coor.LatLon;
 import org.openstreetmap.josm.data.osm.DataSet;
 import org.openstreetmap.josm.data.osm.DownloadPolicy;
 import org.openstreetmap.josm.data.osm.NodeData;
 import org.openstreetmap.josm.data.osm.UploadPolicy;
+import org.openstreetmap.josm.data.osm.User;
+import org.openstreetmap.josm.tools.date.DateUtils;
 
 /**
  * Unit tests of {@link OsmWriter} class.
@@ -90,4 +95,55 @@ public class OsmWriterTest {
                         .replaceAll("\r", "")
                         .replaceAll("\n", ""));
     }
+
+    /**
+     * Test that nodes are written with the same formatting of coordinates, numbers, timestamps and tags as
+     * {@link LatLon#cDdHighPecisionFormatter}, {@link DateUtils#fromTimestamp(int)} and {@link XmlWriter#encode(String)}.
+     * @throws IOException if an I/O error occurs
+     */
+    @Test
+    public void testNodeFormatting() throws IOException {
+        Random random = new Random(42);
+        double[] coordinates = {0, -0.0, 1, -1, 0.1, -0.0000001, 0.00000001, 12.3456789, 12.34567891, -179.9999999, 180, -90, 1e-12};
+        StringWriter actual = new StringWriter();
+        StringBuilder expected = new StringBuilder();
+        try (PrintWriter out = new PrintWriter(actual);
+             OsmWriter writer = OsmWriterFactory.createOsmWriter(out, true, OsmWriter.DEFAULT_API_VERSION)) {
+            for (int i = 0; i < 10_000; i++) {
+                double lat;
+                double lon;
+                if (i < coordinates.length) {
+                    lat = coordinates[i];
+                    lon = -coordinates[i];
+                } else if (i % 2 == 0) {
+                    // precision of the OSM server
+                    lat = Math.round((random.nextDouble() * 180 - 90) * 1e7) / 1e7;
+                    lon = Math.round((random.nextDouble() * 360 - 180) * 1e7) / 1e7;
+                } else {
+                    lat = random.nextDouble() * 180 - 90;
+                    lon = random.nextDouble() * 360 - 180;
+                }
+                long id = i == 0 ? Long.MAX_VALUE : i == 1 ? Long.MIN_VALUE : random.nextLong();
+                int timestamp = i == 0 ? -1 : random.nextInt();
+                NodeData n = new NodeData(id);
+                n.setCoor(new LatLon(lat, lon));
+                n.setRawTimestamp(timestamp);
+                n.setVersion(1 + random.nextInt(1000));
+                n.setUser(User.createOsmUser(i + 1, "user <" + i + "> 'ü'"));
+                n.put("name", "\"A & B\"\t" + i);
+                n.put("amenity", "cafe");
+                writer.visit(n);
+                expected.append("  <node id='").append(id)
+                        .append("' timestamp='").append(DateUtils.fromTimestamp(timestamp))
+                        .append("' uid='").append(i + 1).append("' user='").append(XmlWriter.encode(n.getUser().getName()))
+                        .append("' visible='true' version='").append(n.getVersion())
+                        .append("' lat='").append(LatLon.cDdHighPecisionFormatter.format(lat))
+                        .append("' lon='").append(LatLon.cDdHighPecisionFormatter.format(lon)).append("'>")
+                        .append("    <tag k='amenity' v='cafe' />")
+                        .append("    <tag k='name' v='").append(XmlWriter.encode(n.get("name"))).append("' />")
+                        .append("  </node>");
+            }
+        }
+        assertEquals(expected.toString(), actual.toString().replaceAll("\r", "").replaceAll("\n", ""));
+    }
 }
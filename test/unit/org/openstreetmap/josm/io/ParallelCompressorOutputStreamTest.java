@@ -0,0 +1,125 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Test;
+
+/**
+ * Unit tests of {@link ParallelCompressorOutputStream} class.
+ */
+public class ParallelCompressorOutputStreamTest {
+
+    private static byte[] compress(Compression compression, byte[] data, int threads) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream compressed = compression.getCompressedOutputStream(out, threads)) {
+            // mix single bytes and arrays crossing the blocks
+            int i = 0;
+            for (; i < data.length && i < 100; i++) {
+                compressed.write(data[i]);
+            }
+            while (i < data.length) {
+                int length = Math.min(data.length - i, 300_000);
+                compressed.write(data, i, length);
+                i += length;
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] decompress(Compression compression, byte[] compressed) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = compression.getUncompressedInputStream(new ByteArrayInputStream(compressed))) {
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static void testRoundTrip(Compression compression, byte[] data) throws IOException {
+        byte[] compressed = compress(compression, data, 3);
+        assertArrayEquals(data, decompress(compression, compressed));
+        if (data.length > 0) {
+            assertTrue(compressed.length < data.length);
+        }
+    }
+
+    private static byte[] createData(int size) {
+        Random random = new Random(42);
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            // compressible, but not too much
+            data[i] = (byte) ('a' + random.nextInt(16));
+        }
+        return data;
+    }
+
+    /**
+     * Test that gzip data compressed in several blocks is decompressed as one stream.
+     * @throws IOException if an I/O error occurs
+     */
+    @Test
+    public void testGzip() throws IOException {
+        testRoundTrip(Compression.GZIP, createData(ParallelCompressorOutputStream.BLOCK_SIZE * 5 / 2));
+        testRoundTrip(Compression.GZIP, createData(ParallelCompressorOutputStream.BLOCK_SIZE));
+        testRoundTrip(Compression.GZIP, new byte[0]);
+    }
+
+    /**
+     * Test that bzip2 data compressed in several blocks is decompressed as one stream.
+     * @throws IOException if an I/O error occurs
+     */
+    @Test
+    public void testBzip2() throws IOException {
+        testRoundTrip(Compression.BZIP2, createData(ParallelCompressorOutputStream.BLOCK_SIZE * 5 / 2));
+        testRoundTrip(Compression.BZIP2, new byte[0]);
+    }
+
+    /**
+     * Test that an error of a compressing thread is reported, and that the stream can no longer be written to.
+     * @throws IOException if an I/O error occurs
+     */
+    @Test
+    public void testCompressionFailure() throws IOException {
+        AtomicInteger blocks = new AtomicInteger();
+        ParallelCompressorOutputStream compressed = new ParallelCompressorOutputStream(new ByteArrayOutputStream(), 2, out -> {
+            if (blocks.incrementAndGet() > 1) {
+                throw new IOException("test");
+            }
+            return new GZIPOutputStream(out);
+        });
+        byte[] block = new byte[ParallelCompressorOutputStream.BLOCK_SIZE];
+        try {
+            for (int i = 0; i < 10; i++) {
+                compressed.write(block);
+            }
+            fail("Expected IOException");
+        } catch (IOException e) {
+            assertEquals("test", e.getMessage());
+        }
+        try {
+            compressed.write(block);
+            fail("Expected IOException");
+        } catch (IOException e) {
+            assertNotEquals("test", e.getMessage());
+        }
+        compressed.close();
+    }
+}
+
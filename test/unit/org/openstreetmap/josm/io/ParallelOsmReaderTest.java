@@ -0,0 +1,140 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.io;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.openstreetmap.josm.TestUtils;
+import org.openstreetmap.josm.data.osm.DataSet;
+import org.openstreetmap.josm.testutils.JOSMTestRules;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * Unit tests of {@link ParallelOsmReader} class.
+ */
+public class ParallelOsmReaderTest {
+
+    /**
+     * Setup rule
+     */
+    @Rule
+    @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
+    public JOSMTestRules test = new JOSMTestRules();
+
+    private static final int[] CHUNK_SIZES = {1, 200, 1 << 20};
+
+    @FunctionalInterface
+    private interface Parser {
+        DataSet parse(byte[] data) throws IllegalDataException;
+    }
+
+    /**
+     * Returns the parsed data set as written by {@link OsmWriter}, or the error message.
+     * @param parser the parser
+     * @param data the input
+     * @return the parsed data set or error message
+     */
+    private static String parse(Parser parser, byte[] data) {
+        DataSet ds;
+        try {
+            ds = parser.parse(data);
+        } catch (IllegalDataException e) {
+            return e.getMessage();
+        }
+        StringWriter out = new StringWriter();
+        OsmWriter writer = OsmWriterFactory.createOsmWriter(new PrintWriter(out), true, OsmWriter.DEFAULT_API_VERSION);
+        writer.write(ds);
+        writer.flush();
+        // new primitives get new ids on each read, replace them by their order
+        Map<String, String> newIds = new HashMap<>();
+        Matcher m = Pattern.compile("'-\\d+'").matcher(out.toString());
+        StringBuffer sb = new StringBuffer();
+        while (m.find()) {
+            m.appendReplacement(sb, newIds.computeIfAbsent(m.group(), k -> "'new" + newIds.size() + "'"));
+        }
+        m.appendTail(sb);
+        return ds.getRemark() + ' ' + ds.getUploadPolicy() + ' ' + ds.isLocked() + '\n' + sb;
+    }
+
+    private static void testSameResult(byte[] data) {
+        String expected = parse(d -> OsmReader.parseDataSet(new ByteArrayInputStream(d), null), data);
+        assertEquals(expected, parse(d -> OsmReader.parseDataSet(new ByteArrayInputStream(d), null, false, 2), data));
+        for (int chunkSize : CHUNK_SIZES) {
+            assertEquals("chunk size " + chunkSize, expected, parse(
+                    d -> new ParallelOsmReader(false, 2, chunkSize).doParseDataSet(new ByteArrayInputStream(d), null), data));
+        }
+    }
+
+    private static void testSameResult(String xml) {
+        testSameResult(xml.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Test that test data files are read the same as by {@link OsmReader}.
+     * @throws Exception if any error occurs
+     */
+    @Test
+    public void testSameDataSet() throws Exception {
+        for (String file : Arrays.asList("multipolygon.osm", "regress/14199/emptytag.osm", "regress/18420/user-sample.osm",
+                "regress/17695/bib2.osm")) {
+            testSameResult(Files.readAllBytes(Paths.get(TestUtils.getTestDataRoot(), file)));
+        }
+    }
+
+    /**
+     * Test that markup which could be mistaken for the end of an element does not split the input.
+     */
+    @Test
+    public void testMarkup() {
+        testSameResult("<?xml version='1.0' encoding='UTF-8'?>\n<!-- <osm version='0.6'> -->\n"
+                + "<osm version='0.6' upload='false' locked='true' generator='test'>\n"
+                + "  <bounds minlat='1' minlon='2' maxlat='3' maxlon='4'/>\n"
+                + "  <!-- <node id='5' version='1'/> -->\n"
+                + "  <node id='1' version='1' lat='1' lon='1' user='a' uid='1'><tag k='a' v='x/>y'/><tag k='b' v=\"'>\"/></node>\n"
+                + "  <?pi <way id='6'> ?>\n"
+                + "  <node id='-1' lat='2' lon='2' user='b'><tag k='c' v='&lt;![CDATA[ ]]&gt;'/></node>\n"
+                + "  <way id='2' version='1' user='c' uid='1'><nd ref='1'/><nd ref='-1'/><unknown><![CDATA[</way>]]></unknown></way>\n"
+                + "  <way id='-2'><nd ref='-1'/><nd ref='3'/></way>\n"
+                + "  <relation id='-3'><member type='way' ref='-2' role='outer'/><member type='node' ref='4' role=''/></relation>\n"
+                + "  <remark>remark</remark>\n"
+                + "  <changeset><tag k='comment' v='test'/></changeset>\n"
+                + "</osm>\n<!-- end -->\n");
+    }
+
+    /**
+     * Test that errors are reported as by {@link OsmReader}, with the location in the input.
+     */
+    @Test
+    public void testErrors() {
+        String header = "<?xml version='1.0' encoding='UTF-8'?>\n<osm version='0.6'>\n";
+        String node = "  <node id='1' version='1' lat='1' lon='1'/>\n";
+        for (String xml : Arrays.asList(
+                header + node + "  <node id='2' version='1' lat='100' lon='1'/>\n</osm>",
+                header + node + node + "  <node id='3' version='x' lat='1' lon='1'/>\n</osm>",
+                header + node + "  <way id='2' version='1'><nd ref='1'/></node>\n</osm>",
+                header + node + "  <way id='2' version='1'><nd ref='1'/></way>\n",
+                header + node + "</osm>\n<node/>",
+                header + node + "</osm>\n</osm>",
+                "<osm version='0.5'>" + node + "</osm>",
+                "<?xml version='1.0'?>\n<!DOCTYPE osm>\n<osm version='0.6'>" + node + "</osm>",
+                "<osm version='0.6'/>",
+                "<xml version='0.6'>" + node + "</xml>",
+                "")) {
+            testSameResult(xml);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.plugins;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openstreetmap.josm.TestUtils;
+import org.openstreetmap.josm.spi.preferences.Config;
+import org.openstreetmap.josm.testutils.JOSMTestRules;
+import org.openstreetmap.josm.tools.Utils;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * Unit tests of {@link DynamicURLClassLoader} and {@link JarIndex} classes.
+ */
+public class DynamicURLClassLoaderTest {
+
+    /**
+     * Setup test.
+     */
+    @Rule
+    @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
+    public JOSMTestRules test = new JOSMTestRules().preferences();
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final String PLUGIN_CLASS = "org.openstreetmap.josm.plugins.fr.epci.EpciPlugin";
+
+    private static URL[] getJars(String... names) {
+        URL[] urls = new URL[names.length];
+        for (int i = 0; i < names.length; i++) {
+            urls[i] = Utils.fileToURL(new File(TestUtils.getTestDataRoot(), "__files/plugin/" + names[i] + ".jar"));
+        }
+        return urls;
+    }
+
+    /**
+     * Checks that the indexed lookups of classes and resources give the same results as {@link URLClassLoader}.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testIndexedLookup() throws Exception {
+        URL[] urls = getJars("baz_plugin.v7", "dummy_plugin.v31772", "qux_plugin.v435");
+        assertNotNull(JarIndex.getAll(urls));
+        try (DynamicURLClassLoader cl = new DynamicURLClassLoader(urls, DynamicURLClassLoaderTest.class.getClassLoader());
+             URLClassLoader reference = new URLClassLoader(urls, null)) {
+            for (String name : new String[] {"data/en.lang", "org/openstreetmap/josm/plugins/fr/epci/", "META-INF/MANIFEST.MF",
+                    "missing.txt", ""}) {
+                URL url = reference.findResource(name);
+                assertEquals(name, url == null ? null : url.toExternalForm(),
+                        cl.findResource(name) == null ? null : cl.findResource(name).toExternalForm());
+                assertEquals(name, Collections.list(reference.findResources(name)), Collections.list(cl.findResources(name)));
+            }
+            assertEquals(PLUGIN_CLASS, Class.forName(PLUGIN_CLASS, false, cl).getName());
+            try {
+                Class.forName("org.openstreetmap.josm.plugins.Missing", false, cl);
+                throw new AssertionError("Missing class found");
+            } catch (ClassNotFoundException e) {
+                assertEquals("org.openstreetmap.josm.plugins.Missing", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Checks that a class loader whose class path cannot be indexed still works.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testNotIndexed() throws Exception {
+        URL directory = Utils.fileToURL(folder.getRoot());
+        Files.write(new File(folder.getRoot(), "test.txt").toPath(), new byte[] {1});
+        URL[] urls = new URL[] {getJars("dummy_plugin.v31772")[0], directory};
+        assertNull(JarIndex.getAll(urls));
+        try (DynamicURLClassLoader cl = new DynamicURLClassLoader(urls, DynamicURLClassLoaderTest.class.getClassLoader())) {
+            assertNotNull(cl.findResource("test.txt"));
+            assertNotNull(cl.findResource("data/en.lang"));
+            assertNotNull(Class.forName(PLUGIN_CLASS, false, cl));
+        }
+        try (DynamicURLClassLoader cl = new DynamicURLClassLoader(getJars("dummy_plugin.v31772"),
+                DynamicURLClassLoaderTest.class.getClassLoader())) {
+            assertNull(cl.findResource("test.txt"));
+            cl.addURL(directory);
+            assertNotNull(cl.findResource("test.txt"));
+        }
+    }
+
+    /**
+     * Checks that the index is stored in the cache, reused when the jar file is touched, and rebuilt when it changes.
+     * @throws IOException if an I/O error occurs
+     */
+    @Test
+    public void testIndexCache() throws IOException {
+        File jar = folder.newFile("test_plugin.jar");
+        File reference = new File(TestUtils.getTestDataRoot(), "__files/plugin/dummy_plugin.v31772.jar");
+        Files.copy(reference.toPath(), jar.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        File cache = new File(new File(Config.getDirs().getCacheDirectory(true), "plugin-index"),
+                jar.getName() + '.' + Integer.toHexString(jar.getAbsolutePath().hashCode()) + ".idx");
+        Utils.deleteFileIfExists(cache);
+
+        JarIndex index = JarIndex.get(Utils.fileToURL(jar));
+        assertNotNull(index);
+        assertTrue(index.contains("data/en.lang"));
+        assertTrue(index.contains("org/openstreetmap/josm/plugins/fr/epci"));
+        assertFalse(index.contains("data/fr.lang"));
+        assertTrue(cache.isFile());
+        assertEquals(0, cache.getParentFile().listFiles((dir, name) -> name.endsWith(".tmp")).length);
+
+        assertTrue(jar.setLastModified(jar.lastModified() - 60_000));
+        long cacheModified = cache.lastModified();
+        index = JarIndex.get(Utils.fileToURL(jar));
+        assertNotNull(index);
+        assertTrue(index.contains("data/en.lang"));
+        assertTrue(cache.lastModified() >= cacheModified);
+
+        Files.copy(new File(TestUtils.getTestDataRoot(), "__files/plugin/baz_plugin.v7.jar").toPath(), jar.toPath(),
+                StandardCopyOption.REPLACE_EXISTING);
+        index = JarIndex.get(Utils.fileToURL(jar));
+        assertNotNull(index);
+        assertFalse(index.contains("org/openstreetmap/josm/plugins/fr/epci"));
+    }
+}
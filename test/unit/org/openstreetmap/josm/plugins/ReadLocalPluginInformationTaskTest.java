@@ -0,0 +1,81 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.plugins;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openstreetmap.josm.TestUtils;
+import org.openstreetmap.josm.gui.progress.NullProgressMonitor;
+import org.openstreetmap.josm.spi.preferences.Config;
+import org.openstreetmap.josm.testutils.JOSMTestRules;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * Unit tests of {@link ReadLocalPluginInformationTask} class.
+ */
+public class ReadLocalPluginInformationTaskTest {
+
+    /**
+     * Setup test.
+     */
+    @Rule
+    @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
+    public JOSMTestRules test = new JOSMTestRules().preferences();
+
+    /**
+     * Temporary folder.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static class RecordingTask extends ReadLocalPluginInformationTask {
+        final List<String> processed = new ArrayList<>();
+
+        RecordingTask() {
+            super(NullProgressMonitor.INSTANCE);
+        }
+
+        @Override
+        protected void processJarFile(File f, String pluginName) throws PluginException {
+            processed.add(pluginName);
+            super.processJarFile(f, pluginName);
+        }
+    }
+
+    private void testScanPluginFiles(boolean parallel) throws Exception {
+        Config.getPref().putBoolean("pluginmanager.parallel-loading", parallel);
+        File dir = folder.newFolder();
+        for (String name : new String[] {"baz_plugin.v7", "dummy_plugin.v31772", "corrupted_plugin"}) {
+            Files.copy(new File(TestUtils.getTestDataRoot(), "__files/plugin/" + name + ".jar").toPath(),
+                    new File(dir, name.replaceFirst("\\.v\\d+$", "") + ".jar").toPath());
+        }
+        RecordingTask task = new RecordingTask();
+        task.scanPluginFiles(NullProgressMonitor.INSTANCE, dir);
+        assertEquals(new HashSet<>(Arrays.asList("baz_plugin", "dummy_plugin", "corrupted_plugin")), new HashSet<>(task.processed));
+        Set<String> names = task.getAvailablePlugins().stream().map(PluginInformation::getName).collect(Collectors.toSet());
+        assertEquals(new HashSet<>(Arrays.asList("baz_plugin", "dummy_plugin")), names);
+    }
+
+    /**
+     * Tests that {@link ReadLocalPluginInformationTask#processJarFile} is called for each plugin file,
+     * whether the manifests are read concurrently or not.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testProcessJarFile() throws Exception {
+        testScanPluginFiles(false);
+        testScanPluginFiles(true);
+    }
+}
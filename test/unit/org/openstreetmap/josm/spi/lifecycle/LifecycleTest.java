@@ -1,12 +1,22 @@
 // License: GPL. For details, see LICENSE file.
 package org.openstreetmap.josm.spi.lifecycle;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.junit.Rule;
 import org.junit.Test;
 import org.openstreetmap.josm.testutils.JOSMTestRules;
+import org.openstreetmap.josm.tools.JosmRuntimeException;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
@@ -52,4 +62,89 @@ public class LifecycleTest {
         assertTrue(listener.updated);
         assertTrue(listener.finished);
     }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void assertRunBefore(InitializationTask first, InitializationTask second) {
+        assertTrue(first + " before " + second,
+                first.getStartTime() + first.getWallTime() <= second.getStartTime());
+    }
+
+    /**
+     * Unit test of {@link Lifecycle#initialize} with prerequisites between the parallel tasks.
+     */
+    @Test
+    public void testInitializePrerequisites() {
+        List<String> log = Collections.synchronizedList(new ArrayList<>());
+        InitializationTask before = new InitializationTask("before", () -> log.add("before"));
+        InitializationTask a = new InitializationTask("a", () -> sleep(50));
+        InitializationTask b = new InitializationTask("b", () -> sleep(100), a);
+        InitializationTask c = new InitializationTask("c", () -> sleep(10));
+        InitializationTask d = new InitializationTask("d", () -> sleep(10), b, c);
+        InitializationTask after = new InitializationTask("after", () -> log.add("after"));
+        Lifecycle.initialize(new InitializationSequence() {
+            @Override
+            public List<InitializationTask> beforeInitializationTasks() {
+                return Collections.singletonList(before);
+            }
+
+            @Override
+            public Collection<InitializationTask> parallelInitializationTasks() {
+                // dependent tasks first, to check that they are sorted
+                return Arrays.asList(d, b, c, a);
+            }
+
+            @Override
+            public List<InitializationTask> afterInitializationTasks() {
+                return Collections.singletonList(after);
+            }
+        });
+        assertEquals(Arrays.asList("before", "after"), log);
+        assertRunBefore(before, a);
+        assertRunBefore(a, b);
+        assertRunBefore(b, d);
+        assertRunBefore(c, d);
+        assertRunBefore(d, after);
+
+        InitializationReport report = Lifecycle.getInitializationReport();
+        assertEquals(6, report.getTasks().size());
+        assertEquals(Arrays.asList(before, a, b, d, after), report.getCriticalPath());
+        assertTrue(report.getWallTime() >= b.getWallTime());
+        String text = report.toString();
+        for (InitializationTask t : report.getTasks()) {
+            assertTrue(text, text.contains(t.getName()));
+        }
+    }
+
+    /**
+     * Unit test of {@link Lifecycle#initialize} with a failing parallel task.
+     */
+    @Test
+    public void testInitializeFailure() {
+        AtomicBoolean dependentRun = new AtomicBoolean();
+        AtomicBoolean independentRun = new AtomicBoolean();
+        InitializationTask failing = new InitializationTask("failing", () -> {
+            throw new IllegalStateException();
+        });
+        InitializationTask dependent = new InitializationTask("dependent", () -> dependentRun.set(true), failing);
+        InitializationTask independent = new InitializationTask("independent", () -> independentRun.set(true));
+        try {
+            Lifecycle.initialize(new InitializationSequence() {
+                @Override
+                public Collection<InitializationTask> parallelInitializationTasks() {
+                    return Arrays.asList(failing, dependent, independent);
+                }
+            });
+            fail("Expected JosmRuntimeException");
+        } catch (JosmRuntimeException e) {
+            assertFalse(dependentRun.get());
+            assertTrue(independentRun.get());
+        }
+    }
 }
@@ -0,0 +1,140 @@
+// License: GPL. For details, see LICENSE file.
+package org.openstreetmap.josm.tools;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.openstreetmap.josm.testutils.JOSMTestRules;
+import org.openstreetmap.josm.tools.ImageWarp.Interpolation;
+import org.openstreetmap.josm.tools.ImageWarp.PointTransform;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * Unit tests of {@link ImageWarp} class.
+ */
+public class ImageWarpTest {
+
+    /**
+     * Setup test.
+     */
+    @Rule
+    @SuppressFBWarnings(value = "URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
+    public JOSMTestRules test = new JOSMTestRules().preferences();
+
+    /** A rotation by 30° around the center of a 256x256 image, slightly scaled */
+    private static final PointTransform ROTATION = pt -> {
+        double x = pt.getX() - 128;
+        double y = pt.getY() - 128;
+        double cos = Math.cos(Math.PI / 6) * 0.9;
+        double sin = Math.sin(Math.PI / 6) * 0.9;
+        return new Point2D.Double(128 + x * cos - y * sin, 128 + x * sin + y * cos);
+    };
+
+    private static BufferedImage createImage(int type) {
+        Random random = new Random(42);
+        BufferedImage image = new BufferedImage(256, 256, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, type == BufferedImage.TYPE_INT_ARGB || type == BufferedImage.TYPE_4BYTE_ABGR
+                        ? random.nextInt() : random.nextInt() | 0xff000000);
+            }
+        }
+        return convert(image, type);
+    }
+
+    private static BufferedImage convert(BufferedImage image, int type) {
+        if (image.getType() == type) {
+            return image;
+        }
+        BufferedImage result = new BufferedImage(image.getWidth(), image.getHeight(), type);
+        Graphics2D g = result.createGraphics();
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+        return result;
+    }
+
+    private static int[] getRGB(BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+
+    /**
+     * Tests that the identity transformation gives the same image, with both interpolation methods.
+     */
+    @Test
+    public void testIdentity() {
+        BufferedImage image = createImage(BufferedImage.TYPE_INT_ARGB);
+        Dimension dim = new Dimension(256, 256);
+        for (Interpolation interpolation : Interpolation.values()) {
+            assertArrayEquals(getRGB(image), getRGB(ImageWarp.warp(image, dim, pt -> pt, interpolation)));
+        }
+    }
+
+    /**
+     * Tests the border strategy, the bilinear interpolation and the transparent pixels outside of the original image.
+     */
+    @Test
+    public void testInterpolation() {
+        BufferedImage image = new BufferedImage(2, 1, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(0, 0, 0xff000000);
+        image.setRGB(1, 0, 0xffc8a064);
+        PointTransform shift = pt -> new Point2D.Double(pt.getX() - 0.5, pt.getY());
+        Dimension dim = new Dimension(3, 1);
+        assertArrayEquals(new int[] {0, 0xff645032, 0xffc8a064},
+                getRGB(ImageWarp.warp(image, dim, shift, Interpolation.BILINEAR)));
+        assertArrayEquals(new int[] {0, 0xffc8a064, 0xffc8a064},
+                getRGB(ImageWarp.warp(image, dim, shift, Interpolation.NEAREST_NEIGHBOR)));
+    }
+
+    /**
+     * Tests that a {@link ImageWarp.TransformGrid} gives the same results as a {@link ImageWarp.GridTransform}.
+     */
+    @Test
+    public void testTransformGrid() {
+        Dimension dim = new Dimension(300, 200);
+        ImageWarp.TransformGrid grid = ImageWarp.TransformGrid.create(ROTATION, dim, 7);
+        ImageWarp.GridTransform gridTransform = new ImageWarp.GridTransform(ROTATION, 7);
+        for (int y = 0; y < dim.height; y += 3) {
+            for (int x = 0; x < dim.width; x += 5) {
+                Point2D pt = new Point2D.Double(x, y);
+                assertEquals(gridTransform.transform(pt), grid.transform(pt));
+            }
+        }
+        assertEquals(2 * 8 * 44 * 30, grid.getMemorySize());
+
+        BufferedImage image = createImage(BufferedImage.TYPE_INT_ARGB);
+        for (Interpolation interpolation : Interpolation.values()) {
+            int[] expected = getRGB(ImageWarp.warp(image, dim, new ImageWarp.GridTransform(ROTATION, 7), interpolation));
+            assertArrayEquals(expected, getRGB(ImageWarp.warp(image, dim, grid, interpolation)));
+        }
+    }
+
+    /**
+     * Tests that the pixels of the common image types are read like {@link BufferedImage#getRGB}.
+     */
+    @Test
+    public void testImageTypes() {
+        Dimension dim = new Dimension(200, 300);
+        for (int type : new int[] {BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR,
+                BufferedImage.TYPE_BYTE_GRAY, BufferedImage.TYPE_USHORT_565_RGB}) {
+            BufferedImage image = createImage(type);
+            BufferedImage reference = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
+            reference.setRGB(0, 0, image.getWidth(), image.getHeight(), getRGB(image), 0, image.getWidth());
+            for (Interpolation interpolation : Interpolation.values()) {
+                assertArrayEquals("type " + type, getRGB(ImageWarp.warp(reference, dim, ROTATION, interpolation)),
+                        getRGB(ImageWarp.warp(image, dim, ROTATION, interpolation)));
+            }
+            BufferedImage subimage = image.getSubimage(10, 20, 100, 80);
+            assertArrayEquals("subimage of type " + type, getRGB(subimage),
+                    getRGB(ImageWarp.warp(subimage, new Dimension(100, 80), pt -> pt, Interpolation.NEAREST_NEIGHBOR)));
+        }
+    }
+}
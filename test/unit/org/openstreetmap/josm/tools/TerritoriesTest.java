@@ -1,11 +1,22 @@
 // License: GPL. For details, see LICENSE file.
 package org.openstreetmap.josm.tools;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
 import org.junit.Rule;
 import org.junit.Test;
 import org.openstreetmap.josm.data.coor.LatLon;
+import org.openstreetmap.josm.spi.preferences.Config;
 import org.openstreetmap.josm.testutils.JOSMTestRules;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
@@ -44,4 +55,59 @@ public class TerritoriesTest {
             assertTrue(name + " " + e, Territories.isIso3166Code(e, ll));
         }
     }
+
+    private static Map<String, List<Boolean>> lookUpAll() {
+        Map<String, List<Boolean>> result = new TreeMap<>();
+        for (String code : Territories.getKnownIso3166Codes()) {
+            List<Boolean> values = new ArrayList<>();
+            for (double lat = -75; lat < 90; lat += 30) {
+                for (double lon = -165; lon < 180; lon += 30) {
+                    values.add(Territories.isIso3166Code(code, new LatLon(lat, lon)));
+                }
+            }
+            values.add(Territories.isIso3166Code(code, new LatLon(48.8567, 2.3508)));
+            values.add(Territories.isIso3166Code(code, new LatLon(-33.8688, 151.2093)));
+            result.put(code, values);
+        }
+        List<Boolean> traffic = new ArrayList<>();
+        for (double lat = -85; lat < 90; lat += 10) {
+            for (double lon = -175; lon < 180; lon += 10) {
+                traffic.add(RightAndLefthandTraffic.isRightHandTraffic(new LatLon(lat, lon)));
+            }
+        }
+        result.put("traffic", traffic);
+        return result;
+    }
+
+    /**
+     * Test that the boundaries read from the binary cache are the same as the computed ones, and that an invalid
+     * cache is rebuilt.
+     * @throws IOException if an I/O error occurs
+     */
+    @Test
+    public void testBoundariesCache() throws IOException {
+        File territories = new File(Config.getDirs().getCacheDirectory(true), "boundaries-territories.bin");
+        File traffic = new File(Config.getDirs().getCacheDirectory(true), "boundaries-lefthandtraffic.bin");
+        Utils.deleteFileIfExists(territories);
+        Utils.deleteFileIfExists(traffic);
+
+        Territories.initialize();
+        RightAndLefthandTraffic.initialize();
+        assertTrue(territories.isFile());
+        assertTrue(traffic.isFile());
+        File[] temporary = territories.getParentFile().listFiles((dir, name) -> name.startsWith("boundaries-") && name.endsWith(".tmp"));
+        assertEquals(0, temporary.length);
+        Map<String, List<Boolean>> computed = lookUpAll();
+        assertTrue(computed.get("traffic").contains(Boolean.FALSE));
+
+        Territories.initialize();
+        RightAndLefthandTraffic.initialize();
+        assertEquals(computed, lookUpAll());
+
+        Files.write(territories.toPath(), new byte[] {1, 2, 3});
+        Territories.initialize();
+        assertFalse(Territories.getKnownIso3166Codes().isEmpty());
+        assertTrue(territories.length() > 3);
+        check("Paris", new LatLon(48.8567, 2.3508), "EU", "FR", "FX");
+    }
 }